@@ -0,0 +1,158 @@
+package org.pm4j.common.cache;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A named, thread safe cache with an optional size limit and an optional time to live.
+ * <p>
+ * If the size limit is reached, the least recently used entry gets evicted.
+ * Entries that are older than the time to live get evicted on access.
+ * <p>
+ * The cache counts its evictions. The counter may be used to tune the cache
+ * configuration. Hits and misses are counted by the {@link CacheMetrics} of the
+ * cache users.
+ *
+ * @author olaf boede
+ */
+public class BoundedCache implements Serializable {
+
+  /** Serialization class version. Increment on member structure change. */
+  private static final long serialVersionUID = 1L;
+
+  /** The default maximum number of cache entries. */
+  public static final int DEFAULT_MAX_SIZE = 1000;
+
+  private final String name;
+  private final int maxSize;
+  private final long timeToLiveMillis;
+  private final Map<Object, CacheEntry> map;
+
+  private long evictionCount;
+
+  /**
+   * @param name
+   *          the cache name. Is used to identify the cache in reports.
+   * @param maxSize
+   *          the maximum number of entries. A value less or equal to zero means no size limit.
+   * @param timeToLiveMillis
+   *          the maximum age of an entry. A value less or equal to zero means no time limit.
+   */
+  public BoundedCache(String name, final int maxSize, long timeToLiveMillis) {
+    assert name != null;
+
+    this.name = name;
+    this.maxSize = maxSize;
+    this.timeToLiveMillis = timeToLiveMillis;
+    this.map = new LinkedHashMap<Object, CacheEntry>(16, .75F, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Object, CacheEntry> eldest) {
+        if (maxSize > 0 && size() > maxSize) {
+          ++evictionCount;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * @param key the entry key.
+   * @return the cached value or <code>null</code> if there is no (unexpired) value for the given key.
+   */
+  public synchronized Object get(Object key) {
+    CacheEntry e = map.get(key);
+    if (e != null && isExpired(e)) {
+      map.remove(key);
+      ++evictionCount;
+      e = null;
+    }
+    return (e != null) ? e.value : null;
+  }
+
+  /**
+   * @param key the entry key.
+   * @param value the value to cache. A <code>null</code> value removes the entry.
+   */
+  public synchronized void put(Object key, Object value) {
+    if (value == null) {
+      map.remove(key);
+    } else {
+      map.put(key, new CacheEntry(value, currentTimeMillis()));
+    }
+  }
+
+  /**
+   * @param key the key of the entry to remove.
+   */
+  public synchronized void remove(Object key) {
+    map.remove(key);
+  }
+
+  /**
+   * Removes all entries. Does not reset the counters.
+   */
+  public synchronized void clear() {
+    map.clear();
+  }
+
+  /**
+   * Removes all expired entries.
+   */
+  public synchronized void evictExpiredEntries() {
+    if (timeToLiveMillis > 0) {
+      for (Iterator<CacheEntry> it = map.values().iterator(); it.hasNext(); ) {
+        if (isExpired(it.next())) {
+          it.remove();
+          ++evictionCount;
+        }
+      }
+    }
+  }
+
+  /** @return the current number of entries. May contain expired entries. */
+  public synchronized int size() {
+    return map.size();
+  }
+
+  public String getName() { return name; }
+  public int getMaxSize() { return maxSize; }
+  public long getTimeToLiveMillis() { return timeToLiveMillis; }
+  public synchronized long getEvictionCount() { return evictionCount; }
+
+  @Override
+  public synchronized String toString() {
+    return "BoundedCache " + name + ": size=" + map.size() + " evictions=" + evictionCount;
+  }
+
+  /**
+   * The time source used for the time to live check.
+   *
+   * @return the current time in milliseconds.
+   */
+  protected long currentTimeMillis() {
+    return System.currentTimeMillis();
+  }
+
+  private boolean isExpired(CacheEntry e) {
+    return (timeToLiveMillis > 0) &&
+           (currentTimeMillis() - e.creationTime > timeToLiveMillis);
+  }
+
+  static final class CacheEntry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final Object value;
+    final long creationTime;
+
+    CacheEntry(Object value, long creationTime) {
+      this.value = value;
+      this.creationTime = creationTime;
+    }
+  }
+
+}
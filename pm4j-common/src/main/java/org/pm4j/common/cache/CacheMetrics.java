@@ -0,0 +1,115 @@
+package org.pm4j.common.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Usage counters for a single cache.
+ * <p>
+ * The counters are cheap enough to be always switched on: Each counter is striped over
+ * several cells. Concurrent threads usually update different cells and don't
+ * compete for the same memory location.
+ *
+ * @author olaf boede
+ */
+public class CacheMetrics {
+
+  private final String name;
+  private final StripedCounter hits = new StripedCounter();
+  private final StripedCounter misses = new StripedCounter();
+  private final StripedCounter inits = new StripedCounter();
+  private final StripedCounter initNanos = new StripedCounter();
+
+  /**
+   * @param name the name that identifies the cache within a report.
+   */
+  public CacheMetrics(String name) {
+    assert name != null;
+    this.name = name;
+  }
+
+  /** Counts a successful cache read. */
+  public void countHit() {
+    hits.increment();
+  }
+
+  /** Counts a cache read that found no value. */
+  public void countMiss() {
+    misses.increment();
+  }
+
+  /**
+   * Counts a cache value initialization.
+   *
+   * @param recomputeNanos the time needed to compute the value. Is <code>0</code> if unknown.
+   */
+  public void countInit(long recomputeNanos) {
+    inits.increment();
+    if (recomputeNanos > 0) {
+      initNanos.add(recomputeNanos);
+    }
+  }
+
+  /** Resets all counters to zero. */
+  public void reset() {
+    hits.reset();
+    misses.reset();
+    inits.reset();
+    initNanos.reset();
+  }
+
+  public String getName() { return name; }
+  public long getHitCount() { return hits.sum(); }
+  public long getMissCount() { return misses.sum(); }
+  public long getInitCount() { return inits.sum(); }
+  /** @return the sum of all measured recompute times in milliseconds. */
+  public long getRecomputeMillis() { return initNanos.sum() / 1000000L; }
+
+  /**
+   * @return the ratio of hits to all reads. Is <code>0</code> if there was no read.
+   */
+  public double getHitRatio() {
+    long h = getHitCount();
+    long all = h + getMissCount();
+    return (all > 0) ? (double) h / all : 0;
+  }
+
+  @Override
+  public String toString() {
+    return name + ": hits=" + getHitCount() + " misses=" + getMissCount() +
+           " inits=" + getInitCount() + " recomputeMillis=" + getRecomputeMillis();
+  }
+
+  /**
+   * A long counter that distributes the updates of concurrent threads over several cells.
+   */
+  static final class StripedCounter {
+    private static final int STRIPES = 8;
+    /** Distance between two used cells. Prevents false sharing of cache lines. */
+    private static final int PADDING = 8;
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    void increment() {
+      add(1);
+    }
+
+    void add(long x) {
+      int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+      cells.addAndGet(stripe * PADDING, x);
+    }
+
+    long sum() {
+      long sum = 0;
+      for (int i = 0; i < STRIPES; ++i) {
+        sum += cells.get(i * PADDING);
+      }
+      return sum;
+    }
+
+    void reset() {
+      for (int i = 0; i < STRIPES; ++i) {
+        cells.set(i * PADDING, 0);
+      }
+    }
+  }
+
+}
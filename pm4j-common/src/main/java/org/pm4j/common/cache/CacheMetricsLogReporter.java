@@ -0,0 +1,28 @@
+package org.pm4j.common.cache;
+
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Writes the metrics of all used caches to the log.
+ *
+ * @author olaf boede
+ */
+public class CacheMetricsLogReporter implements CacheMetricsReporter {
+
+  private static final Log LOG = LogFactory.getLog(CacheMetricsLogReporter.class);
+
+  @Override
+  public void report(List<CacheMetrics> metrics) {
+    if (LOG.isInfoEnabled()) {
+      for (CacheMetrics m : metrics) {
+        if (m.getHitCount() + m.getMissCount() > 0) {
+          LOG.info(m + " hitRatio=" + Math.round(m.getHitRatio() * 100) + "%");
+        }
+      }
+    }
+  }
+
+}
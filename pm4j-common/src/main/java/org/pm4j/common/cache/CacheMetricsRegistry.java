@@ -0,0 +1,133 @@
+package org.pm4j.common.cache;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A registry for the {@link CacheMetrics} of all caches of an application.
+ * <p>
+ * The collected data may be published using {@link CacheMetricsReporter}s or JMX.
+ *
+ * @author olaf boede
+ */
+public class CacheMetricsRegistry implements CacheMetricsRegistryMBean {
+
+  /** The default JMX name used by {@link #registerMBean()}. */
+  public static final String DEFAULT_OBJECT_NAME = "org.pm4j:type=CacheMetrics";
+
+  /** The application wide registry. */
+  public static final CacheMetricsRegistry INSTANCE = new CacheMetricsRegistry();
+
+  private static final Log LOG = LogFactory.getLog(CacheMetricsRegistry.class);
+
+  private final ConcurrentMap<String, CacheMetrics> nameToMetricsMap = new ConcurrentHashMap<String, CacheMetrics>();
+  private final List<CacheMetricsReporter> reporters = new CopyOnWriteArrayList<CacheMetricsReporter>();
+
+  /**
+   * Provides the metrics for the given name. Creates them on first request.
+   *
+   * @param name the cache name.
+   * @return the metrics. Never <code>null</code>.
+   */
+  public CacheMetrics getMetrics(String name) {
+    CacheMetrics m = nameToMetricsMap.get(name);
+    if (m == null) {
+      CacheMetrics newMetrics = new CacheMetrics(name);
+      m = nameToMetricsMap.putIfAbsent(name, newMetrics);
+      if (m == null) {
+        m = newMetrics;
+      }
+    }
+    return m;
+  }
+
+  /**
+   * @return the metrics of all registered caches, sorted by name.
+   */
+  public List<CacheMetrics> getAllMetrics() {
+    List<CacheMetrics> list = new ArrayList<CacheMetrics>(nameToMetricsMap.values());
+    Collections.sort(list, new Comparator<CacheMetrics>() {
+      @Override
+      public int compare(CacheMetrics o1, CacheMetrics o2) {
+        return o1.getName().compareTo(o2.getName());
+      }
+    });
+    return list;
+  }
+
+  /**
+   * @param reporter a reporter to be called by {@link #report()}.
+   */
+  public void addReporter(CacheMetricsReporter reporter) {
+    assert reporter != null;
+    reporters.add(reporter);
+  }
+
+  /**
+   * @param reporter the reporter to remove.
+   */
+  public void removeReporter(CacheMetricsReporter reporter) {
+    reporters.remove(reporter);
+  }
+
+  /**
+   * Passes the current metrics to all registered reporters.<br>
+   * May be called periodically by the application.
+   */
+  public void report() {
+    List<CacheMetrics> metrics = getAllMetrics();
+    for (CacheMetricsReporter r : reporters) {
+      r.report(metrics);
+    }
+  }
+
+  /**
+   * Registers this registry at the platform MBean server using the name {@link #DEFAULT_OBJECT_NAME}.
+   */
+  public void registerMBean() {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(DEFAULT_OBJECT_NAME);
+      if (!server.isRegistered(name)) {
+        server.registerMBean(this, name);
+      }
+    } catch (Exception e) {
+      LOG.warn("Unable to register the cache metrics MBean.", e);
+    }
+  }
+
+  @Override
+  public int getCacheCount() {
+    return nameToMetricsMap.size();
+  }
+
+  @Override
+  public String[] getCacheReport() {
+    List<CacheMetrics> metrics = getAllMetrics();
+    String[] lines = new String[metrics.size()];
+    for (int i = 0; i < lines.length; ++i) {
+      lines[i] = metrics.get(i).toString();
+    }
+    return lines;
+  }
+
+  @Override
+  public void resetCounters() {
+    for (CacheMetrics m : nameToMetricsMap.values()) {
+      m.reset();
+    }
+  }
+
+}
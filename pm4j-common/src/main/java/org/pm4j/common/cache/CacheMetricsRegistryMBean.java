@@ -0,0 +1,19 @@
+package org.pm4j.common.cache;
+
+/**
+ * JMX interface of the {@link CacheMetricsRegistry}.
+ *
+ * @author olaf boede
+ */
+public interface CacheMetricsRegistryMBean {
+
+  /** @return the number of registered caches. */
+  int getCacheCount();
+
+  /** @return a line per registered cache, containing the cache name and its counters. */
+  String[] getCacheReport();
+
+  /** Resets the counters of all registered caches. */
+  void resetCounters();
+
+}
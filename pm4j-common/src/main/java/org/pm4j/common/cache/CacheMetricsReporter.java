@@ -0,0 +1,17 @@
+package org.pm4j.common.cache;
+
+import java.util.List;
+
+/**
+ * Interface for components that publish the {@link CacheMetrics} of a {@link CacheMetricsRegistry}.
+ *
+ * @author olaf boede
+ */
+public interface CacheMetricsReporter {
+
+  /**
+   * @param metrics the metrics of all registered caches. Sorted by name.
+   */
+  void report(List<CacheMetrics> metrics);
+
+}
@@ -11,7 +11,7 @@ public final class CacheStrategyNoCache implements CacheStrategy {
   }
 
   @Override
-  public Object setAndReturnCachedValue(Object ctxt, Object value) {
+  public <T> T setAndReturnCachedValue(Object ctxt, T value) {
     return value;
   }
 
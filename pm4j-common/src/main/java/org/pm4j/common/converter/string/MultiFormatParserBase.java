@@ -13,6 +13,10 @@ import org.apache.commons.logging.LogFactory;
  * Base implementation to be used by converters to support parsing of multiple input formats.
  * <p>
  * The input formats will be checked one-by-one, the first matching format will be used.
+ * <p>
+ * Formats that can't match the input string because of a cheap shape check
+ * (see {@link #isApplicable(StringConverterCtxt, String, String)}) will be skipped
+ * without trying to parse the string.
  *
  * @author Harm Gnoyke
  *
@@ -39,6 +43,13 @@ public abstract class MultiFormatParserBase<T> {
     ParseException lastFormatParseException = null;
 
     for (String format : parseFormats) {
+      if (!isApplicable(ctxt, s, format)) {
+        if (LOG.isTraceEnabled()) {
+          LOG.trace("Format '" + format + "' does not match the shape of value '" + s + "'. Context: " + ctxt);
+        }
+        continue;
+      }
+
       try {
         return parseValue(ctxt, s, format);
       } catch (ParseException e) {
@@ -70,4 +81,23 @@ public abstract class MultiFormatParserBase<T> {
    */
   protected abstract T parseValue(StringConverterCtxt ctxt, String s, String format) throws ParseException;
 
+  /**
+   * A cheap pre-check that gets called before
+   * {@link #parseValue(StringConverterCtxt, String, String)} gets called for a format.
+   * <p>
+   * Implementations may check the input for characters that can't be handled by
+   * the given format. This way formats that can't match get skipped without
+   * running into a {@link ParseException}.
+   * <p>
+   * The default implementation returns always <code>true</code>.
+   *
+   * @param ctxt The converter context.
+   * @param s The String to parse.
+   * @param format The format to check.
+   * @return <code>false</code> if the format can't match the given string.
+   */
+  protected boolean isApplicable(StringConverterCtxt ctxt, String s, String format) {
+    return true;
+  }
+
 }
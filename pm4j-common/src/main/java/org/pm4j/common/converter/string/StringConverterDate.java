@@ -8,11 +8,29 @@ import java.util.TimeZone;
 
 import org.apache.commons.lang.time.FastDateFormat;
 
-/** A date string converter with multi format support. */
+/**
+ * A date string converter with multi format support.
+ * <p>
+ * The compiled date parsers get cached per thread, format, locale and time zone.
+ * Formats that consist only of numeric fields get skipped without parsing if
+ * the separator characters of the input don't match the format.
+ */
 public class StringConverterDate extends StringConverterBase<Date, StringConverterCtxt> {
 
   public static final StringConverterDate INSTANCE = new StringConverterDate();
 
+  /** Date pattern letters of fields that get parsed as numbers. 'M' and 'L' are only numeric if used less than three times. */
+  private static final String NUMERIC_PATTERN_LETTERS = "yYdHhkKmsSDFwWuML";
+
+  private boolean parserCacheEnabled = true;
+
+  private final ThreadLocalFormatCache<DateParser> parserCache = new ThreadLocalFormatCache<DateParser>("pm.converter.dateParser") {
+    @Override
+    protected DateParser create(StringConverterCtxt ctxt, String format) {
+      return new DateParser(makeDateFormat(ctxt, format), getNumericPatternLiterals(format));
+    }
+  };
+
   /**
    * Implementation of converter capable of handling multiple input formats.
    */
@@ -20,17 +38,28 @@ public class StringConverterDate extends StringConverterBase<Date, StringConvert
 
     @Override
     protected Date parseValue(StringConverterCtxt ctxt, String s, String format) throws ParseException {
-      SimpleDateFormat sdf = new SimpleDateFormat(format, ctxt.getConverterCtxtLocale());
-      sdf.setTimeZone(ctxt.getConverterCtxtTimeZone());
-
-      // We currently not support partial dates.
-      // The multi-format feature is currently sufficient.
-      // But in future that may be configurable.
-      sdf.setLenient(false);
+      SimpleDateFormat sdf = parserCacheEnabled
+          ? getParser(ctxt, format).dateFormat
+          : makeDateFormat(ctxt, format);
       return sdf.parse(s);
     }
+
+    @Override
+    protected boolean isApplicable(StringConverterCtxt ctxt, String s, String format) {
+      return !parserCacheEnabled || getParser(ctxt, format).matchesShape(s);
+    }
   };
 
+  /**
+   * @param parserCacheEnabled
+   *          <code>true</code> (the default) if the date parsers should be
+   *          cached and re-used within the current thread.<br>
+   *          <code>false</code> creates a new parser for each parse operation.
+   */
+  public void setParserCacheEnabled(boolean parserCacheEnabled) {
+    this.parserCacheEnabled = parserCacheEnabled;
+  }
+
   @Override
   protected Date stringToValueImpl(StringConverterCtxt ctxt, String s) throws ParseException {
     return (s != null && !s.isEmpty())
@@ -48,4 +77,121 @@ public class StringConverterDate extends StringConverterBase<Date, StringConvert
     Locale locale = ctxt.getConverterCtxtLocale();
     return FastDateFormat.getInstance(outputFormat, timeZone, locale).format(value);
   }
+
+  /**
+   * Creates the date format used to parse the input.
+   *
+   * @param ctxt The converter context. Provides the locale and time zone.
+   * @param format The format string.
+   * @return A new date format instance.
+   */
+  protected SimpleDateFormat makeDateFormat(StringConverterCtxt ctxt, String format) {
+    SimpleDateFormat sdf = new SimpleDateFormat(format, ctxt.getConverterCtxtLocale());
+    sdf.setTimeZone(ctxt.getConverterCtxtTimeZone());
+
+    // We currently not support partial dates.
+    // The multi-format feature is currently sufficient.
+    // But in future that may be configurable.
+    sdf.setLenient(false);
+    return sdf;
+  }
+
+  private DateParser getParser(StringConverterCtxt ctxt, String format) {
+    return parserCache.get(ctxt, format, ctxt.getConverterCtxtTimeZone());
+  }
+
+  /**
+   * Provides the sequence of literal characters of a date pattern that consists only
+   * of numeric fields.
+   *
+   * @param pattern The date pattern.
+   * @return The literal characters without white spaces. <code>null</code> if
+   *         the pattern contains a text field, such as a month or day name, or
+   *         a literal digit.
+   */
+  static String getNumericPatternLiterals(String pattern) {
+    StringBuilder sb = new StringBuilder();
+    boolean inQuote = false;
+    int len = pattern.length();
+    for (int i = 0; i < len; ++i) {
+      char c = pattern.charAt(i);
+      if (c == '\'') {
+        // Two single quotes are an escaped quote character.
+        if (i + 1 < len && pattern.charAt(i + 1) == '\'') {
+          sb.append(c);
+          ++i;
+        } else {
+          inQuote = !inQuote;
+        }
+      } else if (inQuote) {
+        if (!Character.isWhitespace(c)) {
+          sb.append(c);
+        }
+      } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+        int count = 1;
+        while (i + 1 < len && pattern.charAt(i + 1) == c) {
+          ++count;
+          ++i;
+        }
+        if (NUMERIC_PATTERN_LETTERS.indexOf(c) == -1 ||
+            ((c == 'M' || c == 'L') && count > 2)) {
+          return null;
+        }
+      } else if (!Character.isWhitespace(c)) {
+        sb.append(c);
+      }
+    }
+
+    // Literal digits can't be distinguished from field values.
+    for (int i = 0; i < sb.length(); ++i) {
+      if (Character.isDigit(sb.charAt(i))) {
+        return null;
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * A cached, thread confined date parser.
+   */
+  static final class DateParser {
+    final SimpleDateFormat dateFormat;
+    /** The literal characters of a pattern with numeric fields only. <code>null</code> for other patterns. */
+    final String numericPatternLiterals;
+
+    DateParser(SimpleDateFormat dateFormat, String numericPatternLiterals) {
+      this.dateFormat = dateFormat;
+      this.numericPatternLiterals = numericPatternLiterals;
+    }
+
+    /**
+     * Checks if the separator characters of the given string start with the
+     * literal characters of a numeric date pattern.
+     * <p>
+     * Digits and white spaces will be ignored. Sign characters will be
+     * ignored if they are not expected as separator.<br>
+     * Trailing characters will not be checked, because {@link SimpleDateFormat}
+     * ignores them too.
+     *
+     * @param s The string to check.
+     * @return <code>false</code> if the string can't match the date pattern.
+     */
+    boolean matchesShape(String s) {
+      if (numericPatternLiterals == null) {
+        return true;
+      }
+
+      int literalIdx = 0;
+      int literalCount = numericPatternLiterals.length();
+      for (int i = 0; i < s.length() && literalIdx < literalCount; ++i) {
+        char c = s.charAt(i);
+        if (c == numericPatternLiterals.charAt(literalIdx)) {
+          ++literalIdx;
+        } else if (!Character.isDigit(c) && !Character.isWhitespace(c) && c != '-' && c != '+') {
+          return false;
+        }
+      }
+      return literalIdx == literalCount;
+    }
+  }
 }
\ No newline at end of file
@@ -14,6 +14,10 @@ import org.pm4j.common.converter.value.ValueConverterCtxtNumber;
 
 /**
  * Base class for number type converters.
+ * <p>
+ * The number formats provided by {@link #getNumberFormat(StringConverterCtxt, String)}
+ * get cached per thread, format, locale and rounding mode. Formats that can't
+ * handle the characters of an input string get skipped without parsing.
  *
  * @param <T> The concrete {@link Number} type to convert.
  *
@@ -23,6 +27,15 @@ public class StringConverterNumber<T extends Number> extends StringConverterBase
 
   private final Constructor<T> numberCtor;
 
+  private boolean formatCacheEnabled = true;
+
+  private final ThreadLocalFormatCache<NumberParser> formatCache = new ThreadLocalFormatCache<NumberParser>("pm.converter.numberFormat") {
+    @Override
+    protected NumberParser create(StringConverterCtxt ctxt, String format) {
+      return new NumberParser(getNumberFormat(ctxt, format));
+    }
+  };
+
   public StringConverterNumber(Class<T> numberClass) {
         try {
           numberCtor = numberClass.getConstructor(String.class);
@@ -59,7 +72,7 @@ public class StringConverterNumber<T extends Number> extends StringConverterBase
     String outputFormatString = null;
     try {
       outputFormatString = StringConverterUtil.getOutputFormat(ctxt);
-      NumberFormat format = getNumberFormat(ctxt, outputFormatString);
+      NumberFormat format = getCachedNumberFormat(ctxt, outputFormatString);
       return format.format(v);
     }
     catch (Exception e) {
@@ -86,6 +99,28 @@ public class StringConverterNumber<T extends Number> extends StringConverterBase
     return nf;
   }
 
+  /**
+   * @param formatCacheEnabled
+   *          <code>true</code> (the default) if the number formats should be
+   *          cached and re-used within the current thread.<br>
+   *          Should be switched off if an overridden
+   *          {@link #getNumberFormat(StringConverterCtxt, String)} considers
+   *          more context information than the locale and the rounding mode.
+   */
+  public void setFormatCacheEnabled(boolean formatCacheEnabled) {
+    this.formatCacheEnabled = formatCacheEnabled;
+  }
+
+  private NumberFormat getCachedNumberFormat(StringConverterCtxt ctxt, String formatString) {
+    return formatCacheEnabled
+        ? getParser(ctxt, formatString).numberFormat
+        : getNumberFormat(ctxt, formatString);
+  }
+
+  private NumberParser getParser(StringConverterCtxt ctxt, String formatString) {
+    return formatCache.get(ctxt, formatString, getRoundingMode(ctxt));
+  }
+
   protected RoundingMode getRoundingMode(StringConverterCtxt ctxt) {
     return (ctxt instanceof ValueConverterCtxtNumber)
         ? ((ValueConverterCtxtNumber)ctxt).getConverterCtxtRoundingMode()
@@ -101,7 +136,7 @@ public class StringConverterNumber<T extends Number> extends StringConverterBase
     @SuppressWarnings("unchecked")
     @Override
     protected T parseValue(StringConverterCtxt ctxt, String s, String format) throws ParseException {
-      NumberFormat nf = getNumberFormat(ctxt, format);
+      NumberFormat nf = getCachedNumberFormat(ctxt, format);
       if(nf instanceof DecimalFormat) {
         DecimalFormat decimalFormat = (DecimalFormat) nf;
         ParsePosition parsePosition = new ParsePosition(0);
@@ -123,7 +158,64 @@ public class StringConverterNumber<T extends Number> extends StringConverterBase
       }
 
     }
+
+    @Override
+    protected boolean isApplicable(StringConverterCtxt ctxt, String s, String format) {
+      return !formatCacheEnabled || getParser(ctxt, format).matchesShape(s);
+    }
   };
 
+  /**
+   * A cached, thread confined number format.
+   */
+  static final class NumberParser {
+    final NumberFormat numberFormat;
+    /** The non-digit characters a {@link DecimalFormat} may parse. <code>null</code> for other formats. */
+    final String acceptedChars;
+
+    NumberParser(NumberFormat numberFormat) {
+      this.numberFormat = numberFormat;
+      this.acceptedChars = (numberFormat instanceof DecimalFormat)
+          ? getAcceptedChars((DecimalFormat) numberFormat)
+          : null;
+    }
+
+    /**
+     * @param s The string to check.
+     * @return <code>false</code> if the string contains a character that can't be parsed by the format.
+     */
+    boolean matchesShape(String s) {
+      if (acceptedChars == null) {
+        return true;
+      }
+      for (int i = 0; i < s.length(); ++i) {
+        char c = s.charAt(i);
+        if (!Character.isDigit(c) && !Character.isWhitespace(c) && acceptedChars.indexOf(c) == -1) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static String getAcceptedChars(DecimalFormat df) {
+      DecimalFormatSymbols symbols = df.getDecimalFormatSymbols();
+      StringBuilder sb = new StringBuilder("+-");
+      sb.append(symbols.getDecimalSeparator())
+        .append(symbols.getMonetaryDecimalSeparator())
+        .append(symbols.getGroupingSeparator())
+        .append(symbols.getMinusSign())
+        .append(symbols.getPercent())
+        .append(symbols.getPerMill())
+        .append(symbols.getExponentSeparator())
+        .append(symbols.getInfinity())
+        .append(symbols.getNaN())
+        .append(df.getPositivePrefix())
+        .append(df.getPositiveSuffix())
+        .append(df.getNegativePrefix())
+        .append(df.getNegativeSuffix());
+      return sb.toString();
+    }
+  }
+
 
 }
@@ -0,0 +1,128 @@
+package org.pm4j.common.converter.string;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.pm4j.common.cache.CacheMetrics;
+import org.pm4j.common.cache.CacheMetricsRegistry;
+
+/**
+ * A cache for compiled format instances that are not thread safe, such as
+ * {@link java.text.SimpleDateFormat} and {@link java.text.DecimalFormat}.
+ * <p>
+ * Each thread uses its own set of format instances. Thus the cached instances
+ * can be used without synchronization.<br>
+ * The instances are identified by their format string, locale and an
+ * additional format attribute, such as the time zone.<br>
+ * The least recently used instance gets removed if the maximum number of
+ * instances per thread is reached.
+ * <p>
+ * The hit rate gets reported by the {@link CacheMetrics} registered in
+ * {@link CacheMetricsRegistry#INSTANCE}.
+ *
+ * @param <F> type of the cached format item.
+ *
+ * @author olaf boede
+ */
+abstract class ThreadLocalFormatCache<F> {
+
+  /** The maximum number of cached format instances per thread. */
+  static final int MAX_FORMATS_PER_THREAD = 64;
+
+  private final CacheMetrics metrics;
+
+  private final ThreadLocal<Map<Key, F>> threadFormats = new ThreadLocal<Map<Key, F>>() {
+    @Override
+    protected Map<Key, F> initialValue() {
+      return new LinkedHashMap<Key, F>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, F> eldest) {
+          return size() > MAX_FORMATS_PER_THREAD;
+        }
+      };
+    }
+  };
+
+  /**
+   * @param name the cache name used for the metrics report.
+   */
+  ThreadLocalFormatCache(String name) {
+    this.metrics = CacheMetricsRegistry.INSTANCE.getMetrics(name);
+  }
+
+  /**
+   * Provides the format item of the current thread.<br>
+   * Creates it only if it is not yet cached.
+   *
+   * @param ctxt the converter context. Provides the locale.
+   * @param format the format string.
+   * @param attribute an additional format attribute, such as the time zone. May be <code>null</code>.
+   * @return the format item. Never <code>null</code>.
+   */
+  F get(StringConverterCtxt ctxt, String format, Object attribute) {
+    Map<Key, F> map = threadFormats.get();
+    Key key = new Key(format, ctxt.getConverterCtxtLocale(), attribute);
+    F f = map.get(key);
+    if (f != null) {
+      metrics.countHit();
+      return f;
+    }
+
+    metrics.countMiss();
+    long startNanos = System.nanoTime();
+    f = create(ctxt, format);
+    metrics.countInit(System.nanoTime() - startNanos);
+    map.put(key, f);
+    return f;
+  }
+
+  /**
+   * Creates the format item.
+   *
+   * @param ctxt the converter context.
+   * @param format the format string.
+   * @return the new format item. Never <code>null</code>.
+   */
+  protected abstract F create(StringConverterCtxt ctxt, String format);
+
+  /** @return the hit and miss counters. */
+  CacheMetrics getMetrics() {
+    return metrics;
+  }
+
+  /** Cache key: format string, locale and format attribute. */
+  static final class Key {
+    private final String format;
+    private final Locale locale;
+    private final Object attribute;
+    private final int hashCode;
+
+    Key(String format, Locale locale, Object attribute) {
+      this.format = format;
+      this.locale = locale;
+      this.attribute = attribute;
+      this.hashCode = (ObjectUtils.hashCode(format) * 31 + ObjectUtils.hashCode(locale)) * 31 + ObjectUtils.hashCode(attribute);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return ObjectUtils.equals(format, other.format) &&
+             ObjectUtils.equals(locale, other.locale) &&
+             ObjectUtils.equals(attribute, other.attribute);
+    }
+  }
+
+}
@@ -3,7 +3,7 @@ package org.pm4j.common.expr;
 import org.pm4j.common.expr.NameWithModifier.Modifier;
 import org.pm4j.common.expr.parser.ParseCtxt;
 import org.pm4j.common.util.reflection.BeanAttrAccessor;
-import org.pm4j.common.util.reflection.BeanAttrAccessorImpl;
+import org.pm4j.common.util.reflection.BeanAttrUtil;
 import org.pm4j.common.util.reflection.ReflectionException;
 
 /**
@@ -13,11 +13,15 @@ import org.pm4j.common.util.reflection.ReflectionException;
  */
 public class AttributeExpr extends OptionalExpressionBase<ExprExecCtxt> {
 
-  private BeanAttrAccessor accessor;
+  /**
+   * The accessor for the class of the last handled object.<br>
+   * Gets resolved lazily. Volatile because path expressions may be shared by several threads.
+   */
+  private volatile AccessorBinding accessorBinding;
 
   public AttributeExpr(ParseCtxt ctxt, NameWithModifier name, BeanAttrAccessor accessor) {
     this(ctxt, name);
-    this.accessor = accessor;
+    this.accessorBinding = new AccessorBinding(null, accessor);
   }
 
   public AttributeExpr(ParseCtxt ctxt, NameWithModifier name) {
@@ -26,7 +30,7 @@ public class AttributeExpr extends OptionalExpressionBase<ExprExecCtxt> {
 
   public AttributeExpr(SyntaxVersion syntaxVersion, NameWithModifier name, BeanAttrAccessor accessor) {
     this(syntaxVersion, name);
-    this.accessor = accessor;
+    this.accessorBinding = new AccessorBinding(null, accessor);
   }
 
   public AttributeExpr(SyntaxVersion syntaxVersion, NameWithModifier name) {
@@ -59,10 +63,18 @@ public class AttributeExpr extends OptionalExpressionBase<ExprExecCtxt> {
   }
 
   private BeanAttrAccessor ensureAccessor(ExprExecCtxt ctxt) {
-    // FIXME: check in addition the used class of the accessor!
-    if (accessor == null) {
+    AccessorBinding binding = accessorBinding;
+    Object currentValue = ctxt.getCurrentValue();
+    Class<?> currentClass = (currentValue != null) ? currentValue.getClass() : null;
+
+    // The accessor gets bound once for each handled class. A shared expression may
+    // get applied to objects of different classes.
+    if (binding == null ||
+        (binding.beanClass != null && binding.beanClass != currentClass && currentClass != null)) {
       try {
-        accessor = new BeanAttrAccessorImpl(ctxt.getCurrentValue().getClass(), nameWithModifier.getName());
+        BeanAttrAccessor accessor = BeanAttrUtil.getAccessor(currentClass, nameWithModifier.getName());
+        binding = new AccessorBinding(currentClass, accessor);
+        accessorBinding = binding;
       } catch (ReflectionException e) {
     	// Property does not exist. Check if that's ok.
     	// Consider the old meaning of 'o' which also worked like an 'x'.
@@ -78,7 +90,7 @@ public class AttributeExpr extends OptionalExpressionBase<ExprExecCtxt> {
         return null;
       }
     }
-    return accessor;
+    return binding.accessor;
   }
 
   public static AttributeExpr parse(ParseCtxt ctxt) {
@@ -86,4 +98,16 @@ public class AttributeExpr extends OptionalExpressionBase<ExprExecCtxt> {
     return (n != null) ? new AttributeExpr(ctxt, n) : null;
   }
 
+  /** An accessor together with the class it was resolved for. */
+  private static final class AccessorBinding {
+    /** Is <code>null</code> for an accessor that was explicitly provided on construction. */
+    final Class<?> beanClass;
+    final BeanAttrAccessor accessor;
+
+    AccessorBinding(Class<?> beanClass, BeanAttrAccessor accessor) {
+      this.beanClass = beanClass;
+      this.accessor = accessor;
+    }
+  }
+
 }
@@ -0,0 +1,62 @@
+package org.pm4j.common.pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.pm4j.common.util.collection.PagedCollectionCacheBase;
+
+/**
+ * A page cache for the items of a {@link PageableCollection}.
+ * <p>
+ * Allows views that present all items of a large collection (e.g. virtual
+ * tables) to read only the items that get displayed.
+ * <p>
+ * The cache uses the paging of the given collection to read the items. It
+ * changes the page size and page index of the collection. The collection
+ * should therefore not be shared with a pager.
+ * <p>
+ * The cache does not observe the collection. Its owner needs to call
+ * {@link #clear()} if the collection content changes.
+ *
+ * @param <T> the type of collection items.
+ *
+ * @author olaf boede
+ */
+public class PageableCollectionCache<T> extends PagedCollectionCacheBase<T> {
+
+  private final PageableCollection<T> pageableCollection;
+
+  /**
+   * @param pageableCollection the collection that provides the items.
+   * @param pageSize the number of items to read with a single collection page access.
+   * @param maxCachedPages the maximum number of pages to hold in the cache.
+   */
+  public PageableCollectionCache(PageableCollection<T> pageableCollection, int pageSize, int maxCachedPages) {
+    super(pageSize, maxCachedPages);
+    assert pageableCollection != null;
+    this.pageableCollection = pageableCollection;
+  }
+
+  /**
+   * @return the collection that provides the items.
+   */
+  public PageableCollection<T> getPageableCollection() {
+    return pageableCollection;
+  }
+
+  @Override
+  protected List<T> getPageItems(long pageStartPos, int pageSize) {
+    if (pageableCollection.getPageSize() != pageSize) {
+      pageableCollection.setPageSize(pageSize);
+    }
+    pageableCollection.setPageIdx(pageStartPos / pageSize);
+    // A copy, because the page list of some collections gets re-used.
+    return new ArrayList<T>(pageableCollection.getItemsOnPage());
+  }
+
+  @Override
+  protected long getTotalSize() {
+    return pageableCollection.getNumOfItems();
+  }
+
+}
@@ -9,6 +9,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -20,10 +21,13 @@ import org.pm4j.common.modifications.ModificationsImpl;
 import org.pm4j.common.pageable.PageableCollection;
 import org.pm4j.common.pageable.PageableCollectionBase;
 import org.pm4j.common.pageable.PageableCollectionUtil;
+import org.pm4j.common.query.QueryAttr;
 import org.pm4j.common.query.QueryExpr;
 import org.pm4j.common.query.QueryOptions;
 import org.pm4j.common.query.QueryParams;
+import org.pm4j.common.query.inmem.InMemColumnStore;
 import org.pm4j.common.query.inmem.InMemQueryEvaluator;
+import org.pm4j.common.query.inmem.InMemTrigramIndex;
 import org.pm4j.common.selection.ItemSetSelection;
 import org.pm4j.common.selection.Selection;
 import org.pm4j.common.selection.SelectionHandler;
@@ -44,6 +48,13 @@ public abstract class InMemCollectionBase<T_ITEM>
   extends PageableCollectionBase<T_ITEM>
   implements InMemCollection<T_ITEM> {
 
+  /**
+   * Gets fired when the result of {@link #hasQueryIndex()} changes.<br>
+   * Observers that report item changes need to report each item value change while there is a query index.<br>
+   * See also: {@link #setUseColumnStore(boolean)} and {@link #addTrigramIndex(QueryAttr)}.
+   */
+  public static final String PROP_HAS_QUERY_INDEX = "inmem.has-query-index";
+
   /** The collection type specific selection handler. */
   private final SelectionHandler<T_ITEM> selectionHandler;
   /** The cache strategy used for backing collection. */
@@ -56,6 +67,24 @@ public abstract class InMemCollectionBase<T_ITEM>
   private Comparator<T_ITEM>             sortOrderComparator;
 
   private InMemQueryEvaluator<T_ITEM>    inMemQueryEvaluator = new InMemQueryEvaluator<T_ITEM>();
+  /** Switches the index based query execution on. */
+  private boolean                        useColumnStore;
+  /** The column oriented snapshot of the backing collection. Only used if {@link #useColumnStore} is set. */
+  private InMemColumnStore<T_ITEM>       columnStore;
+  /** The string attributes having a trigram index. */
+  private final Set<QueryAttr>           trigramIndexAttrs = new LinkedHashSet<QueryAttr>();
+  /** The trigram index for the backing collection. Only used if there are {@link #trigramIndexAttrs}. */
+  private InMemTrigramIndex<T_ITEM>      trigramIndex;
+  /** Switches the application of refined filters to the previous query result on. */
+  private boolean                        useRefinementFilter;
+  /** The last query result. A refined filter may be applied to this result instead of the whole backing collection. */
+  private List<T_ITEM>                   refinementBaseObjects;
+  /** A snapshot of the filter used to get the {@link #refinementBaseObjects}. */
+  private QueryExpr                      refinementBaseFilter;
+  /** The backing collection instance used to get the {@link #refinementBaseObjects}. */
+  private Collection<T_ITEM>             refinementBaseBackingCollection;
+  /** The backing collection size used to get the {@link #refinementBaseObjects}. */
+  private int                            refinementBaseBackingSize;
 
   private final InMemModificationHandler modificationHandler;
 
@@ -73,6 +102,7 @@ public abstract class InMemCollectionBase<T_ITEM>
     public void propertyChange(PropertyChangeEvent evt) {
       sortOrderComparator = null;
       filteredAndSortedObjects = null;
+      refinementBaseObjects = null;
     }
   };
 
@@ -165,6 +195,9 @@ public abstract class InMemCollectionBase<T_ITEM>
   public void clearCaches() {
     sortOrderComparator = null;
     filteredAndSortedObjects = null;
+    columnStore = null;
+    trigramIndex = null;
+    refinementBaseObjects = null;
     cacheStrategy.clear(cacheCtxt);
   }
 
@@ -174,6 +207,104 @@ public abstract class InMemCollectionBase<T_ITEM>
   public void setInMemQueryEvaluator(InMemQueryEvaluator<T_ITEM> inMemQueryEvaluator) {
     assert inMemQueryEvaluator != null;
     this.inMemQueryEvaluator = inMemQueryEvaluator;
+    this.columnStore = null;
+    this.trigramIndex = null;
+    this.refinementBaseObjects = null;
+  }
+
+  /**
+   * Switches the index based query execution on or off.
+   * <p>
+   * If switched on, the query attribute values get read only once from the
+   * backing collection items. Filter and sort operations are executed using
+   * indexes on these values. This speeds up repeated queries on larger
+   * collections.
+   * <p>
+   * The values get read again after {@link #clearCaches()}, a modification
+   * done by the {@link #getModificationHandler()} or a change of the backing
+   * collection size. Each item value change needs to be reported by a
+   * {@link ModificationHandler#registerUpdatedItem(Object, boolean)} call.
+   * Item changes done without notifying the modification handler are not
+   * detected.
+   *
+   * @param useColumnStore <code>true</code> switches the index based query execution on.
+   */
+  public void setUseColumnStore(boolean useColumnStore) {
+    boolean hadQueryIndex = hasQueryIndex();
+    this.useColumnStore = useColumnStore;
+    this.columnStore = null;
+    this.filteredAndSortedObjects = null;
+    firePropertyChange(PROP_HAS_QUERY_INDEX, hadQueryIndex, hasQueryIndex());
+  }
+
+  /**
+   * @return <code>true</code> if the index based query execution is switched on.
+   */
+  public boolean isUseColumnStore() {
+    return useColumnStore;
+  }
+
+  /**
+   * Switches the application of refined filters to the previous query result
+   * on or off. It is switched off by default.
+   * <p>
+   * If switched on, a filter that only narrows the previous filter (e.g. an
+   * extended 'contains' value) gets applied to the previous query result
+   * instead of the whole backing collection.
+   * <p>
+   * The previous result is only valid as long as all item changes get reported
+   * to the {@link #getModificationHandler()}. An item that gets changed without
+   * a {@link ModificationHandler#registerUpdatedItem(Object, boolean)} call may
+   * be missing in the result of a refined filter.
+   *
+   * @param useRefinementFilter <code>true</code> switches the refined filter handling on.
+   */
+  public void setUseRefinementFilter(boolean useRefinementFilter) {
+    this.useRefinementFilter = useRefinementFilter;
+    this.refinementBaseObjects = null;
+  }
+
+  /**
+   * @return <code>true</code> if refined filters get applied to the previous query result.
+   */
+  public boolean isUseRefinementFilter() {
+    return useRefinementFilter;
+  }
+
+  /**
+   * Adds a trigram index for the given string attribute.
+   * <p>
+   * The index speeds up 'contains', 'starts with' and 'like' filters on large
+   * collections. It gets created on the next query and is kept up to date on
+   * modifications done by the {@link #getModificationHandler()}. It gets
+   * re-created after {@link #clearCaches()} or a change of the backing
+   * collection size. Each item value change needs to be reported by a
+   * {@link ModificationHandler#registerUpdatedItem(Object, boolean)} call.
+   * Item changes done without notifying the modification handler are not
+   * detected.
+   * <p>
+   * The index is only used for {@link List} backing collections and if the
+   * index based query execution (see {@link #setUseColumnStore(boolean)}) is
+   * switched off.
+   *
+   * @param attr the string attribute to index.
+   */
+  public void addTrigramIndex(QueryAttr attr) {
+    assert attr != null;
+    boolean hadQueryIndex = hasQueryIndex();
+    trigramIndexAttrs.add(attr);
+    trigramIndex = null;
+    firePropertyChange(PROP_HAS_QUERY_INDEX, hadQueryIndex, true);
+  }
+
+  /**
+   * A query index (the column store or a trigram index) needs to be informed
+   * about each item value change.
+   *
+   * @return <code>true</code> if the column store is switched on or there is a trigram index.
+   */
+  public boolean hasQueryIndex() {
+    return useColumnStore || !trigramIndexAttrs.isEmpty();
   }
 
   /**
@@ -196,20 +327,45 @@ public abstract class InMemCollectionBase<T_ITEM>
   private List<T_ITEM> _getObjects() {
     if (filteredAndSortedObjects == null) {
       Collection<T_ITEM> backingCollection = getBackingCollection();
+      QueryExpr filterExpression = getQueryParams().getFilterExpression();
+      refinementBaseObjects = useRefinementFilter && _isRefinementBaseUsable(backingCollection, filterExpression)
+          ? refinementBaseObjects
+          : null;
+
       if (!getQueryParams().isExecQuery()) {
         filteredAndSortedObjects = Collections.emptyList();
       }
+      else if (refinementBaseObjects != null) {
+        // A refined filter needs to be applied only to the previous result.
+        // The result keeps the sort order of the previous result.
+        filteredAndSortedObjects = (filterExpression != null)
+            ? inMemQueryEvaluator.evaluateSubSet(refinementBaseObjects, filterExpression)
+            : new ArrayList<T_ITEM>(refinementBaseObjects);
+      }
+      else if (useColumnStore) {
+        if (columnStore == null || !columnStore.isStoreFor(backingCollection)) {
+          columnStore = new InMemColumnStore<T_ITEM>(inMemQueryEvaluator, backingCollection);
+        }
+        filteredAndSortedObjects = columnStore.query(getQueryParams().getFilterExpression(),
+                                                     getQueryParams().getEffectiveSortOrder());
+      }
       else {
-        List<T_ITEM> list = _filter(new ArrayList<T_ITEM>(backingCollection));
+        List<T_ITEM> list = _isTrigramIndexUsable(backingCollection, filterExpression)
+            ? _getTrigramIndex(backingCollection).evaluateSubSet(filterExpression)
+            : _filter(new ArrayList<T_ITEM>(backingCollection));
         Comparator<T_ITEM> comparator = _getSortOrderComparator();
 
         if (comparator != null) {
-          Collections.sort(list, comparator);
+          inMemQueryEvaluator.sortInPlace(list, comparator);
         }
 
         filteredAndSortedObjects = list;
       }
 
+      if (useRefinementFilter) {
+        _setRefinementBase(backingCollection, filterExpression);
+      }
+
       // XXX olaf: just moves to the last possible page if necessary.
       // The user may want to stay on the page with his selected item.
       // We need to define strategies for application specific definitions.
@@ -219,6 +375,48 @@ public abstract class InMemCollectionBase<T_ITEM>
     return filteredAndSortedObjects;
   }
 
+  private boolean _isTrigramIndexUsable(Collection<T_ITEM> backingCollection, QueryExpr filterExpression) {
+    // The index keeps the item order of lists only.
+    return !trigramIndexAttrs.isEmpty() &&
+           (filterExpression != null) &&
+           (backingCollection instanceof List);
+  }
+
+  private InMemTrigramIndex<T_ITEM> _getTrigramIndex(Collection<T_ITEM> backingCollection) {
+    if (trigramIndex == null || !trigramIndex.isIndexFor(backingCollection)) {
+      trigramIndex = new InMemTrigramIndex<T_ITEM>(inMemQueryEvaluator, backingCollection, trigramIndexAttrs);
+    }
+    return trigramIndex;
+  }
+
+  /**
+   * Checks if the current filter is a refinement of the filter used for the last query result.
+   */
+  private boolean _isRefinementBaseUsable(Collection<T_ITEM> backingCollection, QueryExpr filterExpression) {
+    return (refinementBaseObjects != null) &&
+           (refinementBaseBackingCollection == backingCollection) &&
+           (refinementBaseBackingSize == backingCollection.size()) &&
+           inMemQueryEvaluator.isRefinement(filterExpression, refinementBaseFilter);
+  }
+
+  /**
+   * Remembers the current query result as base for subsequent refined filter operations.<br>
+   * A snapshot of the filter is used because filter expressions are mutable.
+   */
+  private void _setRefinementBase(Collection<T_ITEM> backingCollection, QueryExpr filterExpression) {
+    refinementBaseObjects = null;
+    refinementBaseBackingCollection = null;
+    if (getQueryParams().isExecQuery()) {
+      refinementBaseFilter = inMemQueryEvaluator.copyRefinableExpr(filterExpression);
+      // Filters that can't be copied will not be used to detect refinements.
+      if (filterExpression == null || refinementBaseFilter != null) {
+        refinementBaseBackingCollection = backingCollection;
+        refinementBaseBackingSize = backingCollection.size();
+        refinementBaseObjects = filteredAndSortedObjects;
+      }
+    }
+  }
+
   /** Generates a list of filtered items based on the given list. */
   private List<T_ITEM> _filter(List<T_ITEM> unfilteredList) {
     QueryExpr filterExpression = getQueryParams().getFilterExpression();
@@ -248,12 +446,24 @@ public abstract class InMemCollectionBase<T_ITEM>
       if (filteredAndSortedObjects != null) {
         filteredAndSortedObjects.add(item);
       }
+      if (trigramIndex != null) {
+        trigramIndex.addItem(item);
+      }
+      columnStore = null;
+      refinementBaseObjects = null;
       modifications.registerAddedItem(item);
       InMemCollectionBase.this.firePropertyChange(PageableCollection.EVENT_ITEM_ADD, null, item);
     };
 
     @Override
     public void registerUpdatedItem(T_ITEM item, boolean isUpdated) {
+      // the query relevant values of the item may have changed.
+      columnStore = null;
+      refinementBaseObjects = null;
+      if (trigramIndex != null) {
+        trigramIndex.updateItem(item);
+      }
+
       // a modification of a new item should not lead to a double-listing within the updated list too.
       if (isUpdated && modifications.getAddedItems().contains(item)) {
         return;
@@ -286,7 +496,9 @@ public abstract class InMemCollectionBase<T_ITEM>
       Set<T_ITEM> removedItems = new HashSet<T_ITEM>(IterableUtil.asCollection(modifications.getRemovedItems()));
       for (T_ITEM i : items) {
         // remove the items from the in-memory item list(s).
-        getBackingCollection().remove(i);
+        if (getBackingCollection().remove(i) && (trigramIndex != null)) {
+          trigramIndex.removeItem(i);
+        }
         if (filteredAndSortedObjects != null) {
           filteredAndSortedObjects.remove(i);
         }
@@ -298,6 +510,8 @@ public abstract class InMemCollectionBase<T_ITEM>
           removedItems.add(i);
         }
       }
+      columnStore = null;
+      refinementBaseObjects = null;
       modifications.setRemovedItems(new ItemSetSelection<T_ITEM>(removedItems));
       InMemCollectionBase.this.firePropertyChange(PageableCollection.EVENT_REMOVE_SELECTION, items, null);
       return true;
@@ -0,0 +1,214 @@
+package org.pm4j.common.pageable.querybased;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pm4j.common.pageable.querybased.idquery.IdQueryService;
+
+/**
+ * An iterator that provides the items for a sequence of item id's.
+ * <p>
+ * The items get read in blocks. If the service is an {@link IdQueryService},
+ * each block gets read by a single {@link IdQueryService#getItems(List)} call.
+ * Other services get asked for each single item using {@link QueryService#getItemForId(Object)}.
+ * <p>
+ * An optional executor may be used to read the next block in advance. In this
+ * case the service needs to be thread safe.
+ *
+ * @author olaf boede
+ *
+ * @param <T_ITEM> the item type.
+ * @param <T_ID> the item id type.
+ */
+public class ItemIdBlockIterator<T_ITEM, T_ID> implements Iterator<T_ITEM> {
+
+  private static final Log LOG = LogFactory.getLog(ItemIdBlockIterator.class);
+
+  /** The default number of items to read with a single service call. */
+  public static final int DEFAULT_BLOCK_SIZE = 20;
+
+  private final QueryService<T_ITEM, T_ID> service;
+  private final Iterator<T_ID> idIterator;
+  private final int blockSize;
+  private final boolean skipMissingItems;
+  private Executor prefetchExecutor;
+
+  private List<T_ITEM> blockItems = new ArrayList<T_ITEM>();
+  private int blockPos;
+  private FutureTask<List<T_ITEM>> prefetchTask;
+
+  /**
+   * @param service
+   *          the service that provides the items.
+   * @param idIterator
+   *          provides the id's of the items to iterate.
+   * @param blockSize
+   *          the number of items to read with a single service call.
+   * @param skipMissingItems
+   *          if set to <code>true</code>, id's without a corresponding item
+   *          will be skipped. Otherwise the iterator provides <code>null</code>
+   *          for these id's.
+   */
+  public ItemIdBlockIterator(QueryService<T_ITEM, T_ID> service, Iterator<T_ID> idIterator, int blockSize, boolean skipMissingItems) {
+    assert service != null;
+    assert idIterator != null;
+    assert blockSize > 0;
+
+    this.service = service;
+    this.idIterator = idIterator;
+    this.blockSize = blockSize;
+    this.skipMissingItems = skipMissingItems;
+  }
+
+  /**
+   * Defines an executor that reads the next block of items in advance.
+   *
+   * @param prefetchExecutor the executor to use. May be <code>null</code>.
+   */
+  public void setPrefetchExecutor(Executor prefetchExecutor) {
+    this.prefetchExecutor = prefetchExecutor;
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (blockPos >= blockItems.size()) {
+      if (!readNextBlock()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public T_ITEM next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return blockItems.get(blockPos++);
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Reads the items for the given id's.
+   * <p>
+   * The default implementation uses {@link IdQueryService#getItems(List)} if the
+   * service supports it.
+   *
+   * @param ids the id's of the items to read.
+   * @return the items in the order of the given id's. Contains <code>null</code> for each not found item.
+   */
+  @SuppressWarnings("unchecked")
+  protected List<T_ITEM> readItems(List<T_ID> ids) {
+    List<T_ITEM> items = new ArrayList<T_ITEM>(ids.size());
+    if (service instanceof IdQueryService) {
+      List<T_ITEM> foundItems = ((IdQueryService<T_ITEM, T_ID>) service).getItems(ids);
+      if (foundItems.size() == ids.size()) {
+        items.addAll(foundItems);
+      } else {
+        // Some items were not found. The found items get assigned by id.
+        Map<T_ID, T_ITEM> idToItemMap = new HashMap<T_ID, T_ITEM>();
+        for (T_ITEM i : foundItems) {
+          idToItemMap.put(service.getIdForItem(i), i);
+        }
+        for (T_ID id : ids) {
+          items.add(idToItemMap.get(id));
+        }
+      }
+    } else {
+      for (T_ID id : ids) {
+        items.add(service.getItemForId(id));
+      }
+    }
+    return items;
+  }
+
+  private boolean readNextBlock() {
+    List<T_ITEM> items;
+    if (prefetchTask != null) {
+      items = takePrefetchResult();
+    } else {
+      List<T_ID> ids = nextIdBlock();
+      if (ids.isEmpty()) {
+        return false;
+      }
+      items = readItems(ids);
+      removeMissingItems(ids, items);
+    }
+
+    startPrefetch();
+    blockItems = items;
+    blockPos = 0;
+    return true;
+  }
+
+  private List<T_ID> nextIdBlock() {
+    List<T_ID> ids = new ArrayList<T_ID>(blockSize);
+    while (ids.size() < blockSize && idIterator.hasNext()) {
+      ids.add(idIterator.next());
+    }
+    return ids;
+  }
+
+  private void removeMissingItems(List<T_ID> ids, List<T_ITEM> items) {
+    if (skipMissingItems) {
+      for (int i = items.size() - 1; i >= 0; --i) {
+        if (items.get(i) == null) {
+          if (LOG.isDebugEnabled()) {
+            LOG.debug("No item found for ID: " + ids.get(i) + ". Iteration skips this item.");
+          }
+          items.remove(i);
+        }
+      }
+    }
+  }
+
+  private void startPrefetch() {
+    if (prefetchExecutor == null || !idIterator.hasNext()) {
+      return;
+    }
+
+    // The id's are read in the calling thread because the id iterator is usually not thread safe.
+    final List<T_ID> ids = nextIdBlock();
+    prefetchTask = new FutureTask<List<T_ITEM>>(new Callable<List<T_ITEM>>() {
+      @Override
+      public List<T_ITEM> call() throws Exception {
+        List<T_ITEM> items = readItems(ids);
+        removeMissingItems(ids, items);
+        return items;
+      }
+    });
+    prefetchExecutor.execute(prefetchTask);
+  }
+
+  private List<T_ITEM> takePrefetchResult() {
+    FutureTask<List<T_ITEM>> task = prefetchTask;
+    prefetchTask = null;
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for the next block of items.", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new RuntimeException("Unable to read the next block of items.", cause);
+    }
+  }
+
+}
@@ -7,14 +7,14 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executor;
 
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
 import org.pm4j.common.modifications.ModificationHandler;
 import org.pm4j.common.pageable.PageableCollection;
 import org.pm4j.common.pageable.PageableCollectionUtil;
 import org.pm4j.common.pageable.querybased.QueryCollectionBase;
 import org.pm4j.common.pageable.querybased.QueryCollectionModificationHandlerBase;
+import org.pm4j.common.pageable.querybased.ItemIdBlockIterator;
 import org.pm4j.common.query.QueryOptions;
 import org.pm4j.common.query.QueryParams;
 import org.pm4j.common.selection.Selection;
@@ -40,14 +40,16 @@ import org.pm4j.common.util.collection.ListUtil;
  */
 public class IdQueryCollectionImpl<T_ITEM, T_ID> extends QueryCollectionBase<T_ITEM, T_ID> {
 
-  private static final Log LOG = LogFactory.getLog(IdQueryCollectionImpl.class);
-
   private final IdQueryService<T_ITEM, T_ID> service;
   /** The collection type specific selection handler. */
   private final SelectionHandler<T_ITEM>  selectionHandler;
   private List<T_ID>                      ids;
   private List<T_ITEM>                    currentPageItems;
   private AddItemStrategy                 addItemStrategy = new AddItemStrategyAtTheEnd();
+  /** The number of items the iterator reads with a single service call. */
+  private int                             iteratorBlockSize = ItemIdBlockIterator.DEFAULT_BLOCK_SIZE;
+  /** An optional executor used by the iterator to read the next item block in advance. */
+  private Executor                        iteratorPrefetchExecutor;
 
   /**
    * Maintains the set of ID's on removing items.
@@ -140,6 +142,31 @@ public class IdQueryCollectionImpl<T_ITEM, T_ID> extends QueryCollectionBase<T_I
     return new ItemIterator();
   }
 
+  /**
+   * Defines the number of items the {@link #iterator()} reads with a single
+   * {@link IdQueryService#getItems(List)} call.
+   * <p>
+   * The default is {@link ItemIdBlockIterator#DEFAULT_BLOCK_SIZE}.
+   *
+   * @param readBlockSize the number of items to read per service call.
+   */
+  public void setIteratorBlockSizeHint(int readBlockSize) {
+    assert readBlockSize > 0;
+    this.iteratorBlockSize = readBlockSize;
+  }
+
+  /**
+   * Defines an executor that reads the next block of items in advance while
+   * iterating.
+   * <p>
+   * The service needs to be thread safe if a prefetch executor is used.
+   *
+   * @param iteratorPrefetchExecutor the executor to use. <code>null</code> switches prefetch off.
+   */
+  public void setIteratorPrefetchExecutor(Executor iteratorPrefetchExecutor) {
+    this.iteratorPrefetchExecutor = iteratorPrefetchExecutor;
+  }
+
   @Override
   public SelectionHandler<T_ITEM> getSelectionHandler() {
     return selectionHandler;
@@ -184,16 +211,19 @@ public class IdQueryCollectionImpl<T_ITEM, T_ID> extends QueryCollectionBase<T_I
   }
 
   /**
-   * A simple iterator that iterates slowly over all items using a lot of service calls.
+   * An iterator that reads the query result items block wise.<br>
+   * Added items get provided after the query result items.
    *
    * @author olaf boede
    */
   class ItemIterator implements Iterator<T_ITEM> {
-    private int nextIdx = -1;
+    private int nextAddedItemIdx = 0;
     private T_ITEM next = null;
-    private final List<T_ID> ids = getIds();
+    private final ItemIdBlockIterator<T_ITEM, T_ID> queryItemIterator;
 
     public ItemIterator() {
+      queryItemIterator = new ItemIdBlockIterator<T_ITEM, T_ID>(service, getIds().iterator(), iteratorBlockSize, true);
+      queryItemIterator.setPrefetchExecutor(iteratorPrefetchExecutor);
       addItemStrategy.readNext(this);
     }
 
@@ -247,26 +277,16 @@ public class IdQueryCollectionImpl<T_ITEM, T_ID> extends QueryCollectionBase<T_I
 
     @Override
     public void readNext(ItemIterator iter) {
-      int maxIdListIdx = iter.ids.size()-1;
-      do {
-    	++iter.nextIdx;
-        if (iter.nextIdx > maxIdListIdx) {
-          List<T_ITEM> addedItems = modificationHandler.getModifications().getAddedItems();
-          int addedItemIdx = iter.nextIdx - maxIdListIdx - 1;
-          iter.next = (addedItemIdx < addedItems.size())
-            ? addedItems.get(addedItemIdx)
-            : null;
-          return;
-        }
-
-        T_ID id = iter.ids.get(iter.nextIdx);
-        iter.next = service.getItemForId(id);
-        if (iter.next == null) {
-          if (LOG.isDebugEnabled()) {
-            LOG.debug("No item found for ID: " + id + ". Iteration skips this item.");
-          }
-        }
-      } while (iter.next == null);
+      // Query result items without a service item are skipped by the block iterator.
+      if (iter.queryItemIterator.hasNext()) {
+        iter.next = iter.queryItemIterator.next();
+      } else {
+        List<T_ITEM> addedItems = modificationHandler.getModifications().getAddedItems();
+        int addedItemIdx = iter.nextAddedItemIdx++;
+        iter.next = (addedItemIdx < addedItems.size())
+          ? addedItems.get(addedItemIdx)
+          : null;
+      }
     }
 
     public List<T_ITEM> getCurrentPageItems() {
@@ -4,11 +4,16 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.pm4j.common.query.QueryParams;
 import org.pm4j.common.util.beanproperty.ReleaseOnPropChangeRef;
+import org.pm4j.common.util.collection.LRUMap;
 
 /**
  * A proxy service that provides some caching for queries that are already answered.
@@ -17,6 +22,9 @@ import org.pm4j.common.util.beanproperty.ReleaseOnPropChangeRef;
  * <p>
  * Observes the provided {@link QueryParams}. It resets cached data if the query parameter data
  * get changed.
+ * <p>
+ * By default only the last requested page is cached. The {@link Cache} may be configured to hold
+ * more pages and to read the next page asynchronously in advance.
  *
  * @author olaf boede
  *
@@ -47,7 +55,7 @@ class CachingPageQueryService<T_ITEM, T_ID> implements PageQueryService<T_ITEM,
 
   @Override
   public T_ITEM getItemForId(T_ID id) {
-    T_ITEM i = cache.idToPageItemsCache.get(id);
+    T_ITEM i = cache.getCachedItemForId(id);
     return (i != null)
             ? i
             : baseService.getItemForId(id);
@@ -60,17 +68,20 @@ class CachingPageQueryService<T_ITEM, T_ID> implements PageQueryService<T_ITEM,
       return Collections.EMPTY_LIST;
     }
 
-    if ((query == cache.pageCacheQuery.getRef()) &&
-      (startIdx == cache.cachedPageStartIdx) &&
-        (pageSize == cache.cachedPageSize)
-        ) {
-      return cache.pageItemsCache;
-    }
-    else {
-      List<T_ITEM> items = baseService.getItems(query, startIdx, pageSize);
+    List<T_ITEM> items = cache.getCachedPage(query, startIdx, pageSize);
+    if (items == null) {
+      items = cache.takeReadAheadResult(query, startIdx, pageSize);
+      if (items == null) {
+        items = baseService.getItems(query, startIdx, pageSize);
+      }
       cache.setPageCache(query, items, startIdx, pageSize);
-      return items;
     }
+
+    // A complete page indicates that there may be a next one.
+    if (items.size() == pageSize) {
+      cache.startReadAhead(baseService, query, startIdx + pageSize, pageSize);
+    }
+    return items;
   }
 
   @Override
@@ -103,14 +114,16 @@ class CachingPageQueryService<T_ITEM, T_ID> implements PageQueryService<T_ITEM,
 
   static class Cache<T_ITEM, T_ID> {
     private final PageQueryService<T_ITEM, T_ID> service;
-    private long                                     cachedPageStartIdx = -1;
-    private int                                      cachedPageSize = -1;
-    private List<T_ITEM>                             pageItemsCache;
-    private Map<T_ID, T_ITEM>                        idToPageItemsCache = Collections.emptyMap();
+    private int                                      maxCachedPages = 1;
+    private LRUMap<PageKey, CachedPage<T_ITEM, T_ID>> pageCache = new LRUMap<PageKey, CachedPage<T_ITEM, T_ID>>(1);
     private final ReleaseOnPropChangeRef<QueryParams> pageCacheQuery;
     private final ReleaseOnPropChangeRef<QueryParams> itemCountCacheQuery;
     /** Cached number of items for the current {@link #itemCountCacheQuery}. */
     private long                                     itemCountCache = -1;
+    /** An optional executor used to read the next page in advance. */
+    private Executor                                 readAheadExecutor;
+    private FutureTask<List<T_ITEM>>                 readAheadTask;
+    private PageKey                                  readAheadPageKey;
 
     public Cache(PageQueryService<T_ITEM, T_ID> service) {
       assert service != null;
@@ -129,16 +142,43 @@ class CachingPageQueryService<T_ITEM, T_ID> implements PageQueryService<T_ITEM,
       };
     }
 
+    /**
+     * Defines how many pages may be cached for the current query.
+     * If more pages get read, the least recently used page gets released.
+     *
+     * @param maxCachedPages the maximum number of cached pages. Should be greater than zero.
+     */
+    public void setMaxCachedPages(int maxCachedPages) {
+      assert maxCachedPages > 0;
+      this.maxCachedPages = maxCachedPages;
+      this.pageCache = new LRUMap<PageKey, CachedPage<T_ITEM, T_ID>>(maxCachedPages);
+      clearPageCache();
+    }
+
+    public int getMaxCachedPages() {
+      return maxCachedPages;
+    }
+
+    /**
+     * Defines an executor that reads the page following the last requested page in advance.
+     * <p>
+     * The base service needs to be thread safe if a read-ahead executor is used.
+     *
+     * @param readAheadExecutor the executor to use. <code>null</code> switches read-ahead off.
+     */
+    public void setReadAheadExecutor(Executor readAheadExecutor) {
+      cancelReadAhead();
+      this.readAheadExecutor = readAheadExecutor;
+    }
+
     public void clearPageCache() {
-      if ((pageItemsCache != null) && LOG.isTraceEnabled()) {
+      if (!pageCache.isEmpty() && LOG.isTraceEnabled()) {
         LOG.trace("Clearing page cache for query service: " + service.getClass().getSimpleName());
       }
 
       pageCacheQuery.setRefQuietly(null);
-      cachedPageStartIdx = -1;
-      cachedPageSize = -1;
-      idToPageItemsCache = Collections.emptyMap();
-      pageItemsCache = null;
+      pageCache.clear();
+      cancelReadAhead();
     }
 
     public void clearItemCountCache() {
@@ -156,16 +196,129 @@ class CachingPageQueryService<T_ITEM, T_ID> implements PageQueryService<T_ITEM,
     }
 
     public void setPageCache(QueryParams forQuery, List<T_ITEM> pageItemsCache, long startIdx, int pageSize) {
+      if (forQuery != pageCacheQuery.getRef()) {
+        clearPageCache();
+      }
+
       HashMap<T_ID, T_ITEM> id2Items = new HashMap<T_ID, T_ITEM>();
       for (T_ITEM i : pageItemsCache) {
         T_ID id = service.getIdForItem(i);
         id2Items.put(id, i);
       }
       this.pageCacheQuery.setRefQuietly(forQuery);
-      this.cachedPageStartIdx = startIdx;
-      this.cachedPageSize = pageSize;
-      this.pageItemsCache = pageItemsCache;
-      this.idToPageItemsCache = id2Items;
+      this.pageCache.put(new PageKey(startIdx, pageSize), new CachedPage<T_ITEM, T_ID>(pageItemsCache, id2Items));
+    }
+
+    /**
+     * @return the cached page items or <code>null</code> if the page is not cached.
+     */
+    List<T_ITEM> getCachedPage(QueryParams query, long startIdx, int pageSize) {
+      if (query != pageCacheQuery.getRef()) {
+        return null;
+      }
+      CachedPage<T_ITEM, T_ID> page = pageCache.get(new PageKey(startIdx, pageSize));
+      return page != null ? page.items : null;
+    }
+
+    T_ITEM getCachedItemForId(T_ID id) {
+      for (CachedPage<T_ITEM, T_ID> p : pageCache.values()) {
+        T_ITEM i = p.idToItem.get(id);
+        if (i != null) {
+          return i;
+        }
+      }
+      return null;
+    }
+
+    void startReadAhead(final PageQueryService<T_ITEM, T_ID> baseService, final QueryParams query, final long startIdx, final int pageSize) {
+      if (readAheadExecutor == null) {
+        return;
+      }
+
+      PageKey key = new PageKey(startIdx, pageSize);
+      if (key.equals(readAheadPageKey) ||
+          ((itemCountCache != -1) && (query == itemCountCacheQuery.getRef()) && (startIdx >= itemCountCache)) ||
+          (getCachedPage(query, startIdx, pageSize) != null)) {
+        return;
+      }
+
+      cancelReadAhead();
+      readAheadTask = new FutureTask<List<T_ITEM>>(new Callable<List<T_ITEM>>() {
+        @Override
+        public List<T_ITEM> call() throws Exception {
+          return baseService.getItems(query, startIdx, pageSize);
+        }
+      });
+      readAheadPageKey = key;
+      readAheadExecutor.execute(readAheadTask);
+    }
+
+    /**
+     * @return the result of a matching read-ahead or <code>null</code> if there is none.
+     */
+    List<T_ITEM> takeReadAheadResult(QueryParams query, long startIdx, int pageSize) {
+      if ((readAheadTask == null) ||
+          (query != pageCacheQuery.getRef()) ||
+          !readAheadPageKey.equals(new PageKey(startIdx, pageSize))) {
+        return null;
+      }
+
+      FutureTask<List<T_ITEM>> task = readAheadTask;
+      readAheadTask = null;
+      readAheadPageKey = null;
+      try {
+        return task.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      } catch (ExecutionException e) {
+        LOG.debug("Read-ahead failed. The page will be read again.", e.getCause());
+        return null;
+      }
+    }
+
+    private void cancelReadAhead() {
+      if (readAheadTask != null) {
+        readAheadTask.cancel(false);
+        readAheadTask = null;
+        readAheadPageKey = null;
+      }
+    }
+  }
+
+  /** The items of a cached page. */
+  private static class CachedPage<T_ITEM, T_ID> {
+    final List<T_ITEM>      items;
+    final Map<T_ID, T_ITEM> idToItem;
+
+    CachedPage(List<T_ITEM> items, Map<T_ID, T_ITEM> idToItem) {
+      this.items = items;
+      this.idToItem = idToItem;
+    }
+  }
+
+  /** Identifies a cached page within the result of a query. */
+  private static class PageKey {
+    final long startIdx;
+    final int  pageSize;
+
+    PageKey(long startIdx, int pageSize) {
+      this.startIdx = startIdx;
+      this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof PageKey)) {
+        return false;
+      }
+      PageKey other = (PageKey) obj;
+      return (startIdx == other.startIdx) && (pageSize == other.pageSize);
+    }
+
+    @Override
+    public int hashCode() {
+      return (int) (startIdx ^ (startIdx >>> 32)) * 31 + pageSize;
     }
   }
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.pm4j.common.modifications.ModificationHandler;
 import org.pm4j.common.pageable.PageableCollection;
@@ -77,12 +78,39 @@ public class PageQueryCollection<T_ITEM, T_ID> extends QueryCollectionBase<T_ITE
 
   @Override
   public void setPageIdx(long pageIdx) {
-    if (pageIdx != getPageIdx()) {
+    // A single page cache gets refreshed on each page switch.
+    // A multi page cache keeps the already read pages until the query changes.
+    if ((pageIdx != getPageIdx()) &&
+        (cachingService.getCache().getMaxCachedPages() == 1)) {
       cachingService.getCache().clearPageCache();
     }
     super.setPageIdx(pageIdx);
   }
 
+  /**
+   * Defines how many pages of query result items may be cached.
+   * <p>
+   * The default value is <code>1</code>. In this case the cache gets cleared on each page switch.<br>
+   * Higher values allow to switch between already visited pages without additional service calls.
+   * The cached pages will be released on each filter or sort order change.
+   *
+   * @param maxCachedPages the maximum number of cached pages. Should be greater than zero.
+   */
+  public void setMaxCachedPages(int maxCachedPages) {
+    cachingService.getCache().setMaxCachedPages(maxCachedPages);
+  }
+
+  /**
+   * Defines an executor that reads the page following the current page in advance.
+   * <p>
+   * The {@link PageQueryService} needs to be thread safe if a read-ahead executor is used.
+   *
+   * @param readAheadExecutor the executor to use. <code>null</code> switches read-ahead off.
+   */
+  public void setReadAheadExecutor(Executor readAheadExecutor) {
+    cachingService.getCache().setReadAheadExecutor(readAheadExecutor);
+  }
+
   @Override
   public long getNumOfItems() {
     return getQueryParams().isExecQuery()
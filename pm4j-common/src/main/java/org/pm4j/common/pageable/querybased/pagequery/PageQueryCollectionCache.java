@@ -1,5 +1,7 @@
 package org.pm4j.common.pageable.querybased.pagequery;
 
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.util.List;
 
 import org.pm4j.common.pageable.PageableCollection;
@@ -9,23 +11,56 @@ import org.pm4j.common.util.collection.PagedCollectionCacheBase;
 /**
  * A page cache for items provided by a {@link PageableCollection}.
  * <p>
- * TODO olaf: does not yet observe queryParam changes to release cached data.
+ * Observes the provided {@link QueryParams}. All cached pages get released if the effective
+ * filter or sort order changes.
  *
  * @author olaf boede
  */
 public class PageQueryCollectionCache<T> extends PagedCollectionCacheBase<T> {
   private final PageQueryService<T, ?> pageableQueryService;
   private final QueryParams queryParams;
+  /** Releases the cached pages on query parameter changes. */
+  private final PropertyChangeListener clearCacheListener = new PropertyChangeListener() {
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+      clear();
+    }
+  };
 
   public PageQueryCollectionCache(PageQueryService<T, ?> pageableQueryService, QueryParams queryParams,
       int pageSize) {
-    super(pageSize);
+    this(pageableQueryService, queryParams, pageSize, 1);
+  }
+
+  /**
+   * @param pageableQueryService the service that provides the items.
+   * @param queryParams the query restrictions. May be <code>null</code>.
+   * @param pageSize the number of items to read with a single service call.
+   * @param maxCachedPages the maximum number of pages to hold in the cache.
+   */
+  public PageQueryCollectionCache(PageQueryService<T, ?> pageableQueryService, QueryParams queryParams,
+      int pageSize, int maxCachedPages) {
+    super(pageSize, maxCachedPages);
 
     assert pageableQueryService != null;
     assert queryParams != null;
 
     this.pageableQueryService = pageableQueryService;
     this.queryParams = queryParams != null ? queryParams : new QueryParams();
+
+    this.queryParams.addPropertyChangeListener(QueryParams.PROP_EFFECTIVE_FILTER, clearCacheListener);
+    this.queryParams.addPropertyChangeListener(QueryParams.PROP_EFFECTIVE_SORT_ORDER, clearCacheListener);
+  }
+
+  /**
+   * Stops observing the query parameters.
+   * <p>
+   * Should be called if the cache is no longer used. Otherwise the (possibly
+   * longer living) query parameters keep a reference to this cache.
+   */
+  public void dispose() {
+    queryParams.removePropertyChangeListener(QueryParams.PROP_EFFECTIVE_FILTER, clearCacheListener);
+    queryParams.removePropertyChangeListener(QueryParams.PROP_EFFECTIVE_SORT_ORDER, clearCacheListener);
   }
 
   @Override
@@ -36,6 +36,9 @@ public class PageQueryItemNavigator<T> implements ItemNavigator<T> {
    *          May be <code>null</code>.
    */
   public void setPageableCollection(PageQueryService<T, ?> pageableService, QueryParams selectedItemsQueryParams) {
+    if (this.pagedCollectionCache != null) {
+      this.pagedCollectionCache.dispose();
+    }
     this.pagedCollectionCache = (pageableService != null) ? new PageQueryCollectionCache<T>(pageableService,
         selectedItemsQueryParams, 1) : null;
   }
@@ -15,6 +15,7 @@ import org.pm4j.common.selection.SelectMode;
 import org.pm4j.common.selection.Selection;
 import org.pm4j.common.selection.SelectionHandlerBase;
 import org.pm4j.common.util.CloneUtil;
+import org.pm4j.common.util.collection.CompactIdSet;
 
 /**
  * Handler for a {@link PageQueryCollection} based selection.
@@ -181,9 +182,11 @@ public abstract class PageQuerySelectionHandler<T_ITEM, T_ID> extends SelectionH
    * @param selectedIds the new set of selected id's. In case if an inverted selection: the new set of de-selected id's.
    */
   private boolean setSelection(Set<T_ID> selectedIds) {
+    // Long and Integer id's are held in a compact form. This keeps session stored selections small.
+    CompactIdSet<T_ID> compactIds = CompactIdSet.of(selectedIds);
     ItemIdSelection<T_ITEM, T_ID> idSelection = selectedIds.isEmpty()
                   ? emptySelection
-                  : new ItemIdSelection<T_ITEM, T_ID>(service, selectedIds);
+                  : new ItemIdSelection<T_ITEM, T_ID>(service, compactIds != null ? compactIds : selectedIds);
 
     return setSelection(isInverse()
                   ? new InvertedSelection<T_ITEM, T_ID>(service, getQueryParams(), idSelection)
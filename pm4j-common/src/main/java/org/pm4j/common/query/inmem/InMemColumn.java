@@ -0,0 +1,412 @@
+package org.pm4j.common.query.inmem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pm4j.common.query.QueryAttr;
+import org.pm4j.common.util.CompareUtil;
+
+/**
+ * The values of a single {@link QueryAttr} for all rows of an {@link InMemColumnStore}.
+ * <p>
+ * Integral number and date values of a uniform type are additionally stored in a
+ * <code>long</code> array. Floating point values of a uniform type in a <code>double</code> array.
+ * These arrays are used to sort without calling <code>compareTo</code> on the value objects.
+ * <p>
+ * The hash index and the sorted index get created on first usage.
+ *
+ * @author olaf boede
+ */
+class InMemColumn {
+
+  /** Kind of the primitive value array used for the column. */
+  enum PrimitiveKind { NONE, LONG, DOUBLE }
+
+  private static final int[] NO_ROWS = new int[0];
+
+  private final QueryAttr attr;
+  private final Object[] values;
+  /** The type of all non-null values. Is <code>null</code> if the values have different types or if all values are <code>null</code>. */
+  private final Class<?> uniformValueClass;
+  private final PrimitiveKind primitiveKind;
+  private final long[] longValues;
+  private final double[] doubleValues;
+
+  private Map<Object, int[]> hashIndex;
+  private int[] sortedRows;
+  private int[] sortedRowsDescending;
+
+  InMemColumn(QueryAttr attr, Object[] values) {
+    this.attr = attr;
+    this.values = values;
+    this.uniformValueClass = findUniformValueClass(values);
+    this.primitiveKind = getPrimitiveKind(uniformValueClass);
+
+    switch (primitiveKind) {
+      case LONG:
+        longValues = new long[values.length];
+        for (int i = 0; i < values.length; ++i) {
+          longValues[i] = toLong(values[i]);
+        }
+        doubleValues = null;
+        break;
+      case DOUBLE:
+        doubleValues = new double[values.length];
+        for (int i = 0; i < values.length; ++i) {
+          doubleValues[i] = (values[i] != null) ? ((Number) values[i]).doubleValue() : 0;
+        }
+        longValues = null;
+        break;
+      default:
+        longValues = null;
+        doubleValues = null;
+    }
+  }
+
+  QueryAttr getAttr() {
+    return attr;
+  }
+
+  Object getValue(int row) {
+    return values[row];
+  }
+
+  int size() {
+    return values.length;
+  }
+
+  PrimitiveKind getPrimitiveKind() {
+    return primitiveKind;
+  }
+
+  /**
+   * The sorted index can only be used if all values are mutually comparable.
+   *
+   * @return <code>true</code> if the natural order of the values can be used to sort and to answer range queries.
+   */
+  boolean hasNaturalOrder() {
+    return (uniformValueClass != null) && Comparable.class.isAssignableFrom(uniformValueClass);
+  }
+
+  /**
+   * Checks if the given value can be compared to the column values using the sorted index.
+   *
+   * @param value the value to compare the column values to.
+   * @return <code>true</code> if the sorted index provides the same result as a compare based on <code>compareTo</code>.
+   */
+  boolean isRangeComparableTo(Object value) {
+    return hasNaturalOrder() &&
+           ((value == null) || (value.getClass() == uniformValueClass));
+  }
+
+  /**
+   * @param value the value to find.
+   * @return the rows that have a value that is equal to the given value. Sorted by row number.
+   */
+  int[] getRowsWithValue(Object value) {
+    int[] rows = getHashIndex().get(value);
+    return (rows != null) ? rows : NO_ROWS;
+  }
+
+  /**
+   * @param compareToValues the values to find.
+   * @return the rows having one of the given values.
+   */
+  List<int[]> getRowsWithValues(Collection<?> compareToValues) {
+    Map<Object, int[]> index = getHashIndex();
+    List<int[]> rowSets = new ArrayList<int[]>(compareToValues.size());
+    for (Object v : compareToValues) {
+      int[] rows = index.get(v);
+      if (rows != null) {
+        rowSets.add(rows);
+      }
+    }
+    return rowSets;
+  }
+
+  /**
+   * Provides all row numbers ordered ascending by the natural order of their value.<br>
+   * <code>null</code> values are sorted to the start. Rows with equal values keep their row order.
+   * <p>
+   * Precondition: {@link #hasNaturalOrder()}.
+   *
+   * @return the sorted row numbers. Should not be modified.
+   */
+  int[] getSortedRows() {
+    if (sortedRows == null) {
+      sortedRows = sortRows(getNaturalOrderRowComparator());
+    }
+    return sortedRows;
+  }
+
+  /**
+   * Provides all row numbers ordered descending by the natural order of their value.<br>
+   * Rows with equal values keep their row order. This way the result corresponds to a stable sort
+   * using an inverted comparator.
+   *
+   * @return the sorted row numbers. Should not be modified.
+   */
+  int[] getSortedRowsDescending() {
+    if (sortedRowsDescending == null) {
+      int[] asc = getSortedRows();
+      RowComparator cmp = getNaturalOrderRowComparator();
+      int[] desc = new int[asc.length];
+      int pos = 0;
+      int groupEnd = asc.length;
+      while (groupEnd > 0) {
+        int groupStart = groupEnd - 1;
+        while (groupStart > 0 && cmp.compare(asc[groupStart - 1], asc[groupEnd - 1]) == 0) {
+          --groupStart;
+        }
+        System.arraycopy(asc, groupStart, desc, pos, groupEnd - groupStart);
+        pos += groupEnd - groupStart;
+        groupEnd = groupStart;
+      }
+      sortedRowsDescending = desc;
+    }
+    return sortedRowsDescending;
+  }
+
+  /**
+   * Finds the first position within {@link #getSortedRows()} having a value that is greater or equal
+   * (<code>inclusive</code>) or greater (not <code>inclusive</code>) than the given value.
+   * <p>
+   * Precondition: {@link #isRangeComparableTo(Object)}.
+   *
+   * @param value the value to compare to.
+   * @param inclusive <code>true</code> if rows having an equal value should be found.
+   * @return the found position within the sorted rows. Is the number of rows if there is no such row.
+   */
+  int findSortedPos(Object value, boolean inclusive) {
+    int[] rows = getSortedRows();
+    int low = 0;
+    int high = rows.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      int c = compareToValue(rows[mid], value);
+      if (c < 0 || (!inclusive && c == 0)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Sorts all rows using the given value comparator.
+   *
+   * @param valueComparator the comparator used to compare the column values.
+   * @return the stable sorted rows.
+   */
+  int[] sortRowsByValue(final Comparator<Object> valueComparator) {
+    return sortRows(new RowComparator() {
+      @Override
+      public int compare(int r1, int r2) {
+        return valueComparator.compare(values[r1], values[r2]);
+      }
+    });
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private int compareToValue(int row, Object value) {
+    Object rowValue = values[row];
+    if (rowValue == null || value == null) {
+      return CompareUtil.compare((Comparable) rowValue, (Comparable) value);
+    }
+    switch (primitiveKind) {
+      case LONG:   return compareLong(longValues[row], toLong(value));
+      case DOUBLE: return Double.compare(doubleValues[row], ((Number) value).doubleValue());
+      default:     return ((Comparable) rowValue).compareTo(value);
+    }
+  }
+
+  private Map<Object, int[]> getHashIndex() {
+    if (hashIndex == null) {
+      Map<Object, IntList> valueToRows = new HashMap<Object, IntList>();
+      for (int i = 0; i < values.length; ++i) {
+        IntList rows = valueToRows.get(values[i]);
+        if (rows == null) {
+          rows = new IntList();
+          valueToRows.put(values[i], rows);
+        }
+        rows.add(i);
+      }
+
+      Map<Object, int[]> index = new HashMap<Object, int[]>(valueToRows.size() * 4 / 3 + 1);
+      for (Map.Entry<Object, IntList> e : valueToRows.entrySet()) {
+        index.put(e.getKey(), e.getValue().toArray());
+      }
+      hashIndex = index;
+    }
+    return hashIndex;
+  }
+
+  private RowComparator getNaturalOrderRowComparator() {
+    switch (primitiveKind) {
+      case LONG:
+        return new RowComparator() {
+          @Override
+          public int compare(int r1, int r2) {
+            int c = compareNulls(r1, r2);
+            return (c != 2) ? c : compareLong(longValues[r1], longValues[r2]);
+          }
+        };
+      case DOUBLE:
+        return new RowComparator() {
+          @Override
+          public int compare(int r1, int r2) {
+            int c = compareNulls(r1, r2);
+            return (c != 2) ? c : Double.compare(doubleValues[r1], doubleValues[r2]);
+          }
+        };
+      default:
+        return new RowComparator() {
+          @SuppressWarnings({ "unchecked", "rawtypes" })
+          @Override
+          public int compare(int r1, int r2) {
+            return CompareUtil.compare((Comparable) values[r1], (Comparable) values[r2]);
+          }
+        };
+    }
+  }
+
+  /** @return the null compare result or <code>2</code> if both values are not <code>null</code>. */
+  private int compareNulls(int r1, int r2) {
+    boolean n1 = values[r1] == null;
+    boolean n2 = values[r2] == null;
+    if (n1 || n2) {
+      return (n1 == n2) ? 0 : (n1 ? -1 : 1);
+    }
+    return 2;
+  }
+
+  private int[] sortRows(RowComparator cmp) {
+    int[] rows = new int[values.length];
+    for (int i = 0; i < rows.length; ++i) {
+      rows[i] = i;
+    }
+    mergeSort(rows.clone(), rows, 0, rows.length, cmp);
+    return rows;
+  }
+
+  /** A stable merge sort for row numbers. Sorts the range of <code>dest</code>. */
+  static void mergeSort(int[] src, int[] dest, int low, int high, RowComparator cmp) {
+    int length = high - low;
+    if (length < 7) {
+      // insertion sort for small ranges
+      for (int i = low; i < high; ++i) {
+        for (int j = i; j > low && cmp.compare(dest[j - 1], dest[j]) > 0; --j) {
+          int t = dest[j];
+          dest[j] = dest[j - 1];
+          dest[j - 1] = t;
+        }
+      }
+      return;
+    }
+
+    int mid = (low + high) >>> 1;
+    mergeSort(dest, src, low, mid, cmp);
+    mergeSort(dest, src, mid, high, cmp);
+
+    // already sorted
+    if (cmp.compare(src[mid - 1], src[mid]) <= 0) {
+      System.arraycopy(src, low, dest, low, length);
+      return;
+    }
+
+    for (int i = low, p = low, q = mid; i < high; ++i) {
+      if (q >= high || (p < mid && cmp.compare(src[p], src[q]) <= 0)) {
+        dest[i] = src[p++];
+      } else {
+        dest[i] = src[q++];
+      }
+    }
+  }
+
+  private static int compareLong(long l1, long l2) {
+    return (l1 < l2) ? -1 : ((l1 == l2) ? 0 : 1);
+  }
+
+  private static long toLong(Object value) {
+    if (value == null) {
+      return 0;
+    }
+    return (value instanceof Date)
+        ? ((Date) value).getTime()
+        : ((Number) value).longValue();
+  }
+
+  private static Class<?> findUniformValueClass(Object[] values) {
+    Class<?> c = null;
+    for (Object v : values) {
+      if (v != null) {
+        if (c == null) {
+          c = v.getClass();
+        } else if (c != v.getClass()) {
+          return null;
+        }
+      }
+    }
+    return c;
+  }
+
+  private static PrimitiveKind getPrimitiveKind(Class<?> valueClass) {
+    if (valueClass == Long.class || valueClass == Integer.class ||
+        valueClass == Short.class || valueClass == Byte.class ||
+        // Date sub classes like Timestamp have a different compare logic.
+        valueClass == Date.class) {
+      return PrimitiveKind.LONG;
+    }
+    if (valueClass == Double.class || valueClass == Float.class) {
+      return PrimitiveKind.DOUBLE;
+    }
+    return PrimitiveKind.NONE;
+  }
+
+  /** Compares two rows. */
+  interface RowComparator {
+    int compare(int r1, int r2);
+  }
+
+  /** A minimal growing int array. */
+  static class IntList {
+    private int[] data = new int[4];
+    private int size;
+
+    void add(int i) {
+      if (size == data.length) {
+        int[] newData = new int[size * 2];
+        System.arraycopy(data, 0, newData, 0, size);
+        data = newData;
+      }
+      data[size++] = i;
+    }
+
+    int get(int idx) {
+      return data[idx];
+    }
+
+    int size() {
+      return size;
+    }
+
+    /** Removes and returns the first value. */
+    int removeFirst() {
+      int first = data[0];
+      System.arraycopy(data, 1, data, 0, --size);
+      return first;
+    }
+
+    int[] toArray() {
+      int[] a = new int[size];
+      System.arraycopy(data, 0, a, 0, size);
+      return a;
+    }
+  }
+}
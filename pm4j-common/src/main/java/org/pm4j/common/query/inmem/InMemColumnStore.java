@@ -0,0 +1,286 @@
+package org.pm4j.common.query.inmem;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+
+import org.pm4j.common.query.QueryAttr;
+import org.pm4j.common.query.QueryExpr;
+import org.pm4j.common.query.QueryExprAnd;
+import org.pm4j.common.query.QueryExprCompare;
+import org.pm4j.common.query.QueryExprNot;
+import org.pm4j.common.query.QueryExprOr;
+import org.pm4j.common.query.SortOrder;
+import org.pm4j.common.util.InvertingComparator;
+
+/**
+ * A column oriented snapshot of a set of in-memory items that answers queries using indexes.
+ * <p>
+ * The value of each queried {@link QueryAttr} gets read only once from each item. The values
+ * are stored in a column per attribute. Hash indexes answer equals and IN compare operations.
+ * Sorted indexes answer less and greater compare operations as well as sort orders.
+ * Other compare operations are evaluated by the configured {@link InMemQueryEvaluator} based on the
+ * column values. Columns and indexes get created on first usage.
+ * <p>
+ * The store does not observe its items. It has to be re-created if items get added, removed or
+ * changed.
+ * <p>
+ * The query results are identical to the results provided by
+ * {@link InMemQueryEvaluator#evaluateSubSet(Collection, QueryExpr)} and a stable sort using
+ * {@link InMemQueryEvaluator#getComparator(SortOrder)}.
+ *
+ * @param <T_ITEM> the type of handled items.
+ *
+ * @author olaf boede
+ */
+public class InMemColumnStore<T_ITEM> {
+
+  private final InMemQueryEvaluator<T_ITEM> evaluator;
+  private final Collection<T_ITEM> source;
+  private final List<T_ITEM> items;
+  private final Map<QueryAttr, InMemColumn> attrToColumnMap = new HashMap<QueryAttr, InMemColumn>();
+
+  /**
+   * @param evaluator
+   *          provides the attribute values and the compare operator logic.
+   * @param items
+   *          the items to provide a query access for.
+   */
+  public InMemColumnStore(InMemQueryEvaluator<T_ITEM> evaluator, Collection<T_ITEM> items) {
+    assert evaluator != null;
+    assert items != null;
+
+    this.evaluator = evaluator;
+    this.source = items;
+    this.items = new ArrayList<T_ITEM>(items);
+  }
+
+  /**
+   * Checks if this store was created for the given collection in its current state.
+   * <p>
+   * Changes that do not affect the collection size are not detected. The
+   * owner of the store needs to drop it on each item value change.
+   *
+   * @param items the collection to check.
+   * @return <code>true</code> if this store was created for the given collection instance having the same size.
+   */
+  public boolean isStoreFor(Collection<T_ITEM> items) {
+    return (items == source) && (items.size() == this.items.size());
+  }
+
+  /**
+   * @return the number of items.
+   */
+  public int size() {
+    return items.size();
+  }
+
+  /**
+   * Provides the filtered and sorted set of items.
+   *
+   * @param filterExpr the filter to apply. May be <code>null</code>.
+   * @param sortOrder the sort order to apply. May be <code>null</code>.
+   * @return a new list containing the matching items in the requested order.
+   */
+  public List<T_ITEM> query(QueryExpr filterExpr, SortOrder sortOrder) {
+    BitSet rows = filter(filterExpr);
+    List<T_ITEM> result = new ArrayList<T_ITEM>(rows.cardinality());
+
+    if (sortOrder == null) {
+      for (int r = rows.nextSetBit(0); r >= 0; r = rows.nextSetBit(r + 1)) {
+        result.add(items.get(r));
+      }
+    } else {
+      for (int r : getSortedRows(sortOrder)) {
+        if (rows.get(r)) {
+          result.add(items.get(r));
+        }
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Provides the set of rows that match the given filter expression.
+   *
+   * @param expr the filter to apply. May be <code>null</code>.
+   * @return a bit set having the rows of all matching items set.
+   */
+  public BitSet filter(QueryExpr expr) {
+    if (expr == null) {
+      BitSet all = new BitSet(items.size());
+      all.set(0, items.size());
+      return all;
+    }
+
+    InMemExprEvaluator ev = evaluator.getExprEvaluator(expr);
+    Class<?> evClass = ev.getClass();
+    if (evClass == InMemExprEvaluatorAnd.class) {
+      return filterAnd((QueryExprAnd) expr);
+    } else if (evClass == InMemExprEvaluatorOr.class) {
+      return filterOr((QueryExprOr) expr);
+    } else if (evClass == InMemExprEvaluatorNot.class) {
+      BitSet rows = filter(((QueryExprNot) expr).getBaseExpression());
+      rows.flip(0, items.size());
+      return rows;
+    } else if (evClass == InMemExprEvaluatorCompare.class) {
+      return filterCompare((QueryExprCompare) expr);
+    } else {
+      // Unknown expression type: evaluate it item by item.
+      BitSet rows = new BitSet(items.size());
+      for (int i = 0; i < items.size(); ++i) {
+        if (ev.eval(evaluator, items.get(i), expr)) {
+          rows.set(i);
+        }
+      }
+      return rows;
+    }
+  }
+
+  private BitSet filterAnd(QueryExprAnd expr) {
+    List<QueryExpr> list = expr.getExpressions();
+    if (list.isEmpty()) {
+      throw new IllegalArgumentException("An AND expression should have at least a single member expression.");
+    }
+
+    BitSet rows = null;
+    for (QueryExpr e : list) {
+      if (e == null) {
+        throw new RuntimeException("An AND expression with a 'null' item can't be handled.");
+      }
+      if (rows == null) {
+        rows = filter(e);
+      } else {
+        rows.and(filter(e));
+      }
+      if (rows.isEmpty()) {
+        break;
+      }
+    }
+    return rows;
+  }
+
+  private BitSet filterOr(QueryExprOr expr) {
+    List<QueryExpr> list = expr.getExpressions();
+    if (list.isEmpty()) {
+      throw new IllegalArgumentException("An OR expression should have at least a single member expression.");
+    }
+
+    BitSet rows = new BitSet(items.size());
+    for (QueryExpr e : list) {
+      rows.or(filter(e));
+    }
+    return rows;
+  }
+
+  private BitSet filterCompare(QueryExprCompare expr) {
+    InMemColumn column = getColumn(expr.getAttr());
+    InMemCompOpEvaluator coEval = evaluator.getCompOpEvaluator(expr);
+    Object compareToValue = expr.getValue();
+    BitSet rows = new BitSet(items.size());
+
+    if (coEval == InMemCompOpEvaluators.EQUALS) {
+      setRows(rows, column.getRowsWithValue(compareToValue));
+    } else if (coEval == InMemCompOpEvaluators.NE) {
+      rows.set(0, items.size());
+      for (int r : column.getRowsWithValue(compareToValue)) {
+        rows.clear(r);
+      }
+    } else if ((coEval == InMemCompOpEvaluators.IN) &&
+               (compareToValue instanceof Collection) &&
+               !(compareToValue instanceof SortedSet)) {
+      for (int[] r : column.getRowsWithValues((Collection<?>) compareToValue)) {
+        setRows(rows, r);
+      }
+    } else if (isRangeEvaluator(coEval) && column.isRangeComparableTo(compareToValue)) {
+      int[] sortedRows = column.getSortedRows();
+      int from = 0;
+      int to = sortedRows.length;
+      if (coEval == InMemCompOpEvaluators.LT) {
+        to = column.findSortedPos(compareToValue, true);
+      } else if (coEval == InMemCompOpEvaluators.LE) {
+        to = column.findSortedPos(compareToValue, false);
+      } else if (coEval == InMemCompOpEvaluators.GT) {
+        from = column.findSortedPos(compareToValue, false);
+      } else {
+        from = column.findSortedPos(compareToValue, true);
+      }
+      for (int i = from; i < to; ++i) {
+        rows.set(sortedRows[i]);
+      }
+    } else {
+      // No index support: evaluate the compare operation on the column values.
+      for (int i = 0; i < column.size(); ++i) {
+        if (coEval.eval(evaluator, expr.getCompOp(), column.getValue(i), compareToValue)) {
+          rows.set(i);
+        }
+      }
+    }
+
+    return rows;
+  }
+
+  /**
+   * Provides the rows sorted by the given sort order.
+   * <p>
+   * Like {@link InMemQueryEvaluator#getComparator(SortOrder)} it considers the first attribute of the sort order.
+   */
+  private int[] getSortedRows(SortOrder sortOrder) {
+    InMemSortOrder inMemSortOrder = (sortOrder instanceof InMemSortOrder)
+        ? (InMemSortOrder) sortOrder
+        : new InMemSortOrder(sortOrder);
+    InMemColumn column = getColumn(inMemSortOrder.getAttr());
+    Comparator<Object> comparator = inMemSortOrder.getComparator();
+
+    if (column.hasNaturalOrder()) {
+      if (comparator instanceof InMemSortOrder.ComparableComparator) {
+        return column.getSortedRows();
+      }
+      if ((comparator instanceof InvertingComparator) &&
+          (((InvertingComparator<Object>) comparator).getBaseComparator() instanceof InMemSortOrder.ComparableComparator)) {
+        return column.getSortedRowsDescending();
+      }
+    }
+
+    return column.sortRowsByValue(comparator);
+  }
+
+  /**
+   * Provides the column for the given attribute. Reads the attribute values on first access.
+   *
+   * @param attr the attribute to get the column for.
+   * @return the column.
+   */
+  InMemColumn getColumn(QueryAttr attr) {
+    InMemColumn column = attrToColumnMap.get(attr);
+    if (column == null) {
+      Object[] values = new Object[items.size()];
+      for (int i = 0; i < values.length; ++i) {
+        values[i] = evaluator.getAttrValue(items.get(i), attr);
+      }
+      column = new InMemColumn(attr, values);
+      attrToColumnMap.put(attr, column);
+    }
+    return column;
+  }
+
+  private static boolean isRangeEvaluator(InMemCompOpEvaluator coEval) {
+    return coEval == InMemCompOpEvaluators.LT ||
+           coEval == InMemCompOpEvaluators.LE ||
+           coEval == InMemCompOpEvaluators.GT ||
+           coEval == InMemCompOpEvaluators.GE;
+  }
+
+  private static void setRows(BitSet bitSet, int[] rows) {
+    for (int r : rows) {
+      bitSet.set(r);
+    }
+  }
+
+}
@@ -0,0 +1,570 @@
+package org.pm4j.common.query.inmem;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.apache.commons.lang.StringUtils;
+import org.pm4j.common.expr.ExprExecCtxt;
+import org.pm4j.common.expr.Expression;
+import org.pm4j.common.query.CompOp;
+import org.pm4j.common.query.CompOpBase;
+import org.pm4j.common.query.CompOpContains;
+import org.pm4j.common.query.CompOpEquals;
+import org.pm4j.common.query.CompOpGe;
+import org.pm4j.common.query.CompOpGt;
+import org.pm4j.common.query.CompOpIn;
+import org.pm4j.common.query.CompOpIsNull;
+import org.pm4j.common.query.CompOpLe;
+import org.pm4j.common.query.CompOpLike;
+import org.pm4j.common.query.CompOpLt;
+import org.pm4j.common.query.CompOpNotContains;
+import org.pm4j.common.query.CompOpNotEquals;
+import org.pm4j.common.query.CompOpNotNull;
+import org.pm4j.common.query.CompOpStartsWith;
+import org.pm4j.common.query.QueryAttr;
+import org.pm4j.common.query.QueryAttrMulti;
+import org.pm4j.common.query.QueryExpr;
+import org.pm4j.common.query.QueryExprAnd;
+import org.pm4j.common.query.QueryExprCompare;
+import org.pm4j.common.query.QueryExprNot;
+import org.pm4j.common.query.QueryExprOr;
+import org.pm4j.common.util.CompareUtil;
+import org.pm4j.common.util.collection.MultiObjectValue;
+import org.pm4j.common.util.reflection.BeanAttrAccessor;
+import org.pm4j.common.util.reflection.BeanAttrUtil;
+import org.pm4j.common.util.reflection.ReflectionException;
+
+/**
+ * Compiles {@link QueryExpr} trees to {@link InMemQueryPredicate}s.
+ * <p>
+ * Expressions and compare operators that are handled by the default evaluators
+ * of {@link InMemQueryEvaluatorSet} get translated to specialized predicates:
+ * <ul>
+ *   <li>Attribute paths get resolved to pre-bound attribute accessors.</li>
+ *   <li>String compare values get normalized only once.</li>
+ *   <li><code>IN</code> value collections get translated to hash sets.</li>
+ *   <li><code>LIKE</code> patterns get compiled only once.</li>
+ * </ul>
+ * All other expressions, as well as expressions that can't be evaluated (e.g. an AND
+ * without members), get delegated to their evaluators. This way a compiled predicate
+ * provides the same results and exceptions as the interpreted evaluation.
+ *
+ * @author olaf boede
+ */
+class InMemQueryCompiler {
+
+  /** Attribute paths that consist only of a chain of plain attribute names. */
+  private static final Pattern SIMPLE_PATH_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)*");
+
+  private final InMemQueryEvaluator<?> ctxt;
+
+  InMemQueryCompiler(InMemQueryEvaluator<?> ctxt) {
+    this.ctxt = ctxt;
+  }
+
+  /**
+   * @param expr the expression to compile.
+   * @return the corresponding predicate.
+   */
+  InMemQueryPredicate compile(QueryExpr expr) {
+    InMemExprEvaluator ev;
+    try {
+      ev = ctxt.getExprEvaluator(expr);
+    } catch (RuntimeException e) {
+      // reports the problem on evaluation.
+      return new InterpretedPredicate(ctxt, expr);
+    }
+
+    Class<?> evClass = ev.getClass();
+    if (evClass == InMemExprEvaluatorAnd.class) {
+      List<QueryExpr> list = ((QueryExprAnd) expr).getExpressions();
+      if (isCompilable(list)) {
+        return new AndPredicate(compileAll(list));
+      }
+    } else if (evClass == InMemExprEvaluatorOr.class) {
+      List<QueryExpr> list = ((QueryExprOr) expr).getExpressions();
+      if (isCompilable(list)) {
+        return new OrPredicate(compileAll(list));
+      }
+    } else if (evClass == InMemExprEvaluatorNot.class) {
+      QueryExpr baseExpr = ((QueryExprNot) expr).getBaseExpression();
+      if (baseExpr != null) {
+        return new NotPredicate(compile(baseExpr));
+      }
+    } else if (evClass == InMemExprEvaluatorCompare.class) {
+      return compileCompare((QueryExprCompare) expr);
+    }
+
+    return new InterpretedPredicate(ctxt, expr);
+  }
+
+  @SuppressWarnings("deprecation")
+  private InMemQueryPredicate compileCompare(QueryExprCompare expr) {
+    CompOp compOp = expr.getCompOp();
+    QueryAttr attr = expr.getAttr();
+    if (compOp == null || attr == null) {
+      return new InterpretedPredicate(ctxt, expr);
+    }
+
+    InMemCompOpEvaluator coEval;
+    try {
+      coEval = ctxt.getCompOpEvaluator(expr);
+    } catch (RuntimeException e) {
+      return new InterpretedPredicate(ctxt, expr);
+    }
+
+    AttrValueAccessor accessor = makeAttrValueAccessor(attr);
+    Object value = expr.getValue();
+
+    if (coEval == InMemCompOpEvaluators.EQUALS && compOp instanceof CompOpEquals) {
+      return new EqualsPredicate(accessor, value, false);
+    }
+    if (coEval == InMemCompOpEvaluators.NE && compOp instanceof CompOpNotEquals) {
+      return new EqualsPredicate(accessor, value, true);
+    }
+    if (coEval == InMemCompOpEvaluators.IS_NULL && compOp instanceof CompOpIsNull) {
+      return new IsNullPredicate(accessor, false);
+    }
+    if (coEval == InMemCompOpEvaluators.NOT_NULL && compOp instanceof CompOpNotNull) {
+      return new IsNullPredicate(accessor, true);
+    }
+    if (value instanceof Comparable) {
+      if (coEval == InMemCompOpEvaluators.LT && compOp instanceof CompOpLt) {
+        return new RangePredicate(accessor, (Comparable<?>) value, RangePredicate.LT);
+      }
+      if (coEval == InMemCompOpEvaluators.LE && compOp instanceof CompOpLe) {
+        return new RangePredicate(accessor, (Comparable<?>) value, RangePredicate.LE);
+      }
+      if (coEval == InMemCompOpEvaluators.GT && compOp instanceof CompOpGt) {
+        return new RangePredicate(accessor, (Comparable<?>) value, RangePredicate.GT);
+      }
+      if (coEval == InMemCompOpEvaluators.GE && compOp instanceof CompOpGe) {
+        return new RangePredicate(accessor, (Comparable<?>) value, RangePredicate.GE);
+      }
+    }
+    if (value == null || value instanceof String) {
+      String s = (String) value;
+      if (coEval == InMemCompOpEvaluators.STRING_STARTS_WITH && compOp instanceof CompOpStartsWith) {
+        CompOpBase<?> op = (CompOpBase<?>) compOp;
+        return new StringIndexPredicate(accessor, s, op.isIgnoreCase(), op.isIgnoreSpaces(), StringIndexPredicate.STARTS_WITH);
+      }
+      if (coEval == InMemCompOpEvaluators.STRING_CONTAINS && compOp instanceof CompOpContains) {
+        CompOpBase<?> op = (CompOpBase<?>) compOp;
+        return new StringIndexPredicate(accessor, s, op.isIgnoreCase(), op.isIgnoreSpaces(), StringIndexPredicate.CONTAINS);
+      }
+      if (coEval == InMemCompOpEvaluators.STRING_NOT_CONTAINS && compOp instanceof CompOpNotContains) {
+        CompOpBase<?> op = (CompOpBase<?>) compOp;
+        return new StringIndexPredicate(accessor, s, op.isIgnoreCase(), op.isIgnoreSpaces(), StringIndexPredicate.NOT_CONTAINS);
+      }
+      if (coEval == InMemCompOpEvaluators.LIKE && compOp instanceof CompOpLike) {
+        return new LikePredicate(accessor, InMemCompOpEvaluatorLike.getPattern(ctxt, s));
+      }
+    }
+    if (coEval == InMemCompOpEvaluators.IN && compOp instanceof CompOpIn && value instanceof Collection) {
+      // A given set is used as it is. It may have specific (e.g. sorted) contains semantics.
+      Collection<?> values = (value instanceof Set)
+          ? (Collection<?>) value
+          : new HashSet<Object>((Collection<?>) value);
+      return new InPredicate(accessor, values);
+    }
+
+    return new CompOpEvaluatorPredicate(ctxt, accessor, coEval, compOp, value);
+  }
+
+  private boolean isCompilable(List<QueryExpr> list) {
+    return !list.isEmpty() && !list.contains(null);
+  }
+
+  private InMemQueryPredicate[] compileAll(List<QueryExpr> list) {
+    InMemQueryPredicate[] predicates = new InMemQueryPredicate[list.size()];
+    for (int i = 0; i < predicates.length; ++i) {
+      predicates[i] = compile(list.get(i));
+    }
+    return predicates;
+  }
+
+  /**
+   * Provides an accessor that resolves the attribute value in the same way as
+   * {@link InMemQueryEvaluator#getAttrValue(Object, QueryAttr)}.
+   */
+  AttrValueAccessor makeAttrValueAccessor(QueryAttr attr) {
+    if (ctxt.isAttrValueAccessOverridden()) {
+      return new EvaluatorAttrValueAccessor(ctxt, attr);
+    }
+
+    if (attr instanceof QueryAttrMulti) {
+      List<QueryAttr> parts = ((QueryAttrMulti) attr).getParts();
+      AttrValueAccessor[] partAccessors = new AttrValueAccessor[parts.size()];
+      for (int i = 0; i < partAccessors.length; ++i) {
+        partAccessors[i] = makeAttrValueAccessor(parts.get(i));
+      }
+      return new MultiAttrValueAccessor(partAccessors);
+    }
+
+    Expression expr = ctxt.getPathExpression(attr);
+    String path = attr.getPath();
+    if (isSimplePath(path)) {
+      String[] names = StringUtils.split(path, '.');
+      PathStep[] steps = new PathStep[names.length];
+      for (int i = 0; i < names.length; ++i) {
+        steps[i] = new PathStep(names[i]);
+      }
+      return new BoundPathAccessor(expr, steps);
+    }
+    return new ExprAttrValueAccessor(expr);
+  }
+
+  private static boolean isSimplePath(String path) {
+    if (path == null || !SIMPLE_PATH_PATTERN.matcher(path).matches()) {
+      return false;
+    }
+    // Reserved words of the path expression language.
+    String firstName = StringUtils.substringBefore(path, ".");
+    return !(firstName.equals("this") ||
+             firstName.equals("null") ||
+             firstName.equals("true") ||
+             firstName.equals("false"));
+  }
+
+  // -- Attribute value accessors --
+
+  /** Provides the value of an attribute for an item. */
+  abstract static class AttrValueAccessor {
+    abstract Object getValue(Object item);
+  }
+
+  /** Uses a custom {@link InMemQueryEvaluator#getAttrValue(Object, QueryAttr)} implementation. */
+  static final class EvaluatorAttrValueAccessor extends AttrValueAccessor {
+    private final InMemQueryEvaluator<?> ctxt;
+    private final QueryAttr attr;
+
+    EvaluatorAttrValueAccessor(InMemQueryEvaluator<?> ctxt, QueryAttr attr) {
+      this.ctxt = ctxt;
+      this.attr = attr;
+    }
+
+    @Override
+    Object getValue(Object item) {
+      return ctxt.getAttrValue(item, attr);
+    }
+  }
+
+  static final class MultiAttrValueAccessor extends AttrValueAccessor {
+    private final AttrValueAccessor[] parts;
+
+    MultiAttrValueAccessor(AttrValueAccessor[] parts) {
+      this.parts = parts;
+    }
+
+    @Override
+    Object getValue(Object item) {
+      Object[] values = new Object[parts.length];
+      for (int i = 0; i < parts.length; ++i) {
+        values[i] = parts[i].getValue(item);
+      }
+      return new MultiObjectValue(values);
+    }
+  }
+
+  /** Executes a general path expression. */
+  static final class ExprAttrValueAccessor extends AttrValueAccessor {
+    private final Expression expr;
+
+    ExprAttrValueAccessor(Expression expr) {
+      this.expr = expr;
+    }
+
+    @Override
+    Object getValue(Object item) {
+      return expr.exec(new ExprExecCtxt(item));
+    }
+  }
+
+  /**
+   * Resolves a chain of plain attribute names using accessors that are bound
+   * to the handled item classes.
+   * <p>
+   * Unusual situations, like a <code>null</code> value within the path or a
+   * missing attribute, get delegated to the path expression. It reports them
+   * as usual.
+   */
+  static final class BoundPathAccessor extends AttrValueAccessor {
+    private final Expression expr;
+    private final PathStep[] steps;
+
+    BoundPathAccessor(Expression expr, PathStep[] steps) {
+      this.expr = expr;
+      this.steps = steps;
+    }
+
+    @Override
+    Object getValue(Object item) {
+      Object value = item;
+      for (int i = 0; i < steps.length; ++i) {
+        BeanAttrAccessor accessor = (value != null) ? steps[i].getAccessor(value.getClass()) : null;
+        if (accessor == null) {
+          return expr.exec(new ExprExecCtxt(item));
+        }
+        value = accessor.getBeanAttrValue(value);
+      }
+      return value;
+    }
+  }
+
+  /** A path step that remembers the accessor for the class of the last handled object. */
+  static final class PathStep {
+    private final String name;
+    private volatile StepBinding binding;
+
+    PathStep(String name) {
+      this.name = name;
+    }
+
+    /** @return the accessor or <code>null</code> if the class has no such attribute. */
+    BeanAttrAccessor getAccessor(Class<?> beanClass) {
+      StepBinding b = binding;
+      if (b == null || b.beanClass != beanClass) {
+        try {
+          b = new StepBinding(beanClass, BeanAttrUtil.getAccessor(beanClass, name));
+        } catch (ReflectionException e) {
+          return null;
+        }
+        binding = b;
+      }
+      return b.accessor;
+    }
+  }
+
+  private static final class StepBinding {
+    final Class<?> beanClass;
+    final BeanAttrAccessor accessor;
+
+    StepBinding(Class<?> beanClass, BeanAttrAccessor accessor) {
+      this.beanClass = beanClass;
+      this.accessor = accessor;
+    }
+  }
+
+  // -- Predicates --
+
+  static final class AndPredicate implements InMemQueryPredicate {
+    private final InMemQueryPredicate[] predicates;
+
+    AndPredicate(InMemQueryPredicate[] predicates) {
+      this.predicates = predicates;
+    }
+
+    @Override
+    public boolean eval(Object item) {
+      for (InMemQueryPredicate p : predicates) {
+        if (!p.eval(item)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  static final class OrPredicate implements InMemQueryPredicate {
+    private final InMemQueryPredicate[] predicates;
+
+    OrPredicate(InMemQueryPredicate[] predicates) {
+      this.predicates = predicates;
+    }
+
+    @Override
+    public boolean eval(Object item) {
+      for (InMemQueryPredicate p : predicates) {
+        if (p.eval(item)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  static final class NotPredicate implements InMemQueryPredicate {
+    private final InMemQueryPredicate basePredicate;
+
+    NotPredicate(InMemQueryPredicate basePredicate) {
+      this.basePredicate = basePredicate;
+    }
+
+    @Override
+    public boolean eval(Object item) {
+      return !basePredicate.eval(item);
+    }
+  }
+
+  static final class EqualsPredicate implements InMemQueryPredicate {
+    private final AttrValueAccessor accessor;
+    private final Object value;
+    private final boolean negate;
+
+    EqualsPredicate(AttrValueAccessor accessor, Object value, boolean negate) {
+      this.accessor = accessor;
+      this.value = value;
+      this.negate = negate;
+    }
+
+    @Override
+    public boolean eval(Object item) {
+      return ObjectUtils.equals(accessor.getValue(item), value) != negate;
+    }
+  }
+
+  /** Same semantics as {@link InMemCompOpEvaluators#IS_NULL}. */
+  static final class IsNullPredicate implements InMemQueryPredicate {
+    private final AttrValueAccessor accessor;
+    private final boolean negate;
+
+    IsNullPredicate(AttrValueAccessor accessor, boolean negate) {
+      this.accessor = accessor;
+      this.negate = negate;
+    }
+
+    @Override
+    public boolean eval(Object item) {
+      Object v = accessor.getValue(item);
+      boolean isNull = (v == null) || (v instanceof String && ((String) v).length() == 0);
+      return isNull != negate;
+    }
+  }
+
+  static final class RangePredicate implements InMemQueryPredicate {
+    static final int LT = 0;
+    static final int LE = 1;
+    static final int GT = 2;
+    static final int GE = 3;
+
+    private final AttrValueAccessor accessor;
+    private final Comparable<?> value;
+    private final int op;
+
+    RangePredicate(AttrValueAccessor accessor, Comparable<?> value, int op) {
+      this.accessor = accessor;
+      this.value = value;
+      this.op = op;
+    }
+
+    @Override
+    public boolean eval(Object item) {
+      int c = CompareUtil.compare((Comparable<?>) accessor.getValue(item), value);
+      switch (op) {
+        case LT: return c < 0;
+        case LE: return c <= 0;
+        case GT: return c > 0;
+        default: return c >= 0;
+      }
+    }
+  }
+
+  /**
+   * Handles 'starts with', 'contains' and 'not contains'.<br>
+   * The compare value gets normalized only once.
+   */
+  static final class StringIndexPredicate implements InMemQueryPredicate {
+    static final int STARTS_WITH = 0;
+    static final int CONTAINS = 1;
+    static final int NOT_CONTAINS = 2;
+
+    private final AttrValueAccessor accessor;
+    private final String normalizedValue;
+    private final boolean ignoreSpaces;
+    private final boolean ignoreCase;
+    private final int op;
+
+    /** The flag parameter order matches the {@link CompareUtil#indexOf(String, String, boolean, boolean)} calls of the interpreting evaluators. */
+    StringIndexPredicate(AttrValueAccessor accessor, String value, boolean ignoreSpaces, boolean ignoreCase, int op) {
+      this.accessor = accessor;
+      this.ignoreSpaces = ignoreSpaces;
+      this.ignoreCase = ignoreCase;
+      this.normalizedValue = CompareUtil.normalize(value, ignoreSpaces, ignoreCase);
+      this.op = op;
+    }
+
+    @Override
+    public boolean eval(Object item) {
+      String s = CompareUtil.normalize((String) accessor.getValue(item), ignoreSpaces, ignoreCase);
+      if (op == STARTS_WITH) {
+        return s != null && normalizedValue != null && s.startsWith(normalizedValue);
+      }
+      boolean found = StringUtils.indexOf(s, normalizedValue) != -1;
+      return (op == CONTAINS) ? found : !found;
+    }
+  }
+
+  static final class LikePredicate implements InMemQueryPredicate {
+    private final AttrValueAccessor accessor;
+    private final Pattern pattern;
+
+    LikePredicate(AttrValueAccessor accessor, Pattern pattern) {
+      this.accessor = accessor;
+      this.pattern = pattern;
+    }
+
+    @Override
+    public boolean eval(Object item) {
+      String s = (String) accessor.getValue(item);
+      return (s != null) && pattern.matcher(s).matches();
+    }
+  }
+
+  static final class InPredicate implements InMemQueryPredicate {
+    private final AttrValueAccessor accessor;
+    private final Collection<?> values;
+
+    InPredicate(AttrValueAccessor accessor, Collection<?> values) {
+      this.accessor = accessor;
+      this.values = values;
+    }
+
+    @Override
+    public boolean eval(Object item) {
+      return values.contains(accessor.getValue(item));
+    }
+  }
+
+  /** Uses a custom compare operator evaluator with a pre-bound attribute accessor. */
+  static final class CompOpEvaluatorPredicate implements InMemQueryPredicate {
+    private final InMemQueryEvaluator<?> ctxt;
+    private final AttrValueAccessor accessor;
+    private final InMemCompOpEvaluator coEval;
+    private final CompOp compOp;
+    private final Object value;
+
+    CompOpEvaluatorPredicate(InMemQueryEvaluator<?> ctxt, AttrValueAccessor accessor, InMemCompOpEvaluator coEval, CompOp compOp, Object value) {
+      this.ctxt = ctxt;
+      this.accessor = accessor;
+      this.coEval = coEval;
+      this.compOp = compOp;
+      this.value = value;
+    }
+
+    @Override
+    public boolean eval(Object item) {
+      return coEval.eval(ctxt, compOp, accessor.getValue(item), value);
+    }
+  }
+
+  /** Delegates to the expression evaluator. */
+  static final class InterpretedPredicate implements InMemQueryPredicate {
+    private final InMemQueryEvaluator<?> ctxt;
+    private final QueryExpr expr;
+
+    InterpretedPredicate(InMemQueryEvaluator<?> ctxt, QueryExpr expr) {
+      this.ctxt = ctxt;
+      this.expr = expr;
+    }
+
+    @Override
+    public boolean eval(Object item) {
+      return ctxt.getExprEvaluator(expr).eval(ctxt, item, expr);
+    }
+  }
+
+}
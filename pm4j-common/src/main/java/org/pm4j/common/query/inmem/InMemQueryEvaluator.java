@@ -3,21 +3,32 @@ package org.pm4j.common.query.inmem;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang.ObjectUtils;
 import org.pm4j.common.expr.ExprExecCtxt;
 import org.pm4j.common.expr.Expression;
 import org.pm4j.common.expr.PathExpressionChain;
 import org.pm4j.common.expr.parser.ParseCtxt;
+import org.pm4j.common.query.CompOpBase;
+import org.pm4j.common.query.QueryExprAnd;
 import org.pm4j.common.query.QueryExprCompare;
 import org.pm4j.common.query.QueryExpr;
 import org.pm4j.common.query.QueryAttr;
 import org.pm4j.common.query.QueryAttrMulti;
 import org.pm4j.common.query.QueryEvaluatorSet;
 import org.pm4j.common.query.SortOrder;
+import org.pm4j.common.util.CompareUtil;
 import org.pm4j.common.util.collection.ListUtil;
 import org.pm4j.common.util.collection.MultiObjectValue;
 
@@ -25,7 +36,9 @@ import org.pm4j.common.util.collection.MultiObjectValue;
  * An algorithm that allows to filter in-memory items based on {@link QueryExpr}s.<br>
  * It also provides algorithms for item sorting based on a given {@link SortOrder}.
  * <p>
- * It's a stateful object, because it contains cached values.
+ * It's a stateful object, because it contains cached values. The caches are thread safe.
+ * <p>
+ * Large collections may be filtered and sorted in parallel. See {@link #setParallelExecutor(ExecutorService, int)}.
  *
  * @param <T_ITEM> the type of handled items.
  *
@@ -37,10 +50,22 @@ public class InMemQueryEvaluator<T_ITEM> {
   private QueryEvaluatorSet evaluatorSet;
 
   /** Attribute path's are evaluated very often (especially when evaluating long lists). */
-  private Map<QueryAttr, Expression> queryAttrToPathExpressionCache = new HashMap<QueryAttr, Expression>();
+  private ConcurrentMap<QueryAttr, Expression> queryAttrToPathExpressionCache = new ConcurrentHashMap<QueryAttr, Expression>();
 
   /** A cache that may be used to prevent repeated evaluations. */
-  private Map<String, Map<Object, Object>> cacheKeyToCacheMap = new HashMap<String, Map<Object,Object>>();
+  private ConcurrentMap<String, Map<Object, Object>> cacheKeyToCacheMap = new ConcurrentHashMap<String, Map<Object,Object>>();
+
+  /** An optional executor used to filter and sort large collections in parallel. */
+  private ExecutorService parallelExecutor;
+
+  /** The minimal number of items to process in parallel. */
+  private int parallelThreshold = Integer.MAX_VALUE;
+
+  /** The number of parts to split a large collection into. */
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+
+  /** <code>true</code> if a sub class defines its own {@link #getAttrValue(Object, QueryAttr)} algorithm. */
+  private final boolean attrValueAccessOverridden = isGetAttrValueOverridden();
 
   public InMemQueryEvaluator() {
     this(InMemQueryEvaluatorSet.INSTANCE);
@@ -64,6 +89,23 @@ public class InMemQueryEvaluator<T_ITEM> {
     return ev.eval(this, item, expr);
   }
 
+  /**
+   * Compiles the given {@link QueryExpr} to a predicate that can be evaluated
+   * repeatedly without further evaluator lookups and attribute path resolutions.
+   * <p>
+   * The predicate provides the same results as {@link #evaluate(Object, QueryExpr)}.
+   * It uses the caches of this evaluator. {@link #clearCaches()} does not
+   * affect existing predicates.
+   *
+   * @param expr
+   *          the filter criteria to compile.
+   * @return the corresponding predicate.
+   */
+  public InMemQueryPredicate compile(QueryExpr expr) {
+    assert expr != null;
+    return new InMemQueryCompiler(this).compile(expr);
+  }
+
   /**
    * Provides a list that contains the filtered sub set.
    *
@@ -82,10 +124,14 @@ public class InMemQueryEvaluator<T_ITEM> {
       return ListUtil.toList(items);
     }
 
-    InMemExprEvaluator ev = getExprEvaluator(expr);
+    InMemQueryPredicate predicate = compile(expr);
+    if (isParallel(items.size())) {
+      return evaluateSubSetParallel(ListUtil.toList(items), predicate);
+    }
+
     List<T_ITEM> resultList = new ArrayList<T_ITEM>();
     for (T_ITEM i : items) {
-      if (ev.eval(this, i, expr)) {
+      if (predicate.eval(i)) {
         resultList.add(i);
       }
     }
@@ -132,14 +178,314 @@ public class InMemQueryEvaluator<T_ITEM> {
       return new ArrayList<T_ITEM>(items);
     }
     else {
+      List<T_ITEM> list = new ArrayList<T_ITEM>(items);
+      sortInPlace(list, getComparator(sortOrder));
+      return list;
+    }
+  }
+
+  /**
+   * Sorts the given list using a stable sort algorithm.<br>
+   * Large lists are sorted in parallel if a parallel executor is configured.
+   *
+   * @param list
+   *          the list to sort.
+   * @param comparator
+   *          the comparator to use.
+   */
+  public void sortInPlace(List<T_ITEM> list, Comparator<T_ITEM> comparator) {
+    if (isParallel(list.size())) {
       @SuppressWarnings("unchecked")
-      T_ITEM[] beanArray = (T_ITEM[]) items.toArray(new Object[items.size()]);
-      Comparator<T_ITEM> comparator = getComparator(sortOrder);
-      Arrays.sort(beanArray, comparator);
-      return new ArrayList<T_ITEM>(Arrays.asList(beanArray));
+      T_ITEM[] beanArray = (T_ITEM[]) list.toArray(new Object[list.size()]);
+      sortParallel(beanArray, comparator);
+      for (int i = 0; i < beanArray.length; ++i) {
+        list.set(i, beanArray[i]);
+      }
+    } else {
+      Collections.sort(list, comparator);
+    }
+  }
+
+  /**
+   * Switches parallel filtering and sorting of large collections on.
+   * <p>
+   * Collections having at least <code>parallelThreshold</code> items get split
+   * into parts that are filtered and sorted by the given executor. The results
+   * are identical to the sequential execution: the filtered items keep their
+   * order and the sort operation is stable.
+   * <p>
+   * The {@link InMemExprEvaluator}s, {@link InMemCompOpEvaluator}s, comparators
+   * and attribute access algorithms used by this evaluator need to be thread safe
+   * if parallel execution is used.
+   *
+   * @param executor
+   *          the executor to use. <code>null</code> switches parallel execution off.
+   * @param parallelThreshold
+   *          the minimal number of items to process in parallel.
+   */
+  public void setParallelExecutor(ExecutorService executor, int parallelThreshold) {
+    assert parallelThreshold > 0;
+    this.parallelExecutor = executor;
+    this.parallelThreshold = parallelThreshold;
+  }
+
+  /**
+   * @param parallelism
+   *          the number of parts to split a large collection into. The default
+   *          is the number of available processors.
+   */
+  public void setParallelism(int parallelism) {
+    assert parallelism > 0;
+    this.parallelism = parallelism;
+  }
+
+  /** @return <code>true</code> if the given number of items should be processed in parallel. */
+  private boolean isParallel(int numOfItems) {
+    return (parallelExecutor != null) &&
+           (parallelism > 1) &&
+           (numOfItems >= parallelThreshold);
+  }
+
+  /** Filters the parts of the given list in parallel and concatenates the part results in order. */
+  private List<T_ITEM> evaluateSubSetParallel(final List<T_ITEM> items, final InMemQueryPredicate predicate) {
+    int partSize = (items.size() + parallelism - 1) / parallelism;
+    List<Callable<List<T_ITEM>>> tasks = new ArrayList<Callable<List<T_ITEM>>>(parallelism);
+    for (int from = 0; from < items.size(); from += partSize) {
+      final List<T_ITEM> part = items.subList(from, Math.min(from + partSize, items.size()));
+      tasks.add(new Callable<List<T_ITEM>>() {
+        @Override
+        public List<T_ITEM> call() {
+          List<T_ITEM> partResult = new ArrayList<T_ITEM>();
+          for (T_ITEM i : part) {
+            if (predicate.eval(i)) {
+              partResult.add(i);
+            }
+          }
+          return partResult;
+        }
+      });
+    }
+
+    List<T_ITEM> resultList = new ArrayList<T_ITEM>();
+    for (List<T_ITEM> partResult : invokeAll(tasks)) {
+      resultList.addAll(partResult);
+    }
+    return resultList;
+  }
+
+  /**
+   * A parallel merge sort: the parts of the array get sorted in parallel.
+   * The sorted parts get merged pairwise (also in parallel) until the whole array is sorted.
+   * Merging prefers the left part on equal items. This way the sort is stable.
+   */
+  private void sortParallel(final T_ITEM[] array, final Comparator<T_ITEM> comparator) {
+    final int partSize = (array.length + parallelism - 1) / parallelism;
+    List<Callable<Void>> sortTasks = new ArrayList<Callable<Void>>(parallelism);
+    for (int from = 0; from < array.length; from += partSize) {
+      final int low = from;
+      final int high = Math.min(from + partSize, array.length);
+      sortTasks.add(new Callable<Void>() {
+        @Override
+        public Void call() {
+          Arrays.sort(array, low, high, comparator);
+          return null;
+        }
+      });
+    }
+    invokeAll(sortTasks);
+
+    @SuppressWarnings("unchecked")
+    final T_ITEM[] buffer = (T_ITEM[]) new Object[array.length];
+    for (int width = partSize; width < array.length; width *= 2) {
+      final int mergeWidth = width;
+      List<Callable<Void>> mergeTasks = new ArrayList<Callable<Void>>();
+      for (int from = 0; from + width < array.length; from += 2 * width) {
+        final int low = from;
+        mergeTasks.add(new Callable<Void>() {
+          @Override
+          public Void call() {
+            merge(array, buffer, low, low + mergeWidth, Math.min(low + 2 * mergeWidth, array.length), comparator);
+            return null;
+          }
+        });
+      }
+      invokeAll(mergeTasks);
+    }
+  }
+
+  /** Merges the sorted ranges [low, mid) and [mid, high) of the given array. */
+  private static <T> void merge(T[] array, T[] buffer, int low, int mid, int high, Comparator<T> comparator) {
+    System.arraycopy(array, low, buffer, low, high - low);
+    int p = low;
+    int q = mid;
+    for (int i = low; i < high; ++i) {
+      if (q >= high || (p < mid && comparator.compare(buffer[p], buffer[q]) <= 0)) {
+        array[i] = buffer[p++];
+      } else {
+        array[i] = buffer[q++];
+      }
+    }
+  }
+
+  /**
+   * Executes the given tasks using the {@link #parallelExecutor}.<br>
+   * Exceptions thrown by a task are re-thrown in the calling thread.
+   */
+  private <T> List<T> invokeAll(List<? extends Callable<T>> tasks) {
+    List<T> results = new ArrayList<T>(tasks.size());
+    try {
+      for (Future<T> f : parallelExecutor.invokeAll(tasks)) {
+        results.add(f.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Parallel query execution was interrupted.", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new RuntimeException("Parallel query execution failed.", cause);
+    }
+    return results;
+  }
+
+  /**
+   * Checks if the given new filter expression is a refinement of the old one.
+   * <p>
+   * A refinement can only be matched by items that also match the old expression.
+   * In this case the new expression may be applied to the result of the old
+   * one instead of applying it to the whole collection.
+   * <p>
+   * Detected refinements are:
+   * <ul>
+   *   <li>An equal expression.</li>
+   *   <li>An AND expression with an additional or a refined member.</li>
+   *   <li>A 'contains' or 'starts with' compare operation with an extended compare value.</li>
+   * </ul>
+   * The check is conservative: <code>false</code> is provided if the relation
+   * between the expressions can't be identified.
+   *
+   * @param newExpr
+   *          the new filter expression. May be <code>null</code>.
+   * @param oldExpr
+   *          the old filter expression. May be <code>null</code>.
+   * @return <code>true</code> if each item that matches the new expression
+   *         also matches the old one.
+   */
+  public boolean isRefinement(QueryExpr newExpr, QueryExpr oldExpr) {
+    if (oldExpr == null) {
+      return true;
+    }
+    if (newExpr == null) {
+      return false;
+    }
+    if (newExpr.equals(oldExpr)) {
+      return true;
+    }
+
+    // The new expression needs to be a refinement of each old AND member.
+    if (isExprEvaluatedBy(oldExpr, InMemExprEvaluatorAnd.class)) {
+      List<QueryExpr> oldMembers = ((QueryExprAnd) oldExpr).getExpressions();
+      if (oldMembers.isEmpty()) {
+        return false;
+      }
+      for (QueryExpr e : oldMembers) {
+        if (e == null || !isRefinement(newExpr, e)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    // It's sufficient if a single new AND member refines the old expression.
+    if (isExprEvaluatedBy(newExpr, InMemExprEvaluatorAnd.class)) {
+      for (QueryExpr e : ((QueryExprAnd) newExpr).getExpressions()) {
+        if (e != null && isRefinement(e, oldExpr)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    if (isExprEvaluatedBy(newExpr, InMemExprEvaluatorCompare.class) &&
+        isExprEvaluatedBy(oldExpr, InMemExprEvaluatorCompare.class)) {
+      return isCompareRefinement((QueryExprCompare) newExpr, (QueryExprCompare) oldExpr);
+    }
+
+    return false;
+  }
+
+  /**
+   * Provides a copy of a filter expression that may be used as the old
+   * expression of later {@link #isRefinement(QueryExpr, QueryExpr)} calls.
+   * <p>
+   * Only the expressions that may be identified as refined get copied: AND
+   * expressions and compare operations with a string value. The copy is
+   * independent of later changes of the given (mutable) expression.
+   *
+   * @param expr
+   *          the expression to copy. May be <code>null</code>.
+   * @return the copy. <code>null</code> if the given expression was
+   *         <code>null</code> or contains parts that can't be copied.
+   */
+  public QueryExpr copyRefinableExpr(QueryExpr expr) {
+    if (expr == null) {
+      return null;
+    }
+
+    if (expr.getClass() == QueryExprAnd.class && isExprEvaluatedBy(expr, InMemExprEvaluatorAnd.class)) {
+      List<QueryExpr> copies = new ArrayList<QueryExpr>();
+      for (QueryExpr e : ((QueryExprAnd) expr).getExpressions()) {
+        QueryExpr copy = copyRefinableExpr(e);
+        if (copy == null) {
+          return null;
+        }
+        copies.add(copy);
+      }
+      return new QueryExprAnd(copies);
+    }
+
+    if (expr.getClass() == QueryExprCompare.class && isExprEvaluatedBy(expr, InMemExprEvaluatorCompare.class)) {
+      QueryExprCompare c = (QueryExprCompare) expr;
+      if ((c.getCompOp() instanceof CompOpBase) && (c.getValue() instanceof String)) {
+        return new QueryExprCompare(c.getAttr(), c.getCompOp().clone(), c.getValue());
+      }
+    }
+
+    return null;
+  }
+
+  @SuppressWarnings("deprecation")
+  private boolean isCompareRefinement(QueryExprCompare newExpr, QueryExprCompare oldExpr) {
+    if (!ObjectUtils.equals(newExpr.getAttr(), oldExpr.getAttr()) ||
+        !ObjectUtils.equals(newExpr.getCompOp(), oldExpr.getCompOp()) ||
+        !(newExpr.getCompOp() instanceof CompOpBase) ||
+        !(newExpr.getValue() instanceof String) ||
+        !(oldExpr.getValue() instanceof String)) {
+      return false;
+    }
+
+    // The same string normalization as in the evaluators gets applied.
+    InMemCompOpEvaluator coEval = getCompOpEvaluator(newExpr);
+    CompOpBase<?> compOp = (CompOpBase<?>) newExpr.getCompOp();
+    int idx = CompareUtil.indexOf((String) newExpr.getValue(), (String) oldExpr.getValue(), compOp.isIgnoreCase(), compOp.isIgnoreSpaces());
+    if (coEval == InMemCompOpEvaluators.STRING_CONTAINS) {
+      return idx != -1;
+    } else if (coEval == InMemCompOpEvaluators.STRING_STARTS_WITH) {
+      return idx == 0;
+    } else {
+      return false;
     }
   }
 
+  private boolean isExprEvaluatedBy(QueryExpr expr, Class<? extends InMemExprEvaluator> evaluatorClass) {
+    return getExprEvaluator(expr).getClass() == evaluatorClass;
+  }
+
   protected InMemExprEvaluator getExprEvaluator(QueryExpr expr) {
     return (InMemExprEvaluator) evaluatorSet.getExprEvaluator(expr);
   }
@@ -164,16 +510,37 @@ public class InMemQueryEvaluator<T_ITEM> {
       return new MultiObjectValue(values);
     }
     else  {
-      Expression expr = queryAttrToPathExpressionCache.get(attr);
-      if (expr == null) {
-        expr = PathExpressionChain.parse(new ParseCtxt(attr.getPath()));
-        queryAttrToPathExpressionCache.put(attr, expr);
-      }
-      Object value = expr.exec(new ExprExecCtxt(item));
+      Object value = getPathExpression(attr).exec(new ExprExecCtxt(item));
       return value;
     }
   }
 
+  /** Provides the (cached) path expression for the given attribute. */
+  /* package */ Expression getPathExpression(QueryAttr attr) {
+    Expression expr = queryAttrToPathExpressionCache.get(attr);
+    if (expr == null) {
+      expr = PathExpressionChain.parse(new ParseCtxt(attr.getPath()));
+      Expression existingExpr = queryAttrToPathExpressionCache.putIfAbsent(attr, expr);
+      if (existingExpr != null) {
+        expr = existingExpr;
+      }
+    }
+    return expr;
+  }
+
+  /** @return <code>true</code> if compiled predicates need to use {@link #getAttrValue(Object, QueryAttr)}. */
+  /* package */ boolean isAttrValueAccessOverridden() {
+    return attrValueAccessOverridden;
+  }
+
+  private boolean isGetAttrValueOverridden() {
+    try {
+      return getClass().getMethod("getAttrValue", Object.class, QueryAttr.class).getDeclaringClass() != InMemQueryEvaluator.class;
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
   /**
    * Provides a named cache.
    * <p>
@@ -181,13 +548,16 @@ public class InMemQueryEvaluator<T_ITEM> {
    * side effects to other comparators.
    *
    * @param cacheKey An identifier for the cache.
-   * @return A map that can be used as a cache.
+   * @return A synchronized map that can be used as a cache.
    */
   public Map<Object, Object> getCache(String cacheKey) {
     Map<Object, Object> cacheMap = cacheKeyToCacheMap.get(cacheKey);
     if (cacheMap == null) {
-      cacheMap = new HashMap<Object, Object>();
-      cacheKeyToCacheMap.put(cacheKey, cacheMap);
+      cacheMap = Collections.synchronizedMap(new HashMap<Object, Object>());
+      Map<Object, Object> existingMap = cacheKeyToCacheMap.putIfAbsent(cacheKey, cacheMap);
+      if (existingMap != null) {
+        cacheMap = existingMap;
+      }
     }
     return cacheMap;
   }
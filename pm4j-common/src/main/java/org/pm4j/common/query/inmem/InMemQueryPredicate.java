@@ -0,0 +1,26 @@
+package org.pm4j.common.query.inmem;
+
+import org.pm4j.common.query.QueryExpr;
+
+/**
+ * A {@link QueryExpr} that is compiled for repeated in-memory evaluation.
+ * <p>
+ * Evaluator lookups, attribute path resolution and compare value preparation
+ * are done only once when the predicate gets compiled.
+ * <p>
+ * Predicate instances are immutable and thread safe.<br>
+ * See {@link InMemQueryEvaluator#compile(QueryExpr)}.
+ *
+ * @author olaf boede
+ */
+public interface InMemQueryPredicate {
+
+  /**
+   * @param item
+   *          the data object to check.
+   * @return <code>true</code> if the given item matches the compiled filter
+   *         criteria.
+   */
+  boolean eval(Object item);
+
+}
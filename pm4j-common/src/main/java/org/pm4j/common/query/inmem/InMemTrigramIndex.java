@@ -0,0 +1,416 @@
+package org.pm4j.common.query.inmem;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.apache.commons.lang.StringUtils;
+import org.pm4j.common.query.CompOp;
+import org.pm4j.common.query.CompOpBase;
+import org.pm4j.common.query.QueryAttr;
+import org.pm4j.common.query.QueryExpr;
+import org.pm4j.common.query.QueryExprAnd;
+import org.pm4j.common.query.QueryExprCompare;
+import org.pm4j.common.query.QueryExprOr;
+import org.pm4j.common.query.inmem.InMemColumn.IntList;
+import org.pm4j.common.util.CompareUtil;
+
+/**
+ * A trigram index for string attributes of a set of in-memory items.
+ * <p>
+ * Each indexed {@link QueryAttr} value gets split into its three character
+ * sequences (trigrams). The trigrams of the compare values of 'contains', 'starts
+ * with' and 'like' compare operations are used to find the candidate items
+ * that contain all of them. The candidates get verified by the configured
+ * {@link InMemQueryEvaluator}. This way the query results are identical to the
+ * results of {@link InMemQueryEvaluator#evaluateSubSet(Collection, QueryExpr)}.
+ * <p>
+ * Filters that can't be narrowed using the index (e.g. compare values having
+ * less than three characters) get evaluated for all items.
+ * <p>
+ * In difference to the {@link InMemColumnStore} the index can be kept up to
+ * date using {@link #addItem(Object)}, {@link #removeItem(Object)} and
+ * {@link #updateItem(Object)}. Each change of an indexed value needs to be
+ * reported by an {@link #updateItem(Object)} call. The items are kept in the
+ * order of the given collection. Added items are handled as last items.
+ * <p>
+ * The index is not thread safe.
+ *
+ * @param <T_ITEM> the type of handled items.
+ *
+ * @author olaf boede
+ */
+public class InMemTrigramIndex<T_ITEM> {
+
+  private static final int[] NO_ROWS = new int[0];
+
+  private final InMemQueryEvaluator<T_ITEM> evaluator;
+  private final Collection<T_ITEM> source;
+  private final Map<QueryAttr, AttrIndex> attrToIndexMap = new LinkedHashMap<QueryAttr, AttrIndex>();
+
+  /** All rows ever added. Removed rows are <code>null</code>. */
+  private List<T_ITEM> rowItems = new ArrayList<T_ITEM>();
+  private BitSet liveRows = new BitSet();
+  /**
+   * The rows of each item. Needed to find the rows to remove or update. Sorted by row number.<br>
+   * Identity based because the hash code of an item may change with its indexed values.
+   */
+  private Map<T_ITEM, IntList> itemToRowsMap = new IdentityHashMap<T_ITEM, IntList>();
+  /** The number of row updates since the last compaction. Each of them may have left stale postings. */
+  private int numOfRowUpdates;
+
+  /**
+   * @param evaluator
+   *          provides the attribute values and verifies the candidate items.
+   * @param items
+   *          the items to index.
+   * @param attrs
+   *          the string attributes to index.
+   */
+  public InMemTrigramIndex(InMemQueryEvaluator<T_ITEM> evaluator, Collection<T_ITEM> items, Collection<QueryAttr> attrs) {
+    assert evaluator != null;
+    assert items != null;
+    assert attrs != null;
+
+    this.evaluator = evaluator;
+    this.source = items;
+    for (QueryAttr a : attrs) {
+      attrToIndexMap.put(a, new AttrIndex(a));
+    }
+    for (T_ITEM i : items) {
+      addItem(i);
+    }
+  }
+
+  /**
+   * Checks if this index was created for the given collection in its current state.
+   * <p>
+   * Changes that are not reported to this index and do not affect the collection size are not detected.
+   *
+   * @param items the collection to check.
+   * @return <code>true</code> if this index was created for the given collection instance having the same size.
+   */
+  public boolean isIndexFor(Collection<T_ITEM> items) {
+    return (items == source) && (items.size() == size());
+  }
+
+  /**
+   * @return the number of indexed items.
+   */
+  public int size() {
+    return liveRows.cardinality();
+  }
+
+  /**
+   * Adds an item as the last one.
+   *
+   * @param item the item to add.
+   */
+  public void addItem(T_ITEM item) {
+    int row = rowItems.size();
+    rowItems.add(item);
+    liveRows.set(row);
+
+    IntList rows = itemToRowsMap.get(item);
+    if (rows == null) {
+      rows = new IntList();
+      itemToRowsMap.put(item, rows);
+    }
+    rows.add(row);
+
+    for (AttrIndex ai : attrToIndexMap.values()) {
+      ai.addRow(row, item);
+    }
+  }
+
+  /**
+   * Removes the first occurrence of the given item (like {@link Collection#remove(Object)}).
+   * <p>
+   * The items are compared by <code>equals</code>. This way the index stays in
+   * sync with a backing list the item gets removed from.
+   *
+   * @param item the item to remove.
+   * @return <code>true</code> if the item was found.
+   */
+  public boolean removeItem(T_ITEM item) {
+    for (int row = liveRows.nextSetBit(0); row >= 0; row = liveRows.nextSetBit(row + 1)) {
+      T_ITEM rowItem = rowItems.get(row);
+      if (ObjectUtils.equals(rowItem, item)) {
+        // The first live row of an equal item is also the first row of its instance.
+        IntList rows = itemToRowsMap.get(rowItem);
+        rows.removeFirst();
+        if (rows.size() == 0) {
+          itemToRowsMap.remove(rowItem);
+        }
+        rowItems.set(row, null);
+        liveRows.clear(row);
+
+        // The posting lists still refer to the removed row.
+        compactIfNeeded();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Re-reads the indexed attribute values of the given item.
+   *
+   * @param item the changed item.
+   */
+  public void updateItem(T_ITEM item) {
+    IntList rows = itemToRowsMap.get(item);
+    if (rows != null) {
+      for (int i = 0; i < rows.size(); ++i) {
+        int row = rows.get(i);
+        // The posting lists of the old values may still refer to the row. This only extends the set of candidates.
+        for (AttrIndex ai : attrToIndexMap.values()) {
+          ai.addRow(row, rowItems.get(row));
+        }
+        ++numOfRowUpdates;
+      }
+      compactIfNeeded();
+    }
+  }
+
+  /**
+   * Provides the items that match the given filter.
+   *
+   * @param expr the filter to apply. May be <code>null</code>.
+   * @return a new list containing the matching items in item order.
+   */
+  public List<T_ITEM> evaluateSubSet(QueryExpr expr) {
+    BitSet rows = (BitSet) liveRows.clone();
+    if (expr == null) {
+      return getItems(rows);
+    }
+
+    BitSet candidates = findCandidateRows(expr);
+    if (candidates != null) {
+      rows.and(candidates);
+    }
+
+    InMemQueryPredicate predicate = evaluator.compile(expr);
+    List<T_ITEM> result = new ArrayList<T_ITEM>();
+    for (int r = rows.nextSetBit(0); r >= 0; r = rows.nextSetBit(r + 1)) {
+      T_ITEM item = rowItems.get(r);
+      if (predicate.eval(item)) {
+        result.add(item);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Provides a super set of the rows that match the given expression.
+   *
+   * @return the candidate rows or <code>null</code> if the index can't narrow the set of rows.
+   */
+  BitSet findCandidateRows(QueryExpr expr) {
+    InMemExprEvaluator ev = evaluator.getExprEvaluator(expr);
+    Class<?> evClass = ev.getClass();
+    if (evClass == InMemExprEvaluatorAnd.class) {
+      // Each narrowing member restricts the set of candidates.
+      BitSet rows = null;
+      for (QueryExpr e : ((QueryExprAnd) expr).getExpressions()) {
+        BitSet memberRows = (e != null) ? findCandidateRows(e) : null;
+        if (memberRows != null) {
+          if (rows == null) {
+            rows = memberRows;
+          } else {
+            rows.and(memberRows);
+          }
+        }
+      }
+      return rows;
+    } else if (evClass == InMemExprEvaluatorOr.class) {
+      // Can only be narrowed if each member can be narrowed.
+      List<QueryExpr> list = ((QueryExprOr) expr).getExpressions();
+      BitSet rows = list.isEmpty() ? null : new BitSet();
+      for (QueryExpr e : list) {
+        BitSet memberRows = (e != null) ? findCandidateRows(e) : null;
+        if (memberRows == null) {
+          return null;
+        }
+        rows.or(memberRows);
+      }
+      return rows;
+    } else if (evClass == InMemExprEvaluatorCompare.class) {
+      return findCandidateRowsForCompare((QueryExprCompare) expr);
+    } else {
+      return null;
+    }
+  }
+
+  @SuppressWarnings("deprecation")
+  private BitSet findCandidateRowsForCompare(QueryExprCompare expr) {
+    AttrIndex ai = attrToIndexMap.get(expr.getAttr());
+    CompOp compOp = expr.getCompOp();
+    if (ai == null || !(expr.getValue() instanceof String) || compOp == null) {
+      return null;
+    }
+
+    String value = (String) expr.getValue();
+    InMemCompOpEvaluator coEval = evaluator.getCompOpEvaluator(expr);
+    if ((coEval == InMemCompOpEvaluators.STRING_CONTAINS || coEval == InMemCompOpEvaluators.STRING_STARTS_WITH) &&
+        (compOp instanceof CompOpBase)) {
+      // The same normalization as in the evaluators.
+      CompOpBase<?> op = (CompOpBase<?>) compOp;
+      String needle = CompareUtil.normalize(value, op.isIgnoreCase(), op.isIgnoreSpaces());
+      return ai.findRowsContainingAll(new String[] { needle });
+    } else if (coEval == InMemCompOpEvaluators.LIKE) {
+      // Each literal part of the like pattern needs to be contained.
+      return ai.findRowsContainingAll(StringUtils.split(value, "%_"));
+    } else {
+      return null;
+    }
+  }
+
+  private List<T_ITEM> getItems(BitSet rows) {
+    List<T_ITEM> result = new ArrayList<T_ITEM>(rows.cardinality());
+    for (int r = rows.nextSetBit(0); r >= 0; r = rows.nextSetBit(r + 1)) {
+      result.add(rowItems.get(r));
+    }
+    return result;
+  }
+
+  /**
+   * Re-creates the index if the posting lists contain mostly removed rows or
+   * stale values of updated rows.
+   */
+  private void compactIfNeeded() {
+    int numOfRemovedRows = rowItems.size() - liveRows.cardinality();
+    if (rowItems.size() > 16 && numOfRemovedRows + numOfRowUpdates > rowItems.size() / 2) {
+      compact();
+    }
+  }
+
+  /** Re-creates the index for the remaining items. */
+  private void compact() {
+    List<T_ITEM> items = getItems(liveRows);
+    rowItems = new ArrayList<T_ITEM>(items.size());
+    liveRows = new BitSet(items.size());
+    itemToRowsMap = new IdentityHashMap<T_ITEM, IntList>();
+    numOfRowUpdates = 0;
+    for (AttrIndex ai : attrToIndexMap.values()) {
+      ai.clear();
+    }
+    for (T_ITEM i : items) {
+      addItem(i);
+    }
+  }
+
+  /**
+   * Folds the characters of the given string to a single case.<br>
+   * Characters that are equal for a case insensitive compare are folded to the same character.
+   */
+  static String fold(String s) {
+    char[] chars = s.toCharArray();
+    for (int i = 0; i < chars.length; ++i) {
+      chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+    }
+    return new String(chars);
+  }
+
+  /** @return <code>true</code> if the upper case representation of the string has a different length. E.g. for 'ß'. */
+  static boolean hasUpperCaseExpansion(String s) {
+    return StringUtils.upperCase(s).length() != s.length();
+  }
+
+  /** A trigram packed into a single <code>long</code>. */
+  static long trigram(String s, int pos) {
+    return ((long) s.charAt(pos) << 32) | ((long) s.charAt(pos + 1) << 16) | s.charAt(pos + 2);
+  }
+
+  /**
+   * The trigram posting lists of a single attribute.
+   */
+  class AttrIndex {
+    private final QueryAttr attr;
+    private final Map<Long, IntList> trigramToRowsMap = new HashMap<Long, IntList>();
+    /** Rows having a value that can't be indexed. They are always candidates. */
+    private final BitSet unindexedRows = new BitSet();
+
+    AttrIndex(QueryAttr attr) {
+      this.attr = attr;
+    }
+
+    void addRow(int row, T_ITEM item) {
+      Object value = evaluator.getAttrValue(item, attr);
+      if (value instanceof String) {
+        String s = (String) value;
+        addTrigrams(row, fold(s));
+        // The case insensitive compare operations use upper case strings. They may be longer.
+        if (hasUpperCaseExpansion(s)) {
+          addTrigrams(row, fold(StringUtils.upperCase(s)));
+        }
+      } else if (value != null) {
+        // Reported by the evaluator on verification.
+        unindexedRows.set(row);
+      }
+    }
+
+    void clear() {
+      trigramToRowsMap.clear();
+      unindexedRows.clear();
+    }
+
+    /**
+     * @param needles the strings that need to be contained.
+     * @return the candidate rows or <code>null</code> if the needles can't be used to narrow the set of rows.
+     */
+    BitSet findRowsContainingAll(String[] needles) {
+      BitSet rows = null;
+      for (String n : needles) {
+        if (n == null || n.length() < 3 || hasUpperCaseExpansion(n)) {
+          continue;
+        }
+        String folded = fold(n);
+        for (int i = 0; i + 3 <= folded.length(); ++i) {
+          BitSet trigramRows = getRows(trigram(folded, i));
+          if (rows == null) {
+            rows = trigramRows;
+          } else {
+            rows.and(trigramRows);
+          }
+        }
+      }
+
+      if (rows != null) {
+        rows.or(unindexedRows);
+      }
+      return rows;
+    }
+
+    private void addTrigrams(int row, String folded) {
+      for (int i = 0; i + 3 <= folded.length(); ++i) {
+        Long key = trigram(folded, i);
+        IntList rows = trigramToRowsMap.get(key);
+        if (rows == null) {
+          rows = new IntList();
+          trigramToRowsMap.put(key, rows);
+        }
+        // Repeated trigrams within a value are added only once.
+        if (rows.size() == 0 || rows.get(rows.size() - 1) != row) {
+          rows.add(row);
+        }
+      }
+    }
+
+    private BitSet getRows(long trigram) {
+      IntList rows = trigramToRowsMap.get(trigram);
+      BitSet bitSet = new BitSet();
+      for (int r : (rows != null) ? rows.toArray() : NO_ROWS) {
+        bitSet.set(r);
+      }
+      return bitSet;
+    }
+  }
+
+}
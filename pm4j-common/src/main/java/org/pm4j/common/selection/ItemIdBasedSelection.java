@@ -5,8 +5,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
+import org.pm4j.common.pageable.querybased.ItemIdBlockIterator;
 import org.pm4j.common.pageable.querybased.QueryService;
+import org.pm4j.common.util.collection.CompactIdSet;
 
 /**
  * A selection of items that is based on a collection of item id's.
@@ -22,12 +25,17 @@ public class ItemIdBasedSelection<T_ITEM, T_ID> implements Selection<T_ITEM>, Se
   private static final long serialVersionUID = 1L;
 
   // TODO: preseve the sort order according to some user defined stuff
-  //  For large selections an array would be more memory efficient. But it would slow down the contains() functionality...
+  //  Large selections of Long or Integer id's are provided as CompactIdSet.
   final Set<T_ID> ids;
   private final QueryService<T_ITEM, T_ID> itemIdConverter;
+  /** The number of items to read with a single service call. */
+  private int iteratorBlockSize = ItemIdBlockIterator.DEFAULT_BLOCK_SIZE;
+  /** An optional executor used to read the next item block in advance. */
+  private transient Executor iteratorPrefetchExecutor;
 
   public ItemIdBasedSelection(QueryService<T_ITEM, T_ID> itemIdConverter, Set<T_ID> ids) {
-    this.ids = Collections.unmodifiableSet(ids);
+    // A compact id set is already immutable.
+    this.ids = (ids instanceof CompactIdSet) ? ids : Collections.unmodifiableSet(ids);
     this.itemIdConverter = itemIdConverter;
   }
 
@@ -50,36 +58,36 @@ public class ItemIdBasedSelection<T_ITEM, T_ID> implements Selection<T_ITEM>, Se
     return ids;
   }
 
+  /**
+   * Provides an iterator that reads the items block wise.<br>
+   * See {@link ItemIdBlockIterator}.
+   */
   @Override
   public Iterator<T_ITEM> iterator() {
     return new ItemIdBasedIterator(ids);
   }
 
-  /** Block size has no effect on this iterator implementation. */
   @Override
   public void setIteratorBlockSizeHint(int readBlockSize) {
+    assert readBlockSize > 0;
+    this.iteratorBlockSize = readBlockSize;
   }
 
-  class ItemIdBasedIterator implements Iterator<T_ITEM> {
-    private final Iterator<T_ID> idIterator;
+  /**
+   * Defines an executor that reads the next block of items in advance while iterating.
+   * <p>
+   * The service needs to be thread safe if a prefetch executor is used.
+   *
+   * @param iteratorPrefetchExecutor the executor to use. <code>null</code> switches prefetch off.
+   */
+  public void setIteratorPrefetchExecutor(Executor iteratorPrefetchExecutor) {
+    this.iteratorPrefetchExecutor = iteratorPrefetchExecutor;
+  }
 
+  class ItemIdBasedIterator extends ItemIdBlockIterator<T_ITEM, T_ID> {
     public ItemIdBasedIterator(Collection<T_ID> ids) {
-      this.idIterator = ids.iterator();
-    }
-
-    @Override
-    public boolean hasNext() {
-      return idIterator.hasNext();
-    }
-
-    @Override
-    public T_ITEM next() {
-      return itemIdConverter.getItemForId(idIterator.next());
-    }
-
-    @Override
-    public void remove() {
-      throw new UnsupportedOperationException();
+      super(itemIdConverter, ids.iterator(), iteratorBlockSize, false);
+      setPrefetchExecutor(iteratorPrefetchExecutor);
     }
   }
 
@@ -1,14 +1,17 @@
 package org.pm4j.common.selection;
 
 import java.beans.PropertyVetoException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.pm4j.common.pageable.querybased.QueryService;
+import org.pm4j.common.util.collection.CompactIdSet;
 
 
 public abstract class SelectionHandlerWithIdSet<T_ITEM, T_ID> extends SelectionHandlerBase<T_ITEM> {
@@ -43,8 +46,13 @@ public abstract class SelectionHandlerWithIdSet<T_ITEM, T_ID> extends SelectionH
 
    @Override
   public boolean select(boolean select, T_ITEM item) {
-    Set<T_ID> set = getModifiableIdSet();
     T_ID id = itemIdConverter.getIdForItem(item);
+    CompactIdSet<T_ID> compactSet = changeCompactIdSet(select, Collections.singleton(id));
+    if (compactSet != null) {
+      return setSelection(compactSet);
+    }
+
+    Set<T_ID> set = getModifiableIdSet();
     if (select) {
       beforeAddSingleItemSelection(set);
       set.add(id);
@@ -57,6 +65,17 @@ public abstract class SelectionHandlerWithIdSet<T_ITEM, T_ID> extends SelectionH
 
   @Override
   public boolean select(boolean select, Iterable<T_ITEM> items) {
+    if (selection.ids instanceof CompactIdSet && getSelectMode() == SelectMode.MULTI) {
+      List<T_ID> changedIds = new ArrayList<T_ID>();
+      for (T_ITEM i : items) {
+        changedIds.add(itemIdConverter.getIdForItem(i));
+      }
+      CompactIdSet<T_ID> compactSet = changeCompactIdSet(select, changedIds);
+      if (compactSet != null) {
+        return setSelection(compactSet);
+      }
+    }
+
     Set<T_ID> ids = getModifiableIdSet();
 
     if (getSelectMode() == SelectMode.SINGLE && select) {
@@ -84,7 +103,7 @@ public abstract class SelectionHandlerWithIdSet<T_ITEM, T_ID> extends SelectionH
         throw new RuntimeException("Select all for current select mode is not supported: " + getSelectMode());
       }
 
-      return setSelection(new HashSet<T_ID>(getAllIds()));
+      return setSelection(toIdSet(getAllIds()));
     }
     else {
       return setSelection(Collections.EMPTY_SET);
@@ -97,7 +116,13 @@ public abstract class SelectionHandlerWithIdSet<T_ITEM, T_ID> extends SelectionH
       throw new RuntimeException("Invert selection is not supported for select mode: " + getSelectMode());
     }
 
-    Set<T_ID> newSelectedIds = new HashSet<T_ID>(getAllIds());
+    Collection<T_ID> allIds = getAllIds();
+    CompactIdSet<T_ID> compactAllIds = CompactIdSet.of(allIds);
+    if (compactAllIds != null) {
+      return setSelection(compactAllIds.minus(selection.ids));
+    }
+
+    Set<T_ID> newSelectedIds = new HashSet<T_ID>(allIds);
     newSelectedIds.removeAll(selection.getIds());
 
     return setSelection(newSelectedIds);
@@ -142,4 +167,38 @@ public abstract class SelectionHandlerWithIdSet<T_ITEM, T_ID> extends SelectionH
     return new HashSet<T_ID>(selection.ids);
   }
 
+  /**
+   * Large selections of {@link Long} or {@link Integer} id's are stored as {@link CompactIdSet}.
+   * This avoids a boxed hash set entry for each selected item.
+   */
+  private Set<T_ID> toIdSet(Collection<T_ID> ids) {
+    CompactIdSet<T_ID> compactSet = CompactIdSet.of(ids);
+    return (compactSet != null)
+        ? compactSet
+        : new HashSet<T_ID>(ids);
+  }
+
+  /**
+   * Adds or removes id's to/from a compact multi selection without creating a hash set.
+   *
+   * @return the changed id set or <code>null</code> if the current selection is not compact or
+   *         the id's can't be handled by the compact set.
+   */
+  @SuppressWarnings("unchecked")
+  private CompactIdSet<T_ID> changeCompactIdSet(boolean select, Collection<T_ID> changedIds) {
+    if (!(selection.ids instanceof CompactIdSet) || getSelectMode() != SelectMode.MULTI) {
+      return null;
+    }
+
+    CompactIdSet<T_ID> current = (CompactIdSet<T_ID>) selection.ids;
+    if (!select) {
+      return current.minus(changedIds);
+    }
+
+    CompactIdSet<T_ID> added = CompactIdSet.of(changedIds);
+    return (added != null && added.hasSameIdType(current))
+        ? current.union(added)
+        : null;
+  }
+
 }
@@ -176,15 +176,29 @@ public class CompareUtil {
    *         <code>-1</code> if the pattern was not found.
    */
   public static int indexOf(String s, String pattern, boolean ignoreSpaces, boolean ignoreCase) {
+    return StringUtils.indexOf(normalize(s, ignoreSpaces, ignoreCase), normalize(pattern, ignoreSpaces, ignoreCase));
+  }
+
+  /**
+   * Applies the string normalization used by {@link #indexOf(String, String, boolean, boolean)}.<br>
+   * Allows to normalize a constant search pattern only once.
+   *
+   * @param s
+   *          the string to normalize. May be <code>null</code>.
+   * @param ignoreSpaces
+   *          <code>true</code> trims the string.
+   * @param ignoreCase
+   *          <code>true</code> converts the string to upper case.
+   * @return the normalized string.
+   */
+  public static String normalize(String s, boolean ignoreSpaces, boolean ignoreCase) {
     if (ignoreSpaces) {
       s = StringUtils.trim(s);
-      pattern = StringUtils.trim(pattern);
     }
     if (ignoreCase) {
       s = StringUtils.upperCase(s);
-      pattern = StringUtils.upperCase(pattern);
     }
-    return StringUtils.indexOf(s, pattern);
+    return s;
   }
 
   public static boolean endsWith(String s, String pattern, boolean ignoreSpaces, boolean ignoreCase) {
@@ -0,0 +1,312 @@
+package org.pm4j.common.util.collection;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable set of {@link Long} or {@link Integer} id's that stores its values as primitives.
+ * <p>
+ * Sparse id sets are stored as a sorted <code>long</code> array. Dense id ranges are stored as a
+ * bit set relative to the smallest id. Both representations need only a fraction of the memory
+ * of a {@link java.util.HashSet} and provide a fast {@link #contains(Object)} implementation.
+ * <p>
+ * The set operations {@link #union(CompactIdSet)} and {@link #minus(Collection)} work directly on the
+ * primitive representation. They provide a new set instance.
+ * <p>
+ * The iteration order is the ascending id order.
+ *
+ * @author olaf boede
+ *
+ * @param <T_ID> the id type. Either {@link Long} or {@link Integer}.
+ */
+public final class CompactIdSet<T_ID> extends AbstractSet<T_ID> implements Serializable {
+
+  /** Serialization class version. Increment on member structure change. */
+  private static final long serialVersionUID = 1L;
+
+  /** The supported id types. */
+  enum IdType { LONG, INTEGER }
+
+  private final IdType idType;
+  private final int size;
+  /** The sorted distinct id's. Is <code>null</code> if the bit set representation is used. */
+  private final long[] values;
+  /** The dense id representation. Bit <code>i</code> represents the id <code>offset + i</code>. */
+  private final BitSet bits;
+  private final long offset;
+
+  private CompactIdSet(IdType idType, long[] sortedDistinctValues, int size) {
+    this.idType = idType;
+    this.size = size;
+
+    long range = (size > 0) ? sortedDistinctValues[size - 1] - sortedDistinctValues[0] + 1 : 0;
+    // The bit set needs one bit per id within the range. The array 64 bits per id.
+    if (size > 0 && range > 0 && range <= Integer.MAX_VALUE && range / 64 < size) {
+      this.offset = sortedDistinctValues[0];
+      this.bits = new BitSet((int) range);
+      for (int i = 0; i < size; ++i) {
+        bits.set((int) (sortedDistinctValues[i] - offset));
+      }
+      this.values = null;
+    } else {
+      this.offset = 0;
+      this.bits = null;
+      this.values = (sortedDistinctValues.length == size)
+          ? sortedDistinctValues
+          : Arrays.copyOf(sortedDistinctValues, size);
+    }
+  }
+
+  /**
+   * Creates a compact id set for the given id's.
+   *
+   * @param ids the id's to store.
+   * @return the compact set or <code>null</code> if the given collection is empty or contains other
+   *         values than {@link Long} or {@link Integer} id's of a single type.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T_ID> CompactIdSet<T_ID> of(Collection<T_ID> ids) {
+    if (ids instanceof CompactIdSet) {
+      return (CompactIdSet<T_ID>) ids;
+    }
+    if (ids == null || ids.isEmpty()) {
+      return null;
+    }
+
+    IdType idType = null;
+    long[] values = new long[ids.size()];
+    int count = 0;
+    for (Object id : ids) {
+      IdType t = getIdType(id);
+      if (t == null || (idType != null && t != idType)) {
+        return null;
+      }
+      idType = t;
+      values[count++] = ((Number) id).longValue();
+    }
+
+    Arrays.sort(values, 0, count);
+    return new CompactIdSet<T_ID>(idType, values, removeDuplicates(values, count));
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return (getIdType(o) == idType) && containsValue(((Number) o).longValue());
+  }
+
+  @Override
+  public Iterator<T_ID> iterator() {
+    return new Iterator<T_ID>() {
+      private int pos = (values != null) ? 0 : bits.nextSetBit(0);
+      private int count;
+
+      @Override
+      public boolean hasNext() {
+        return count < size;
+      }
+
+      @Override
+      public T_ID next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        long v;
+        if (values != null) {
+          v = values[pos++];
+        } else {
+          v = offset + pos;
+          pos = bits.nextSetBit(pos + 1);
+        }
+        ++count;
+        return box(v);
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException("CompactIdSet is immutable.");
+      }
+    };
+  }
+
+  /**
+   * @param other the set to compare with.
+   * @return <code>true</code> if both sets contain id's of the same type.
+   */
+  public boolean hasSameIdType(CompactIdSet<?> other) {
+    return other.idType == idType;
+  }
+
+  /**
+   * @param other the set to combine with. Needs to have the same id type.
+   * @return a new set that contains the id's of both sets.
+   */
+  public CompactIdSet<T_ID> union(CompactIdSet<T_ID> other) {
+    if (other.idType != idType) {
+      throw new IllegalArgumentException("Can't combine id sets of different types: " + idType + " and " + other.idType);
+    }
+    if (other.size == 0) {
+      return this;
+    }
+    if (size == 0) {
+      return other;
+    }
+
+    long[] a = toLongArray();
+    long[] b = other.toLongArray();
+    long[] result = new long[a.length + b.length];
+    int i = 0, j = 0, count = 0;
+    while (i < a.length || j < b.length) {
+      long v;
+      if (j >= b.length || (i < a.length && a[i] <= b[j])) {
+        v = a[i++];
+        if (j < b.length && b[j] == v) {
+          ++j;
+        }
+      } else {
+        v = b[j++];
+      }
+      result[count++] = v;
+    }
+    return new CompactIdSet<T_ID>(idType, result, count);
+  }
+
+  /**
+   * @param idsToRemove the id's to remove.
+   * @return a new set that contains all id's of this set that are not part of the given collection.
+   */
+  public CompactIdSet<T_ID> minus(Collection<?> idsToRemove) {
+    if (idsToRemove.isEmpty() || size == 0) {
+      return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    CompactIdSet<Object> other = of((Collection<Object>) idsToRemove);
+    if (other != null && other.idType != idType) {
+      return this;
+    }
+
+    if (other != null && values == null) {
+      // Dense representation: clear the removed bits.
+      BitSet newBits = (BitSet) bits.clone();
+      long[] otherValues = other.toLongArray();
+      for (long v : otherValues) {
+        long idx = v - offset;
+        if (idx >= 0 && idx < Integer.MAX_VALUE) {
+          newBits.clear((int) idx);
+        }
+      }
+      long[] result = new long[newBits.cardinality()];
+      int count = 0;
+      for (int b = newBits.nextSetBit(0); b >= 0; b = newBits.nextSetBit(b + 1)) {
+        result[count++] = offset + b;
+      }
+      return new CompactIdSet<T_ID>(idType, result, count);
+    }
+
+    long[] result = new long[size];
+    int count = 0;
+    for (long v : toLongArray()) {
+      boolean remove = (other != null)
+          ? other.containsValue(v)
+          : idsToRemove.contains(box(v));
+      if (!remove) {
+        result[count++] = v;
+      }
+    }
+    return (count == size)
+        ? this
+        : new CompactIdSet<T_ID>(idType, result, count);
+  }
+
+  @Override
+  public int hashCode() {
+    int h = 0;
+    for (long v : toLongArray()) {
+      h += (idType == IdType.LONG) ? (int) (v ^ (v >>> 32)) : (int) v;
+    }
+    return h;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof CompactIdSet) {
+      CompactIdSet<?> other = (CompactIdSet<?>) o;
+      return (other.idType == idType) && Arrays.equals(other.toLongArray(), toLongArray());
+    }
+    return super.equals(o);
+  }
+
+  private boolean containsValue(long v) {
+    if (values != null) {
+      return Arrays.binarySearch(values, v) >= 0;
+    } else {
+      long idx = v - offset;
+      return (idx >= 0) && (idx < Integer.MAX_VALUE) && bits.get((int) idx);
+    }
+  }
+
+  /** @return the sorted id values. Should not be modified. */
+  private long[] toLongArray() {
+    if (values != null) {
+      return values;
+    }
+    long[] a = new long[size];
+    int count = 0;
+    for (int b = bits.nextSetBit(0); b >= 0; b = bits.nextSetBit(b + 1)) {
+      a[count++] = offset + b;
+    }
+    return a;
+  }
+
+  @SuppressWarnings("unchecked")
+  private T_ID box(long v) {
+    // Note: a conditional expression would unbox both alternatives to a long.
+    Object id;
+    if (idType == IdType.LONG) {
+      id = Long.valueOf(v);
+    } else {
+      id = Integer.valueOf((int) v);
+    }
+    return (T_ID) id;
+  }
+
+  private static IdType getIdType(Object id) {
+    if (id instanceof Long) {
+      return IdType.LONG;
+    }
+    if (id instanceof Integer) {
+      return IdType.INTEGER;
+    }
+    return null;
+  }
+
+  /** @return the number of distinct values moved to the start of the given sorted array. */
+  private static int removeDuplicates(long[] sortedValues, int length) {
+    if (length == 0) {
+      return 0;
+    }
+    int count = 1;
+    for (int i = 1; i < length; ++i) {
+      if (sortedValues[i] != sortedValues[count - 1]) {
+        sortedValues[count++] = sortedValues[i];
+      }
+    }
+    return count;
+  }
+
+}
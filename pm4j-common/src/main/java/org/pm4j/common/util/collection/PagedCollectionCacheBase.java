@@ -1,35 +1,59 @@
 package org.pm4j.common.util.collection;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 /**
  * A paged cache for a virtual collection of items.
  * <p>
- * The implementation of {@link #getPageItems(long, long)} and {@link #getTotalSize()}
+ * The implementation of {@link #getPageItems(long, int)} and {@link #getTotalSize()}
  * provide access to the virtual collection items.
+ * <p>
+ * The cache holds up to <code>maxCachedPages</code> pages. If more pages get read, the least
+ * recently used page will be released.<br>
+ * If a read-ahead executor is configured, the page following the currently accessed page
+ * gets read asynchronously. In this case the implementation of
+ * {@link #getPageItems(long, int)} needs to be thread safe.
  *
  * @author olaf boede
  */
 public abstract class PagedCollectionCacheBase<T> {
-  private List<T>   cachedPage;
-  private long      pageStartPos    = -1;
-  private long      pageEndPos      = -1;
-  private int       pageSize;
-  private long      collectionSize  = -1;
+  private LRUMap<Long, List<T>>  pageCache;
+  private int                    pageSize;
+  private int                    maxCachedPages;
+  private long                   collectionSize  = -1;
+  private Executor               readAheadExecutor;
+  private FutureTask<List<T>>    readAheadTask;
+  private long                   readAheadPageStartPos = -1;
 
   public PagedCollectionCacheBase(int pageSize) {
+    this(pageSize, 1);
+  }
+
+  /**
+   * @param pageSize the number of items to read with a single {@link #getPageItems(long, int)} call.
+   * @param maxCachedPages the maximum number of pages to hold in the cache.
+   */
+  public PagedCollectionCacheBase(int pageSize, int maxCachedPages) {
     assert pageSize > 0;
+    assert maxCachedPages > 0;
     this.pageSize = pageSize;
+    this.maxCachedPages = maxCachedPages;
+    this.pageCache = new LRUMap<Long, List<T>>(maxCachedPages);
   }
 
   /**
    * Clears all cached data.
    */
   public void clear() {
-    cachedPage = null;
+    pageCache.clear();
     collectionSize = -1;
-    pageStartPos = -1;
-    pageEndPos = -1;
+    cancelReadAhead();
   }
 
   /**
@@ -43,16 +67,59 @@ public abstract class PagedCollectionCacheBase<T> {
     clear();
   }
 
+  /**
+   * Allows to re-adjust the maximum number of cached pages.
+   *
+   * @param maxCachedPages the new maximum. Should be greater than zero.
+   */
+  public void setMaxCachedPages(int maxCachedPages) {
+    assert maxCachedPages > 0;
+    this.maxCachedPages = maxCachedPages;
+    this.pageCache = new LRUMap<Long, List<T>>(maxCachedPages);
+    clear();
+  }
+
+  /**
+   * @return the maximum number of pages to hold in the cache.
+   */
+  public int getMaxCachedPages() {
+    return maxCachedPages;
+  }
+
+  /**
+   * Defines the executor that reads the next page in advance.
+   *
+   * @param readAheadExecutor the executor to use. <code>null</code> switches read-ahead off.
+   */
+  public void setReadAheadExecutor(Executor readAheadExecutor) {
+    cancelReadAhead();
+    this.readAheadExecutor = readAheadExecutor;
+  }
+
   protected abstract List<T> getPageItems(long pageStartPos, int pageSize);
   protected abstract long getTotalSize();
 
   public T getAt(long pos) {
-    if (cachedPage == null || pos < pageStartPos || pos > pageEndPos) {
-      pageStartPos = Math.min(pos - (pos % pageSize), getCollectionSize());
-      cachedPage = getPageItems(pageStartPos, pageSize);
-      pageEndPos = pageStartPos + cachedPage.size() - 1;
+    long pageStartPos = Math.min(pos - (pos % pageSize), getCollectionSize());
+    List<T> page = getPage(pageStartPos);
+    return page.get((int) (pos - pageStartPos));
+  }
+
+  /**
+   * Finds the position of an item within the currently cached pages.<br>
+   * Does not read any page.
+   *
+   * @param item the item to find.
+   * @return the position of the item or <code>-1</code> if it is not cached.
+   */
+  public long findCachedPos(T item) {
+    for (Map.Entry<Long, List<T>> e : new ArrayList<Map.Entry<Long, List<T>>>(pageCache.entrySet())) {
+      int idx = e.getValue().indexOf(item);
+      if (idx != -1) {
+        return e.getKey() + idx;
+      }
     }
-    return cachedPage.get(posToCachePos(pos));
+    return -1;
   }
 
   public long getCollectionSize() {
@@ -62,7 +129,67 @@ public abstract class PagedCollectionCacheBase<T> {
     return collectionSize;
   }
 
-  private int posToCachePos(long pos) {
-    return (int) (pos - pageStartPos);
+  private List<T> getPage(long pageStartPos) {
+    List<T> page = pageCache.get(pageStartPos);
+    if (page == null) {
+      page = takeReadAheadResult(pageStartPos);
+      if (page == null) {
+        page = getPageItems(pageStartPos, pageSize);
+      }
+      pageCache.put(pageStartPos, page);
+    }
+
+    startReadAhead(pageStartPos + pageSize);
+    return page;
+  }
+
+  private void startReadAhead(final long nextPageStartPos) {
+    if ((readAheadExecutor == null) ||
+        (readAheadPageStartPos == nextPageStartPos) ||
+        pageCache.containsKey(nextPageStartPos) ||
+        (nextPageStartPos >= getCollectionSize())) {
+      return;
+    }
+
+    cancelReadAhead();
+    final int readAheadPageSize = pageSize;
+    readAheadTask = new FutureTask<List<T>>(new Callable<List<T>>() {
+      @Override
+      public List<T> call() throws Exception {
+        return getPageItems(nextPageStartPos, readAheadPageSize);
+      }
+    });
+    readAheadPageStartPos = nextPageStartPos;
+    readAheadExecutor.execute(readAheadTask);
+  }
+
+  /**
+   * @return the result of a read-ahead for the given page or <code>null</code> if there is none.
+   */
+  private List<T> takeReadAheadResult(long pageStartPos) {
+    if ((readAheadTask == null) || (readAheadPageStartPos != pageStartPos)) {
+      return null;
+    }
+
+    FutureTask<List<T>> task = readAheadTask;
+    readAheadTask = null;
+    readAheadPageStartPos = -1;
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      // The page will be read synchronously. This way the caller gets the original exception.
+      return null;
+    }
+  }
+
+  private void cancelReadAhead() {
+    if (readAheadTask != null) {
+      readAheadTask.cancel(false);
+      readAheadTask = null;
+      readAheadPageStartPos = -1;
+    }
   }
 }
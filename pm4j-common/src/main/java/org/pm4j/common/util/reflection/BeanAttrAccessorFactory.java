@@ -0,0 +1,28 @@
+package org.pm4j.common.util.reflection;
+
+/**
+ * Provides {@link BeanAttrAccessor}s for bean classes.
+ * <p>
+ * The factory used by pm4j may be configured using
+ * {@link BeanAttrUtil#setAccessorFactory(BeanAttrAccessorFactory)}.
+ *
+ * @author Olaf Boede
+ */
+public interface BeanAttrAccessorFactory {
+
+  /**
+   * Provides an accessor for the attribute of the given bean class.
+   *
+   * @param beanClass
+   *          Class of beans to access.
+   * @param attrName
+   *          Name of the attribute. Will be resolved according to the bean naming conventions.
+   * @param allowFieldAccess
+   *          Defines if it is allowed to use direct field access when the
+   *          getter/setter are not available to the field.
+   * @return The accessor. Never <code>null</code>.
+   * @throws ReflectionException if the attribute is not accessible.
+   */
+  BeanAttrAccessor getAccessor(Class<?> beanClass, String attrName, boolean allowFieldAccess);
+
+}
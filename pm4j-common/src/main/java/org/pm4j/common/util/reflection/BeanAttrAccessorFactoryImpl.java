@@ -0,0 +1,88 @@
+package org.pm4j.common.util.reflection;
+
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The default {@link BeanAttrAccessorFactory}.
+ * <p>
+ * Creates a single {@link BeanAttrAccessorImpl} for each bean class attribute and
+ * shares it with all callers. This way the accessor method lookup and the per class
+ * method cache of the accessor will be done only once.
+ * <p>
+ * Failed lookups are not cached. They will be reported by a {@link ReflectionException}
+ * on each call.
+ * <p>
+ * The bean classes are referenced weakly. The accessors of a class are referenced
+ * softly because they refer to their class. This way the cache does not prevent
+ * the unloading of classes, e.g. of an undeployed web application.
+ *
+ * @author Olaf Boede
+ */
+public class BeanAttrAccessorFactoryImpl implements BeanAttrAccessorFactory {
+
+  private final Map<Class<?>, Reference<ConcurrentMap<String, BeanAttrAccessor>>> classToAccessorMap = Collections
+      .synchronizedMap(new WeakHashMap<Class<?>, Reference<ConcurrentMap<String, BeanAttrAccessor>>>());
+  private final Map<Class<?>, Reference<ConcurrentMap<String, BeanAttrAccessor>>> classToNoFieldAccessorMap = Collections
+      .synchronizedMap(new WeakHashMap<Class<?>, Reference<ConcurrentMap<String, BeanAttrAccessor>>>());
+
+  @Override
+  public BeanAttrAccessor getAccessor(Class<?> beanClass, String attrName, boolean allowFieldAccess) {
+    ConcurrentMap<String, BeanAttrAccessor> nameToAccessorMap = getNameToAccessorMap(allowFieldAccess
+        ? classToAccessorMap
+        : classToNoFieldAccessorMap, beanClass);
+
+    BeanAttrAccessor accessor = nameToAccessorMap.get(attrName);
+    if (accessor == null) {
+      accessor = createAccessor(beanClass, attrName, allowFieldAccess);
+      BeanAttrAccessor concurrentlyCreatedAccessor = nameToAccessorMap.putIfAbsent(attrName, accessor);
+      if (concurrentlyCreatedAccessor != null) {
+        accessor = concurrentlyCreatedAccessor;
+      }
+    }
+    return accessor;
+  }
+
+  /**
+   * Releases all cached accessors.
+   */
+  public void clear() {
+    classToAccessorMap.clear();
+    classToNoFieldAccessorMap.clear();
+  }
+
+  /**
+   * Creates the accessor instance to cache. May be overridden to provide specific
+   * accessor implementations.
+   *
+   * @param beanClass
+   *          Class of beans to access.
+   * @param attrName
+   *          Name of the attribute.
+   * @param allowFieldAccess
+   *          Defines if it is allowed to use direct field access.
+   * @return The new accessor.
+   */
+  protected BeanAttrAccessor createAccessor(Class<?> beanClass, String attrName, boolean allowFieldAccess) {
+    return new BeanAttrAccessorImpl(beanClass, attrName, allowFieldAccess);
+  }
+
+  private static ConcurrentMap<String, BeanAttrAccessor> getNameToAccessorMap(
+      Map<Class<?>, Reference<ConcurrentMap<String, BeanAttrAccessor>>> classMap, Class<?> beanClass) {
+    synchronized (classMap) {
+      Reference<ConcurrentMap<String, BeanAttrAccessor>> ref = classMap.get(beanClass);
+      ConcurrentMap<String, BeanAttrAccessor> map = (ref != null) ? ref.get() : null;
+      if (map == null) {
+        map = new ConcurrentHashMap<String, BeanAttrAccessor>();
+        classMap.put(beanClass, new SoftReference<ConcurrentMap<String, BeanAttrAccessor>>(map));
+      }
+      return map;
+    }
+  }
+
+}
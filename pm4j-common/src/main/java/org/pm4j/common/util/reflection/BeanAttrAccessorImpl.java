@@ -36,6 +36,17 @@ public class BeanAttrAccessorImpl implements BeanAttrAccessor {
    */
   private Map<Class<?>, Method> classToSetterMap = new ConcurrentHashMap<Class<?>, Method>();
 
+  /**
+   * The last used subclass getter. Prevents the map lookup for the usual case of a single
+   * bean subclass.
+   */
+  private volatile ClassMethodPair lastUsedGetter;
+
+  /**
+   * The last used subclass setter.
+   */
+  private volatile ClassMethodPair lastUsedSetter;
+
   /**
    * When there is no getter, the field might be used. Useful for prototype
    * development phases.
@@ -62,12 +73,12 @@ public class BeanAttrAccessorImpl implements BeanAttrAccessor {
     this.beanClass = beanClass;
     this.fieldName = fieldName;
 
-    this.getterMethod = findPublicGetter(fieldName);
+    this.getterMethod = makeAccessible(findPublicGetter(fieldName));
 
     if (this.getterMethod != null) {
       this.fieldClass = getterMethod.getReturnType();
 
-      this.setterMethod = findPublicSetter(fieldName, this.fieldClass);
+      this.setterMethod = makeAccessible(findPublicSetter(fieldName, this.fieldClass));
 
       if (setterMethod == null &&
           LOGGER.isTraceEnabled()) {
@@ -154,11 +165,7 @@ public class BeanAttrAccessorImpl implements BeanAttrAccessor {
   public <T> T getBeanAttrValue(Object bean) {
     if (getterMethod != null) {
       try {
-        Method m = getGetterMethod(bean);
-        if (! m.isAccessible()) {
-          m.setAccessible(true);
-        }
-        return (T) m.invoke(bean, (Object[]) null);
+        return (T) getGetterMethod(bean).invoke(bean, (Object[]) null);
       }
       catch (Exception e) {
         throw new ReflectionException(makeErrMsg("Unable to use method '" + getterMethod.getName()
@@ -236,19 +243,25 @@ public class BeanAttrAccessorImpl implements BeanAttrAccessor {
    */
   private final Method getGetterMethod(Object bean) {
     Class<?> foundBeanClass = bean.getClass();
-    if (foundBeanClass.equals(getterMethod.getDeclaringClass())) {
+    if (foundBeanClass == getterMethod.getDeclaringClass()) {
       return getterMethod;
     }
     else {
+      ClassMethodPair last = lastUsedGetter;
+      if (last != null && last.beanClass == foundBeanClass) {
+        return last.method;
+      }
+
       Method getMethod = classToGetterMap.get(foundBeanClass);
       if (getMethod == null) {
-        getMethod = findPublicMethod(foundBeanClass, getterMethod.getName());
+        getMethod = makeAccessible(findPublicMethod(foundBeanClass, getterMethod.getName()));
         if (getMethod == null) {
           throw new ReflectionException(makeErrMsg(
               "Unable to find method '" + getterMethod.getName() + "' in class '" + foundBeanClass + "'."));
         }
         classToGetterMap.put(foundBeanClass, getMethod);
       }
+      lastUsedGetter = new ClassMethodPair(foundBeanClass, getMethod);
       return getMethod;
     }
   }
@@ -261,23 +274,48 @@ public class BeanAttrAccessorImpl implements BeanAttrAccessor {
    */
   private final Method getSetterMethod(Object bean) {
     Class<?> foundBeanClass = bean.getClass();
-    if (foundBeanClass.equals(setterMethod.getDeclaringClass())) {
+    if (foundBeanClass == setterMethod.getDeclaringClass()) {
       return setterMethod;
     }
     else {
+      ClassMethodPair last = lastUsedSetter;
+      if (last != null && last.beanClass == foundBeanClass) {
+        return last.method;
+      }
+
       Method m = classToSetterMap.get(foundBeanClass);
       if (m == null) {
-        m = findPublicMethod(foundBeanClass, setterMethod.getName(), fieldClass);
+        m = makeAccessible(findPublicMethod(foundBeanClass, setterMethod.getName(), fieldClass));
         if (m == null) {
           throw new ReflectionException(makeErrMsg(
               "Unable to find method '" + setterMethod.getName() + "' in class '" + foundBeanClass + "'."));
         }
         classToSetterMap.put(foundBeanClass, m);
       }
+      lastUsedSetter = new ClassMethodPair(foundBeanClass, m);
       return m;
     }
   }
 
+  /**
+   * Switches the access check off for the given method. This is done once for each method
+   * instead of checking it on each method call.
+   *
+   * @param m The method to prepare. May be <code>null</code>.
+   * @return The given method.
+   */
+  private static Method makeAccessible(Method m) {
+    if (m != null && !m.isAccessible()) {
+      try {
+        m.setAccessible(true);
+      }
+      catch (SecurityException e) {
+        // A strict security manager is active. The public method may be used with access checks.
+      }
+    }
+    return m;
+  }
+
   /**
    * Generates an error message string based on the field information.
    *
@@ -355,4 +393,15 @@ public class BeanAttrAccessorImpl implements BeanAttrAccessor {
     }
   }
 
+  /** An immutable subclass to method association. */
+  private static final class ClassMethodPair {
+    final Class<?> beanClass;
+    final Method method;
+
+    ClassMethodPair(Class<?> beanClass, Method method) {
+      this.beanClass = beanClass;
+      this.method = method;
+    }
+  }
+
 }
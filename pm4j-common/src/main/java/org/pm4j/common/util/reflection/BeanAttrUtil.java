@@ -6,6 +6,51 @@ public class BeanAttrUtil {
 
   public static final String TERM_STRING = ".";
 
+  private static BeanAttrAccessorFactory accessorFactory = new BeanAttrAccessorFactoryImpl();
+
+  /**
+   * Provides an accessor using the configured {@link BeanAttrAccessorFactory}.
+   *
+   * @param beanClass Class of beans to access.
+   * @param attrName Name of the attribute.
+   * @param allowFieldAccess Defines if it is allowed to use direct field access when the
+   *          getter/setter are not available to the field.
+   * @return The accessor. Never <code>null</code>.
+   * @throws ReflectionException if the attribute is not accessible.
+   */
+  public static BeanAttrAccessor getAccessor(Class<?> beanClass, String attrName, boolean allowFieldAccess) {
+    return accessorFactory.getAccessor(beanClass, attrName, allowFieldAccess);
+  }
+
+  /**
+   * Provides an accessor that may use direct field access if there is no getter/setter pair.
+   *
+   * @param beanClass Class of beans to access.
+   * @param attrName Name of the attribute.
+   * @return The accessor. Never <code>null</code>.
+   * @throws ReflectionException if the attribute is not accessible.
+   */
+  public static BeanAttrAccessor getAccessor(Class<?> beanClass, String attrName) {
+    return accessorFactory.getAccessor(beanClass, attrName, true);
+  }
+
+  /**
+   * @return The factory used to get bean attribute accessors.
+   */
+  public static BeanAttrAccessorFactory getAccessorFactory() {
+    return accessorFactory;
+  }
+
+  /**
+   * Allows to configure an application specific accessor factory.
+   *
+   * @param accessorFactory The factory to use. Should not be <code>null</code>.
+   */
+  public static void setAccessorFactory(BeanAttrAccessorFactory accessorFactory) {
+    assert accessorFactory != null;
+    BeanAttrUtil.accessorFactory = accessorFactory;
+  }
+
   /**
    *
    *
@@ -20,8 +65,7 @@ public class BeanAttrUtil {
 
     String attrName = StringUtils.substringBefore(path, TERM_STRING);
 
-    // XXX: Check if it's useful to manage a static accessor map to improve performance.
-    BeanAttrAccessor a = new BeanAttrAccessorImpl(startObject.getClass(), attrName);
+    BeanAttrAccessor a = getAccessor(startObject.getClass(), attrName);
     Object refedObj = a.getBeanAttrValue(startObject);
 
     if (attrName.length() == path.length()) {
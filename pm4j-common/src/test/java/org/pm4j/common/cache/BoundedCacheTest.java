@@ -0,0 +1,52 @@
+package org.pm4j.common.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class BoundedCacheTest {
+
+  private long now = 1000;
+
+  @Test
+  public void testLeastRecentlyUsedEntryGetsEvicted() {
+    BoundedCache cache = new BoundedCache("test", 2, 0);
+    cache.put("a", "A");
+    cache.put("b", "B");
+    assertEquals("A", cache.get("a"));
+
+    cache.put("c", "C");
+    assertEquals(2, cache.size());
+    assertNull("b was used less recently than a.", cache.get("b"));
+    assertEquals("A", cache.get("a"));
+    assertEquals("C", cache.get("c"));
+
+    assertEquals(1, cache.getEvictionCount());
+  }
+
+  @Test
+  public void testExpiredEntryGetsEvicted() {
+    BoundedCache cache = new BoundedCache("test", 0, 100) {
+      private static final long serialVersionUID = 1L;
+      @Override
+      protected long currentTimeMillis() {
+        return now;
+      }
+    };
+    cache.put("a", "A");
+    cache.put("b", "B");
+
+    now += 100;
+    assertEquals("A", cache.get("a"));
+
+    now += 1;
+    assertNull(cache.get("a"));
+    assertEquals(1, cache.getEvictionCount());
+
+    cache.evictExpiredEntries();
+    assertEquals(0, cache.size());
+    assertEquals(2, cache.getEvictionCount());
+  }
+
+}
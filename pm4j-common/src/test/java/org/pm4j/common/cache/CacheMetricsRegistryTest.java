@@ -0,0 +1,52 @@
+package org.pm4j.common.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CacheMetricsRegistryTest {
+
+  private CacheMetricsRegistry registry = new CacheMetricsRegistry();
+
+  @Test
+  public void testCountAndReport() {
+    CacheMetrics m = registry.getMetrics("b");
+    assertSame(m, registry.getMetrics("b"));
+    registry.getMetrics("a").countMiss();
+
+    m.countMiss();
+    m.countInit(2000000);
+    m.countHit();
+    m.countHit();
+    m.countHit();
+
+    assertEquals(0.75, m.getHitRatio(), 0.001);
+    assertEquals(2, m.getRecomputeMillis());
+
+    final List<String> reportedNames = new ArrayList<String>();
+    registry.addReporter(new CacheMetricsReporter() {
+      @Override
+      public void report(List<CacheMetrics> metrics) {
+        for (CacheMetrics cm : metrics) {
+          reportedNames.add(cm.getName());
+        }
+      }
+    });
+    registry.report();
+    assertEquals("[a, b]", reportedNames.toString());
+
+    assertArrayEquals(new String[] {
+        "a: hits=0 misses=1 inits=0 recomputeMillis=0",
+        "b: hits=3 misses=1 inits=1 recomputeMillis=2" },
+        registry.getCacheReport());
+
+    registry.resetCounters();
+    assertEquals(0, m.getHitCount());
+  }
+
+}
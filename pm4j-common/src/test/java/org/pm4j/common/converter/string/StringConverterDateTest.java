@@ -0,0 +1,128 @@
+package org.pm4j.common.converter.string;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import org.junit.Test;
+import org.pm4j.common.cache.CacheMetricsRegistry;
+import org.pm4j.common.converter.string.StringConverterDate.DateParser;
+
+public class StringConverterDateTest {
+
+  private StringConverterDate converter = new StringConverterDate();
+
+  @Test
+  public void testParseWithMultipleFormats() throws Exception {
+    TestCtxt ctxt = new TestCtxt("dd.MM.yy|yyyy-MM-dd|dd.MM.yyyy");
+    Date d = converter.stringToValue(ctxt, "24.12.2013");
+    assertEquals("24.12.2013", converter.valueToString(ctxt, d));
+    assertEquals(d, converter.stringToValue(ctxt, "2013-12-24"));
+    assertNull(converter.stringToValue(ctxt, ""));
+
+    try {
+      converter.stringToValue(ctxt, "24/12/2013");
+      fail("A string without a matching separator should not be parsed.");
+    } catch (StringConverterParseException e) {
+      // ok
+    }
+  }
+
+  @Test
+  public void testParsersGetCachedPerThread() throws Exception {
+    converter.setParserCacheEnabled(true);
+    TestCtxt ctxt = new TestCtxt("dd.MM.yyyy");
+    converter.stringToValue(ctxt, "24.12.2013");
+    long hits = getMetricsHitCount();
+
+    converter.stringToValue(ctxt, "25.12.2013");
+    assertTrue(getMetricsHitCount() > hits);
+  }
+
+  @Test
+  public void testParseWithoutCache() throws Exception {
+    converter.setParserCacheEnabled(false);
+    TestCtxt ctxt = new TestCtxt("dd.MM.yyyy");
+    long hits = getMetricsHitCount();
+
+    assertEquals("24.12.2013", converter.valueToString(ctxt, converter.stringToValue(ctxt, "24.12.2013")));
+    assertEquals(hits, getMetricsHitCount());
+  }
+
+  @Test
+  public void testNumericPatternLiterals() throws Exception {
+    assertEquals("..", StringConverterDate.getNumericPatternLiterals("dd.MM.yyyy"));
+    assertEquals("--T:", StringConverterDate.getNumericPatternLiterals("yyyy-MM-dd'T'HH:mm"));
+    assertEquals("'", StringConverterDate.getNumericPatternLiterals("MM''yy"));
+    assertNull("Text fields are not supported.", StringConverterDate.getNumericPatternLiterals("dd. MMM yyyy"));
+    assertNull("Text fields are not supported.", StringConverterDate.getNumericPatternLiterals("EEE dd.MM"));
+  }
+
+  @Test
+  public void testShapeCheck() throws Exception {
+    DateParser p = new DateParser(null, "..");
+    assertTrue(p.matchesShape("1.2.2013"));
+    assertTrue(p.matchesShape(" 01. 02. 2013"));
+    assertTrue("Trailing characters get ignored by the date parser.", p.matchesShape("01.02.2013 xy"));
+    assertFalse(p.matchesShape("01/02/2013"));
+    assertFalse(p.matchesShape("01.02"));
+    assertFalse(p.matchesShape("Jan.2013"));
+
+    assertTrue(new DateParser(null, null).matchesShape("any"));
+  }
+
+  @Test
+  public void testNumberShapeCheck() throws Exception {
+    StringConverterBigDecimal c = new StringConverterBigDecimal();
+    TestCtxt ctxt = new TestCtxt("#,##0.00");
+    assertEquals(new BigDecimal("1234.50"), c.stringToValue(ctxt, "1.234,50"));
+    assertEquals("1.234,50", c.valueToString(ctxt, new BigDecimal("1234.5")));
+    assertEquals(new BigDecimal("-3"), c.stringToValue(ctxt, "-3"));
+
+    try {
+      c.stringToValue(ctxt, "12a");
+      fail("A string with letters should not be parsed.");
+    } catch (StringConverterParseException e) {
+      // ok
+    }
+  }
+
+  private long getMetricsHitCount() {
+    return CacheMetricsRegistry.INSTANCE.getMetrics("pm.converter.dateParser").getHitCount();
+  }
+
+  static class TestCtxt implements StringConverterCtxt {
+    private final String format;
+
+    public TestCtxt(String format) {
+      this.format = format;
+    }
+
+    @Override
+    public TimeZone getConverterCtxtTimeZone() {
+      return TimeZone.getTimeZone("UTC");
+    }
+
+    @Override
+    public Locale getConverterCtxtLocale() {
+      return Locale.GERMAN;
+    }
+
+    @Override
+    public String getConverterCtxtFormatString() {
+      return format;
+    }
+
+    @Override
+    public StringConverterParseException createStringConverterParseException(String valueToConvert, Throwable exception, String... formats) {
+      return new StringConverterParseException(null, this, exception, valueToConvert, formats);
+    }
+  }
+}
@@ -47,4 +47,16 @@ public class AttributeExprTest extends TestCase {
     expr.execAssign(execCtxt, ":-)");
     assertEquals(":-)", bean.getS());
   }
+
+  public void testSharedExpressionForDifferentClasses() {
+    Expression expr = AttributeExpr.parse(new ParseCtxt("s"));
+
+    assertEquals("world", expr.exec(new ExprExecCtxt(new MyBean())));
+    assertEquals("other", expr.exec(new ExprExecCtxt(new MyOtherBean())));
+    assertEquals("world", expr.exec(new ExprExecCtxt(new MyBean())));
+  }
+
+  public final class MyOtherBean {
+    public String getS()        {  return "other";   }
+  }
 }
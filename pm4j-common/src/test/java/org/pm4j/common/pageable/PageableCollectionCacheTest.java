@@ -0,0 +1,61 @@
+package org.pm4j.common.pageable;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pm4j.common.pageable.PageableCollectionTestBase.Bean;
+import org.pm4j.common.pageable.inmem.InMemCollectionImpl;
+import org.pm4j.common.query.CompOpStartsWith;
+import org.pm4j.common.query.QueryExprCompare;
+import org.pm4j.common.query.QueryOptions;
+
+public class PageableCollectionCacheTest {
+
+  private static int NUM_OF_ITEMS = 19;
+  private List<Bean> beans = new ArrayList<Bean>();
+  private InMemCollectionImpl<Bean> collection;
+
+  @Before
+  public void setUp() {
+    for (int counter = 0; counter < NUM_OF_ITEMS; ++counter) {
+      beans.add(new Bean(counter, Integer.toString(counter)));
+    }
+    collection = new InMemCollectionImpl<Bean>(beans, new QueryOptions());
+  }
+
+  @Test
+  public void testFullCollection() {
+    PageableCollectionCache<Bean> cache = new PageableCollectionCache<Bean>(collection, 4, 2);
+
+    assertEquals(NUM_OF_ITEMS, cache.getCollectionSize());
+    for (int i=0; i<NUM_OF_ITEMS; ++i) {
+      assertEquals(i, cache.getAt(i).id.intValue());
+    }
+    assertEquals("The collection gets read using its paging.", 4, collection.getPageSize());
+  }
+
+  @Test
+  public void testFindCachedPos() {
+    PageableCollectionCache<Bean> cache = new PageableCollectionCache<Bean>(collection, 4, 2);
+
+    cache.getAt(5);
+    assertEquals(6, cache.findCachedPos(beans.get(6)));
+    assertEquals("Not within a cached page.", -1, cache.findCachedPos(beans.get(8)));
+  }
+
+  @Test
+  public void testClearAfterFilterChange() {
+    PageableCollectionCache<Bean> cache = new PageableCollectionCache<Bean>(collection, 4, 2);
+    assertEquals("1", cache.getAt(1).name);
+
+    collection.getQueryParams().setFilterExpression(new QueryExprCompare(Bean.ATTR_NAME, CompOpStartsWith.class, "1"));
+    cache.clear();
+    assertEquals(10, cache.getCollectionSize());
+    assertEquals("10", cache.getAt(1).name);
+  }
+
+}
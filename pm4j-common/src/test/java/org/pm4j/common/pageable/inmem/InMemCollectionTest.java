@@ -1,11 +1,22 @@
 package org.pm4j.common.pageable.inmem;
 
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Test;
 import org.pm4j.common.pageable.PageableCollection;
 import org.pm4j.common.pageable.PageableCollectionTestBase;
+import org.pm4j.common.query.CompOpContains;
 import org.pm4j.common.query.CompOpStartsWith;
 import org.pm4j.common.query.QueryAttr;
+import org.pm4j.common.query.QueryExprAnd;
+import org.pm4j.common.query.QueryExprCompare;
 import org.pm4j.common.query.QueryOptions;
 import org.pm4j.common.query.filter.FilterDefinition;
+import org.pm4j.common.query.inmem.InMemQueryEvaluator;
 
 public class InMemCollectionTest extends PageableCollectionTestBase<PageableCollectionTestBase.Bean> {
 
@@ -21,4 +32,92 @@ public class InMemCollectionTest extends PageableCollectionTestBase<PageableColl
     return new Bean(name);
   }
 
+  @Test
+  public void testRefinedFilterIsAppliedToPreviousResult() {
+    CountingEvaluator evaluator = new CountingEvaluator();
+    InMemCollectionImpl<Bean> pc = new InMemCollectionImpl<Bean>(evaluator, makeBeans("b", "ab", "abc", "xab", "c", "abd"), new QueryOptions());
+    pc.setUseRefinementFilter(true);
+
+    pc.getQueryParams().setFilterExpression(new QueryExprCompare(Bean.ATTR_NAME, CompOpContains.class, "a"));
+    assertEquals("[ab, abc, xab, abd]", pc.getItemsOnPage().toString());
+
+    evaluator.count = 0;
+    pc.getQueryParams().setFilterExpression(new QueryExprCompare(Bean.ATTR_NAME, CompOpContains.class, "ab"));
+    assertEquals("[ab, abc, xab, abd]", pc.getItemsOnPage().toString());
+    assertEquals("Only the previous result gets filtered.", 4, evaluator.count);
+
+    evaluator.count = 0;
+    pc.getQueryParams().setFilterExpression(new QueryExprAnd(
+        new QueryExprCompare(Bean.ATTR_NAME, CompOpContains.class, "abc"),
+        new QueryExprCompare(Bean.ATTR_NAME, CompOpStartsWith.class, "a")));
+    assertEquals("[abc]", pc.getItemsOnPage().toString());
+    assertEquals("Four items get checked. Only one needs a check of the second AND member.", 5, evaluator.count);
+
+    evaluator.count = 0;
+    pc.getQueryParams().setFilterExpression(new QueryExprCompare(Bean.ATTR_NAME, CompOpContains.class, "b"));
+    assertEquals("[b, ab, abc, xab, abd]", pc.getItemsOnPage().toString());
+    assertEquals("A wider filter needs to be applied to all items.", 6, evaluator.count);
+  }
+
+  @Test
+  public void testRefinedFilterIsNotAppliedToThePreviousResultOfAnExchangedCollection() {
+    final List<List<Bean>> backingList = new ArrayList<List<Bean>>();
+    backingList.add(makeBeans("ab", "xy", "abc"));
+    InMemCollectionImpl<Bean> pc = new InMemCollectionImpl<Bean>(null, new QueryOptions()) {
+      @Override
+      public Collection<Bean> getBackingCollectionImpl() {
+        return backingList.get(0);
+      }
+    };
+    pc.setUseRefinementFilter(true);
+
+    pc.getQueryParams().setFilterExpression(new QueryExprCompare(Bean.ATTR_NAME, CompOpContains.class, "a"));
+    assertEquals("[ab, abc]", pc.getItemsOnPage().toString());
+
+    // Another collection having the same size.
+    backingList.set(0, makeBeans("abd", "a", "x"));
+    pc.getQueryParams().setFilterExpression(new QueryExprCompare(Bean.ATTR_NAME, CompOpContains.class, "ab"));
+    assertEquals("[abd]", pc.getItemsOnPage().toString());
+  }
+
+  @Test
+  public void testRefinedFilterIsAppliedToAllItemsByDefault() {
+    CountingEvaluator evaluator = new CountingEvaluator();
+    InMemCollectionImpl<Bean> pc = new InMemCollectionImpl<Bean>(evaluator, makeBeans("b", "ab", "abc", "xab", "c", "abd"), new QueryOptions());
+
+    pc.getQueryParams().setFilterExpression(new QueryExprCompare(Bean.ATTR_NAME, CompOpContains.class, "a"));
+    assertEquals("[ab, abc, xab, abd]", pc.getItemsOnPage().toString());
+
+    evaluator.count = 0;
+    pc.getQueryParams().setFilterExpression(new QueryExprCompare(Bean.ATTR_NAME, CompOpContains.class, "ab"));
+    assertEquals("[ab, abc, xab, abd]", pc.getItemsOnPage().toString());
+    assertEquals("All items get filtered.", 6, evaluator.count);
+  }
+
+  @Test
+  public void testInPlaceChangeOfTheFilterIsNotTreatedAsRefinement() {
+    InMemCollectionImpl<Bean> pc = new InMemCollectionImpl<Bean>(makeBeans("b", "ab", "abc", "c"), new QueryOptions());
+    pc.setUseRefinementFilter(true);
+
+    QueryExprCompare filter = new QueryExprCompare(Bean.ATTR_NAME, CompOpContains.class, "ab");
+    pc.getQueryParams().setFilterExpression(filter);
+    assertEquals("[ab, abc]", pc.getItemsOnPage().toString());
+
+    // The previous filter was remembered as a copy. The wider filter is applied to all items.
+    filter.setValue("b");
+    pc.getQueryParams().setFilterExpression(new QueryExprAnd(new QueryExprCompare(Bean.ATTR_NAME, CompOpContains.class, "b")));
+    assertEquals("[b, ab, abc]", pc.getItemsOnPage().toString());
+  }
+
+  /** Counts the number of attribute value reads. */
+  static class CountingEvaluator extends InMemQueryEvaluator<Bean> {
+    int count;
+
+    @Override
+    public Object getAttrValue(Object item, QueryAttr attr) {
+      ++count;
+      return super.getAttrValue(item, attr);
+    }
+  }
+
 }
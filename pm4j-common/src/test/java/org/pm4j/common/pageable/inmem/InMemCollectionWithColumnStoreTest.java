@@ -0,0 +1,17 @@
+package org.pm4j.common.pageable.inmem;
+
+import org.pm4j.common.pageable.PageableCollection;
+
+/**
+ * Executes the {@link InMemCollectionTest} with index based query execution.
+ */
+public class InMemCollectionWithColumnStoreTest extends InMemCollectionTest {
+
+  @Override
+  public PageableCollection<Bean> makePageableCollection(String... strings) {
+    InMemCollectionImpl<Bean> pc = (InMemCollectionImpl<Bean>) super.makePageableCollection(strings);
+    pc.setUseColumnStore(true);
+    return pc;
+  }
+
+}
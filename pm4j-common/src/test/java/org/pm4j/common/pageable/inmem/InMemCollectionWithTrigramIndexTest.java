@@ -0,0 +1,48 @@
+package org.pm4j.common.pageable.inmem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.pm4j.common.pageable.PageableCollection;
+import org.pm4j.common.query.CompOpContains;
+import org.pm4j.common.query.CompOpLike;
+import org.pm4j.common.query.QueryExprCompare;
+
+/**
+ * Executes the {@link InMemCollectionTest} with a trigram index for the name attribute.
+ */
+public class InMemCollectionWithTrigramIndexTest extends InMemCollectionTest {
+
+  @Override
+  public PageableCollection<Bean> makePageableCollection(String... strings) {
+    InMemCollectionImpl<Bean> pc = (InMemCollectionImpl<Bean>) super.makePageableCollection(strings);
+    pc.addTrigramIndex(Bean.ATTR_NAME);
+    return pc;
+  }
+
+  @Test
+  public void testIndexIsUpdatedOnModifications() {
+    PageableCollection<Bean> pc = makePageableCollection("abcd", "xbcd", "bcde", "abc");
+    QueryExprCompare containsBcd = new QueryExprCompare(Bean.ATTR_NAME, CompOpContains.class, "bcd");
+    QueryExprCompare likeBcdX = new QueryExprCompare(Bean.ATTR_NAME, CompOpLike.class, "%bcd_");
+
+    pc.getQueryParams().setFilterExpression(containsBcd);
+    assertEquals("[abcd, xbcd, bcde]", pc.getItemsOnPage().toString());
+
+    pc.getModificationHandler().addItem(new Bean("ybcdy"));
+    pc.getQueryParams().setFilterExpression(likeBcdX);
+    assertEquals("[bcde, ybcdy]", pc.getItemsOnPage().toString());
+
+    pc.getQueryParams().setFilterExpression(containsBcd);
+    assertEquals("[abcd, xbcd, bcde, ybcdy]", pc.getItemsOnPage().toString());
+    pc.getSelectionHandler().select(true, pc.getItemsOnPage().get(1));
+    assertTrue(pc.getModificationHandler().removeSelectedItems());
+
+    pc.getQueryParams().setFilterExpression(likeBcdX);
+    assertEquals("[bcde, ybcdy]", pc.getItemsOnPage().toString());
+    pc.getQueryParams().setFilterExpression(containsBcd);
+    assertEquals("[abcd, bcde, ybcdy]", pc.getItemsOnPage().toString());
+  }
+
+}
@@ -0,0 +1,65 @@
+package org.pm4j.common.pageable.querybased;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pm4j.common.pageable.PageableCollectionTestBase.Bean;
+import org.pm4j.common.pageable.querybased.idquery.IdQueryServiceFakeBase;
+import org.pm4j.common.util.collection.IterableUtil;
+
+public class ItemIdBlockIteratorTest {
+
+  private TestService service = new TestService();
+  private List<Integer> ids = Arrays.asList(1, 2, 3, 99, 4, 5, 6, 7);
+
+  @Before
+  public void setUp() {
+    for (int i = 1; i <= 7; ++i) {
+      service.addFakeItem(new Bean(i, "b" + i));
+    }
+  }
+
+  @Test
+  public void testBlockWiseRead() {
+    ItemIdBlockIterator<Bean, Integer> iter = new ItemIdBlockIterator<Bean, Integer>(service, ids.iterator(), 3, true);
+
+    assertEquals("[b1, b2, b3, b4, b5, b6, b7]", IterableUtil.shallowCopy(iter).toString());
+    assertEquals("{getItems=3}", service.callCounter.toString());
+  }
+
+  @Test
+  public void testMissingItemsAreProvidedAsNull() {
+    ItemIdBlockIterator<Bean, Integer> iter = new ItemIdBlockIterator<Bean, Integer>(service, ids.iterator(), 5, false);
+
+    assertEquals("[b1, b2, b3, null, b4, b5, b6, b7]", IterableUtil.shallowCopy(iter).toString());
+    assertEquals("{getItems=2}", service.callCounter.toString());
+  }
+
+  @Test
+  public void testPrefetch() {
+    ItemIdBlockIterator<Bean, Integer> iter = new ItemIdBlockIterator<Bean, Integer>(service, ids.iterator(), 4, true);
+    iter.setPrefetchExecutor(new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        command.run();
+      }
+    });
+
+    assertEquals("b1", iter.next().name);
+    assertEquals("The second block was read in advance.", "{getItems=2}", service.callCounter.toString());
+    assertEquals("[b2, b3, b4, b5, b6, b7]", IterableUtil.shallowCopy(iter).toString());
+    assertEquals("{getItems=2}", service.callCounter.toString());
+  }
+
+  static class TestService extends IdQueryServiceFakeBase<Bean, Integer> {
+    @Override
+    public Integer getIdForItem(Bean item) {
+      return item.getId();
+    }
+  }
+}
@@ -30,7 +30,7 @@ public class IdQueryCollectionImplTest extends PageableCollectionTestBase<Pageab
   @Override
   public void setUp() {
     super.setUp();
-    assertEquals("Call count stability check.", "{findIds=1, getItemForId=11, getItems=1}", service.callCounter.toString());
+    assertEquals("Call count stability check.", "{findIds=1, getItemForId=1, getItems=5}", service.callCounter.toString());
     service.callCounter.reset();
   }
 
@@ -52,13 +52,13 @@ public class IdQueryCollectionImplTest extends PageableCollectionTestBase<Pageab
   @Test @Override
   public void testItemNavigator() {
     super.testItemNavigator();
-    assertEquals("Call count stability check.", "{findIds=1, getItemForId=9, getItems=1}", service.callCounter.toString());
+    assertEquals("Call count stability check.", "{findIds=1, getItems=4}", service.callCounter.toString());
   }
 
   @Test @Override
   public void testSwitchQueryExecOffAndOn() {
     super.testSwitchQueryExecOffAndOn();
-    assertEquals("Call count stability check.", "{findIds=2, getItemForId=12}", service.callCounter.toString());
+    assertEquals("Call count stability check.", "{findIds=2, getItems=2}", service.callCounter.toString());
   }
 
   @Test @Override
@@ -70,19 +70,19 @@ public class IdQueryCollectionImplTest extends PageableCollectionTestBase<Pageab
   @Override
   public void testSortItems() {
     super.testSortItems();
-    assertEquals("Call count stability check.", "{findIds=4, getItemForId=24}", service.callCounter.toString());
+    assertEquals("Call count stability check.", "{findIds=4, getItems=4}", service.callCounter.toString());
   }
 
   @Override
   public void testDefaultSortOrder() {
     super.testDefaultSortOrder();
-    assertEquals("Call count stability check.", "{findIds=5, getItemForId=30, getItems=5}", service.callCounter.toString());
+    assertEquals("Call count stability check.", "{findIds=5, getItems=10}", service.callCounter.toString());
   }
 
   @Override
   public void testFilterItems() {
     super.testFilterItems();
-    assertEquals("Call count stability check.", "{findIds=2, getItemForId=7}", service.callCounter.toString());
+    assertEquals("Call count stability check.", "{findIds=2, getItems=2}", service.callCounter.toString());
   }
 
   @Override
@@ -100,7 +100,7 @@ public class IdQueryCollectionImplTest extends PageableCollectionTestBase<Pageab
   @Override
   public void testAddItem() {
     super.testAddItem();
-    assertEquals("Call count stability check.", "{findIds=2, getItemForId=8, getItems=4}", service.callCounter.toString());
+    assertEquals("Call count stability check.", "{findIds=2, getItems=7}", service.callCounter.toString());
   }
 
   @Override
@@ -112,19 +112,19 @@ public class IdQueryCollectionImplTest extends PageableCollectionTestBase<Pageab
   @Override
   public void testAddItemInMultiSelectMode() {
     super.testAddItemInMultiSelectMode();
-    assertEquals("Call count stability check.", "{findIds=2, getItemForId=8, getItems=4}", service.callCounter.toString());
+    assertEquals("Call count stability check.", "{findIds=2, getItems=7}", service.callCounter.toString());
   }
 
   @Override
   public void testRemoveItems() {
     super.testRemoveItems();
-    assertEquals("Call count stability check.", "{findIds=2, getItemForId=8, getItems=1}", service.callCounter.toString());
+    assertEquals("Call count stability check.", "{findIds=2, getItems=4}", service.callCounter.toString());
   }
 
   @Override
   public void testRemoveOfAddedAndUpdatedItems() {
     super.testRemoveOfAddedAndUpdatedItems();
-    assertEquals("Call count stability check.", "{findIds=2, getItemForId=12, getItems=1}", service.callCounter.toString());
+    assertEquals("Call count stability check.", "{findIds=2, getItems=3}", service.callCounter.toString());
   }
 
   // --- A fake service implementation that does the job just in memory. ---
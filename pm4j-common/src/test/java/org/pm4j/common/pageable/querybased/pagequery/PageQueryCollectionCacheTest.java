@@ -2,17 +2,29 @@ package org.pm4j.common.pageable.querybased.pagequery;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.List;
+import java.util.concurrent.Executor;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.pm4j.common.pageable.PageableCollectionTestBase.Bean;
 import org.pm4j.common.pageable.querybased.pagequery.PageQueryCollectionTest.TestService;
+import org.pm4j.common.query.CompOpStartsWith;
+import org.pm4j.common.query.QueryExprCompare;
 import org.pm4j.common.query.QueryParams;
 
 public class PageQueryCollectionCacheTest {
 
   private static int NUM_OF_ITEMS = 19;
-  private TestService service = new PageQueryCollectionTest.TestService();
+  private CountingTestService service = new CountingTestService();
 
+  /** Executes the read-ahead tasks synchronously. */
+  private static final Executor SYNC_EXECUTOR = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
 
   @Before
   public void setUp() {
@@ -31,4 +43,124 @@ public class PageQueryCollectionCacheTest {
     }
   }
 
+  @Test
+  public void testSinglePageCacheReadsAgainOnPageFlip() {
+    PageQueryCollectionCache<Bean> cache = new PageQueryCollectionCache<Bean>(service, new QueryParams(), 2);
+
+    cache.getAt(0);
+    cache.getAt(2);
+    cache.getAt(0);
+    assertEquals(3, service.getItemsCallCount);
+  }
+
+  @Test
+  public void testMultiPageCacheKeepsRecentlyUsedPages() {
+    PageQueryCollectionCache<Bean> cache = new PageQueryCollectionCache<Bean>(service, new QueryParams(), 2, 2);
+
+    cache.getAt(0);
+    cache.getAt(2);
+    cache.getAt(1);
+    cache.getAt(3);
+    assertEquals("Flipping between two cached pages does not need a service call.", 2, service.getItemsCallCount);
+
+    // page 0 was used before page 2. It gets released.
+    cache.getAt(2);
+    cache.getAt(4);
+    cache.getAt(0);
+    assertEquals(4, service.getItemsCallCount);
+  }
+
+  @Test
+  public void testMultiPageCacheGetsClearedOnFilterChange() {
+    QueryParams qp = new QueryParams();
+    PageQueryCollectionCache<Bean> cache = new PageQueryCollectionCache<Bean>(service, qp, 2, 4);
+
+    assertEquals("0", cache.getAt(0).name);
+    assertEquals(1, service.getItemsCallCount);
+
+    qp.setFilterExpression(new QueryExprCompare(Bean.ATTR_NAME, CompOpStartsWith.class, "1"));
+    assertEquals("1", cache.getAt(0).name);
+    assertEquals("10", cache.getAt(1).name);
+    assertEquals(2, service.getItemsCallCount);
+  }
+
+  @Test
+  public void testDisposedCacheDoesNotObserveTheQueryParams() {
+    QueryParams qp = new QueryParams();
+    PageQueryCollectionCache<Bean> cache = new PageQueryCollectionCache<Bean>(service, qp, 2, 4);
+    assertEquals("0", cache.getAt(0).name);
+
+    cache.dispose();
+    qp.setFilterExpression(new QueryExprCompare(Bean.ATTR_NAME, CompOpStartsWith.class, "1"));
+    assertEquals("The cache was not informed about the filter change.", "0", cache.getAt(0).name);
+    assertEquals(1, service.getItemsCallCount);
+  }
+
+  @Test
+  public void testReadAhead() {
+    PageQueryCollectionCache<Bean> cache = new PageQueryCollectionCache<Bean>(service, new QueryParams(), 2, 2);
+    cache.setReadAheadExecutor(SYNC_EXECUTOR);
+
+    assertEquals(0, cache.getAt(0).id.intValue());
+    assertEquals("The next page was read in advance.", 2, service.getItemsCallCount);
+
+    assertEquals(2, cache.getAt(2).id.intValue());
+    assertEquals(3, cache.getAt(3).id.intValue());
+    assertEquals(3, service.getItemsCallCount);
+  }
+
+  @Test
+  public void testCachingServiceWithMultiplePages() {
+    QueryParams qp = new QueryParams();
+    CachingPageQueryService<Bean, Integer> cachingService = new CachingPageQueryService<Bean, Integer>(service);
+    cachingService.getCache().setMaxCachedPages(3);
+
+    cachingService.getItems(qp, 0, 5);
+    cachingService.getItems(qp, 5, 5);
+    cachingService.getItems(qp, 0, 5);
+    cachingService.getItems(qp, 5, 5);
+    assertEquals(2, service.getItemsCallCount);
+    assertEquals("Items of all cached pages are found by id.", 1, cachingService.getItemForId(1).id.intValue());
+    assertEquals(6, cachingService.getItemForId(6).id.intValue());
+    assertEquals(0, service.getItemForIdCallCount);
+
+    qp.setFilterExpression(new QueryExprCompare(Bean.ATTR_NAME, CompOpStartsWith.class, "1"));
+    cachingService.getItems(qp, 0, 5);
+    assertEquals(3, service.getItemsCallCount);
+    cachingService.getItemForId(6);
+    assertEquals(1, service.getItemForIdCallCount);
+  }
+
+  @Test
+  public void testCachingServiceReadAhead() {
+    QueryParams qp = new QueryParams();
+    CachingPageQueryService<Bean, Integer> cachingService = new CachingPageQueryService<Bean, Integer>(service);
+    cachingService.getCache().setMaxCachedPages(2);
+    cachingService.getCache().setReadAheadExecutor(SYNC_EXECUTOR);
+
+    List<Bean> page = cachingService.getItems(qp, 0, 10);
+    assertEquals(10, page.size());
+    assertEquals(2, service.getItemsCallCount);
+
+    page = cachingService.getItems(qp, 10, 10);
+    assertEquals(9, page.size());
+    assertEquals("The incomplete last page does not trigger a read-ahead.", 2, service.getItemsCallCount);
+  }
+
+  static class CountingTestService extends TestService {
+    int getItemsCallCount;
+    int getItemForIdCallCount;
+
+    @Override
+    public List<Bean> getItems(QueryParams query, long startIdx, int pageSize) {
+      ++getItemsCallCount;
+      return super.getItems(query, startIdx, pageSize);
+    }
+
+    @Override
+    public Bean getItemForId(Integer id) {
+      ++getItemForIdCallCount;
+      return super.getItemForId(id);
+    }
+  }
 }
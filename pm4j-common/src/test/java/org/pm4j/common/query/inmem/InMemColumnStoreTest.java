@@ -0,0 +1,177 @@
+package org.pm4j.common.query.inmem;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pm4j.common.query.CompOpContains;
+import org.pm4j.common.query.CompOpEquals;
+import org.pm4j.common.query.CompOpGe;
+import org.pm4j.common.query.CompOpGt;
+import org.pm4j.common.query.CompOpIn;
+import org.pm4j.common.query.CompOpIsNull;
+import org.pm4j.common.query.CompOpLe;
+import org.pm4j.common.query.CompOpLt;
+import org.pm4j.common.query.CompOpNotEquals;
+import org.pm4j.common.query.CompOpStartsWith;
+import org.pm4j.common.query.QueryAttr;
+import org.pm4j.common.query.QueryExpr;
+import org.pm4j.common.query.QueryExprAnd;
+import org.pm4j.common.query.QueryExprCompare;
+import org.pm4j.common.query.QueryExprNot;
+import org.pm4j.common.query.QueryExprOr;
+import org.pm4j.common.query.SortOrder;
+
+/**
+ * Checks that the {@link InMemColumnStore} provides the same results as the
+ * item based {@link InMemQueryEvaluator}.
+ */
+public class InMemColumnStoreTest {
+
+  public static class Bean {
+    public final String s;
+    public final Integer i;
+    public final Double d;
+    public final Date date;
+    public final Object mixed;
+
+    public Bean(String s, Integer i, Double d, Date date, Object mixed) {
+      this.s = s;
+      this.i = i;
+      this.d = d;
+      this.date = date;
+      this.mixed = mixed;
+    }
+
+    @Override
+    public String toString() {
+      return s + "/" + i;
+    }
+  }
+
+  private QueryAttr attrS = new QueryAttr("s", String.class);
+  private QueryAttr attrI = new QueryAttr("i", Integer.class);
+  private QueryAttr attrD = new QueryAttr("d", Double.class);
+  private QueryAttr attrDate = new QueryAttr("date", Date.class);
+  private QueryAttr attrMixed = new QueryAttr("mixed", Object.class);
+
+  private InMemQueryEvaluator<Bean> evaluator = new InMemQueryEvaluator<Bean>();
+  private List<Bean> beans = new ArrayList<Bean>();
+  private InMemColumnStore<Bean> store;
+
+  @Before
+  public void setUp() {
+    String[] names = { "b", "a", null, "c", "ab", "b", "", "ba", "c", null };
+    for (int idx = 0; idx < 40; ++idx) {
+      Integer i = (idx % 7 == 0) ? null : Integer.valueOf((idx * 13) % 11);
+      Double d = (idx % 5 == 0) ? null : Double.valueOf(((idx * 7) % 9) / 2.0);
+      Date date = (idx % 6 == 0) ? null : new Date(1000L * ((idx * 3) % 8));
+      Object mixed = (idx % 3 == 0) ? Integer.valueOf(idx % 4) : (idx % 3 == 1 ? "x" : null);
+      beans.add(new Bean(names[idx % names.length], i, d, date, mixed));
+    }
+    store = new InMemColumnStore<Bean>(evaluator, beans);
+  }
+
+  @Test
+  public void testCompareOperators() {
+    for (Object v : new Object[] { null, 0, 3, 5, 10, 12 }) {
+      assertSameFilterResult(new QueryExprCompare(attrI, CompOpEquals.class, v));
+      assertSameFilterResult(new QueryExprCompare(attrI, CompOpNotEquals.class, v));
+      assertSameFilterResult(new QueryExprCompare(attrI, CompOpLt.class, v));
+      assertSameFilterResult(new QueryExprCompare(attrI, CompOpLe.class, v));
+      assertSameFilterResult(new QueryExprCompare(attrI, CompOpGt.class, v));
+      assertSameFilterResult(new QueryExprCompare(attrI, CompOpGe.class, v));
+    }
+    for (Object v : new Object[] { null, 0.0, 1.5, 2.0, 4.5 }) {
+      assertSameFilterResult(new QueryExprCompare(attrD, CompOpLt.class, v));
+      assertSameFilterResult(new QueryExprCompare(attrD, CompOpGe.class, v));
+    }
+    for (Object v : new Object[] { null, new Date(0), new Date(3000), new Date(3500) }) {
+      assertSameFilterResult(new QueryExprCompare(attrDate, CompOpLe.class, v));
+      assertSameFilterResult(new QueryExprCompare(attrDate, CompOpGt.class, v));
+    }
+    for (Object v : new Object[] { null, "", "a", "b", "bb" }) {
+      assertSameFilterResult(new QueryExprCompare(attrS, CompOpEquals.class, v));
+      assertSameFilterResult(new QueryExprCompare(attrS, CompOpLt.class, v));
+      assertSameFilterResult(new QueryExprCompare(attrS, CompOpGe.class, v));
+    }
+    assertSameFilterResult(new QueryExprCompare(attrS, CompOpStartsWith.class, "b"));
+    assertSameFilterResult(new QueryExprCompare(attrS, CompOpContains.class, "b"));
+    assertSameFilterResult(new QueryExprCompare(attrS, CompOpIsNull.class, null));
+    assertSameFilterResult(new QueryExprCompare(attrMixed, CompOpEquals.class, 2));
+    assertSameFilterResult(new QueryExprCompare(attrMixed, CompOpEquals.class, "x"));
+  }
+
+  @Test
+  public void testInOperator() {
+    assertSameFilterResult(new QueryExprCompare(attrI, CompOpIn.class, Arrays.asList(1, 3, 7, null)));
+    assertSameFilterResult(new QueryExprCompare(attrS, CompOpIn.class, Arrays.asList("a", "ba")));
+    assertSameFilterResult(new QueryExprCompare(attrS, CompOpIn.class, Collections.emptyList()));
+  }
+
+  @Test
+  public void testBooleanExpressions() {
+    QueryExpr iGt3 = new QueryExprCompare(attrI, CompOpGt.class, 3);
+    QueryExpr sIsB = new QueryExprCompare(attrS, CompOpEquals.class, "b");
+    QueryExpr dLe2 = new QueryExprCompare(attrD, CompOpLe.class, 2.0);
+
+    assertSameFilterResult(new QueryExprAnd(iGt3, sIsB));
+    assertSameFilterResult(new QueryExprOr(iGt3, sIsB));
+    assertSameFilterResult(new QueryExprNot(new QueryExprOr(iGt3, sIsB)));
+    assertSameFilterResult(new QueryExprAnd(new QueryExprOr(iGt3, dLe2), new QueryExprNot(sIsB)));
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testEmptyAndExpression() {
+    store.filter(new QueryExprAnd());
+  }
+
+  @Test
+  public void testSortOrder() {
+    for (QueryAttr a : new QueryAttr[] { attrS, attrI, attrD, attrDate }) {
+      SortOrder so = new SortOrder(a);
+      assertSameQueryResult(null, so);
+      assertSameQueryResult(null, so.getReverseSortOrder());
+      assertSameQueryResult(new QueryExprCompare(attrI, CompOpLt.class, 8), so);
+      assertSameQueryResult(new QueryExprCompare(attrI, CompOpLt.class, 8), so.getReverseSortOrder());
+    }
+  }
+
+  @Test
+  public void testSortOrderWithComparator() {
+    InMemSortOrder so = new InMemSortOrder(attrS, String.CASE_INSENSITIVE_ORDER);
+    List<Bean> nonNullNames = new ArrayList<Bean>();
+    for (Bean b : beans) {
+      if (b.s != null) {
+        nonNullNames.add(b);
+      }
+    }
+    store = new InMemColumnStore<Bean>(evaluator, nonNullNames);
+    assertEquals(evaluator.sort(nonNullNames, so), store.query(null, so));
+  }
+
+  @Test
+  public void testIsStoreFor() {
+    assertEquals(true, store.isStoreFor(beans));
+    beans.remove(0);
+    assertEquals(false, store.isStoreFor(beans));
+    assertEquals(false, store.isStoreFor(new ArrayList<Bean>(beans)));
+  }
+
+  private void assertSameFilterResult(QueryExpr expr) {
+    assertEquals(expr.toString(), evaluator.evaluateSubSet(beans, expr), store.query(expr, null));
+  }
+
+  private void assertSameQueryResult(QueryExpr expr, SortOrder sortOrder) {
+    List<Bean> expected = new ArrayList<Bean>(evaluator.evaluateSubSet(beans, expr));
+    Collections.sort(expected, evaluator.getComparator(sortOrder));
+    assertEquals(sortOrder.toString(), expected, store.query(expr, sortOrder));
+  }
+
+}
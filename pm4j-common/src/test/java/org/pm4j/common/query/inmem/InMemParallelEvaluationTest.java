@@ -0,0 +1,83 @@
+package org.pm4j.common.query.inmem;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pm4j.common.query.CompOpIn;
+import org.pm4j.common.query.CompOpLike;
+import org.pm4j.common.query.CompOpLt;
+import org.pm4j.common.query.QueryAttr;
+import org.pm4j.common.query.QueryExpr;
+import org.pm4j.common.query.QueryExprCompare;
+import org.pm4j.common.query.QueryExprOr;
+import org.pm4j.common.query.SortOrder;
+
+public class InMemParallelEvaluationTest {
+
+  public static class Bean {
+    public final String s;
+    public final int i;
+    public Bean(String s, int i) {
+      this.s = s;
+      this.i = i;
+    }
+  }
+
+  private QueryAttr attrS = new QueryAttr("s", String.class);
+  private QueryAttr attrI = new QueryAttr("i", Integer.class);
+
+  private ExecutorService executor = Executors.newFixedThreadPool(3);
+  private InMemQueryEvaluator<Bean> sequentialEvaluator = new InMemQueryEvaluator<Bean>();
+  private InMemQueryEvaluator<Bean> parallelEvaluator = new InMemQueryEvaluator<Bean>();
+  private List<Bean> beans = new ArrayList<Bean>();
+
+  @Before
+  public void setUp() {
+    parallelEvaluator.setParallelExecutor(executor, 10);
+    parallelEvaluator.setParallelism(5);
+    for (int i = 0; i < 1003; ++i) {
+      beans.add(new Bean("b" + (i % 17), (i * 31) % 101));
+    }
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  @Test
+  public void testParallelFilterKeepsItemOrder() {
+    QueryExpr expr = new QueryExprOr(
+        new QueryExprCompare(attrI, CompOpLt.class, 40),
+        new QueryExprCompare(attrS, CompOpLike.class, "%1%"));
+
+    assertEquals(sequentialEvaluator.evaluateSubSet(beans, expr), parallelEvaluator.evaluateSubSet(beans, expr));
+  }
+
+  @Test
+  public void testParallelSortIsStable() {
+    SortOrder so = new SortOrder(attrI);
+    assertEquals(sequentialEvaluator.sort(beans, so), parallelEvaluator.sort(beans, so));
+    assertEquals(sequentialEvaluator.sort(beans, so.getReverseSortOrder()), parallelEvaluator.sort(beans, so.getReverseSortOrder()));
+  }
+
+  @Test
+  public void testSmallCollectionsAreProcessedSequentially() {
+    List<Bean> fewBeans = beans.subList(0, 9);
+    SortOrder so = new SortOrder(attrS);
+    assertEquals(sequentialEvaluator.sort(fewBeans, so), parallelEvaluator.sort(fewBeans, so));
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testExceptionsArePropagated() {
+    parallelEvaluator.evaluateSubSet(beans, new QueryExprCompare(attrI, CompOpIn.class, 3));
+  }
+
+}
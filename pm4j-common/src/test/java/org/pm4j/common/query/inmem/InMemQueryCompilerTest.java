@@ -0,0 +1,190 @@
+package org.pm4j.common.query.inmem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pm4j.common.query.CompOpBase;
+import org.pm4j.common.query.CompOpContains;
+import org.pm4j.common.query.CompOpEquals;
+import org.pm4j.common.query.CompOpGe;
+import org.pm4j.common.query.CompOpIn;
+import org.pm4j.common.query.CompOpIsNull;
+import org.pm4j.common.query.CompOpLike;
+import org.pm4j.common.query.CompOpLt;
+import org.pm4j.common.query.CompOpNotContains;
+import org.pm4j.common.query.CompOpNotNull;
+import org.pm4j.common.query.CompOpStartsWith;
+import org.pm4j.common.query.QueryAttr;
+import org.pm4j.common.query.QueryAttrMulti;
+import org.pm4j.common.query.QueryExpr;
+import org.pm4j.common.query.QueryExprAnd;
+import org.pm4j.common.query.QueryExprCompare;
+import org.pm4j.common.query.QueryExprNot;
+import org.pm4j.common.query.QueryExprOr;
+import org.pm4j.common.util.collection.MultiObjectValue;
+
+/**
+ * Checks that the predicates provided by {@link InMemQueryEvaluator#compile(QueryExpr)}
+ * provide the same results as the interpreted evaluation.
+ */
+public class InMemQueryCompilerTest {
+
+  public static class Bean {
+    private final String s;
+    private final Integer i;
+    private final Bean child;
+
+    public Bean(String s, Integer i, Bean child) {
+      this.s = s;
+      this.i = i;
+      this.child = child;
+    }
+
+    public String getS() {
+      return s;
+    }
+
+    public Integer getI() {
+      return i;
+    }
+
+    public Bean getChild() {
+      return child;
+    }
+
+    public String getUpperS() {
+      return s != null ? s.toUpperCase() : null;
+    }
+  }
+
+  /** A bean sub class. Attribute accessors are bound per class. */
+  public static class SubBean extends Bean {
+    public SubBean(String s, Integer i, Bean child) {
+      super(s, i, child);
+    }
+  }
+
+  private QueryAttr attrS = new QueryAttr("s", String.class);
+  private QueryAttr attrI = new QueryAttr("i", Integer.class);
+  private QueryAttr attrChildS = new QueryAttr("child.s", String.class);
+  private QueryAttr attrUpperS = new QueryAttr("upperS", String.class);
+
+  private InMemQueryEvaluator<Bean> evaluator = new InMemQueryEvaluator<Bean>();
+  private List<Bean> beans = new ArrayList<Bean>();
+
+  @Before
+  public void setUp() {
+    String[] names = { "Abc", " abc ", null, "xbc", "", "ab", "bcA", "a_c" };
+    for (int idx = 0; idx < 24; ++idx) {
+      Integer i = (idx % 5 == 0) ? null : Integer.valueOf(idx % 7);
+      Bean child = new Bean(names[(idx + 3) % names.length], idx, null);
+      beans.add((idx % 2 == 0)
+          ? new Bean(names[idx % names.length], i, child)
+          : new SubBean(names[idx % names.length], i, child));
+    }
+  }
+
+  @Test
+  public void testCompareOperators() {
+    for (Object v : new Object[] { null, 0, 3, 6 }) {
+      assertSameResult(new QueryExprCompare(attrI, CompOpEquals.class, v));
+      assertSameResult(new QueryExprCompare(attrI, CompOpLt.class, v));
+      assertSameResult(new QueryExprCompare(attrI, CompOpGe.class, v));
+    }
+    assertSameResult(new QueryExprCompare(attrS, CompOpIsNull.class, null));
+    assertSameResult(new QueryExprCompare(attrS, CompOpNotNull.class, null));
+    assertSameResult(new QueryExprCompare(attrI, CompOpIn.class, Arrays.asList(1, 3, null)));
+    assertSameResult(new QueryExprCompare(attrI, CompOpIn.class, new HashSet<Integer>(Arrays.asList(2, 4, null))));
+  }
+
+  @Test
+  public void testStringOperators() {
+    for (String v : new String[] { null, "", "a", "ab", " AB", "bc" }) {
+      for (boolean flag : new boolean[] { false, true }) {
+        assertSameResult(new QueryExprCompare(attrS, makeCompOp(new CompOpStartsWith(), flag), v));
+        assertSameResult(new QueryExprCompare(attrS, makeCompOp(new CompOpContains(), flag), v));
+        assertSameResult(new QueryExprCompare(attrS, makeCompOp(new CompOpNotContains(), flag), v));
+      }
+      assertSameResult(new QueryExprCompare(attrChildS, CompOpStartsWith.class, v));
+    }
+    for (String v : new String[] { "a%", "%bc", "a_c", "%" }) {
+      assertSameResult(new QueryExprCompare(attrS, CompOpLike.class, v));
+    }
+  }
+
+  @Test
+  public void testAttributePaths() {
+    assertSameResult(new QueryExprCompare(attrChildS, CompOpEquals.class, "abc"));
+    assertSameResult(new QueryExprCompare(attrUpperS, CompOpEquals.class, "ABC"));
+    assertSameResult(new QueryExprCompare(new QueryAttr("child.upperS", String.class), CompOpContains.class, "B"));
+
+    QueryAttrMulti multiAttr = new QueryAttrMulti("multi").addPart(attrS).addPart(attrI);
+    assertSameResult(new QueryExprCompare(multiAttr, CompOpEquals.class, new MultiObjectValue("Abc", 1)));
+  }
+
+  @Test
+  public void testBooleanExpressions() {
+    QueryExpr iGe3 = new QueryExprCompare(attrI, CompOpGe.class, 3);
+    QueryExpr sContainsB = new QueryExprCompare(attrS, CompOpContains.class, "b");
+    QueryExpr childSNull = new QueryExprCompare(attrChildS, CompOpIsNull.class, null);
+
+    assertSameResult(new QueryExprAnd(iGe3, sContainsB));
+    assertSameResult(new QueryExprOr(iGe3, sContainsB, childSNull));
+    assertSameResult(new QueryExprNot(new QueryExprAnd(iGe3, new QueryExprNot(childSNull))));
+    assertSameResult(new QueryExprOr(new QueryExprAnd(iGe3, sContainsB), new QueryExprNot(sContainsB)));
+  }
+
+  @Test
+  public void testNullValueWithinPathIsReportedAsByTheInterpretedEvaluation() {
+    QueryExpr expr = new QueryExprCompare(new QueryAttr("child.child.s", String.class), CompOpEquals.class, "x");
+    RuntimeException interpretedException = null;
+    try {
+      evaluator.evaluate(beans.get(0), expr);
+    } catch (RuntimeException e) {
+      interpretedException = e;
+    }
+
+    try {
+      evaluator.compile(expr).eval(beans.get(0));
+      if (interpretedException != null) {
+        fail("The compiled predicate should report the same problem as the interpreted evaluation.");
+      }
+    } catch (RuntimeException e) {
+      assertEquals(interpretedException.getClass(), e.getClass());
+    }
+  }
+
+  @Test
+  public void testCompiledPredicateUsesOverriddenAttrValueAccess() {
+    evaluator = new InMemQueryEvaluator<Bean>() {
+      @Override
+      public Object getAttrValue(Object item, QueryAttr attr) {
+        return (attr == attrS) ? ((Bean) item).i : super.getAttrValue(item, attr);
+      }
+    };
+    assertSameResult(new QueryExprCompare(attrS, CompOpEquals.class, 3));
+    assertEquals(2, evaluator.evaluateSubSet(beans, new QueryExprCompare(attrS, CompOpEquals.class, 3)).size());
+  }
+
+  @SuppressWarnings("deprecation")
+  private CompOpBase<String> makeCompOp(CompOpBase<String> compOp, boolean ignoreCaseAndSpaces) {
+    compOp.setIgnoreCase(ignoreCaseAndSpaces);
+    compOp.setIgnoreSpaces(ignoreCaseAndSpaces);
+    return compOp;
+  }
+
+  private void assertSameResult(QueryExpr expr) {
+    InMemQueryPredicate predicate = evaluator.compile(expr);
+    for (Bean b : beans) {
+      assertEquals(expr + " for item '" + b.s + "/" + b.i + "'", evaluator.evaluate(b, expr), predicate.eval(b));
+    }
+  }
+
+}
@@ -0,0 +1,191 @@
+package org.pm4j.common.query.inmem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pm4j.common.query.CompOpBase;
+import org.pm4j.common.query.CompOpContains;
+import org.pm4j.common.query.CompOpEquals;
+import org.pm4j.common.query.CompOpLike;
+import org.pm4j.common.query.CompOpNotContains;
+import org.pm4j.common.query.CompOpStartsWith;
+import org.pm4j.common.query.QueryAttr;
+import org.pm4j.common.query.QueryExpr;
+import org.pm4j.common.query.QueryExprAnd;
+import org.pm4j.common.query.QueryExprCompare;
+import org.pm4j.common.query.QueryExprOr;
+
+/**
+ * Checks that the {@link InMemTrigramIndex} provides the same results as the
+ * item based {@link InMemQueryEvaluator}.
+ */
+public class InMemTrigramIndexTest {
+
+  public static class Bean {
+    public String s;
+    public String t;
+
+    public Bean(String s, String t) {
+      this.s = s;
+      this.t = t;
+    }
+
+    @Override
+    public String toString() {
+      return s + "/" + t;
+    }
+  }
+
+  /** A bean that is equal to other beans with the same 's' value. */
+  public static class EqualBean {
+    public String s;
+
+    public EqualBean(String s) {
+      this.s = s;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return (obj instanceof EqualBean) && s.equals(((EqualBean) obj).s);
+    }
+
+    @Override
+    public int hashCode() {
+      return s.hashCode();
+    }
+  }
+
+  private QueryAttr attrS = new QueryAttr("s", String.class);
+  private QueryAttr attrT = new QueryAttr("t", String.class);
+
+  private InMemQueryEvaluator<Bean> evaluator = new InMemQueryEvaluator<Bean>();
+  private List<Bean> beans = new ArrayList<Bean>();
+  private InMemTrigramIndex<Bean> index;
+
+  @Before
+  public void setUp() {
+    String[] names = { "Hello World", "hello", null, "WORLD wide", "", "low", " yellow ", "Stra\u00dfe", "STRASSE", "a_lo%w" };
+    for (int idx = 0; idx < 40; ++idx) {
+      beans.add(new Bean(names[idx % names.length], names[(idx * 3) % names.length]));
+    }
+    index = new InMemTrigramIndex<Bean>(evaluator, beans, Arrays.asList(attrS, attrT));
+  }
+
+  @Test
+  public void testStringOperators() {
+    for (String v : new String[] { null, "", "l", "lo", "llo", "LLO", "hello w", " yel", "low ", "xyz", "stra\u00dfe", "STRASSE", "asse" }) {
+      for (boolean flag : new boolean[] { false, true }) {
+        assertSameFilterResult(new QueryExprCompare(attrS, makeCompOp(new CompOpContains(), flag), v));
+        assertSameFilterResult(new QueryExprCompare(attrS, makeCompOp(new CompOpStartsWith(), flag), v));
+        assertSameFilterResult(new QueryExprCompare(attrS, makeCompOp(new CompOpNotContains(), flag), v));
+      }
+    }
+    for (String v : new String[] { "%llo%", "hel%wor%", "%LOW", "a\\_lo%", "a_lo%w", "%", "_ell_", "str%" }) {
+      assertSameFilterResult(new QueryExprCompare(attrS, CompOpLike.class, v));
+    }
+  }
+
+  @Test
+  public void testBooleanExpressions() {
+    QueryExpr sContainsLlo = new QueryExprCompare(attrS, CompOpContains.class, "llo");
+    QueryExpr tContainsWor = new QueryExprCompare(attrT, CompOpContains.class, "Wor");
+    QueryExpr tEqualsLow = new QueryExprCompare(attrT, CompOpEquals.class, "low");
+
+    assertSameFilterResult(new QueryExprAnd(sContainsLlo, tContainsWor));
+    assertSameFilterResult(new QueryExprAnd(sContainsLlo, tEqualsLow));
+    assertSameFilterResult(new QueryExprOr(sContainsLlo, tContainsWor));
+    assertSameFilterResult(new QueryExprOr(sContainsLlo, tEqualsLow));
+  }
+
+  @Test
+  public void testCandidatesAreNarrowed() {
+    QueryExpr expr = new QueryExprCompare(attrS, CompOpContains.class, "World");
+    assertEquals("The 'Hello World' and the 'WORLD wide' rows. The index is case insensitive.",
+        8, index.findCandidateRows(expr).cardinality());
+    assertNull("Can't be narrowed by a two character compare value.",
+        index.findCandidateRows(new QueryExprCompare(attrS, CompOpContains.class, "Wo")));
+    assertNull("Can't be narrowed because of the not indexed OR member.",
+        index.findCandidateRows(new QueryExprOr(expr, new QueryExprCompare(attrS, CompOpEquals.class, "low"))));
+  }
+
+  @Test
+  public void testModifications() {
+    QueryExpr expr = new QueryExprCompare(attrS, CompOpContains.class, "ello");
+
+    Bean newBean = new Bean("jello", null);
+    beans.add(newBean);
+    index.addItem(newBean);
+    assertSameFilterResult(expr);
+
+    for (Bean b : new ArrayList<Bean>(beans.subList(0, 30))) {
+      beans.remove(b);
+      assertTrue(index.removeItem(b));
+    }
+    assertEquals(beans.size(), index.size());
+    assertTrue(index.isIndexFor(beans));
+    assertSameFilterResult(expr);
+
+    newBean.s = "mellow";
+    index.updateItem(newBean);
+    assertSameFilterResult(expr);
+    newBean.s = "marsh";
+    index.updateItem(newBean);
+    assertSameFilterResult(expr);
+  }
+
+  @Test
+  public void testRemoveOfAnEqualItem() {
+    List<EqualBean> items = new ArrayList<EqualBean>(Arrays.asList(new EqualBean("abc"), new EqualBean("xyz"), new EqualBean("abc")));
+    InMemTrigramIndex<EqualBean> equalIndex = new InMemTrigramIndex<EqualBean>(new InMemQueryEvaluator<EqualBean>(), items, Arrays.asList(attrS));
+
+    // Removes the first equal item from the list and the index. Even if it's another instance.
+    EqualBean toRemove = new EqualBean("abc");
+    assertTrue(items.remove(toRemove));
+    assertTrue(equalIndex.removeItem(toRemove));
+
+    List<EqualBean> result = equalIndex.evaluateSubSet(new QueryExprCompare(attrS, CompOpContains.class, "abc"));
+    assertEquals(1, result.size());
+    assertSame(items.get(1), result.get(0));
+  }
+
+  @Test
+  public void testRepeatedUpdates() {
+    QueryExpr expr = new QueryExprCompare(attrS, CompOpContains.class, "baz");
+    Bean bean = beans.get(0);
+    for (String s : new String[] { "foo", "foobar", "bazqux", "qux", "bazbaz" }) {
+      bean.s = s;
+      index.updateItem(bean);
+      assertSameFilterResult(expr);
+    }
+
+    // Enough updates to compact the index.
+    for (int i = 0; i < 30; ++i) {
+      Bean b = beans.get(i);
+      b.s = "baz" + i;
+      index.updateItem(b);
+    }
+    assertSameFilterResult(expr);
+    assertEquals(beans.size(), index.size());
+    assertSameFilterResult(new QueryExprCompare(attrS, CompOpContains.class, "llo"));
+  }
+
+  @SuppressWarnings("deprecation")
+  private CompOpBase<String> makeCompOp(CompOpBase<String> compOp, boolean ignoreCaseAndSpaces) {
+    compOp.setIgnoreCase(ignoreCaseAndSpaces);
+    compOp.setIgnoreSpaces(ignoreCaseAndSpaces);
+    return compOp;
+  }
+
+  private void assertSameFilterResult(QueryExpr expr) {
+    assertEquals(expr.toString(), evaluator.evaluateSubSet(beans, expr), index.evaluateSubSet(expr));
+  }
+
+}
@@ -0,0 +1,97 @@
+package org.pm4j.common.util.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.junit.Test;
+
+public class CompactIdSetTest {
+
+  @Test
+  public void testSparseLongIds() {
+    CompactIdSet<Long> set = CompactIdSet.of(Arrays.asList(1000000L, 3L, 77777777L, 3L));
+
+    assertEquals(3, set.size());
+    assertTrue(set.contains(3L));
+    assertTrue(set.contains(77777777L));
+    assertFalse(set.contains(4L));
+    assertFalse("An Integer is not equal to a Long.", set.contains(3));
+    assertEquals("[3, 1000000, 77777777]", set.toString());
+  }
+
+  @Test
+  public void testDenseIntegerIds() {
+    List<Integer> ids = new ArrayList<Integer>();
+    for (int i = 0; i < 100000; ++i) {
+      if (i % 3 != 0) {
+        ids.add(i - 500);
+      }
+    }
+    CompactIdSet<Integer> set = CompactIdSet.of(ids);
+
+    assertEquals(ids.size(), set.size());
+    assertTrue(set.contains(-499));
+    assertFalse(set.contains(-500));
+    assertFalse(set.contains(100000));
+    assertEquals(new ArrayList<Integer>(set), ids);
+    assertEquals(new HashSet<Integer>(ids), set);
+    assertEquals(set, new HashSet<Integer>(ids));
+    assertEquals(new HashSet<Integer>(ids).hashCode(), set.hashCode());
+  }
+
+  @Test
+  public void testNotApplicableForOtherIdTypes() {
+    assertNull(CompactIdSet.of(Collections.<Long>emptySet()));
+    assertNull(CompactIdSet.of(Arrays.asList("a", "b")));
+    assertNull(CompactIdSet.of(Arrays.<Number>asList(1, 2L)));
+    assertNull(CompactIdSet.of(Arrays.asList(1L, null)));
+  }
+
+  @Test
+  public void testUnionAndMinus() {
+    CompactIdSet<Long> all = CompactIdSet.of(makeRange(1, 1000000));
+    CompactIdSet<Long> selected = CompactIdSet.of(Arrays.asList(5L, 7L, 2000000L));
+
+    CompactIdSet<Long> inverted = all.minus(selected);
+    assertEquals(999998, inverted.size());
+    assertFalse(inverted.contains(5L));
+    assertTrue(inverted.contains(6L));
+
+    CompactIdSet<Long> united = inverted.union(selected);
+    assertEquals(1000001, united.size());
+    assertTrue(united.contains(2000000L));
+    assertEquals(all.union(CompactIdSet.of(Arrays.asList(2000000L))), united);
+
+    assertEquals(Arrays.asList(5L, 7L), new ArrayList<Long>(selected.minus(new HashSet<Object>(Arrays.<Object>asList("x", 2000000L)))));
+    assertSame(selected, selected.minus(Arrays.asList(1, 2)));
+  }
+
+  @Test
+  public void testSerialization() {
+    CompactIdSet<Long> set = CompactIdSet.of(makeRange(10, 20));
+    @SuppressWarnings("unchecked")
+    Set<Long> clone = (Set<Long>) SerializationUtils.clone(set);
+
+    assertEquals(set, clone);
+    assertTrue(clone.contains(20L));
+  }
+
+  private static List<Long> makeRange(long from, long to) {
+    List<Long> list = new ArrayList<Long>();
+    for (long i = from; i <= to; ++i) {
+      list.add(i);
+    }
+    return list;
+  }
+}
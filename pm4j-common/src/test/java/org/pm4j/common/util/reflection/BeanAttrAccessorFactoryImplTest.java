@@ -0,0 +1,62 @@
+package org.pm4j.common.util.reflection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class BeanAttrAccessorFactoryImplTest {
+
+  private BeanAttrAccessorFactoryImpl factory = new BeanAttrAccessorFactoryImpl();
+
+  @Test
+  public void testAccessorIsSharedForSameClassAndAttribute() {
+    BeanAttrAccessor a = factory.getAccessor(Bean.class, "name", true);
+    assertSame(a, factory.getAccessor(Bean.class, "name", true));
+    assertNotSame(a, factory.getAccessor(Bean.class, "name", false));
+    assertNotSame(a, factory.getAccessor(SubBean.class, "name", true));
+  }
+
+  @Test
+  public void testPolymorphicGetterAndSetter() {
+    BeanAttrAccessor a = factory.getAccessor(Bean.class, "name", true);
+    Bean bean = new Bean();
+    SubBean subBean = new SubBean();
+
+    a.setBeanAttrValue(bean, "b");
+    a.setBeanAttrValue(subBean, "s");
+    assertEquals("b", a.getBeanAttrValue(bean));
+    assertEquals("sub-s", a.getBeanAttrValue(subBean));
+    // repeated alternating calls use the cached subclass methods.
+    assertEquals("b", a.getBeanAttrValue(bean));
+    assertEquals("sub-s", a.getBeanAttrValue(subBean));
+  }
+
+  @Test
+  public void testFieldAccess() {
+    BeanAttrAccessor a = factory.getAccessor(Bean.class, "counter", true);
+    Bean bean = new Bean();
+    a.setBeanAttrValue(bean, 3);
+    assertEquals(Integer.valueOf(3), a.getBeanAttrValue(bean));
+  }
+
+  @Test(expected=ReflectionException.class)
+  public void testFieldAccessNotAllowed() {
+    factory.getAccessor(Bean.class, "counter", false);
+  }
+
+  public static class Bean {
+    private String name;
+    @SuppressWarnings("unused")
+    private int counter;
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+  }
+
+  public static class SubBean extends Bean {
+    @Override
+    public String getName() { return "sub-" + super.getName(); }
+  }
+}
@@ -3,6 +3,7 @@ package org.pm4j.core.pm;
 import java.util.Collections;
 import java.util.EventObject;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.pm4j.core.pm.PmEventListener.PostProcessor;
@@ -97,6 +98,12 @@ public class PmEvent extends EventObject {
    */
   private final ValueChangeKind valueChangeKind;
 
+  /**
+   * The changed PMs reported by a propagation event of an event batch.<br>
+   * Is <code>null</code> if the event reports only a change of {@link #pm}.
+   */
+  private final List<PmObject> changedPms;
+
   /**
    * The set of listeners that requested a call back after the current event processing phase.
    */
@@ -143,11 +150,7 @@ public class PmEvent extends EventObject {
    *          A bit mask for the change kind.
    */
   public PmEvent(Object eventSource, PmObject pm, int changeKind) {
-    super(eventSource);
-
-    this.changeMask = changeKind;
-    this.pm = pm;
-    this.valueChangeKind = ValueChangeKind.UNKNOWN;
+    this(eventSource, pm, changeKind, ValueChangeKind.UNKNOWN);
   }
 
   /**
@@ -160,11 +163,28 @@ public class PmEvent extends EventObject {
    *          A value change kind specification.
    */
   public PmEvent(Object eventSource, PmObject pm, int changeMask, ValueChangeKind valueChange) {
+    this(eventSource, pm, changeMask, valueChange, null);
+  }
+
+  /**
+   * @param eventSource
+   *          The control or command that triggered the change.<br>
+   *          Should not be <code>null</code>.
+   * @param changeMask
+   *          A bit mask for the change kind.
+   * @param valueChange
+   *          A value change kind specification.
+   * @param changedPms
+   *          The changed PMs reported by this event. See {@link #getChangedPms()}.<br>
+   *          <code>null</code> if the event reports only a change of the given <code>pm</code>.
+   */
+  public PmEvent(Object eventSource, PmObject pm, int changeMask, ValueChangeKind valueChange, List<PmObject> changedPms) {
     super(eventSource);
 
     this.changeMask = changeMask;
     this.pm = pm;
     this.valueChangeKind = valueChange;
+    this.changedPms = changedPms;
   }
 
   /**
@@ -216,6 +236,25 @@ public class PmEvent extends EventObject {
     return pm;
   }
 
+  /**
+   * Provides the changed PMs.
+   * <p>
+   * Usually that's only the {@link #pm} of the event. An event batch (see
+   * {@link PmEventApi#beginEventBatch()}) propagates a single event to each
+   * parent. It reports all changed PMs of the parent sub tree. If there is more
+   * than one, the {@link #pm} of the propagation event is the parent.
+   *
+   * @return The changed PMs. Is empty if the event is not related to a particular PM.
+   */
+  public List<PmObject> getChangedPms() {
+    if (changedPms != null) {
+      return changedPms;
+    }
+    return (pm != null)
+        ? Collections.singletonList(pm)
+        : Collections.<PmObject>emptyList();
+  }
+
   /**
    * @return In case of a value changing event, this field can be used to specify the kind of value change.
    */
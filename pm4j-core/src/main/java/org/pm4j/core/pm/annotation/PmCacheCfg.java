@@ -29,7 +29,28 @@ public @interface PmCacheCfg {
      * This option will currently only be considered in the JSF environment. In
      * other cases (rich client) it has the effect of the option {@link #OFF}.
      */
-    REQUEST
+    REQUEST,
+    /**
+     * The value will be cached within a size limited cache of the conversation.
+     * <p>
+     * The cache is identified by {@link PmCacheCfg#name()}. Its size and
+     * entry life time is limited by {@link PmCacheCfg#maxSize()} and
+     * {@link PmCacheCfg#timeToLiveSeconds()}.
+     */
+    CONVERSATION,
+    /**
+     * The value will be cached within a size limited cache that is shared by all
+     * conversations. All instances of the PM share the same value.
+     * <p>
+     * Should only be used for values that do not depend on the PM instance state
+     * or the user. E.g. option sets based on reference data.<br>
+     * Currently supported for option sets defined by a {@link PmOptionCfg} only.
+     * The value options are shared. The <code>null</code> option depends on the
+     * attribute instance state and gets added for each attribute instance.
+     * <p>
+     * The cache is configured like the {@link #CONVERSATION} cache.
+     */
+    SHARED
   }
 
   /**
@@ -81,6 +102,32 @@ public @interface PmCacheCfg {
    */
   boolean cascade() default false;
 
+  /**
+   * The name of the cache used for the cache modes {@link CacheMode#CONVERSATION}
+   * and {@link CacheMode#SHARED}.
+   * <p>
+   * All PMs that define the same name share a cache. The first PM that uses
+   * the cache defines its size and time to live.<br>
+   * If no name is specified, a default cache per cache aspect will be used.
+   *
+   * @return the cache name.
+   */
+  String name() default "";
+
+  /**
+   * @return the maximum number of entries of a {@link CacheMode#CONVERSATION}
+   *         or {@link CacheMode#SHARED} cache. A value less or equal to zero
+   *         means no size limit.
+   */
+  int maxSize() default 1000;
+
+  /**
+   * @return the life time of the entries of a {@link CacheMode#CONVERSATION}
+   *         or {@link CacheMode#SHARED} cache. A value less or equal to zero
+   *         means no time limit.
+   */
+  int timeToLiveSeconds() default 0;
+
   // Name constants for attributes that are found by reflection:
   public static final String ATTR_VISIBILITY = "visibility";
   public static final String ATTR_ENABLEMENT = "enablement";
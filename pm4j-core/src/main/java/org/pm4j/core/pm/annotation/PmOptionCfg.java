@@ -91,6 +91,28 @@ public @interface PmOptionCfg {
    */
   String sortBy() default NOT_SPECIFIED;
 
+  /**
+   * Defines if the options may be shared by all attribute instances having this
+   * option definition.
+   * <p>
+   * If set to <code>true</code>, the options get only re-generated if the
+   * option values object (the result of {@link #values()} or
+   * <code>getOptionValues()</code>) is not the same instance as the one used
+   * for the previous option generation, or if the locale differs. This saves
+   * the option generation and the memory for attributes that are instantiated
+   * many times, e.g. within each row of an editable table.
+   * <p>
+   * The values object is compared by identity. Changes made within the same
+   * values instance (added, removed or changed items) are not detected. The
+   * shared options keep showing the previous content till the values get
+   * provided by another instance.<br>
+   * Please use this only if the option values get provided by an immutable
+   * reference data collection.
+   *
+   * @return <code>true</code> if the generated options may be shared.
+   */
+  boolean shareOptions() default false;
+
   /**
    * Defines if a <code>null</code> option should be generated or not.
    */
@@ -5,6 +5,8 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.pm4j.common.cache.CacheMetrics;
+import org.pm4j.common.cache.CacheMetricsRegistry;
 import org.pm4j.core.pm.PmConversation;
 import org.pm4j.core.pm.PmObject;
 import org.pm4j.core.pm.impl.PmCacheApiHandler;
@@ -76,5 +78,21 @@ public class PmCacheApi {
     apiHandler.clearPmCacheInCtxtPath(pm, includeSession, cacheKinds);
   }
 
+  /**
+   * Provides the usage counters of a cache of the given PM.
+   * <p>
+   * All PMs of the same definition share their counters. The counters of all
+   * PMs are available via {@link CacheMetricsRegistry#INSTANCE}.
+   *
+   * @param pm
+   *          The PM to get the counters for.
+   * @param cacheName
+   *          The name of the cache strategy. E.g. 'CACHE_VALUE_LOCAL'.
+   * @return The cache metrics. Never <code>null</code>.
+   */
+  public static CacheMetrics getCacheMetrics(PmObject pm, String cacheName) {
+    return apiHandler.getCacheMetrics(pm, cacheName);
+  }
+
 
 }
@@ -110,6 +110,41 @@ public class PmEventApi {
     PmEventApiHandler.firePmEvent(pm, event, true);
   }
 
+  /**
+   * Starts an event batch scope for the current thread.
+   * <p>
+   * Events fired within the scope will be delivered when the scope gets
+   * closed by {@link #flushEventBatch()}. The events fired for the same PM
+   * get merged to a single event having the combined change mask.<br>
+   * Each parent gets a single propagation event for all changes within its sub
+   * tree. See {@link PmEvent#getChangedPms()}.
+   * <p>
+   * Scopes may be nested. The events get delivered when the outermost scope
+   * gets flushed. Each call needs to be followed by a
+   * {@link #flushEventBatch()} call within a <code>finally</code> block:
+   * <pre>
+   * PmEventApi.beginEventBatch();
+   * try {
+   *   ... fill the fields of a form ...
+   * } finally {
+   *   PmEventApi.flushEventBatch();
+   * }
+   * </pre>
+   * Please notice that listeners get informed about the changes only after
+   * the flush.
+   */
+  public static void beginEventBatch() {
+    PmEventApiHandler.beginEventBatch();
+  }
+
+  /**
+   * Ends the event batch scope started by {@link #beginEventBatch()}.<br>
+   * If it is the outermost scope, all collected events will be delivered.
+   */
+  public static void flushEventBatch() {
+    PmEventApiHandler.flushEventBatch();
+  }
+
   /**
    * Broadcasts events, having the given event mask, to the PM sub-tree having the given root PM.
    *
@@ -10,6 +10,7 @@ import org.pm4j.core.exception.PmResourceData;
 import org.pm4j.core.exception.PmUserMessageException;
 import org.pm4j.core.pm.PmAttr;
 import org.pm4j.core.pm.PmConstants;
+import org.pm4j.core.pm.PmConversation;
 import org.pm4j.core.pm.PmMessage;
 import org.pm4j.core.pm.PmMessage.Severity;
 import org.pm4j.core.pm.PmObject;
@@ -216,6 +217,11 @@ public class PmMessageUtil {
    * @return
    */
   public static List<PmMessage> getSubTreeMessages(PmObject pm, Severity minSeverity) {
+    PmConversation pmConversation = pm.getPmConversation();
+    if (pmConversation instanceof PmConversationImpl) {
+      return ((PmConversationImpl)pmConversation).getPmSubTreeMessages(pm, minSeverity);
+    }
+
     List<PmMessage> messages = new ArrayList<PmMessage>();
 
     for (PmMessage m : pm.getPmConversation().getPmMessages()) {
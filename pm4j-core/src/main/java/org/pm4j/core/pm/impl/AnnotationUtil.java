@@ -15,6 +15,7 @@ import org.pm4j.core.exception.PmRuntimeException;
 import org.pm4j.core.pm.PmConversation;
 import org.pm4j.core.pm.annotation.PmCacheCfg;
 import org.pm4j.core.pm.annotation.PmCacheCfg.CacheMode;
+import org.pm4j.core.pm.impl.cache.CacheStrategyBoundedBase;
 
 /**
  * Contains algorithms for reading PM annotations.
@@ -219,7 +220,10 @@ public class AnnotationUtil {
       Collection<PmCacheCfg> cacheAnnotations,
       Map<CacheMode, CacheStrategy> modeToStrategyMap)
   {
-    CacheMode cacheMode = readCacheModeWithoutParentModes(pm, cacheCfgAttrName);
+    PmCacheCfg modeCfg = findAnnotation(pm, PmCacheCfg.class);
+    CacheMode cacheMode = (modeCfg != null)
+        ? readCacheMode(modeCfg, cacheCfgAttrName)
+        : CacheMode.NOT_SPECIFIED;
     if (cacheMode == CacheMode.NOT_SPECIFIED) {
       cacheMode = CacheMode.OFF;
       for (PmCacheCfg cfg : cacheAnnotations) {
@@ -227,6 +231,7 @@ public class AnnotationUtil {
         // Only annotations defined for the children will be considered.
         if ( (v != CacheMode.NOT_SPECIFIED) && cfg.cascade() ) {
           cacheMode = v;
+          modeCfg = cfg;
           break;
         }
       }
@@ -236,6 +241,10 @@ public class AnnotationUtil {
     if (s == null) {
       throw new PmRuntimeException(pm, "Unable to find cache strategy for CacheMode '" + cacheMode + "'.");
     }
+    // Bounded caches get their name and size from the annotation that activates them.
+    if (s instanceof CacheStrategyBoundedBase) {
+      s = ((CacheStrategyBoundedBase) s).makeCfgSpecificStrategy(modeCfg);
+    }
     return s;
   }
 
@@ -268,18 +277,4 @@ public class AnnotationUtil {
     return cacheMode;
   }
 
-  /**
-   * Looks only for the {@link PmCacheCfg} definition assigned to the given PM.
-   *
-   * @param pm
-   * @param cacheCfgAttrName
-   * @return The found {@link CacheMode} or {@link CacheMode#NOT_SPECIFIED}.
-   */
-  private static CacheMode readCacheModeWithoutParentModes(PmObjectBase pm, String cacheCfgAttrName) {
-    PmCacheCfg cfg = findAnnotation(pm, PmCacheCfg.class);
-    return (cfg != null)
-        ? readCacheMode(cfg, cacheCfgAttrName)
-        : CacheMode.NOT_SPECIFIED;
-  }
-
 }
@@ -1,10 +1,13 @@
 package org.pm4j.core.pm.impl;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.logging.Log;
@@ -13,18 +16,28 @@ import org.pm4j.core.exception.PmRuntimeException;
 import org.pm4j.core.pm.PmBean;
 import org.pm4j.core.pm.PmObject;
 
+/**
+ * A thread safe bean to PM cache.
+ * <p>
+ * Beans and PMs are only weakly referenced. A mapping disappears as soon as
+ * its PM gets garbage collected.
+ * <p>
+ * Lookups don't lock and don't allocate any objects. Modifications are
+ * synchronized on the cache instance.
+ *
+ * @author olaf boede
+ */
 class BeanPmCacheImpl implements BeanPmCache {
 
   private static final Log LOG = LogFactory.getLog(BeanPmCacheImpl.class);
 
-  private Map<Object, WeakReference<PmBean<?>>> beanEqualToPmMap = new WeakHashMap<Object, WeakReference<PmBean<?>>>();
-  private Map<BeanIdentity, WeakReference<PmBean<?>>> beanIdentityToPmMap = new WeakHashMap<BeanIdentity, WeakReference<PmBean<?>>>();
+  private static final int INITIAL_CAPACITY = 16;
 
-  /**
-   * Keeps the bean identity alive as long as the presentation model instance
-   * is in use.
-   */
-  private Map<PmBean<?>, BeanIdentity> pmToBeanIdentityMap = new WeakHashMap<PmBean<?>, BeanIdentity>();
+  /** Gets the references of garbage collected PMs. */
+  private final ReferenceQueue<PmBean<?>> collectedPmQueue = new ReferenceQueue<PmBean<?>>();
+
+  private final BeanTable beanIdentityToPmTable = new BeanTable(true);
+  private final BeanTable beanEqualToPmTable = new BeanTable(false);
 
   /**
    * Registers the bean-to-PM mapping(s).
@@ -32,25 +45,21 @@ class BeanPmCacheImpl implements BeanPmCache {
    * @param pmElement A new PM for a bean.
    */
   @Override
-  public void add(PmBean<?> pmElement) {
+  public synchronized void add(PmBean<?> pmElement) {
     Object bean = pmElement.getPmBean();
-    BeanIdentity beanIdentity = new BeanIdentity(bean);
-    WeakReference<PmBean<?>> pmRef = new WeakReference<PmBean<?>>(pmElement);
 
     if (LOG.isTraceEnabled()) {
       LOG.trace(this + ": added PM '" + logString(pmElement) + "' for bean: " + bean);
     }
 
-    // Add it to the identity map. The bean should not yet be registered there.
-    WeakReference<PmBean<?>> oldPmRef = beanIdentityToPmMap.put(beanIdentity, pmRef);
-    if (oldPmRef != null && oldPmRef.get() != null) {
-      throw new PmRuntimeException(pmElement, "Bean identity already added to the PM bean cache: " + beanIdentity);
-    }
+    expungeCollectedPms();
 
-    // Add it to the equals map.
-    WeakReference<PmBean<?>> oldPmEqualRef = beanEqualToPmMap.put(bean, pmRef);
-    if (oldPmEqualRef != null && oldPmEqualRef.get() != null) {
-      throw new PmRuntimeException(pmElement, "An equal bean is already added to the PM bean cache: " + beanIdentity);
+    // The bean should not yet be registered.
+    if (beanIdentityToPmTable.get(bean) != null) {
+      throw new PmRuntimeException(pmElement, "Bean identity already added to the PM bean cache: " + ObjectUtils.identityToString(bean));
+    }
+    if (beanEqualToPmTable.get(bean) != null) {
+      throw new PmRuntimeException(pmElement, "An equal bean is already added to the PM bean cache: " + ObjectUtils.identityToString(bean));
     }
 
     // Check if the set of beans for duplicates. That may indicate a bug:
@@ -59,102 +68,112 @@ class BeanPmCacheImpl implements BeanPmCache {
     //            If not: Add a switch.
     if (pmElement.getPmConversation().getPmDefaults().debugHints) {
       HashSet<Object> beanSet = new HashSet<Object>();
-      for (BeanIdentity i : beanIdentityToPmMap.keySet()) {
-        Object o = i.beanRef.get();
-        if (o != null) {
-          if (!beanSet.add(o)) {
-            throw new PmRuntimeException(pmElement, "Bean already added to the PM bean cache: " + PmUtil.getPmLogString(pmElement));
-          }
+      for (Object o : beanIdentityToPmTable.getBeans()) {
+        if (!beanSet.add(o)) {
+          throw new PmRuntimeException(pmElement, "Bean already added to the PM bean cache: " + PmUtil.getPmLogString(pmElement));
         }
       }
     }
 
-    if (pmToBeanIdentityMap.put(pmElement, beanIdentity) != null) {
-      throw new PmRuntimeException(pmElement, "Bean presentation model already added to the PM bean cache: " + PmUtil.getPmLogString(pmElement));
-    }
+    PmRef pmRef = new PmRef(pmElement, bean, collectedPmQueue);
+    beanIdentityToPmTable.put(bean, pmRef.identityHash, pmRef);
+    beanEqualToPmTable.put(bean, pmRef.equalsHash, pmRef);
   }
 
   @SuppressWarnings("unchecked")
   @Override
   public <T extends PmBean<?>> T findByBean(Object bean) {
-    T pm = findByBeanIdentity(bean);
+    PmBean<?> pm = beanIdentityToPmTable.get(bean);
     return (T) (pm == null
-        ? findByBeanEquals(bean)
+        ? beanEqualToPmTable.get(bean)
         : pm);
   }
 
-  @SuppressWarnings("unchecked")
-  private <T extends PmBean<?>> T findByBeanIdentity(Object bean) {
-    WeakReference<PmBean<?>> ref = beanIdentityToPmMap.get(new BeanIdentity(bean));
-    return (T) (ref != null
-        ? ref.get()
-        : null);
-  }
-
-  @SuppressWarnings("unchecked")
-  private <T extends PmBean<?>> T findByBeanEquals(Object bean) {
-    WeakReference<PmBean<?>> ref = beanEqualToPmMap.get(bean);
-    return (T) (ref != null
-        ? ref.get()
-        : null);
-  }
-
   @Override
-  public void removePm(PmBean<?> pmBean) {
+  public synchronized void removePm(PmBean<?> pmBean) {
     Object bean = pmBean.getPmBean();
 
     if (LOG.isTraceEnabled()) {
       LOG.trace(this + ": removed PM '" + logString(pmBean) + "' for bean: " + bean);
     }
 
-    pmToBeanIdentityMap.remove(pmBean);
-    if (bean != null) {
-      beanEqualToPmMap.remove(bean);
-      beanIdentityToPmMap.remove(bean);
-    }
+    expungeCollectedPms();
+    removeMappings(pmBean, bean);
   }
 
   @Override
-  public void removeBean(Object bean) {
-    WeakReference<PmBean<?>> pmRef = beanIdentityToPmMap.remove(bean);
-
+  public synchronized void removeBean(Object bean) {
     if (LOG.isTraceEnabled()) {
-      LOG.trace(this + ": removed bean '" + bean + "' cached PM was: " + (pmRef != null ? logString(pmRef.get()) : null));
+      LOG.trace(this + ": removed bean '" + bean + "' cached PM was: " + logString(findByBean(bean)));
     }
 
-    if (pmRef != null && pmRef.get() != null) {
-      pmToBeanIdentityMap.remove(pmRef.get());
+    expungeCollectedPms();
+    PmBean<?> pm = beanIdentityToPmTable.get(bean);
+    if (pm != null) {
+      removeMappings(pm, bean);
     }
-    pmRef = beanEqualToPmMap.remove(bean);
-    if (pmRef != null && pmRef.get() != null) {
-      pmToBeanIdentityMap.remove(pmRef.get());
+    pm = beanEqualToPmTable.get(bean);
+    if (pm != null) {
+      removeMappings(pm, bean);
     }
   }
 
   @Override
-  public void clear() {
-    int size = pmToBeanIdentityMap.size();
-    if (size > 0 && LOG.isTraceEnabled()) {
-      LOG.trace(this + ": clear called. Removed " + size + " entries.");
-      for (Object o : beanEqualToPmMap.keySet()) {
-        LOG.trace("  cleared bean reference: " + o);
+  public synchronized void clear() {
+    if (LOG.isTraceEnabled()) {
+      List<Object> beans = beanIdentityToPmTable.getBeans();
+      if (!beans.isEmpty()) {
+        LOG.trace(this + ": clear called. Removed " + beans.size() + " entries.");
+        for (Object o : beans) {
+          LOG.trace("  cleared bean reference: " + o);
+        }
       }
     }
 
-    pmToBeanIdentityMap.clear();
-    beanEqualToPmMap.clear();
-    beanIdentityToPmMap.clear();
+    beanIdentityToPmTable.clear();
+    beanEqualToPmTable.clear();
+    while (collectedPmQueue.poll() != null) {
+      // the references of the cleared table are obsolete.
+    }
   }
 
   @Override
   public boolean isEmpty() {
-    return pmToBeanIdentityMap.isEmpty();
+    return beanIdentityToPmTable.isEmpty();
   }
 
-  @SuppressWarnings("unchecked")
+  /**
+   * @return A snapshot of the currently cached PMs.
+   */
   @Override
   public Collection<PmBean<?>> getItems() {
-    return (Collection<PmBean<?>>)(Object)pmToBeanIdentityMap.keySet();
+    return beanIdentityToPmTable.getPms();
+  }
+
+  /**
+   * Removes both mappings of the given PM.
+   *
+   * @param pm the PM to remove.
+   * @param bean the bean of the PM. Is used to find the mappings without a full table scan.
+   */
+  private void removeMappings(PmBean<?> pm, Object bean) {
+    if (bean != null) {
+      beanIdentityToPmTable.removePm(pm, System.identityHashCode(bean));
+      beanEqualToPmTable.removePm(pm, bean.hashCode());
+    } else {
+      beanIdentityToPmTable.removePm(pm);
+      beanEqualToPmTable.removePm(pm);
+    }
+  }
+
+  /** Removes the mappings of garbage collected PMs. */
+  private void expungeCollectedPms() {
+    Reference<?> ref;
+    while ((ref = collectedPmQueue.poll()) != null) {
+      PmRef pmRef = (PmRef) ref;
+      beanIdentityToPmTable.remove(pmRef.identityHash, pmRef);
+      beanEqualToPmTable.remove(pmRef.equalsHash, pmRef);
+    }
   }
 
   private String logString(PmObject pm) {
@@ -164,35 +183,244 @@ class BeanPmCacheImpl implements BeanPmCache {
   }
 
   /**
-   * Holds only a weak reference to the referenced bean.
+   * A weak PM reference that is shared by the identity and the equals table
+   * entry of the PM.<br>
+   * Remembers the bean hash codes to find the entries after the PM was garbage
+   * collected.
    */
-  static class BeanIdentity {
-    private final WeakReference<Object> beanRef;
-    private final int hashCode;
+  static final class PmRef extends WeakReference<PmBean<?>> {
+    final int identityHash;
+    final int equalsHash;
+
+    PmRef(PmBean<?> pm, Object bean, ReferenceQueue<PmBean<?>> queue) {
+      super(pm, queue);
+      this.identityHash = System.identityHashCode(bean);
+      this.equalsHash = bean.hashCode();
+    }
+  }
+
+  /**
+   * An immutable hash chain entry. Holds only a weak reference to its bean.
+   */
+  static final class Entry extends WeakReference<Object> {
+    final int hash;
+    final PmRef pmRef;
+    final Entry next;
+
+    Entry(Object bean, int hash, PmRef pmRef, Entry next) {
+      super(bean);
+      this.hash = hash;
+      this.pmRef = pmRef;
+      this.next = next;
+    }
+
+    /** @return <code>true</code> if the bean or the PM is garbage collected. */
+    boolean isStale() {
+      return get() == null || pmRef.get() == null;
+    }
+  }
+
+  /**
+   * A hash table with weak bean keys.
+   * <p>
+   * The hash chains are immutable. Readers see either the old or the new chain
+   * of a bucket without any locking. Modifications are done by the synchronized
+   * methods of the enclosing cache.
+   */
+  static final class BeanTable {
+    private final boolean identityKeys;
+    private volatile AtomicReferenceArray<Entry> table = new AtomicReferenceArray<Entry>(INITIAL_CAPACITY);
+    private int size;
+
+    BeanTable(boolean identityKeys) {
+      this.identityKeys = identityKeys;
+    }
+
+    /**
+     * @param bean the bean to find the PM for.
+     * @return the PM or <code>null</code>.
+     */
+    PmBean<?> get(Object bean) {
+      AtomicReferenceArray<Entry> tab = table;
+      int hash = hash(bean);
+      for (Entry e = tab.get(indexFor(hash, tab.length())); e != null; e = e.next) {
+        if (e.hash == hash) {
+          Object b = e.get();
+          if (b != null && matches(bean, b)) {
+            PmBean<?> pm = e.pmRef.get();
+            if (pm != null) {
+              return pm;
+            }
+          }
+        }
+      }
+      return null;
+    }
+
+    void put(Object bean, int hash, PmRef pmRef) {
+      if (size >= table.length() * 3 / 4) {
+        rehash();
+      }
+      AtomicReferenceArray<Entry> tab = table;
+      int idx = indexFor(hash, tab.length());
+      Entry chain = copyChainWithout(tab.get(idx), bean, null);
+      tab.set(idx, new Entry(bean, hash, pmRef, chain));
+      ++size;
+    }
+
+    /** Removes the entry of the given PM reference. */
+    void remove(int hash, PmRef pmRef) {
+      AtomicReferenceArray<Entry> tab = table;
+      int idx = indexFor(hash, tab.length());
+      Entry chain = tab.get(idx);
+      for (Entry e = chain; e != null; e = e.next) {
+        if (e.pmRef == pmRef) {
+          tab.set(idx, copyChainWithout(chain, null, pmRef));
+          return;
+        }
+      }
+    }
+
+    /**
+     * Removes the entry of the given PM.<br>
+     * Looks first within the bucket of the given hash code. Scans the whole table
+     * if it's not found there. That may happen if the PM got associated with
+     * another bean after registration.
+     */
+    void removePm(PmBean<?> pm, int hash) {
+      AtomicReferenceArray<Entry> tab = table;
+      int idx = indexFor(hash, tab.length());
+      Entry chain = tab.get(idx);
+      for (Entry e = chain; e != null; e = e.next) {
+        if (e.pmRef.get() == pm) {
+          tab.set(idx, copyChainWithout(chain, null, e.pmRef));
+          return;
+        }
+      }
+      removePm(pm);
+    }
+
+    /** Removes the entries of the given PM. Scans the whole table. */
+    void removePm(PmBean<?> pm) {
+      AtomicReferenceArray<Entry> tab = table;
+      for (int i = 0; i < tab.length(); ++i) {
+        Entry chain = tab.get(i);
+        for (Entry e = chain; e != null; e = e.next) {
+          if (e.pmRef.get() == pm) {
+            tab.set(i, copyChainWithout(chain, null, e.pmRef));
+            break;
+          }
+        }
+      }
+    }
 
-    public BeanIdentity(Object bean) {
-      this.beanRef = new WeakReference<Object>(bean);
-      this.hashCode = System.identityHashCode(bean);
+    void clear() {
+      table = new AtomicReferenceArray<Entry>(INITIAL_CAPACITY);
+      size = 0;
     }
 
-    public boolean isActiveBeanRef() {
-      return beanRef.get() != null;
+    boolean isEmpty() {
+      AtomicReferenceArray<Entry> tab = table;
+      for (int i = 0; i < tab.length(); ++i) {
+        for (Entry e = tab.get(i); e != null; e = e.next) {
+          if (!e.isStale()) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+
+    List<PmBean<?>> getPms() {
+      List<PmBean<?>> list = new ArrayList<PmBean<?>>();
+      AtomicReferenceArray<Entry> tab = table;
+      for (int i = 0; i < tab.length(); ++i) {
+        for (Entry e = tab.get(i); e != null; e = e.next) {
+          PmBean<?> pm = e.pmRef.get();
+          if (pm != null && e.get() != null) {
+            list.add(pm);
+          }
+        }
+      }
+      return list;
+    }
+
+    List<Object> getBeans() {
+      List<Object> list = new ArrayList<Object>();
+      AtomicReferenceArray<Entry> tab = table;
+      for (int i = 0; i < tab.length(); ++i) {
+        for (Entry e = tab.get(i); e != null; e = e.next) {
+          Object bean = e.get();
+          if (bean != null && e.pmRef.get() != null) {
+            list.add(bean);
+          }
+        }
+      }
+      return list;
+    }
+
+    /**
+     * Copies the chain without the stale entries and without the entries that
+     * match the given bean or PM reference.<br>
+     * Adjusts the size for each skipped entry.
+     */
+    private Entry copyChainWithout(Entry chain, Object bean, PmRef pmRef) {
+      Entry newChain = null;
+      for (Entry e = chain; e != null; e = e.next) {
+        Object b = e.get();
+        if (b == null || e.pmRef.get() == null || e.pmRef == pmRef || (bean != null && matches(bean, b))) {
+          --size;
+        } else {
+          newChain = new Entry(b, e.hash, e.pmRef, newChain);
+        }
+      }
+      return newChain;
+    }
+
+    /**
+     * Removes the stale entries. Doubles the table size if that does not
+     * release enough space.
+     */
+    private void rehash() {
+      AtomicReferenceArray<Entry> oldTab = table;
+      List<Entry> liveEntries = new ArrayList<Entry>(size);
+      for (int i = 0; i < oldTab.length(); ++i) {
+        for (Entry e = oldTab.get(i); e != null; e = e.next) {
+          if (!e.isStale()) {
+            liveEntries.add(e);
+          }
+        }
+      }
+
+      int newLength = oldTab.length();
+      while (liveEntries.size() >= newLength / 2) {
+        newLength *= 2;
+      }
+
+      AtomicReferenceArray<Entry> newTab = new AtomicReferenceArray<Entry>(newLength);
+      for (Entry e : liveEntries) {
+        Object b = e.get();
+        if (b != null) {
+          int idx = indexFor(e.hash, newLength);
+          newTab.set(idx, new Entry(b, e.hash, e.pmRef, newTab.get(idx)));
+        }
+      }
+      size = liveEntries.size();
+      table = newTab;
     }
 
-    @Override
-    public boolean equals(Object obj) {
-      return (obj != null) &&
-             (beanRef.get() == ((BeanIdentity)obj).beanRef.get());
+    private int hash(Object bean) {
+      return identityKeys ? System.identityHashCode(bean) : bean.hashCode();
     }
 
-    @Override
-    public int hashCode() {
-      return hashCode;
+    private boolean matches(Object bean, Object entryBean) {
+      return (bean == entryBean) || (!identityKeys && bean.equals(entryBean));
     }
 
-    @Override
-    public String toString() {
-      return ObjectUtils.identityToString(beanRef.get());
+    private static int indexFor(int hash, int length) {
+      // spreads the higher bits to compensate weak hash codes.
+      int h = hash ^ (hash >>> 16);
+      return h & (length - 1);
     }
   }
 
@@ -24,8 +24,9 @@ public final class BeanPmCacheUtil {
    * @param factoryOwningPm
    */
   public static void clearBeanPmCache(PmObject factoryOwningPm) {
-    if (((PmObjectBase)factoryOwningPm).pmBeanFactoryCache != null) {
-      ((PmObjectBase)factoryOwningPm).pmBeanFactoryCache.clear();
+    BeanPmCache cache = ((PmObjectBase)factoryOwningPm).zz_getBeanFactoryCache();
+    if (cache != null) {
+      cache.clear();
     }
   }
 
@@ -46,14 +47,16 @@ public final class BeanPmCacheUtil {
   }
 
   public static void removeBeanPm(PmObject factoryOwningPm, PmBean<?> pmToRemove) {
-    if (((PmObjectBase)factoryOwningPm).pmBeanFactoryCache != null) {
-      ((PmObjectBase)factoryOwningPm).pmBeanFactoryCache.removePm(pmToRemove);
+    BeanPmCache cache = ((PmObjectBase)factoryOwningPm).zz_getBeanFactoryCache();
+    if (cache != null) {
+      cache.removePm(pmToRemove);
     }
   }
 
   public static void removeBean(PmObject factoryOwningPm, Object beanToRemove) {
-    if (((PmObjectBase)factoryOwningPm).pmBeanFactoryCache != null) {
-      ((PmObjectBase)factoryOwningPm).pmBeanFactoryCache.removeBean(beanToRemove);
+    BeanPmCache cache = ((PmObjectBase)factoryOwningPm).zz_getBeanFactoryCache();
+    if (cache != null) {
+      cache.removeBean(beanToRemove);
     }
   }
 
@@ -64,8 +67,9 @@ public final class BeanPmCacheUtil {
    */
   @SuppressWarnings("unchecked")
   public static Collection<PmBean<?>> getCachedPms(PmObject factoryOwningPm) {
-    return (((PmObjectBase)factoryOwningPm).pmBeanFactoryCache != null)
-        ? ((PmObjectBase)factoryOwningPm).pmBeanFactoryCache.getItems()
+    BeanPmCache cache = ((PmObjectBase)factoryOwningPm).zz_getBeanFactoryCache();
+    return (cache != null)
+        ? cache.getItems()
         : Collections.EMPTY_LIST;
   }
 
@@ -24,6 +24,7 @@ import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.pm4j.common.cache.BoundedCache;
 import org.pm4j.common.cache.CacheStrategy;
 import org.pm4j.common.cache.CacheStrategyNoCache;
 import org.pm4j.common.converter.string.StringConverter;
@@ -35,7 +36,7 @@ import org.pm4j.common.util.CompareUtil;
 import org.pm4j.common.util.GenericsUtil;
 import org.pm4j.common.util.collection.MapUtil;
 import org.pm4j.common.util.reflection.BeanAttrAccessor;
-import org.pm4j.common.util.reflection.BeanAttrAccessorImpl;
+import org.pm4j.common.util.reflection.BeanAttrUtil;
 import org.pm4j.common.util.reflection.ClassUtil;
 import org.pm4j.common.util.reflection.ReflectionException;
 import org.pm4j.core.exception.PmConverterException;
@@ -69,12 +70,18 @@ import org.pm4j.core.pm.api.PmExpressionApi;
 import org.pm4j.core.pm.api.PmLocalizeApi;
 import org.pm4j.core.pm.api.PmMessageUtil;
 import org.pm4j.core.pm.impl.cache.CacheStrategyBase;
+import org.pm4j.core.pm.impl.cache.CacheStrategyBoundedBase;
+import org.pm4j.core.pm.impl.cache.CacheStrategyBoundedConversation;
 import org.pm4j.core.pm.impl.cache.CacheStrategyRequest;
+import org.pm4j.core.pm.impl.cache.CacheStrategyShared;
 import org.pm4j.core.pm.impl.converter.PmConverterErrorMessage;
 import org.pm4j.core.pm.impl.converter.PmConverterOptionBased;
 import org.pm4j.core.pm.impl.options.GenericOptionSetDef;
+import org.pm4j.core.pm.impl.options.OptionSetDefBase;
 import org.pm4j.core.pm.impl.options.OptionSetDefNoOption;
 import org.pm4j.core.pm.impl.options.PmOptionSetDef;
+import org.pm4j.core.pm.impl.options.PmOptionSetImpl;
+import org.pm4j.core.pm.impl.options.PmOptionSetLazy;
 import org.pm4j.core.pm.impl.pathresolver.PassThroughPathResolver;
 import org.pm4j.core.pm.impl.pathresolver.PathResolver;
 import org.pm4j.core.pm.impl.pathresolver.PmExpressionPathResolver;
@@ -107,38 +114,26 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
 
   private static final Log LOG = LogFactory.getLog(PmAttrBase.class);
 
-  /**
-   * Indicates if the value was explicitly set. This information is especially
-   * important for the default value logic. Default values may have only effect
-   * on values that are not explicitly set.
-   */
-  private boolean valueChangedBySetValue = false;
-
   /**
    * Contains optional attribute data that in most cases doesn't exist for usual
    * bean attributes.
    */
   private PmAttrDataContainer<T_PM_VALUE, T_BEAN_VALUE> dataContainer;
 
-  /**
-   * Keeps a reference to the entered value in case of buffered data entry.
-   */
-  private Object bufferedValue = UNKNOWN_VALUE_INDICATOR;
-
   /** A cache member. Is only used in case for {@link ValueAccessReflection}. */
   private PmBean<Object> parentPmBean;
 
-  /** The decorators to execute before and after setting the attribute value. */
-  private Collection<PmCommandDecorator> valueChangeDecorators = Collections.emptyList();
-
   /** Converts between external and backing values. */
   private ValueConverter<T_PM_VALUE, T_BEAN_VALUE> valueConverter;
 
   /** Converts between external value type and its string representation. */
   private StringConverter<T_PM_VALUE> stringConverter;
 
-  /** A lightweight helper that provides converter operation context information. */
-  private AttrConverterCtxt converterCtxt = makeConverterCtxt();
+  /**
+   * A lightweight helper that provides converter operation context information.
+   * Gets created on first use.
+   */
+  private AttrConverterCtxt converterCtxt;
 
   /**
    * @param pmParent The PM hierarchy parent.
@@ -525,7 +520,7 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
     boolean isWritable = !isPmReadonly();
     if (isWritable) {
       PmCacheApi.clearPmCache(this);
-      this.valueChangedBySetValue = false;
+      zz_setFlag(FLAG_VALUE_CHANGED_BY_SET_VALUE, false);
     }
     clearPmInvalidValues();
     if (isWritable) {
@@ -593,7 +588,7 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
       }
 
       // Default values may have only effect if the value was not set by the user:
-      if (valueChangedBySetValue) {
+      if (isValueChangedBySetValue()) {
         return pmValue;
       }
 
@@ -710,7 +705,7 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
         // From now on the value should be handled as intentionally modified.
         // That means that the default value shouldn't be returned, even if the
         // value was set to <code>null</code>.
-        valueChangedBySetValue = true;
+        zz_setFlag(FLAG_VALUE_CHANGED_BY_SET_VALUE, true);
 
         setValueChanged(currentValue, newPmValue);
 
@@ -792,7 +787,7 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
   @Deprecated
   protected T_PM_VALUE stringToValueImpl(String s) throws PmConverterException {
     try {
-      return (T_PM_VALUE) getStringConverter().stringToValue(converterCtxt, s);
+      return (T_PM_VALUE) getStringConverter().stringToValue(getConverterCtxt(), s);
     } catch (StringConverterParseException e) {
       throw new PmConverterException(this, e);
     }
@@ -804,7 +799,7 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
    * on values that are not explicitly set.
    */
   protected final boolean isValueChangedBySetValue() {
-    return valueChangedBySetValue;
+    return zz_isFlagSet(FLAG_VALUE_CHANGED_BY_SET_VALUE);
   }
 
   /**
@@ -819,7 +814,7 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
    */
   @Deprecated
   protected String valueToStringImpl(T_PM_VALUE v) {
-    return getStringConverter().valueToString(converterCtxt, v);
+    return getStringConverter().valueToString(getConverterCtxt(), v);
   }
 
   /**
@@ -854,7 +849,12 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
 
   /** @return The converter operation context. */
   protected AttrConverterCtxt getConverterCtxt() {
-    return converterCtxt;
+    AttrConverterCtxt ctxt = converterCtxt;
+    if (ctxt == null) {
+      // A concurrent double creation is harmless: the context has no own state.
+      ctxt = converterCtxt = makeConverterCtxt();
+    }
+    return ctxt;
   }
 
   /** A factory method that provides the attribute type specific converter context reference. */
@@ -1158,14 +1158,17 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
   @SuppressWarnings("unchecked")
   public void commitBufferedPmChanges() {
     if (isBufferedPmValueMode() &&
-        bufferedValue != UNKNOWN_VALUE_INDICATOR) {
-      setBackingValueImpl((T_BEAN_VALUE)bufferedValue);
-      bufferedValue = UNKNOWN_VALUE_INDICATOR;
+        dataContainer != null &&
+        dataContainer.bufferedValue != UNKNOWN_VALUE_INDICATOR) {
+      setBackingValueImpl((T_BEAN_VALUE)dataContainer.bufferedValue);
+      dataContainer.bufferedValue = UNKNOWN_VALUE_INDICATOR;
     }
   }
 
   public void rollbackBufferedPmChanges() {
-    bufferedValue = UNKNOWN_VALUE_INDICATOR;
+    if (dataContainer != null) {
+      dataContainer.bufferedValue = UNKNOWN_VALUE_INDICATOR;
+    }
   }
 
   // ======== Backing value access ======== //
@@ -1175,7 +1178,7 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
    */
   @Deprecated
   public T_PM_VALUE convertBackingValueToPmValue(T_BEAN_VALUE backingValue) {
-    return getValueConverter().toExternalValue(converterCtxt, backingValue);
+    return getValueConverter().toExternalValue(getConverterCtxt(), backingValue);
   }
 
   /**
@@ -1183,7 +1186,7 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
    */
   @Deprecated
   public T_BEAN_VALUE convertPmValueToBackingValue(T_PM_VALUE externalValue) {
-    return getValueConverter().toInternalValue(converterCtxt, externalValue);
+    return getValueConverter().toInternalValue(getConverterCtxt(), externalValue);
   }
 
   /**
@@ -1223,14 +1226,14 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
 
   @SuppressWarnings("unchecked")
   public final T_BEAN_VALUE getBackingValue() {
-    return (bufferedValue != UNKNOWN_VALUE_INDICATOR)
-         ? (T_BEAN_VALUE)bufferedValue
+    return (dataContainer != null && dataContainer.bufferedValue != UNKNOWN_VALUE_INDICATOR)
+         ? (T_BEAN_VALUE)dataContainer.bufferedValue
          : getBackingValueImpl();
   }
 
   public final void setBackingValue(T_BEAN_VALUE value) {
     if (isBufferedPmValueMode()) {
-      bufferedValue = value;
+      zz_getDataContainer().bufferedValue = value;
     }
     else {
       setBackingValueImpl(value);
@@ -1310,17 +1313,20 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
 
   /** INTERNAL method. */
   protected void addValueChangeDecorator(PmCommandDecorator decorator) {
-    if (valueChangeDecorators.isEmpty()) {
-      valueChangeDecorators = new ArrayList<PmCommandDecorator>();
+    PmAttrDataContainer<T_PM_VALUE, T_BEAN_VALUE> dc = zz_getDataContainer();
+    if (dc.valueChangeDecorators.isEmpty()) {
+      dc.valueChangeDecorators = new ArrayList<PmCommandDecorator>();
     }
-    valueChangeDecorators.add(decorator);
+    dc.valueChangeDecorators.add(decorator);
   }
 
   /**
    * @return The set of decorators to consider on value change.
    */
   protected Collection<PmCommandDecorator> getValueChangeDecorators() {
-    return valueChangeDecorators;
+    return (dataContainer != null)
+        ? dataContainer.valueChangeDecorators
+        : Collections.<PmCommandDecorator>emptyList();
   }
 
   /**
@@ -1467,7 +1473,7 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
         myMetaData.isPmField &&
         beanClass != null) {
       try {
-        myMetaData.beanAttrAccessor = new BeanAttrAccessorImpl(beanClass, getPmName());
+        myMetaData.beanAttrAccessor = BeanAttrUtil.getAccessor(beanClass, getPmName());
 
         if (myMetaData.beanAttrAccessor.getFieldClass().isPrimitive()) {
           myMetaData.primitiveType = true;
@@ -1496,6 +1502,10 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
     Collection<PmCacheCfg> cacheAnnotations = AnnotationUtil.findAnnotationsInPmHierarchy(this, PmCacheCfg.class, new ArrayList<PmCacheCfg>());
     myMetaData.cacheStrategyForOptions = AnnotationUtil.evaluateCacheStrategy(this, PmCacheCfg.ATTR_OPTIONS, cacheAnnotations, CACHE_STRATEGIES_FOR_OPTIONS);
     myMetaData.cacheStrategyForValue = AnnotationUtil.evaluateCacheStrategy(this, PmCacheCfg.ATTR_VALUE, cacheAnnotations, CACHE_STRATEGIES_FOR_VALUE);
+    if (myMetaData.cacheStrategyForOptions instanceof CacheStrategySharedOptions &&
+        !(myMetaData.optionSetDef instanceof OptionSetDefBase)) {
+      throw new PmRuntimeException(this, "CacheMode.SHARED is only supported for options defined by a @PmOptionCfg annotation.");
+    }
   }
 
 
@@ -1698,16 +1708,78 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
     MapUtil.makeFixHashMap(
       CacheMode.OFF,      CacheStrategyNoCache.INSTANCE,
       CacheMode.ON,    CACHE_VALUE_LOCAL,
-      CacheMode.REQUEST,  new CacheStrategyRequest("CACHE_VALUE_IN_REQUEST", "v")
+      CacheMode.REQUEST,  new CacheStrategyRequest("CACHE_VALUE_IN_REQUEST", "v"),
+      CacheMode.CONVERSATION, new CacheStrategyBoundedConversation("CACHE_VALUE_IN_CONVERSATION", "v")
     );
 
   private static final Map<CacheMode, CacheStrategy> CACHE_STRATEGIES_FOR_OPTIONS =
     MapUtil.makeFixHashMap(
         CacheMode.OFF,      CacheStrategyNoCache.INSTANCE,
         CacheMode.ON,    CACHE_OPTIONS_LOCAL,
-        CacheMode.REQUEST,  new CacheStrategyRequest("CACHE_OPTIONS_IN_REQUEST", "os")
+        CacheMode.REQUEST,  new CacheStrategyRequest("CACHE_OPTIONS_IN_REQUEST", "os"),
+        CacheMode.CONVERSATION, new CacheStrategyBoundedConversation("CACHE_OPTIONS_IN_CONVERSATION", "os"),
+        CacheMode.SHARED,   new CacheStrategySharedOptions("CACHE_OPTIONS_SHARED", "os", null, BoundedCache.DEFAULT_MAX_SIZE, 0)
       );
 
+  /**
+   * Shares the value options of all attribute instances.
+   * <p>
+   * The <code>null</code> option depends on the state of the attribute instance
+   * (required or not, current value). It gets added for each attribute instance.
+   * Lazy option sets are not shared.
+   */
+  static final class CacheStrategySharedOptions extends CacheStrategyShared {
+
+    CacheStrategySharedOptions(String cacheName, String cacheVarKeyPfx, String boundedCacheName, int maxSize, long timeToLiveMillis) {
+      super(cacheName, cacheVarKeyPfx, boundedCacheName, maxSize, timeToLiveMillis);
+    }
+
+    @Override
+    public CacheStrategyBoundedBase makeCfgSpecificStrategy(PmCacheCfg cfg) {
+      return new CacheStrategySharedOptions(getCacheName(), cacheVarKeyPfx, cfg.name(), cfg.maxSize(), cfg.timeToLiveSeconds() * 1000L);
+    }
+
+    @Override
+    public Object getCachedValue(Object ctxt) {
+      Object v = super.getCachedValue(ctxt);
+      return (v instanceof SharedValueOptions)
+          ? ((SharedValueOptions) v).makeOptionSet((PmAttrBase<?, ?>) ctxt)
+          : v;
+    }
+
+    @Override
+    public <T> T setAndReturnCachedValue(Object ctxt, T v) {
+      if (!(v instanceof PmOptionSetLazy)) {
+        super.setAndReturnCachedValue(ctxt, (v != null) ? new SharedValueOptions((PmOptionSet) v) : null);
+      }
+      return v;
+    }
+  }
+
+  /**
+   * The shareable part of an option set: the value options without the <code>null</code> option.
+   */
+  static final class SharedValueOptions {
+    final List<PmOption> options;
+    final Map<String, PmOption> idToOptionMap;
+
+    SharedValueOptions(PmOptionSet os) {
+      List<PmOption> l = os.getOptions();
+      // The null option is the first option of the set.
+      if (!l.isEmpty() && l.get(0).getValue() == null) {
+        l = l.subList(1, l.size());
+      }
+      this.options = Collections.unmodifiableList(new ArrayList<PmOption>(l));
+      this.idToOptionMap = PmOptionSetImpl.WithIdMap.makeIdToOptionMap(options);
+    }
+
+    @SuppressWarnings("unchecked")
+    PmOptionSet makeOptionSet(PmAttrBase<?, ?> forAttr) {
+      OptionSetDefBase<PmAttrBase<?, ?>> def = (OptionSetDefBase<PmAttrBase<?, ?>>) (Object) forAttr.getOwnMetaData().optionSetDef;
+      return new PmOptionSetImpl.WithSharedIdMap(def.makeNullOption(forAttr, options), options, idToOptionMap);
+    }
+  }
+
   // ====== Backing value access strategies ====== //
 
   interface BackingValueAccessStrategy {
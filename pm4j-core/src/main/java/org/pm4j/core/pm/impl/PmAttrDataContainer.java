@@ -1,6 +1,10 @@
 package org.pm4j.core.pm.impl;
 
+import java.util.Collection;
+import java.util.Collections;
+
 import org.pm4j.core.pm.PmAttr;
+import org.pm4j.core.pm.PmCommandDecorator;
 
 /**
  * A container that holds the optional attribute values (local value, cached value, invalid value etc.).
@@ -47,4 +51,12 @@ class PmAttrDataContainer <T_PM_VALUE, T_BEAN_VALUE> {
    */
   Object cachedOptionSet;
 
+  /**
+   * Keeps a reference to the entered value in case of buffered data entry.
+   */
+  Object bufferedValue = PmAttrBase.UNKNOWN_VALUE_INDICATOR;
+
+  /** The decorators to execute before and after setting the attribute value. */
+  Collection<PmCommandDecorator> valueChangeDecorators = Collections.emptyList();
+
 }
@@ -11,7 +11,7 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.pm4j.common.util.reflection.BeanAttrAccessor;
-import org.pm4j.common.util.reflection.BeanAttrAccessorImpl;
+import org.pm4j.common.util.reflection.BeanAttrUtil;
 import org.pm4j.common.util.reflection.GenericTypeUtil;
 import org.pm4j.common.util.reflection.ReflectionException;
 import org.pm4j.core.exception.PmRuntimeException;
@@ -418,7 +418,7 @@ public abstract class PmBeanBase<T_BEAN>
 
       if (StringUtils.isNotBlank(annotation.key())) {
         try {
-          myMetaData.idAttrAccessor = new BeanAttrAccessorImpl(myMetaData.beanClass, annotation.key());
+          myMetaData.idAttrAccessor = BeanAttrUtil.getAccessor(myMetaData.beanClass, annotation.key());
         }
         catch (ReflectionException e) {
           if (annotation.key().equals(PmBeanCfg.DEFAULT_BEAN_ID_ATTR)) {
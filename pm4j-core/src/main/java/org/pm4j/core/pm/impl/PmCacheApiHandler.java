@@ -3,6 +3,7 @@ package org.pm4j.core.pm.impl;
 import java.util.List;
 import java.util.Set;
 
+import org.pm4j.common.cache.CacheMetrics;
 import org.pm4j.core.pm.PmConversation;
 import org.pm4j.core.pm.PmObject;
 import org.pm4j.core.pm.api.PmCacheApi;
@@ -37,6 +38,17 @@ public class PmCacheApiHandler {
     ((PmObjectBase)pm).clearCachedPmValues(cacheSet);
   }
 
+  /**
+   * Provides the usage counters of a cache of the given PM definition.
+   *
+   * @param pm the PM to get the metrics for.
+   * @param cacheName the name of the cache strategy.
+   * @return the metrics that are shared by all PMs of the same definition.
+   */
+  public CacheMetrics getCacheMetrics(PmObject pm, String cacheName) {
+    return ((PmObjectBase)pm).getPmMetaDataWithoutPmInitCall().getCacheMetrics(cacheName);
+  }
+
   /**
    * Calls {@link #clearCachedPmValues()} on all PMs in the pmParent hierarchy.
    *
@@ -72,7 +72,7 @@ public class PmConversationImpl extends PmElementBase implements PmConversation
    */
   private BeanPmFactory pmElementFactory;
 
-  private List<PmMessage> pmMessages = Collections.synchronizedList(new ArrayList<PmMessage>());
+  private final PmMessageStore pmMessages = new PmMessageStore();
 
 
   /**
@@ -376,23 +376,23 @@ public class PmConversationImpl extends PmElementBase implements PmConversation
    * @return The messages. An empty collection if there are no messages.
    */
   public List<PmMessage> getPmMessages(PmObject forPm, Severity severity) {
-    if (pmMessages.size() == 0) {
+    if (pmMessages.isEmpty()) {
       return Collections.emptyList();
     }
 
     boolean forAllPms = (forPm == null || forPm == this);
-    List<PmMessage> list = new ArrayList<PmMessage>();
-    synchronized(pmMessages) {
-      for (PmMessage m : pmMessages) {
-        if ((forAllPms || m.isMessageFor(forPm)) &&
-            (severity == null || severity.equals(m.getSeverity()))
-           ) {
-            list.add(m);
-        }
-      }
-    }
+    return pmMessages.getMessages(forAllPms ? null : forPm, severity);
+  }
 
-    return list;
+  /**
+   * Provides the messages of a PM sub tree.
+   *
+   * @param rootPm Root of the PM sub tree to check.
+   * @param minSeverity The minimal message severity to consider.
+   * @return The messages. An empty collection if there are no messages.
+   */
+  public List<PmMessage> getPmSubTreeMessages(PmObject rootPm, Severity minSeverity) {
+    return pmMessages.getSubTreeMessages(rootPm, minSeverity);
   }
 
   @Override
@@ -457,16 +457,11 @@ public class PmConversationImpl extends PmElementBase implements PmConversation
         pmMessages.clear();
       }
       else {
-        Iterator<PmMessage> iter = new ArrayList<PmMessage>(pmMessages).iterator();
-        while(iter.hasNext()) {
-          PmMessage m = iter.next();
-          if ((pm == null || m.isMessageFor(pm)) &&
-              (severity == null || m.getSeverity().equals(severity))) {
-            if (m instanceof PmValidationMessage) {
-              PmValidationApi.clearInvalidValuesOfSubtree(m.getPm());
-            }
-            pmMessages.remove(m);
+        for (PmMessage m : pmMessages.getMessages(pm, severity)) {
+          if (m instanceof PmValidationMessage) {
+            PmValidationApi.clearInvalidValuesOfSubtree(m.getPm());
           }
+          pmMessages.remove(m);
         }
       }
     }
@@ -491,7 +486,7 @@ public class PmConversationImpl extends PmElementBase implements PmConversation
 
   @Override
   public boolean getHasPmErrors() {
-    return !getPmMessages(null, Severity.ERROR).isEmpty();
+    return pmMessages.getMessageCount(Severity.ERROR) > 0;
   }
 
   @Override
@@ -15,11 +15,6 @@ import org.pm4j.core.pm.api.PmVisitorApi.PmVisitResult;
 
 public abstract class PmDataInputBase extends PmObjectBase implements PmDataInput {
 
-  /**
-   * An indicator that may be used to declare this PM as changed.
-   */
-  private boolean pmExpliciteChangedFlag;
-
   public PmDataInputBase(PmObject parentPm) {
     super(parentPm);
   }
@@ -38,7 +33,8 @@ public abstract class PmDataInputBase extends PmObjectBase implements PmDataInpu
   }
 
   protected boolean isPmValueChangedImpl() {
-    if (pmExpliciteChangedFlag) {
+    // An indicator that may be used to declare this PM as changed.
+    if (zz_isFlagSet(FLAG_EXPLICITLY_CHANGED)) {
       return true;
     }
 
@@ -97,10 +93,16 @@ public abstract class PmDataInputBase extends PmObjectBase implements PmDataInpu
       }
 
       // Inform about changed state changes for all children and this instance.
-      for (PmObject childPm : childrenWithChangedStateChange) {
-        PmEventApi.firePmEvent(childPm, PmEvent.VALUE_CHANGED_STATE_CHANGE);
+      // The batch ensures a single propagation event for each parent.
+      PmEventApi.beginEventBatch();
+      try {
+        for (PmObject childPm : childrenWithChangedStateChange) {
+          PmEventApi.firePmEvent(childPm, PmEvent.VALUE_CHANGED_STATE_CHANGE);
+        }
+        PmEventApi.firePmEvent(this, PmEvent.VALUE_CHANGED_STATE_CHANGE);
+      } finally {
+        PmEventApi.flushEventBatch();
       }
-      PmEventApi.firePmEvent(this, PmEvent.VALUE_CHANGED_STATE_CHANGE);
     }
   }
 
@@ -121,7 +123,7 @@ public abstract class PmDataInputBase extends PmObjectBase implements PmDataInpu
   private boolean _setPmValueChangedForThisInstanceOnly(PmDataInputBase pm, boolean newChangedState) {
     boolean wasChanged = pm.isPmValueChanged();
 
-    pm.pmExpliciteChangedFlag = newChangedState;
+    pm.zz_setFlag(FLAG_EXPLICITLY_CHANGED, newChangedState);
     pm.setPmValueChangedImpl(newChangedState);
 
     return wasChanged != newChangedState;
@@ -62,10 +62,11 @@ public class PmEventApiHandler {
 
   public void addPmEventListener(PmObject pm, int eventMask, PmEventListener listener) {
     PmObjectBase pmImpl = (PmObjectBase)pm;
-    if (pmImpl.pmEventTable == null)
-      pmImpl.pmEventTable = new PmEventTable(false);
+    PmObjectBase.PmSideData sd = pmImpl.zz_getOrCreateSideData();
+    if (sd.pmEventTable == null)
+      sd.pmEventTable = new PmEventTable(false);
 
-    pmImpl.pmEventTable.addListener(eventMask, listener);
+    sd.pmEventTable.addListener(eventMask, listener);
 
     if (LOG.isTraceEnabled())
       LOG.trace("Added PM-event listener '" + listener + "' for '" + PmUtil.getPmLogString(pmImpl) + "'.");
@@ -73,10 +74,11 @@ public class PmEventApiHandler {
 
   public void addWeakPmEventListener(PmObject pm, int eventMask, PmEventListener listener) {
     PmObjectBase pmImpl = (PmObjectBase)pm;
-    if (pmImpl.pmWeakEventTable == null)
-      pmImpl.pmWeakEventTable = new PmEventTable(true);
+    PmObjectBase.PmSideData sd = pmImpl.zz_getOrCreateSideData();
+    if (sd.pmWeakEventTable == null)
+      sd.pmWeakEventTable = new PmEventTable(true);
 
-    pmImpl.pmWeakEventTable.addListener(eventMask, listener);
+    sd.pmWeakEventTable.addListener(eventMask, listener);
 
     if (LOG.isTraceEnabled())
       LOG.trace("Added weak PM-event listener '" + listener + "' for '" + PmUtil.getPmLogString(pmImpl) + "'.");
@@ -89,40 +91,92 @@ public class PmEventApiHandler {
    *          The listener to unregister.
    */
   public void removePmEventListener(PmObject pm, PmEventListener listener) {
-    PmObjectBase pmImpl = (PmObjectBase)pm;
+    PmObjectBase.PmSideData sd = ((PmObjectBase)pm).pmSideData;
+    if (sd == null) {
+      return;
+    }
 
-    if (pmImpl.pmEventTable != null) {
-      pmImpl.pmEventTable.removeListener(listener);
-      if (pmImpl.pmEventTable.isEmpty()) {
-        pmImpl.pmEventTable = null;
+    if (sd.pmEventTable != null) {
+      sd.pmEventTable.removeListener(listener);
+      if (sd.pmEventTable.isEmpty()) {
+        sd.pmEventTable = null;
       }
     }
-    if (pmImpl.pmWeakEventTable != null) {
-      pmImpl.pmWeakEventTable.removeListener(listener);
-      if (pmImpl.pmWeakEventTable.isEmpty()) {
-        pmImpl.pmWeakEventTable = null;
+    if (sd.pmWeakEventTable != null) {
+      sd.pmWeakEventTable.removeListener(listener);
+      if (sd.pmWeakEventTable.isEmpty()) {
+        sd.pmWeakEventTable = null;
       }
     }
   }
 
   public void removePmEventListener(PmObject pm, int eventMask, PmEventListener listener) {
-    PmObjectBase pmImpl = (PmObjectBase)pm;
+    PmObjectBase.PmSideData sd = ((PmObjectBase)pm).pmSideData;
+    if (sd == null) {
+      return;
+    }
 
-    if (pmImpl.pmEventTable != null) {
-      pmImpl.pmEventTable.removeListener(eventMask, listener);
-      if (pmImpl.pmEventTable.isEmpty()) {
-        pmImpl.pmEventTable = null;
+    if (sd.pmEventTable != null) {
+      sd.pmEventTable.removeListener(eventMask, listener);
+      if (sd.pmEventTable.isEmpty()) {
+        sd.pmEventTable = null;
       }
     }
-    if (pmImpl.pmWeakEventTable != null) {
-      pmImpl.pmWeakEventTable.removeListener(eventMask, listener);
-      if (pmImpl.pmWeakEventTable.isEmpty()) {
-        pmImpl.pmWeakEventTable = null;
+    if (sd.pmWeakEventTable != null) {
+      sd.pmWeakEventTable.removeListener(eventMask, listener);
+      if (sd.pmWeakEventTable.isEmpty()) {
+        sd.pmWeakEventTable = null;
       }
     }
   }
 
   public static void firePmEvent(PmObject pm, PmEvent event, boolean withPreAndPostProcessing) {
+    if (withPreAndPostProcessing && !event.isPropagationEvent()) {
+      PmEventBatch batch = PmEventBatch.getActiveBatch();
+      if (batch != null) {
+        batch.add(pm, event);
+        return;
+      }
+    }
+
+    fireEventWithoutPropagation(pm, event, withPreAndPostProcessing);
+
+    // Non-init events will be propagated to the parent hierarchy.
+    // This allows to maintain the changed state of a sub-tree.
+    if (withPreAndPostProcessing && ! event.isInitializationEvent()) {
+      propagateEventToParents(pm, event);
+    }
+  }
+
+  /**
+   * Fires the event with pre and post processing, but without propagating it to the parent hierarchy.
+   *
+   * @param pm the PM to fire the event for.
+   * @param event the event to fire.
+   */
+  /* package */ static void firePmEventWithoutPropagation(PmObject pm, PmEvent event) {
+    fireEventWithoutPropagation(pm, event, true);
+  }
+
+  /**
+   * Starts an event batch scope for the current thread.
+   * <p>
+   * See {@link PmEventApi#beginEventBatch()}.
+   */
+  public static void beginEventBatch() {
+    PmEventBatch.begin();
+  }
+
+  /**
+   * Ends an event batch scope of the current thread.
+   * <p>
+   * See {@link PmEventApi#flushEventBatch()}.
+   */
+  public static void flushEventBatch() {
+    PmEventBatch.flush();
+  }
+
+  private static void fireEventWithoutPropagation(PmObject pm, PmEvent event, boolean withPreAndPostProcessing) {
     PmObjectBase pmImpl = (PmObjectBase)pm;
 
     // Do the operations that only should be done non-propagation events.
@@ -144,12 +198,6 @@ public class PmEventApiHandler {
 
     if (withPreAndPostProcessing) {
       postProcessEvent(event);
-
-      // Non-init events will be propagated to the parent hierarchy.
-      // This allows to maintain the changed state of a sub-tree.
-      if (! event.isInitializationEvent()) {
-        propagateEventToParents(pmImpl, event);
-      }
     }
   }
 
@@ -177,9 +225,15 @@ public class PmEventApiHandler {
   public static void propagateEventToParents(PmObject pm, PmEvent event) {
     // propagate the event to the parent hierarchy until the conversation is reached.
     PmConversation conversationPm = pm.getPmConversation();
-    PmEvent propagationEvent = new PmEvent(event.getSource(), event.pm, event.getChangeMask() | PmEvent.IS_EVENT_PROPAGATION, event.getValueChangeKind());
+    // The propagation event gets only created if there is a parent that observes propagated events.
+    PmEvent propagationEvent = null;
     for (PmObject p = pm; p != null; p = p.getPmParent()) {
-      sendToListeners(p, propagationEvent, false /* handle event */);
+      if (hasPropagationListeners(p)) {
+        if (propagationEvent == null) {
+          propagationEvent = new PmEvent(event.getSource(), event.pm, event.getChangeMask() | PmEvent.IS_EVENT_PROPAGATION, event.getValueChangeKind());
+        }
+        sendToListeners(p, propagationEvent, false /* handle event */);
+      }
       // stop after reaching the conversation.
       if (p == conversationPm) {
         break;
@@ -228,13 +282,31 @@ public class PmEventApiHandler {
    *                   if set to <code>false</code>, only the handle part will be done for each listener.<br>
    */
   /* package */ static void sendToListeners(PmObject pm, PmEvent event, boolean preProcess) {
-    PmObjectBase pmImpl = (PmObjectBase)pm;
-    if (pmImpl.pmEventTable != null && !pmImpl.pmEventTable.isEmpty()) {
-      pmImpl.pmEventTable.fireEvent(event, preProcess);
+    PmObjectBase.PmSideData sd = ((PmObjectBase)pm).pmSideData;
+    if (sd == null) {
+      return;
+    }
+
+    PmEventTable eventTable = sd.pmEventTable;
+    if (eventTable != null && !eventTable.isEmpty()) {
+      eventTable.fireEvent(event, preProcess);
     }
-    if (pmImpl.pmWeakEventTable != null && !pmImpl.pmWeakEventTable.isEmpty()) {
-      pmImpl.pmWeakEventTable.fireEvent(event, preProcess);
+    PmEventTable weakEventTable = sd.pmWeakEventTable;
+    if (weakEventTable != null && !weakEventTable.isEmpty()) {
+      weakEventTable.fireEvent(event, preProcess);
     }
   }
 
+  /* package */ static boolean hasPropagationListeners(PmObject pm) {
+    PmObjectBase.PmSideData sd = ((PmObjectBase)pm).pmSideData;
+    if (sd == null) {
+      return false;
+    }
+
+    PmEventTable eventTable = sd.pmEventTable;
+    PmEventTable weakEventTable = sd.pmWeakEventTable;
+    return (eventTable != null && eventTable.hasPropagationListeners()) ||
+           (weakEventTable != null && weakEventTable.hasPropagationListeners());
+  }
+
 }
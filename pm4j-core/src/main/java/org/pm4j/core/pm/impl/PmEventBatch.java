@@ -0,0 +1,194 @@
+package org.pm4j.core.pm.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pm4j.core.pm.PmConversation;
+import org.pm4j.core.pm.PmEvent;
+import org.pm4j.core.pm.PmEvent.ValueChangeKind;
+import org.pm4j.core.pm.PmEventListener.PostProcessor;
+import org.pm4j.core.pm.PmObject;
+import org.pm4j.core.pm.api.PmEventApi;
+
+/**
+ * Collects the {@link PmEvent}s fired within an event batch scope of the current thread.
+ * <p>
+ * The events fired for the same PM get merged to a single event by combining
+ * their change masks. The merged events get fired when the outermost scope gets
+ * flushed.
+ * <p>
+ * Each parent gets a single propagation event for all changed PMs of its sub
+ * tree. The event provides the changed PMs by {@link PmEvent#getChangedPms()}.
+ * <p>
+ * See {@link PmEventApi#beginEventBatch()} and {@link PmEventApi#flushEventBatch()}.
+ *
+ * @author olaf boede
+ */
+class PmEventBatch {
+
+  private static final ThreadLocal<PmEventBatch> THREAD_BATCH = new ThreadLocal<PmEventBatch>();
+
+  /** The number of nested scopes. */
+  private int depth;
+  /** The collected PM events in the order of their first occurrence. */
+  private final Map<PmObject, PmEvent> pmToEventMap = new IdentityHashMap<PmObject, PmEvent>();
+  private final List<PmObject> pmsInFireOrder = new ArrayList<PmObject>();
+  /** The combined mask of all non-initialization events per PM. */
+  private final Map<PmObject, Integer> pmToPropagationMaskMap = new IdentityHashMap<PmObject, Integer>();
+
+  /**
+   * Starts a (nested) batch scope for the current thread.
+   */
+  static void begin() {
+    PmEventBatch batch = THREAD_BATCH.get();
+    if (batch == null) {
+      batch = new PmEventBatch();
+      THREAD_BATCH.set(batch);
+    }
+    ++batch.depth;
+  }
+
+  /**
+   * Ends a batch scope of the current thread.<br>
+   * If it is the outermost scope, all collected events will be fired.
+   */
+  static void flush() {
+    PmEventBatch batch = THREAD_BATCH.get();
+    if (batch == null) {
+      throw new IllegalStateException("No event batch started for the current thread.");
+    }
+    if (--batch.depth == 0) {
+      // Events fired by listeners during the flush get fired immediately.
+      THREAD_BATCH.remove();
+      batch.fireEvents();
+    }
+  }
+
+  /**
+   * @return the active batch of the current thread or <code>null</code>.
+   */
+  static PmEventBatch getActiveBatch() {
+    return THREAD_BATCH.get();
+  }
+
+  /**
+   * Adds an event to fire on flush.
+   *
+   * @param pm the PM the event is related to.
+   * @param event the event.
+   */
+  void add(PmObject pm, PmEvent event) {
+    PmEvent foundEvent = pmToEventMap.get(pm);
+    if (foundEvent == null) {
+      pmToEventMap.put(pm, event);
+      pmsInFireOrder.add(pm);
+    } else if (foundEvent != event) {
+      pmToEventMap.put(pm, merge(foundEvent, event));
+    }
+
+    if (!event.isInitializationEvent()) {
+      Integer mask = pmToPropagationMaskMap.get(pm);
+      pmToPropagationMaskMap.put(pm, (mask != null)
+          ? mask.intValue() | event.getChangeMask()
+          : event.getChangeMask());
+    }
+  }
+
+  private void fireEvents() {
+    for (PmObject pm : pmsInFireOrder) {
+      PmEventApiHandler.firePmEventWithoutPropagation(pm, pmToEventMap.get(pm));
+    }
+    propagateEvents();
+  }
+
+  /**
+   * Sends a single propagation event to each parent that observes its sub tree.
+   */
+  private void propagateEvents() {
+    Map<PmObject, Propagation> parentToPropagationMap = new IdentityHashMap<PmObject, Propagation>();
+    List<Propagation> propagations = new ArrayList<Propagation>();
+
+    for (PmObject pm : pmsInFireOrder) {
+      Integer mask = pmToPropagationMaskMap.get(pm);
+      if (mask == null) {
+        continue;
+      }
+
+      PmEvent event = pmToEventMap.get(pm);
+      PmConversation conversationPm = pm.getPmConversation();
+      for (PmObject p = pm; p != null; p = p.getPmParent()) {
+        if (PmEventApiHandler.hasPropagationListeners(p)) {
+          Propagation propagation = parentToPropagationMap.get(p);
+          if (propagation == null) {
+            propagation = new Propagation(p, event.getSource());
+            parentToPropagationMap.put(p, propagation);
+            propagations.add(propagation);
+          }
+          propagation.add(pm, mask.intValue(), event.getValueChangeKind());
+        }
+        // stop after reaching the conversation.
+        if (p == conversationPm) {
+          break;
+        }
+      }
+    }
+
+    for (Propagation p : propagations) {
+      PmEventApiHandler.sendToListeners(p.parentPm, p.makeEvent(), false /* handle event */);
+    }
+  }
+
+  private static PmEvent merge(PmEvent e1, PmEvent e2) {
+    ValueChangeKind changeKind = merge(e1.getValueChangeKind(), e2.getValueChangeKind());
+    PmEvent merged = new PmEvent(e1.getSource(), e1.pm, e1.getChangeMask() | e2.getChangeMask(), changeKind);
+    addPostProcessors(merged, e1);
+    addPostProcessors(merged, e2);
+    return merged;
+  }
+
+  private static ValueChangeKind merge(ValueChangeKind k1, ValueChangeKind k2) {
+    return (k1 == k2) ? k1 : ValueChangeKind.UNKNOWN;
+  }
+
+  private static void addPostProcessors(PmEvent target, PmEvent src) {
+    for (Map.Entry<PostProcessor<?>, Object> e : src.getPostProcessorToPayloadMap().entrySet()) {
+      target.addPostProcessingListener(e.getKey(), e.getValue());
+    }
+  }
+
+  /**
+   * Collects the changes to propagate to a single parent.
+   */
+  private static final class Propagation {
+    final PmObject parentPm;
+    final Object source;
+    final List<PmObject> changedPms = new ArrayList<PmObject>();
+    int mask;
+    ValueChangeKind changeKind;
+
+    Propagation(PmObject parentPm, Object source) {
+      this.parentPm = parentPm;
+      this.source = source;
+    }
+
+    void add(PmObject pm, int pmMask, ValueChangeKind pmChangeKind) {
+      changeKind = changedPms.isEmpty() ? pmChangeKind : merge(changeKind, pmChangeKind);
+      changedPms.add(pm);
+      mask |= pmMask;
+    }
+
+    /**
+     * A single change gets reported for the changed PM. Multiple changes get
+     * reported for the parent.
+     */
+    PmEvent makeEvent() {
+      PmObject eventPm = (changedPms.size() == 1) ? changedPms.get(0) : parentPm;
+      return new PmEvent(source, eventPm, mask | PmEvent.IS_EVENT_PROPAGATION, changeKind,
+          Collections.unmodifiableList(changedPms));
+    }
+  }
+
+}
@@ -0,0 +1,273 @@
+package org.pm4j.core.pm.impl;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pm4j.core.pm.PmEvent;
+import org.pm4j.core.pm.PmEventListener;
+import org.pm4j.core.pm.api.PmEventApi;
+
+/**
+ * A container for registered event listener - event mask pairs.
+ * <p>
+ * FIXME olaf: Currently the listener references are weak.
+ *             An binding implementation with complete unbind support should be able
+ *             to handle strong references too...
+ * <p>
+ * XXX olaf: The implementation is not really optimized for size and speed.
+ *           Have a look the SWT EventTable for a better performing implementation.<br>
+ *           Usage of the {@link CopyOnWriteArraySet} may also be a good choice.
+ *
+ * @author olaf boede
+ */
+class PmEventTable {
+  private static final Log log = LogFactory.getLog(PmEventTable.class);
+
+  /** The registered listeners and their event masks. Access needs to be synchronized. */
+  private final Map<PmEventListener, Integer> pmEventListeners;
+  private final boolean isWeak;
+
+  /**
+   * The listener lists used to dispatch events.<br>
+   * They get re-created on each listener registration change. This way an event
+   * dispatch does not need to copy the listener set.
+   */
+  private volatile DispatchLists dispatchLists = DispatchLists.EMPTY;
+
+  public PmEventTable(boolean isWeak) {
+    this.isWeak = isWeak;
+    pmEventListeners = isWeak
+          ? new WeakHashMap<PmEventListener, Integer>()
+          : new LinkedHashMap<PmEventListener, Integer>();
+  }
+
+  public synchronized void addListener(int eventMask, PmEventListener listener) {
+    Integer foundMask = pmEventListeners.get(listener);
+
+    if (foundMask == null) {
+      pmEventListeners.put(listener, eventMask);
+    }
+    else {
+      if (foundMask == eventMask) {
+        log.warn("Duplicate listerner registration call. Listener: " + listener);
+      }
+
+      int newMask = foundMask | eventMask;
+      pmEventListeners.put(listener, newMask);
+    }
+    rebuildDispatchLists();
+  }
+
+  public synchronized void removeListener(PmEventListener listener) {
+    pmEventListeners.remove(listener);
+    rebuildDispatchLists();
+  }
+
+  public synchronized void removeListener(int eventMask, PmEventListener listener) {
+    Integer foundMask = pmEventListeners.get(listener);
+
+    if (foundMask != null) {
+      int negEventMask = (eventMask ^ PmEvent.ALL);
+      int newMask = foundMask.intValue() & negEventMask;
+      if (newMask == 0) {
+        pmEventListeners.remove(listener);
+      }
+      else {
+        pmEventListeners.put(listener, newMask);
+      }
+      rebuildDispatchLists();
+    }
+  }
+
+  /**
+   * @param event the event to handle.
+   * @param preProcess if set to <code>true</code>, only the pre process part will be done for each listener.<br>
+   *                   if set to <code>false</code>, only the handle part will be done for each listener.<br>
+   */
+  /* package */ void fireEvent(final PmEvent event, boolean preProcess) {
+    DispatchLists lists = dispatchLists;
+
+    // Propagation events have to be passed only to listeners that observe that special flag.
+    // Standard events will be passed to listeners that don't have set this flag.
+    DispatchList list = event.isPropagationEvent()
+        ? (preProcess ? lists.propagationPreProcessors : lists.propagationListeners)
+        : (preProcess ? lists.preProcessors : lists.listeners);
+
+    // The listener map may only be accessed within a synchronized block. The dispatch list is immutable.
+    if (log.isTraceEnabled())
+      log.trace("fireChange[" + event + "] for event source   : " + PmEventApi.getThreadEventSource() +
+          (list.size() != 0 ? "\n\teventListeners: " + list : ""));
+
+    list.fire(event, preProcess);
+  }
+
+  boolean isEmpty() {
+    return dispatchLists.isEmpty();
+  }
+
+  /** @return <code>true</code> if there is at least one listener for propagated events. */
+  boolean hasPropagationListeners() {
+    return dispatchLists.propagationListeners.size() != 0;
+  }
+
+  /**
+   * Re-creates the dispatch lists based on the current listener registrations.
+   * Needs to be called within a block that is synchronized on this table.
+   */
+  private void rebuildDispatchLists() {
+    DispatchListBuilder listeners = new DispatchListBuilder();
+    DispatchListBuilder preProcessors = new DispatchListBuilder();
+    DispatchListBuilder propagationListeners = new DispatchListBuilder();
+    DispatchListBuilder propagationPreProcessors = new DispatchListBuilder();
+
+    for (Map.Entry<PmEventListener, Integer> e : pmEventListeners.entrySet()) {
+      PmEventListener l = e.getKey();
+      // could be null because of WeakReferences.
+      if (l == null || e.getValue() == null) {
+        continue;
+      }
+      int mask = e.getValue().intValue();
+      Object ref = isWeak ? new WeakReference<PmEventListener>(l) : l;
+      boolean isPropagationListener = ((mask & PmEvent.IS_EVENT_PROPAGATION) != 0);
+      boolean isPreProcessor = (l instanceof PmEventListener.WithPreprocessCallback);
+
+      if (isPropagationListener) {
+        propagationListeners.add(ref, mask);
+        if (isPreProcessor) {
+          propagationPreProcessors.add(ref, mask);
+        }
+      } else {
+        listeners.add(ref, mask);
+        if (isPreProcessor) {
+          preProcessors.add(ref, mask);
+        }
+      }
+    }
+
+    dispatchLists = pmEventListeners.isEmpty()
+        ? DispatchLists.EMPTY
+        : new DispatchLists(listeners.build(), preProcessors.build(),
+                            propagationListeners.build(), propagationPreProcessors.build());
+  }
+
+  /** The immutable set of dispatch lists. */
+  static final class DispatchLists {
+    static final DispatchLists EMPTY = new DispatchLists(DispatchList.EMPTY, DispatchList.EMPTY, DispatchList.EMPTY, DispatchList.EMPTY);
+
+    final DispatchList listeners;
+    final DispatchList preProcessors;
+    final DispatchList propagationListeners;
+    final DispatchList propagationPreProcessors;
+
+    DispatchLists(DispatchList listeners, DispatchList preProcessors, DispatchList propagationListeners, DispatchList propagationPreProcessors) {
+      this.listeners = listeners;
+      this.preProcessors = preProcessors;
+      this.propagationListeners = propagationListeners;
+      this.propagationPreProcessors = propagationPreProcessors;
+    }
+
+    boolean isEmpty() {
+      return listeners.size() == 0 && propagationListeners.size() == 0;
+    }
+  }
+
+  /**
+   * An immutable list of listeners with their event masks.
+   * <p>
+   * The listeners are stored directly or, in case of a weak table, as {@link WeakReference}s.
+   */
+  static final class DispatchList {
+    static final DispatchList EMPTY = new DispatchList(new Object[0], new int[0]);
+
+    private final Object[] listenerRefs;
+    private final int[] masks;
+    /** Combination of all listener masks. Allows to skip the list for events without interested listeners. */
+    private final int combinedMask;
+
+    DispatchList(Object[] listenerRefs, int[] masks) {
+      this.listenerRefs = listenerRefs;
+      this.masks = masks;
+      int m = 0;
+      for (int i : masks) {
+        m |= i;
+      }
+      this.combinedMask = m;
+    }
+
+    int size() {
+      return masks.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    void fire(PmEvent event, boolean preProcess) {
+      int changeMask = event.getChangeMask();
+      if ((combinedMask & changeMask) == 0) {
+        return;
+      }
+
+      for (int i = 0; i < masks.length; ++i) {
+        if ((masks[i] & changeMask) != 0) {
+          Object ref = listenerRefs[i];
+          PmEventListener l = (ref instanceof WeakReference)
+              ? ((WeakReference<PmEventListener>) ref).get()
+              : (PmEventListener) ref;
+          if (l != null) {
+            if (preProcess) {
+              ((PmEventListener.WithPreprocessCallback) l).preProcess(event);
+            } else {
+              l.handleEvent(event);
+            }
+          }
+        }
+      }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public String toString() {
+      StringBuilder sb = new StringBuilder("{");
+      for (int i = 0; i < masks.length; ++i) {
+        Object ref = listenerRefs[i];
+        if (i > 0) {
+          sb.append(", ");
+        }
+        sb.append((ref instanceof WeakReference) ? ((WeakReference<PmEventListener>) ref).get() : ref)
+          .append('=').append(masks[i]);
+      }
+      return sb.append('}').toString();
+    }
+  }
+
+  /** Collects the items of a {@link DispatchList}. */
+  private static final class DispatchListBuilder {
+    private final List<Object> refs = new ArrayList<Object>();
+    private int[] masks = new int[4];
+
+    void add(Object ref, int mask) {
+      if (refs.size() == masks.length) {
+        int[] newMasks = new int[masks.length * 2];
+        System.arraycopy(masks, 0, newMasks, 0, masks.length);
+        masks = newMasks;
+      }
+      masks[refs.size()] = mask;
+      refs.add(ref);
+    }
+
+    DispatchList build() {
+      if (refs.isEmpty()) {
+        return DispatchList.EMPTY;
+      }
+      int[] m = new int[refs.size()];
+      System.arraycopy(masks, 0, m, 0, m.length);
+      return new DispatchList(refs.toArray(), m);
+    }
+  }
+
+}
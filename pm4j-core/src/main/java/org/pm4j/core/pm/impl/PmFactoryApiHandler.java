@@ -30,10 +30,21 @@ public class PmFactoryApiHandler {
       return null;
     }
 
+    // Lock free lookup for an already existing PM.
+    // A PM gets registered in the cache before it is completely constructed and initialized.
+    // Such a PM may be under construction by a concurrent thread. It gets provided
+    // by the synchronized lookup below, after its creation is completed.
+    T_PM pm = this.<T_PM>findPmForBean(pmCtxt, bean);
+    if (pm != null && PmInitApi.isPmInitialized(pm)) {
+      return pm;
+    }
+
+    // PM creation is serialized within the conversation.
+    // The PM may have been created by a concurrent thread in the meantime.
     PmConversation pmConversation = pmCtxt.getPmConversation();
     boolean supportFactoryHierarchy = pmConversation.getPmDefaults().supportFactoryHierarchy;
     synchronized (pmConversation) {
-      T_PM pm = this.<T_PM>findPmForBean(pmCtxt, bean);
+      pm = this.<T_PM>findPmForBean(pmCtxt, bean);
       if (pm != null) {
         return pm;
       }
@@ -86,10 +97,10 @@ public class PmFactoryApiHandler {
     PmObjectBase pmCtxtImpl = (PmObjectBase)pmCtxt;
     T pmBean = null;
 
-    if (pmCtxtImpl.pmBeanFactoryCache != null) {
-      synchronized(pmCtxt) {
-        pmBean = pmCtxtImpl.pmBeanFactoryCache.<T>findByBean(bean);
-      }
+    // The cache is thread safe. Lookups don't need to lock.
+    BeanPmCache beanPmCache = pmCtxtImpl.zz_getBeanFactoryCache();
+    if (beanPmCache != null) {
+      pmBean = beanPmCache.<T>findByBean(bean);
     }
 
     if (pmBean == null) {
@@ -124,9 +135,9 @@ public class PmFactoryApiHandler {
 //    PmObjectBase pmCtxtImpl = (PmObjectBase)pmCtxt;
 //    T pmBean = null;
 //
-//    if (pmCtxtImpl.pmBeanFactoryCache != null) {
+//    if (pmCtxtImpl.zz_getBeanFactoryCache() != null) {
 //      synchronized(pmCtxtImpl) {
-//        pmBean = pmCtxtImpl.pmBeanFactoryCache.<T>findPmForEqualBean(bean);
+//        pmBean = pmCtxtImpl.zz_getBeanFactoryCache().<T>findPmForEqualBean(bean);
 //      }
 //    }
 //
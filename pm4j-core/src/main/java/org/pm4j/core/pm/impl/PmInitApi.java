@@ -1,5 +1,20 @@
 package org.pm4j.core.pm.impl;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pm4j.core.exception.PmRuntimeException;
 import org.pm4j.core.pm.PmAttr;
 import org.pm4j.core.pm.PmObject;
 import org.pm4j.core.pm.api.PmVisitorApi;
@@ -14,6 +29,8 @@ import org.pm4j.core.pm.impl.PmObjectBase.PmInitState;
  */
 public class PmInitApi {
 
+  private static final Log LOG = LogFactory.getLog(PmInitApi.class);
+
   /**
    * Ensures that the passed PM gets initialized.
    *
@@ -54,6 +71,91 @@ public class PmInitApi {
     return pm.pmInitState;
   }
 
+  /**
+   * Initializes the shared meta data of the given PM classes ahead of their
+   * first usage. May be used at application start to prevent the reflection
+   * and annotation scanning costs on first user requests.
+   * <p>
+   * For each class a PM instance gets created using a public constructor that
+   * accepts the given parent PM. Only the meta data of the PM and its field
+   * bound children get initialized. Methods like {@link PmObjectBase#onPmInit()}
+   * will not be called.
+   * <p>
+   * The meta data is identified by the position of the PM within the PM tree.
+   * Thus the parent PM should be of the same kind as the parent used at runtime.
+   * E.g. a {@link PmConversationImpl} for root PMs.
+   *
+   * @param parentPm
+   *          The parent PM for the PM instances to create.
+   * @param executor
+   *          An optional executor for a parallel initialization. If it is
+   *          <code>null</code>, all classes get initialized by the calling thread.
+   * @param pmClasses
+   *          The PM classes to initialize.
+   * @return The initialization time in milliseconds for each PM class. Includes
+   *         the time needed for the field bound children. Is <code>0</code> if
+   *         the meta data was already initialized.
+   */
+  public static Map<Class<?>, Long> initPmMetaData(final PmObject parentPm, Executor executor, Collection<Class<? extends PmObject>> pmClasses) {
+    List<FutureTask<Long>> tasks = new ArrayList<FutureTask<Long>>(pmClasses.size());
+    for (final Class<? extends PmObject> c : pmClasses) {
+      FutureTask<Long> task = new FutureTask<Long>(new Callable<Long>() {
+        @Override
+        public Long call() {
+          return initPmClassMetaData(parentPm, c);
+        }
+      });
+      tasks.add(task);
+      if (executor != null) {
+        executor.execute(task);
+      } else {
+        task.run();
+      }
+    }
+
+    Map<Class<?>, Long> classToMillisMap = new LinkedHashMap<Class<?>, Long>();
+    int i = 0;
+    for (Class<? extends PmObject> c : pmClasses) {
+      try {
+        classToMillisMap.put(c, tasks.get(i++).get());
+      } catch (ExecutionException e) {
+        throw PmRuntimeException.asPmRuntimeException(parentPm, e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new PmRuntimeException(parentPm, "Interrupted while waiting for the meta data initialization of " + c, e);
+      }
+    }
+    return classToMillisMap;
+  }
+
+  private static Long initPmClassMetaData(PmObject parentPm, Class<? extends PmObject> pmClass) {
+    long startNanos = System.nanoTime();
+    PmObjectBase pm = makePm(parentPm, pmClass);
+    pm.ensurePmMetaDataInitialization();
+    long millis = (System.nanoTime() - startNanos) / 1000000L;
+
+    if (LOG.isInfoEnabled()) {
+      LOG.info("Initialized PM meta data for " + pmClass.getName() + " in " + millis + " ms.");
+    }
+    return millis;
+  }
+
+  private static PmObjectBase makePm(PmObject parentPm, Class<? extends PmObject> pmClass) {
+    for (Constructor<?> ctor : pmClass.getConstructors()) {
+      Class<?>[] paramTypes = ctor.getParameterTypes();
+      if (paramTypes.length == 1 && paramTypes[0].isInstance(parentPm)) {
+        try {
+          return (PmObjectBase) ctor.newInstance(parentPm);
+        } catch (InvocationTargetException e) {
+          throw new PmRuntimeException(parentPm, "Unable to create an instance of " + pmClass, e.getCause());
+        } catch (Exception e) {
+          throw new PmRuntimeException(parentPm, "Unable to create an instance of " + pmClass, e);
+        }
+      }
+    }
+    throw new PmRuntimeException(parentPm, "PM class " + pmClass + " has no public constructor that accepts the parent PM " + parentPm.getClass());
+  }
+
   /**
    * EXPERIMENTAL STATE: Helper for dynamic PM creation.
    */
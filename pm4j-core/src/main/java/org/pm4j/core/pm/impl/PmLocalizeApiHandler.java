@@ -15,6 +15,8 @@ import org.pm4j.common.converter.string.StringConverterUtil;
 import org.pm4j.core.exception.PmRuntimeException;
 import org.pm4j.core.pm.PmObject;
 import org.pm4j.core.pm.impl.title.ClassPathResourceStringProvider;
+import org.pm4j.core.pm.impl.title.MessageFormatCache;
+import org.pm4j.core.pm.impl.title.ResStringCache;
 import org.pm4j.core.pm.impl.title.ResourceStringProvider;
 
 public class PmLocalizeApiHandler {
@@ -25,6 +27,9 @@ public class PmLocalizeApiHandler {
 
   private boolean lenient = true;
 
+  /** Pre-parsed cache entry formats are only used if the format hook is not overridden. */
+  private final boolean messageFormatOverridden = isMessageFormatOverridden();
+
   /**
    * Provides a localization based on a key and option resource string arguments.
    * <p>
@@ -39,6 +44,15 @@ public class PmLocalizeApiHandler {
       throw new PmRuntimeException(pm, "Unable to find a resource for a 'null' key.");
     }
     Locale locale = getLocale(pm);
+    // Subclasses may override findResourceString(). Only the provider class itself uses the cache entries.
+    if (resourceStringProvider.getClass() == ClassPathResourceStringProvider.class && !messageFormatOverridden) {
+      // The cache entry provides the pre-parsed message format.
+      ResStringCache.Entry entry = ((ClassPathResourceStringProvider)resourceStringProvider).findResourceEntry(locale, pm.getPmResLoaderCtxtClasses(), key);
+      return (entry.getValue() != null)
+              ? messageFormat(entry, resStringArgs)
+              : null;
+    }
+
     String resourceString = resourceStringProvider.findResourceString(locale, pm.getPmResLoaderCtxtClasses(), key);
     return (resourceString != null)
               ? messageFormat(locale, resourceString, resStringArgs)
@@ -150,6 +164,8 @@ public class PmLocalizeApiHandler {
 
   /**
    * Uses the {@link MessageFormat} for string formatting.
+   * <p>
+   * The parsed patterns get cached by {@link MessageFormatCache#INSTANCE}.
    *
    * @param locale
    *          The locale used for formatting.
@@ -165,15 +181,52 @@ public class PmLocalizeApiHandler {
       return placeHolderString;
     } else {
       try {
-        MessageFormat mf = new MessageFormat(placeHolderString, locale);
-        return mf.format(placeHolderArgs, new StringBuffer(placeHolderString.length()<<1), null).toString();
+        return MessageFormatCache.INSTANCE.get(placeHolderString, locale).format(placeHolderArgs);
       }
       catch (RuntimeException e) {
-        String msg =  "Unable to apply a MessageFormat for the following arguments: resString='" +
-                      placeHolderString + "' args=" + Arrays.asList(placeHolderArgs);
-        throw new PmRuntimeException(msg, e) ;
+        throw makeMessageFormatException(placeHolderString, placeHolderArgs, e);
       }
     }
   }
 
+  /**
+   * Formats a cached resource string using its pre-parsed {@link MessageFormat}.
+   *
+   * @param entry
+   *          The resource cache entry that provides the template string.
+   * @param placeHolderArgs
+   *          Optional placeholder arguments.
+   * @return The formatted string.
+   */
+  private String messageFormat(ResStringCache.Entry entry, Object... placeHolderArgs) {
+    if (placeHolderArgs.length == 0) {
+      return entry.getValue();
+    } else {
+      try {
+        return entry.getMessageFormat().format(placeHolderArgs);
+      }
+      catch (RuntimeException e) {
+        throw makeMessageFormatException(entry.getValue(), placeHolderArgs, e);
+      }
+    }
+  }
+
+  private boolean isMessageFormatOverridden() {
+    for (Class<?> c = getClass(); c != PmLocalizeApiHandler.class; c = c.getSuperclass()) {
+      try {
+        c.getDeclaredMethod("messageFormat", Locale.class, String.class, Object[].class);
+        return true;
+      } catch (NoSuchMethodException e) {
+        // not declared in this sub class
+      }
+    }
+    return false;
+  }
+
+  private static PmRuntimeException makeMessageFormatException(String placeHolderString, Object[] placeHolderArgs, RuntimeException e) {
+    String msg =  "Unable to apply a MessageFormat for the following arguments: resString='" +
+                  placeHolderString + "' args=" + Arrays.asList(placeHolderArgs);
+    return new PmRuntimeException(msg, e);
+  }
+
 }
@@ -0,0 +1,271 @@
+package org.pm4j.core.pm.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.pm4j.core.pm.PmMessage;
+import org.pm4j.core.pm.PmMessage.Severity;
+import org.pm4j.core.pm.PmObject;
+
+/**
+ * A pm4j <b>INTERNAL</b> message storage used by {@link PmConversationImpl}.
+ * <p>
+ * The messages are indexed by their PM and counted by severity. For each PM
+ * the messages within its sub tree are indexed too. This way message queries
+ * for a PM or a sub tree don't need to scan all messages.
+ * <p>
+ * Modifications are synchronized. Read operations are not blocked.
+ *
+ * @author olaf boede
+ */
+public class PmMessageStore {
+
+  private long nextSeqNo;
+  /** All messages in the order of their registration. */
+  private final ConcurrentSkipListMap<Long, PmMessage> seqNoToMessageMap = new ConcurrentSkipListMap<Long, PmMessage>();
+  /** The messages of each PM in the order of their registration. */
+  private final Map<PmObject, List<Entry>> pmToEntriesMap = new ConcurrentHashMap<PmObject, List<Entry>>();
+  /** The messages within the sub tree of each PM, sorted by their registration sequence number. */
+  private final Map<PmObject, ConcurrentSkipListMap<Long, PmMessage>> pmToSubTreeMessagesMap = new ConcurrentHashMap<PmObject, ConcurrentSkipListMap<Long, PmMessage>>();
+  private final int[] severityCounts = new int[Severity.values().length];
+  /** Number of messages related to commands. Command messages need a special lookup. */
+  private volatile int commandMessageCount;
+
+  /**
+   * @param msg the message to add.
+   */
+  public synchronized void add(PmMessage msg) {
+    PmObject pm = msg.getPm();
+    Entry e = new Entry(nextSeqNo++, msg, getPmAndParents(pm));
+
+    seqNoToMessageMap.put(e.seqNo, msg);
+    List<Entry> entries = pmToEntriesMap.get(pm);
+    if (entries == null) {
+      entries = new CopyOnWriteArrayList<Entry>();
+      pmToEntriesMap.put(pm, entries);
+    }
+    entries.add(e);
+
+    for (PmObject p : e.pmAndParents) {
+      ConcurrentSkipListMap<Long, PmMessage> subTreeMessages = pmToSubTreeMessagesMap.get(p);
+      if (subTreeMessages == null) {
+        subTreeMessages = new ConcurrentSkipListMap<Long, PmMessage>();
+        pmToSubTreeMessagesMap.put(p, subTreeMessages);
+      }
+      subTreeMessages.put(e.seqNo, msg);
+    }
+    changeCounts(msg, +1);
+  }
+
+  /**
+   * Removes the first registration of the given message.
+   *
+   * @param msg the message to remove.
+   * @return <code>true</code> if the message was found.
+   */
+  public synchronized boolean remove(PmMessage msg) {
+    PmObject pm = msg.getPm();
+    List<Entry> entries = pmToEntriesMap.get(pm);
+    if (entries == null) {
+      return false;
+    }
+
+    for (Entry e : entries) {
+      if (e.msg.equals(msg)) {
+        entries.remove(e);
+        if (entries.isEmpty()) {
+          pmToEntriesMap.remove(pm);
+        }
+        seqNoToMessageMap.remove(e.seqNo);
+
+        for (PmObject p : e.pmAndParents) {
+          ConcurrentSkipListMap<Long, PmMessage> subTreeMessages = pmToSubTreeMessagesMap.get(p);
+          subTreeMessages.remove(e.seqNo);
+          if (subTreeMessages.isEmpty()) {
+            pmToSubTreeMessagesMap.remove(p);
+          }
+        }
+        changeCounts(msg, -1);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Removes all messages.
+   */
+  public synchronized void clear() {
+    seqNoToMessageMap.clear();
+    pmToEntriesMap.clear();
+    pmToSubTreeMessagesMap.clear();
+    for (int i = 0; i < severityCounts.length; ++i) {
+      severityCounts[i] = 0;
+    }
+    commandMessageCount = 0;
+  }
+
+  /**
+   * @return <code>true</code> if there is no message.
+   */
+  public boolean isEmpty() {
+    return seqNoToMessageMap.isEmpty();
+  }
+
+  /**
+   * @param severity the severity to check.
+   * @return the number of messages having the given severity.
+   */
+  public int getMessageCount(Severity severity) {
+    synchronized (severityCounts) {
+      return severityCounts[severity.ordinal()];
+    }
+  }
+
+  /**
+   * Provides the messages of a PM.
+   *
+   * @param forPm
+   *          the PM to get the messages for. All messages will be provided if
+   *          <code>null</code> is passed here.
+   * @param severity
+   *          the severity of the messages to provide. Messages of all
+   *          severities will be provided if <code>null</code> is passed here.
+   * @return the messages in their registration order. An empty collection if there are no messages.
+   */
+  public List<PmMessage> getMessages(PmObject forPm, Severity severity) {
+    if (severity != null && getMessageCount(severity) == 0) {
+      return Collections.emptyList();
+    }
+
+    List<PmMessage> list = new ArrayList<PmMessage>();
+    if (forPm == null) {
+      for (PmMessage m : seqNoToMessageMap.values()) {
+        if (severity == null || severity == m.getSeverity()) {
+          list.add(m);
+        }
+      }
+    } else if (forPm instanceof PmCommandImpl && commandMessageCount > 0) {
+      // Messages of command clones are also relevant for the template command.
+      // See PmMessage.isMessageFor().
+      List<Entry> entries = new ArrayList<Entry>();
+      for (Map.Entry<PmObject, List<Entry>> e : pmToEntriesMap.entrySet()) {
+        if (e.getKey() instanceof PmCommandImpl) {
+          for (Entry entry : e.getValue()) {
+            if (entry.msg.isMessageFor(forPm)) {
+              entries.add(entry);
+            }
+          }
+        }
+      }
+      Collections.sort(entries, Entry.SEQ_NO_COMPARATOR);
+      addMessages(list, entries, severity);
+    } else {
+      List<Entry> entries = pmToEntriesMap.get(forPm);
+      if (entries != null) {
+        addMessages(list, entries, severity);
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Provides the messages of a PM sub tree.
+   *
+   * @param rootPm
+   *          root of the PM sub tree.
+   * @param minSeverity
+   *          the minimal message severity to consider.
+   * @return the messages in their registration order. An empty collection if there are no messages.
+   */
+  public List<PmMessage> getSubTreeMessages(PmObject rootPm, Severity minSeverity) {
+    Map<Long, PmMessage> seqNoToMessages = pmToSubTreeMessagesMap.get(rootPm);
+
+    if (rootPm instanceof PmCommandImpl && commandMessageCount > 0) {
+      // Messages of command clones are also relevant for the template command.
+      // See PmMessage.isMessageFor().
+      Map<Long, PmMessage> commandMessages = (seqNoToMessages != null)
+          ? new TreeMap<Long, PmMessage>(seqNoToMessages)
+          : new TreeMap<Long, PmMessage>();
+      for (Map.Entry<PmObject, List<Entry>> e : pmToEntriesMap.entrySet()) {
+        if (e.getKey() instanceof PmCommandImpl) {
+          for (Entry entry : e.getValue()) {
+            if (entry.msg.isMessageFor(rootPm)) {
+              commandMessages.put(entry.seqNo, entry.msg);
+            }
+          }
+        }
+      }
+      seqNoToMessages = commandMessages;
+    }
+
+    if (seqNoToMessages == null) {
+      return Collections.emptyList();
+    }
+
+    List<PmMessage> list = new ArrayList<PmMessage>();
+    for (PmMessage m : seqNoToMessages.values()) {
+      if (m.getSeverity().ordinal() >= minSeverity.ordinal()) {
+        list.add(m);
+      }
+    }
+    return list;
+  }
+
+  private void changeCounts(PmMessage msg, int delta) {
+    synchronized (severityCounts) {
+      severityCounts[msg.getSeverity().ordinal()] += delta;
+    }
+    if (msg.getPm() instanceof PmCommandImpl) {
+      commandMessageCount += delta;
+    }
+  }
+
+  private static void addMessages(List<PmMessage> list, List<Entry> entries, Severity severity) {
+    for (Entry e : entries) {
+      if (severity == null || severity == e.msg.getSeverity()) {
+        list.add(e.msg);
+      }
+    }
+  }
+
+  private static PmObject[] getPmAndParents(PmObject pm) {
+    List<PmObject> list = new ArrayList<PmObject>();
+    for (PmObject p = pm; p != null; p = p.getPmParent()) {
+      list.add(p);
+    }
+    return list.toArray(new PmObject[list.size()]);
+  }
+
+  /**
+   * A message registration.<br>
+   * Remembers the parent hierarchy of the message PM to ensure a consistent sub tree
+   * index in case of a PM hierarchy change.
+   */
+  static final class Entry {
+    static final Comparator<Entry> SEQ_NO_COMPARATOR = new Comparator<Entry>() {
+      @Override
+      public int compare(Entry o1, Entry o2) {
+        return (o1.seqNo < o2.seqNo) ? -1 : ((o1.seqNo == o2.seqNo) ? 0 : 1);
+      }
+    };
+
+    final long seqNo;
+    final PmMessage msg;
+    final PmObject[] pmAndParents;
+
+    Entry(long seqNo, PmMessage msg, PmObject[] pmAndParents) {
+      this.seqNo = seqNo;
+      this.msg = msg;
+      this.pmAndParents = pmAndParents;
+    }
+  }
+
+}
@@ -0,0 +1,169 @@
+package org.pm4j.core.pm.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.pm4j.common.cache.CacheMetrics;
+import org.pm4j.common.cache.CacheMetricsRegistry;
+import org.pm4j.core.pm.impl.PmObjectBase.MetaData;
+
+/**
+ * A pm4j <b>INTERNAL</b> registry for the shared PM meta data.
+ * <p>
+ * The meta data of each key gets initialized only once. Each key is
+ * represented by a future that gets completed when its meta data is
+ * completely initialized. Threads that request the same key concurrently wait
+ * for the future. Requests for other keys are not blocked.
+ * <p>
+ * The hit rate and initialization time get reported by the {@link CacheMetrics}
+ * registered in {@link CacheMetricsRegistry#INSTANCE} as <code>pm.metaData</code>.
+ *
+ * @author olaf boede
+ */
+class PmMetaDataRegistry {
+
+  /** The registry used by all PMs. */
+  static final PmMetaDataRegistry INSTANCE = new PmMetaDataRegistry();
+
+  private final ConcurrentMap<Object, MetaDataFuture> keyToFutureMap = new ConcurrentHashMap<Object, MetaDataFuture>();
+  private final CacheMetrics metrics = CacheMetricsRegistry.INSTANCE.getMetrics("pm.metaData");
+
+  /**
+   * The initialization callback for a meta data key.
+   */
+  interface MetaDataInitializer {
+    /**
+     * @param future
+     *          the future to report the not yet completed meta data to.
+     *          Is <code>null</code> for a private initialization that does not get registered.
+     * @return the completely initialized meta data.
+     */
+    MetaData initMetaData(MetaDataFuture future);
+  }
+
+  /**
+   * @param key the meta data key.
+   * @return the completely initialized meta data or <code>null</code> if it is not yet available.
+   */
+  MetaData find(Object key) {
+    MetaDataFuture f = keyToFutureMap.get(key);
+    return (f != null) ? f.completedMetaData : null;
+  }
+
+  /**
+   * Provides the meta data for the given key.
+   * <p>
+   * Initializes the meta data if there is no meta data for the key.
+   * Waits if the meta data gets initialized by another thread.
+   * <p>
+   * A nested request for a key that is currently initialized by the current thread
+   * provides the not yet completed meta data. If that's not yet available, a private
+   * meta data instance gets initialized.
+   *
+   * @param key the meta data key.
+   * @param initializer the initialization callback. Gets only called if the meta data needs to be initialized.
+   * @return the meta data.
+   */
+  MetaData getOrInit(Object key, MetaDataInitializer initializer) {
+    while (true) {
+      MetaDataFuture f = keyToFutureMap.get(key);
+      if (f == null) {
+        MetaDataFuture newFuture = new MetaDataFuture();
+        f = keyToFutureMap.putIfAbsent(key, newFuture);
+        if (f == null) {
+          metrics.countMiss();
+          return run(key, newFuture, initializer);
+        }
+      }
+
+      MetaData md = f.completedMetaData;
+      if (md != null) {
+        metrics.countHit();
+        return md;
+      }
+
+      if (f.initThread == Thread.currentThread()) {
+        md = f.inProgressMetaData;
+        return (md != null) ? md : initializer.initMetaData(null);
+      }
+
+      md = f.await();
+      if (md != null) {
+        metrics.countHit();
+        return md;
+      }
+      // The initialization of the other thread failed. Try it again.
+    }
+  }
+
+  /** @return the hit, miss and initialization time counters. */
+  CacheMetrics getMetrics() {
+    return metrics;
+  }
+
+  private MetaData run(Object key, MetaDataFuture future, MetaDataInitializer initializer) {
+    long startNanos = System.nanoTime();
+    MetaData md = null;
+    try {
+      md = initializer.initMetaData(future);
+      return md;
+    } finally {
+      if (md == null) {
+        // Allows a re-try by a subsequent call.
+        keyToFutureMap.remove(key, future);
+      } else {
+        metrics.countInit(System.nanoTime() - startNanos);
+      }
+      future.complete(md);
+    }
+  }
+
+  /**
+   * The meta data initialization state of a key.
+   */
+  static final class MetaDataFuture {
+    final Thread initThread = Thread.currentThread();
+    private final CountDownLatch doneLatch = new CountDownLatch(1);
+    private volatile MetaData inProgressMetaData;
+    private volatile MetaData completedMetaData;
+
+    /**
+     * Provides the not yet completed meta data for nested requests of the
+     * initializing thread.
+     *
+     * @param md the meta data instance that gets initialized.
+     */
+    void publishInProgress(MetaData md) {
+      inProgressMetaData = md;
+    }
+
+    private void complete(MetaData md) {
+      completedMetaData = md;
+      inProgressMetaData = null;
+      doneLatch.countDown();
+    }
+
+    /**
+     * @return the meta data or <code>null</code> if the initialization failed.
+     */
+    private MetaData await() {
+      boolean interrupted = false;
+      try {
+        while (true) {
+          try {
+            doneLatch.await();
+            return completedMetaData;
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+}
@@ -13,15 +13,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import org.apache.commons.lang.ClassUtils;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.pm4j.common.cache.CacheMetrics;
+import org.pm4j.common.cache.CacheMetricsRegistry;
 import org.pm4j.common.cache.CacheStrategy;
 import org.pm4j.common.cache.CacheStrategyNoCache;
 import org.pm4j.common.util.collection.ListUtil;
@@ -52,8 +53,8 @@ import org.pm4j.core.pm.api.PmCacheApi;
 import org.pm4j.core.pm.api.PmEventApi;
 import org.pm4j.core.pm.api.PmMessageUtil;
 import org.pm4j.core.pm.api.PmValidationApi;
-import org.pm4j.core.pm.impl.cache.CacheLog;
 import org.pm4j.core.pm.impl.cache.CacheStrategyBase;
+import org.pm4j.core.pm.impl.cache.CacheStrategyBoundedConversation;
 import org.pm4j.core.pm.impl.cache.CacheStrategyRequest;
 import org.pm4j.core.pm.impl.inject.DiResolver;
 import org.pm4j.core.pm.impl.inject.DiResolverUtil;
@@ -82,18 +83,26 @@ public abstract class PmObjectBase implements PmObject {
    */
   private PmObjectBase pmParent;
 
-  /** Dynamic visibility flag. */
-  private boolean pmVisible = true;
-  private Object pmVisibleCache;
+  /** Dynamic visibility flag bit. */
+  /* package */ static final int FLAG_VISIBLE = 1;
+  /** Enabled state flag bit. */
+  /* package */ static final int FLAG_ENABLED = 1 << 1;
+  /** Explicitly changed state flag bit. Used by {@link PmDataInputBase}. */
+  /* package */ static final int FLAG_EXPLICITLY_CHANGED = 1 << 2;
+  /** Value changed by <code>setValue</code> flag bit. Used by {@link PmAttrBase}. */
+  /* package */ static final int FLAG_VALUE_CHANGED_BY_SET_VALUE = 1 << 3;
 
-  /** Enabled state flag. */
-  private boolean pmEnabled = true;
-  private Object pmEnabledCache;
+  /**
+   * The boolean state flags of this PM packed into a single bit field.
+   * See the <code>FLAG_*</code> constants.
+   */
+  private int pmFlags = FLAG_VISIBLE | FLAG_ENABLED;
 
   /**
-   * Optional title cache.
+   * Optional data that is used only by a few PMs.
+   * Gets only allocated if one of its parts is used.
    */
-  private String pmCachedTitle;
+  /* package */ volatile PmSideData pmSideData;
 
   public enum PmInitState {
     NOT_INITIALIZED,
@@ -101,16 +110,12 @@ public abstract class PmObjectBase implements PmObject {
     BEFORE_ON_PM_INIT,
     INITIALIZED };
 
-  /** Helper indicator that prevents double initialization. */
-  /* package */ PmInitState pmInitState = PmInitState.NOT_INITIALIZED;
-
   /**
-   * An optional cache for the bean to PM association within the current PM hierarchy scope.
+   * Helper indicator that prevents double initialization.<br>
+   * Is volatile to publish the initialized PM state to threads that don't pass the
+   * synchronized initialization block.
    */
-  /* package */ BeanPmCache pmBeanFactoryCache;
-
-  /** A container for application/user specific additional information. */
-  private Map<String, Object> pmProperties = Collections.emptyMap();
+  /* package */ volatile PmInitState pmInitState = PmInitState.NOT_INITIALIZED;
 
   /**
    * An optional view technology specific adapter class.<br>
@@ -119,9 +124,6 @@ public abstract class PmObjectBase implements PmObject {
    */
   private Object pmToViewConnector = PM_TO_VIEW_CONNECTOR_NOT_YET_INITIALIZED;
 
-  /** Logger for cache usage statistics. */
-  protected static final CacheLog pmCacheLog = new CacheLog();
-
   /**
    * Constructor.
    */
@@ -243,14 +245,14 @@ public abstract class PmObjectBase implements PmObject {
    * @return <code>true</code> if the PM should be visible.
    */
   protected boolean isPmVisibleImpl() {
-    return pmVisible;
+    return zz_isFlagSet(FLAG_VISIBLE);
   }
 
   @Override @Deprecated
   public void setPmVisible(boolean visible) {
     PmEventApi.ensureThreadEventSource(this);
-    boolean changed = (pmVisible != visible);
-    pmVisible = visible;
+    boolean changed = (zz_isFlagSet(FLAG_VISIBLE) != visible);
+    zz_setFlag(FLAG_VISIBLE, visible);
     // Does not fire change events if called within the initialization phase.
     if (changed) {
       PmEventApi.firePmEventIfInitialized(this, PmEvent.VISIBILITY_CHANGE);
@@ -274,14 +276,14 @@ public abstract class PmObjectBase implements PmObject {
   }
 
   protected boolean isPmEnabledImpl() {
-    return pmEnabled;
+    return zz_isFlagSet(FLAG_ENABLED);
   }
 
   @Override @Deprecated
   public void setPmEnabled(boolean enabled) {
     PmEventApi.ensureThreadEventSource(this);
-    boolean changed = (pmEnabled != enabled);
-    pmEnabled = enabled;
+    boolean changed = (zz_isFlagSet(FLAG_ENABLED) != enabled);
+    zz_setFlag(FLAG_ENABLED, enabled);
     // Does not fire change events if called within the initialization phase.
     if (changed) {
       PmEventApi.firePmEventIfInitialized(this, PmEvent.ENABLEMENT_CHANGE);
@@ -348,10 +350,6 @@ public abstract class PmObjectBase implements PmObject {
     }
   }
 
-  /** The set of event listeners. */
-  /* package */ PmEventTable pmEventTable;
-  /* package */ PmEventTable pmWeakEventTable;
-
 
   /**
    * Is called whenever an event with the flag {@link PmEvent#VALUE_CHANGE}
@@ -460,7 +458,7 @@ public abstract class PmObjectBase implements PmObject {
   }
 
   /* package */ List<PmObject> getPmChildren() {
-    return BeanAttrArrayList.makeList(this, getPmMetaDataWithoutPmInitCall().childFieldAccessorArray, pmDynamicSubPms.all);
+    return BeanAttrArrayList.makeList(this, getPmMetaDataWithoutPmInitCall().childFieldAccessorArray, zz_getDynamicSubPms().all);
   }
 
   /**
@@ -469,7 +467,8 @@ public abstract class PmObjectBase implements PmObject {
    * @return
    */
   /* package */ List<PmObject> getPmChildrenAndFactoryPms() {
-    List<PmObject> subPms = BeanAttrArrayList.makeList(this, getPmMetaDataWithoutPmInitCall().childFieldAccessorArray, pmDynamicSubPms.all);
+    List<PmObject> subPms = BeanAttrArrayList.makeList(this, getPmMetaDataWithoutPmInitCall().childFieldAccessorArray, zz_getDynamicSubPms().all);
+    BeanPmCache pmBeanFactoryCache = zz_getBeanFactoryCache();
     if (pmBeanFactoryCache != null && !pmBeanFactoryCache.isEmpty()) {
       return ListUtil.collectionsToList(subPms, getFactoryGeneratedChildPms());
     } else {
@@ -479,6 +478,7 @@ public abstract class PmObjectBase implements PmObject {
 
   /* package */ @SuppressWarnings("unchecked")
   Collection<PmObject> getFactoryGeneratedChildPms() {
+    BeanPmCache pmBeanFactoryCache = zz_getBeanFactoryCache();
     return (Collection<PmObject>) ((pmBeanFactoryCache != null && !pmBeanFactoryCache.isEmpty())
       ? pmBeanFactoryCache.getItems()
       : Collections.EMPTY_LIST);
@@ -490,7 +490,7 @@ public abstract class PmObjectBase implements PmObject {
       return accessor.getBeanAttrValue(this);
     }
     else {
-      return pmDynamicSubPms.nameToPmMap.get(localChildName);
+      return zz_getDynamicSubPms().nameToPmMap.get(localChildName);
     }
   }
 
@@ -560,11 +560,23 @@ public abstract class PmObjectBase implements PmObject {
   /* package */ void registerInPmBeanCache(PmBean<?> pmBean) {
     BeanPmFactory f = getOwnPmElementFactory();
     if ((f != null) && f.canMakePmFor(pmBean.getPmBean())) {
-      if (pmBeanFactoryCache == null) {
-        pmBeanFactoryCache = new BeanPmCacheImpl();
+      zz_getOrCreateBeanFactoryCache().add(pmBean);
+    }
+  }
+
+  private BeanPmCache zz_getOrCreateBeanFactoryCache() {
+    PmSideData sd = zz_getOrCreateSideData();
+    BeanPmCache cache = sd.pmBeanFactoryCache;
+    if (cache == null) {
+      synchronized (sd) {
+        cache = sd.pmBeanFactoryCache;
+        if (cache == null) {
+          cache = new BeanPmCacheImpl();
+          sd.pmBeanFactoryCache = cache;
+        }
       }
-      pmBeanFactoryCache.add(pmBean);
     }
+    return cache;
   }
 
   /* package */ BeanPmFactory getOwnPmElementFactory() {
@@ -574,11 +586,6 @@ public abstract class PmObjectBase implements PmObject {
 
   // ======== Static data ======== //
 
-  /**
-   * A map of static definitions for presentation model.
-   */
-  private static Map<Object, MetaData> pmKeyToMetaDataMap = new ConcurrentHashMap<Object, MetaData>();
-
   /**
    * A reference to the static definition for this presentation model.
    */
@@ -616,16 +623,11 @@ public abstract class PmObjectBase implements PmObject {
         pmParent.ensurePmMetaDataInitialization();
       }
       if (pmMetaData == null) {
-        // Prevent concurrent double initialization.
-        // Can't be done on class level because of
-        // http://bugs.sun.com/bugdatabase/view_bug.do;jsessionid=82a8144e020c83fd1bd1bd741b6e?bug_id=7031759
-        synchronized(pmKeyToMetaDataMap) {
-          try {
-            zz_initMetaData(pmParent, (String) null, false, false);
-          }
-          catch (RuntimeException e) {
-            PmObjectUtil.throwAsPmRuntimeException(this, e);
-          }
+        try {
+          zz_initMetaData(pmParent, (String) null, false, false);
+        }
+        catch (RuntimeException e) {
+          PmObjectUtil.throwAsPmRuntimeException(this, e);
         }
       }
     }
@@ -676,114 +678,127 @@ public abstract class PmObjectBase implements PmObject {
    *          The name of this presentation model. Is often used to find
    *          annotations attached to a field or getter.
    */
-  /* package */ void zz_initMetaData(PmObjectBase parentPm, String name, boolean isPmField, boolean isSubPm) {
+  /* package */ void zz_initMetaData(PmObjectBase parentPm, final String name, final boolean isPmField, final boolean isSubPm) {
     if (pmMetaData == null) {
       String lastKeyPart = (name != null)
                             ? name
                             : getClass().getName();
-      String key = (pmParent != null)
+      final String key = (pmParent != null)
                             ? PmUtil.getAbsoluteName(pmParent) + PmObjectBase.MetaData.NAME_PATH_DELIMITER + lastKeyPart
                             : lastKeyPart;
 
-      setPmMetaData(pmKeyToMetaDataMap.get(key));
+      // The registry ensures that the meta data for each key gets initialized only once.
+      // Concurrent requests for other keys are not blocked.
+      MetaData md = PmMetaDataRegistry.INSTANCE.getOrInit(key, new PmMetaDataRegistry.MetaDataInitializer() {
+        @Override
+        public MetaData initMetaData(PmMetaDataRegistry.MetaDataFuture future) {
+          return zz_makeMetaData(key, name, isPmField, isSubPm, future);
+        }
+      });
       if (pmMetaData == null) {
-        // Double check with synchronization to ensure maximum get performance and to ensure that
-        // meta data for each PM class gets initialized only once.
-        // This can't be done on class level because of http://bugs.sun.com/bugdatabase/view_bug.do;jsessionid=82a8144e020c83fd1bd1bd741b6e?bug_id=7031759
-        synchronized (pmKeyToMetaDataMap) {
-          setPmMetaData(pmKeyToMetaDataMap.get(key));
-          if (pmMetaData == null) {
-            setPmMetaData(makeMetaData());
-            pmMetaData.name = (name != null)
-                                ? name
-                                : StringUtils.uncapitalize(getClass().getSimpleName());
-            pmMetaData.isPmField = isPmField;
-            pmMetaData.isSubPm = isSubPm;
-
-            PmConversation conversation = getPmConversation();
-            if (conversation == null) {
-              throw new PmRuntimeException(this, "PM without pmConversation found. Please make sure that a conversation exists within the PM parent hierarchy.");
-            }
-            pmMetaData.init(conversation.getPmDefaults());
-
-            if (pmParent == null &&
-                ! (this instanceof PmConversation)) {
-              String reportName = name != null ? name : getClass().getSimpleName();
-              throw new PmRuntimeException("Unable to initialize PM '" + reportName + "' without defined pmParent.\n" +
-                  "Please make sure that the pmParent is defined either by using an initializing constructor\n" +
-                  "or by using the method setpmParent(pmParent) before using this instance.\n" +
-                  "PM class: " + getClass().getCanonicalName());
-            }
-
-            pmMetaData.absoluteName = key;
-
-            // Perform the subclass specific meta data initialization after having defined names.
-            try {
-              initMetaData(pmMetaData);
-            }
-            catch (RuntimeException e) {
-              throw new PmRuntimeException(this, e);
-            }
-            pmKeyToMetaDataMap.put(key, pmMetaData);
-
+        setPmMetaData(md);
+      }
+    }
 
-            // -- Meta data initialization for PM fields --
-            List<BeanAttrAccessor> allFields = new ArrayList<BeanAttrAccessor>();
-            for (Field f : ClassUtil.getAllFields(getClass())) {
-              // XXX olaf: Currently only public fields are considered.
-              if ((f.getModifiers() & Modifier.PUBLIC) != 0 &&
-                  (f.getModifiers() & Modifier.STATIC) == 0) {
+    if (pmMetaData == null) {
+      throw new PmRuntimeException("failed to initialize PM '" + name +
+          "'. PM class=" + getClass() +
+          (parentPm != null ? " parentPm=" + parentPm : "")
+          );
+    }
+  }
 
-                BeanAttrAccessor accessor = new BeanAttrAccessorImpl(getClass(), f);
-                Object fieldValue = accessor.getBeanAttrValue(this);
+  /**
+   * Creates and initializes the meta data of this PM. Initializes the meta
+   * data of the PM fields too.
+   *
+   * @param future
+   *          Gets informed about the not yet completed meta data. May be
+   *          <code>null</code>.
+   * @return The completely initialized meta data.
+   */
+  private MetaData zz_makeMetaData(String key, String name, boolean isPmField, boolean isSubPm, PmMetaDataRegistry.MetaDataFuture future) {
+    setPmMetaData(makeMetaData());
+    pmMetaData.name = (name != null)
+                        ? name
+                        : StringUtils.uncapitalize(getClass().getSimpleName());
+    pmMetaData.isPmField = isPmField;
+    pmMetaData.isSubPm = isSubPm;
+
+    PmConversation conversation = getPmConversation();
+    if (conversation == null) {
+      throw new PmRuntimeException(this, "PM without pmConversation found. Please make sure that a conversation exists within the PM parent hierarchy.");
+    }
+    pmMetaData.init(conversation.getPmDefaults());
+
+    if (pmParent == null &&
+        ! (this instanceof PmConversation)) {
+      String reportName = name != null ? name : getClass().getSimpleName();
+      throw new PmRuntimeException("Unable to initialize PM '" + reportName + "' without defined pmParent.\n" +
+          "Please make sure that the pmParent is defined either by using an initializing constructor\n" +
+          "or by using the method setpmParent(pmParent) before using this instance.\n" +
+          "PM class: " + getClass().getCanonicalName());
+    }
 
-                if (fieldValue instanceof PmObject) {
-                  if ((f.getModifiers() & Modifier.FINAL) == 0) {
-                    LOG.warn("PM field has no 'final' declaration. " +
-                        "Please check if it may be declared this way. The field: " + f);
-                  }
+    pmMetaData.absoluteName = key;
 
-                  allFields.add(accessor);
-                }
-              }
-            }
+    // Perform the subclass specific meta data initialization after having defined names.
+    try {
+      initMetaData(pmMetaData);
+    }
+    catch (RuntimeException e) {
+      throw new PmRuntimeException(this, e);
+    }
+    if (future != null) {
+      future.publishInProgress(pmMetaData);
+    }
 
-            int numOfPmFields = allFields.size();
-            if (numOfPmFields > 0) {
-              pmMetaData.childFieldAccessorArray = new BeanAttrAccessor[numOfPmFields];
-              allFields.toArray(pmMetaData.childFieldAccessorArray);
-
-              pmMetaData.childFieldMetaDataArray = new MetaData[numOfPmFields];
-              pmMetaData.nameToChildAccessorMap = new HashMap<String, BeanAttrAccessor>(numOfPmFields);
-              for (int i=0; i<pmMetaData.childFieldAccessorArray.length; ++i) {
-                BeanAttrAccessor a = pmMetaData.childFieldAccessorArray[i];
-                String attrName = a.getName();
-                PmObjectBase child = (PmObjectBase)a.getBeanAttrValue(this);
-                child.zz_initMetaData(this, attrName, true, true);
-                pmMetaData.childFieldMetaDataArray[i] = child.pmMetaData;
-                pmMetaData.nameToChildAccessorMap.put(attrName, a);
-              }
-              pmInitState = PmInitState.FIELD_BOUND_CHILD_META_DATA_INITIALIZED;
+    // -- Meta data initialization for PM fields --
+    List<BeanAttrAccessor> allFields = new ArrayList<BeanAttrAccessor>();
+    for (Field f : ClassUtil.getAllFields(getClass())) {
+      // XXX olaf: Currently only public fields are considered.
+      if ((f.getModifiers() & Modifier.PUBLIC) != 0 &&
+          (f.getModifiers() & Modifier.STATIC) == 0) {
 
-              for (int i=0; i<pmMetaData.childFieldAccessorArray.length; ++i) {
-                PmObjectBase child = pmMetaData.childFieldAccessorArray[i].getBeanAttrValue(this);
-                if (child.pmInitState == PmInitState.NOT_INITIALIZED) {
-                  child.ensurePmMetaDataInitialization();
-                }
-              }
+        BeanAttrAccessor accessor = new BeanAttrAccessorImpl(getClass(), f);
+        Object fieldValue = accessor.getBeanAttrValue(this);
 
-            }
+        if (fieldValue instanceof PmObject) {
+          if ((f.getModifiers() & Modifier.FINAL) == 0) {
+            LOG.warn("PM field has no 'final' declaration. " +
+                "Please check if it may be declared this way. The field: " + f);
           }
+
+          allFields.add(accessor);
         }
       }
     }
 
-    if (pmMetaData == null) {
-      throw new PmRuntimeException("failed to initialize PM '" + name +
-          "'. PM class=" + getClass() +
-          (parentPm != null ? " parentPm=" + parentPm : "")
-          );
+    int numOfPmFields = allFields.size();
+    if (numOfPmFields > 0) {
+      pmMetaData.childFieldAccessorArray = new BeanAttrAccessor[numOfPmFields];
+      allFields.toArray(pmMetaData.childFieldAccessorArray);
+
+      pmMetaData.childFieldMetaDataArray = new MetaData[numOfPmFields];
+      pmMetaData.nameToChildAccessorMap = new HashMap<String, BeanAttrAccessor>(numOfPmFields);
+      for (int i=0; i<pmMetaData.childFieldAccessorArray.length; ++i) {
+        BeanAttrAccessor a = pmMetaData.childFieldAccessorArray[i];
+        String attrName = a.getName();
+        PmObjectBase child = (PmObjectBase)a.getBeanAttrValue(this);
+        child.zz_initMetaData(this, attrName, true, true);
+        pmMetaData.childFieldMetaDataArray[i] = child.pmMetaData;
+        pmMetaData.nameToChildAccessorMap.put(attrName, a);
+      }
+      pmInitState = PmInitState.FIELD_BOUND_CHILD_META_DATA_INITIALIZED;
+
+      for (int i=0; i<pmMetaData.childFieldAccessorArray.length; ++i) {
+        PmObjectBase child = pmMetaData.childFieldAccessorArray[i].getBeanAttrValue(this);
+        if (child.pmInitState == PmInitState.NOT_INITIALIZED) {
+          child.ensurePmMetaDataInitialization();
+        }
+      }
     }
+    return pmMetaData;
   }
 
   /**
@@ -804,9 +819,11 @@ public abstract class PmObjectBase implements PmObject {
           LOG.debug("Pm interface usage within an 'onPmInit()' in PM: " + PmUtil.getPmLogString(this));
       }
       else {
-        ensurePmMetaDataInitialization();
-
         synchronized(this) {
+          // Is done within the synchronized block because PMs may be used by
+          // concurrent threads, e.g. by lock free PM factory lookups.
+          ensurePmMetaDataInitialization();
+
           // ensure strict top-down initialization of the PM tree.
           if (pmParent != null) {
             pmParent.zz_ensurePmInitialization();
@@ -1037,9 +1054,28 @@ public abstract class PmObjectBase implements PmObject {
     /** all methods annotated with {@link PmInit} */
     private List<Method> initMethods;
 
+    /** The usage counters of the caches used for PMs of this definition. Key: cache name. */
+    private final Map<String, CacheMetrics> cacheNameToMetricsMap = new ConcurrentHashMap<String, CacheMetrics>(4);
+
     public String getName() { return name; }
     /* package */ String getAbsoluteName() { return absoluteName; }
 
+    /**
+     * Provides the usage counters of a cache of this PM definition.
+     * They are registered within the {@link CacheMetricsRegistry} on first request.
+     *
+     * @param cacheName the name of the cache strategy.
+     * @return the metrics. Never <code>null</code>.
+     */
+    /* package */ CacheMetrics getCacheMetrics(String cacheName) {
+      CacheMetrics m = cacheNameToMetricsMap.get(cacheName);
+      if (m == null) {
+        m = CacheMetricsRegistry.INSTANCE.getMetrics(absoluteName + "-" + cacheName);
+        cacheNameToMetricsMap.put(cacheName, m);
+      }
+      return m;
+    }
+
     @SuppressWarnings("rawtypes")
     public PmTitleProvider getPmTitleProvider() {
       return pmTitleProvider;
@@ -1129,18 +1165,23 @@ public abstract class PmObjectBase implements PmObject {
 
   @Override
   public Object getPmProperty(String propName) {
-    return pmProperties.get(propName);
+    PmSideData sd = pmSideData;
+    return (sd != null) ? sd.pmProperties.get(propName) : null;
   }
 
   @Override
   public void setPmProperty(String propName, Object value) {
-    if (pmProperties.isEmpty()) {
-      pmProperties = new ConcurrentHashMap<String, Object>();
+    if (value == null && pmSideData == null) {
+      return;
+    }
+    PmSideData sd = zz_getOrCreateSideData();
+    if (sd.pmProperties.isEmpty()) {
+      sd.pmProperties = new ConcurrentHashMap<String, Object>();
     }
     if (value == null) {
-      pmProperties.remove(propName);
+      sd.pmProperties.remove(propName);
     } else {
-      pmProperties.put(propName, value);
+      sd.pmProperties.put(propName, value);
     }
   }
 
@@ -1148,37 +1189,49 @@ public abstract class PmObjectBase implements PmObject {
 
   private static final CacheStrategy CACHE_TITLE_LOCAL = new CacheStrategyBase<PmObjectBase>("CACHE_TITLE_LOCAL") {
     @Override protected Object readRawValue(PmObjectBase pm) {
-      return pm.pmCachedTitle;
+      PmSideData sd = pm.pmSideData;
+      return (sd != null) ? sd.pmCachedTitle : null;
     }
     @Override protected void writeRawValue(PmObjectBase pm, Object value) {
-      pm.pmCachedTitle = (String)value;
+      pm.zz_getOrCreateSideData().pmCachedTitle = (String)value;
     }
     @Override protected void clearImpl(PmObjectBase pm) {
-      pm.pmCachedTitle = null;
+      PmSideData sd = pm.pmSideData;
+      if (sd != null) {
+        sd.pmCachedTitle = null;
+      }
     }
   };
 
   private static final CacheStrategy CACHE_VISIBLE_LOCAL = new CacheStrategyBase<PmObjectBase>("CACHE_VISIBLE_LOCAL") {
     @Override protected Object readRawValue(PmObjectBase pm) {
-      return pm.pmVisibleCache;
+      PmSideData sd = pm.pmSideData;
+      return (sd != null) ? sd.pmVisibleCache : null;
     }
     @Override protected void writeRawValue(PmObjectBase pm, Object value) {
-      pm.pmVisibleCache = value;
+      pm.zz_getOrCreateSideData().pmVisibleCache = value;
     }
     @Override protected void clearImpl(PmObjectBase pm) {
-      pm.pmVisibleCache = null;
+      PmSideData sd = pm.pmSideData;
+      if (sd != null) {
+        sd.pmVisibleCache = null;
+      }
     }
   };
 
   private static final CacheStrategy CACHE_ENABLED_LOCAL = new CacheStrategyBase<PmObjectBase>("CACHE_ENABLED_LOCAL") {
     @Override protected Object readRawValue(PmObjectBase pm) {
-      return pm.pmEnabledCache;
+      PmSideData sd = pm.pmSideData;
+      return (sd != null) ? sd.pmEnabledCache : null;
     }
     @Override protected void writeRawValue(PmObjectBase pm, Object value) {
-      pm.pmEnabledCache = value;
+      pm.zz_getOrCreateSideData().pmEnabledCache = value;
     }
     @Override protected void clearImpl(PmObjectBase pm) {
-      pm.pmEnabledCache = null;
+      PmSideData sd = pm.pmSideData;
+      if (sd != null) {
+        sd.pmEnabledCache = null;
+      }
     }
   };
 
@@ -1186,21 +1239,24 @@ public abstract class PmObjectBase implements PmObject {
     MapUtil.makeFixHashMap(
       CacheMode.OFF,      CacheStrategyNoCache.INSTANCE,
       CacheMode.ON,    CACHE_TITLE_LOCAL,
-      CacheMode.REQUEST,  new CacheStrategyRequest("CACHE_TITLE_IN_REQUEST", "ti")
+      CacheMode.REQUEST,  new CacheStrategyRequest("CACHE_TITLE_IN_REQUEST", "ti"),
+      CacheMode.CONVERSATION, new CacheStrategyBoundedConversation("CACHE_TITLE_IN_CONVERSATION", "ti")
     );
 
   private static final Map<CacheMode, CacheStrategy> CACHE_STRATEGIES_FOR_ENABLEMENT =
     MapUtil.makeFixHashMap(
       CacheMode.OFF,      CacheStrategyNoCache.INSTANCE,
       CacheMode.ON,    CACHE_ENABLED_LOCAL,
-      CacheMode.REQUEST,  new CacheStrategyRequest("CACHE_ENABLED_IN_REQUEST", "en")
+      CacheMode.REQUEST,  new CacheStrategyRequest("CACHE_ENABLED_IN_REQUEST", "en"),
+      CacheMode.CONVERSATION, new CacheStrategyBoundedConversation("CACHE_ENABLED_IN_CONVERSATION", "en")
     );
 
   private static final Map<CacheMode, CacheStrategy> CACHE_STRATEGIES_FOR_VISIBILITY =
     MapUtil.makeFixHashMap(
       CacheMode.OFF,      CacheStrategyNoCache.INSTANCE,
       CacheMode.ON,    CACHE_VISIBLE_LOCAL,
-      CacheMode.REQUEST,  new CacheStrategyRequest("CACHE_VISIBLE_IN_REQUEST", "vi")
+      CacheMode.REQUEST,  new CacheStrategyRequest("CACHE_VISIBLE_IN_REQUEST", "vi"),
+      CacheMode.CONVERSATION, new CacheStrategyBoundedConversation("CACHE_VISIBLE_IN_CONVERSATION", "vi")
     );
 
   // ====== dynamic pm support ====== //
@@ -1226,17 +1282,93 @@ public abstract class PmObjectBase implements PmObject {
       pmAsPmBase.zz_initMetaData(this, name, false, true);
     }
 
-    if (pmDynamicSubPms == PmDynamicSubPms.EMPTY_INSTANCE) {
-      pmDynamicSubPms = new PmDynamicSubPms();
+    PmSideData sd = zz_getOrCreateSideData();
+    if (sd.pmDynamicSubPms == PmDynamicSubPms.EMPTY_INSTANCE) {
+      sd.pmDynamicSubPms = new PmDynamicSubPms();
     }
-    pmDynamicSubPms.addPm(name, pm);
+    sd.pmDynamicSubPms.addPm(name, pm);
   }
 
   protected void removePmChild(PmObject pm) {
-    pmDynamicSubPms.removePm(pm);
+    zz_getDynamicSubPms().removePm(pm);
+  }
+
+  private PmDynamicSubPms zz_getDynamicSubPms() {
+    PmSideData sd = pmSideData;
+    return (sd != null) ? sd.pmDynamicSubPms : PmDynamicSubPms.EMPTY_INSTANCE;
+  }
+
+  // ====== compact instance layout support ====== //
+
+  private static final AtomicReferenceFieldUpdater<PmObjectBase, PmSideData> SIDE_DATA_UPDATER =
+      AtomicReferenceFieldUpdater.newUpdater(PmObjectBase.class, PmSideData.class, "pmSideData");
+
+  /**
+   * @param flagMask the <code>FLAG_*</code> bit to check.
+   * @return <code>true</code> if the flag is set.
+   */
+  /* package */ final boolean zz_isFlagSet(int flagMask) {
+    return (pmFlags & flagMask) != 0;
+  }
+
+  /**
+   * @param flagMask the <code>FLAG_*</code> bit to change.
+   * @param value the new flag value.
+   */
+  /* package */ final void zz_setFlag(int flagMask, boolean value) {
+    if (value) {
+      pmFlags |= flagMask;
+    } else {
+      pmFlags &= ~flagMask;
+    }
+  }
+
+  /**
+   * @return the side data of this PM. Gets allocated on first call.
+   */
+  /* package */ final PmSideData zz_getOrCreateSideData() {
+    PmSideData sd = pmSideData;
+    if (sd == null) {
+      SIDE_DATA_UPDATER.compareAndSet(this, null, new PmSideData());
+      sd = pmSideData;
+    }
+    return sd;
   }
 
-  private PmDynamicSubPms pmDynamicSubPms = PmDynamicSubPms.EMPTY_INSTANCE;
+  /**
+   * @return the bean to PM association cache of this PM or <code>null</code>.
+   */
+  /* package */ final BeanPmCache zz_getBeanFactoryCache() {
+    PmSideData sd = pmSideData;
+    return (sd != null) ? sd.pmBeanFactoryCache : null;
+  }
+
+  /**
+   * A container for rarely used per-instance PM data.<br>
+   * Is only allocated if one of its parts is used.
+   * <p>
+   * Most PMs, especially the attributes of table row PMs, don't have listeners,
+   * properties, dynamic children, factory generated children or locally cached
+   * titles. Those PMs don't pay the memory for these references.
+   */
+  static final class PmSideData {
+    /** The set of event listeners. */
+    PmEventTable pmEventTable;
+    PmEventTable pmWeakEventTable;
+
+    /** An optional cache for the bean to PM association within the current PM hierarchy scope. */
+    volatile BeanPmCache pmBeanFactoryCache;
+
+    /** A container for application/user specific additional information. */
+    Map<String, Object> pmProperties = Collections.emptyMap();
+
+    PmDynamicSubPms pmDynamicSubPms = PmDynamicSubPms.EMPTY_INSTANCE;
+
+    /** Local caches. Used in case of {@link CacheMode#ON}. */
+    Object pmVisibleCache;
+    Object pmEnabledCache;
+    String pmCachedTitle;
+  }
 
   /**
    * A data structure that exists only in case of a PM with dynamic sub-PMs.
@@ -1328,114 +1460,6 @@ public abstract class PmObjectBase implements PmObject {
 
 } // end of PmObjectBase
 
-
-/**
- * A container for registered event listener - event mask pairs.
- * <p>
- * FIXME olaf: Currently the listener references are weak.
- *             An binding implementation with complete unbind support should be able
- *             to handle strong references too...
- * <p>
- * XXX olaf: The implementation is not really optimized for size and speed.
- *           Have a look the SWT EventTable for a better performing implementation.<br>
- *           Usage of the {@link CopyOnWriteArraySet} may also be a good choice.
- *
- * @author olaf boede
- */
-class PmEventTable {
-  private static final Log log = LogFactory.getLog(PmEventTable.class);
-
-  private final Map<PmEventListener, Integer> pmEventListeners;
-
-  public PmEventTable(boolean isWeak) {
-    pmEventListeners = isWeak
-          ? new WeakHashMap<PmEventListener, Integer>()
-          : new ConcurrentHashMap<PmEventListener, Integer>();
-  }
-
-  public synchronized void addListener(int eventMask, PmEventListener listener) {
-    Integer foundMask = pmEventListeners.get(listener);
-
-    if (foundMask == null) {
-      pmEventListeners.put(listener, eventMask);
-    }
-    else {
-      if (foundMask == eventMask) {
-        log.warn("Duplicate listerner registration call. Listener: " + listener);
-      }
-
-      int newMask = foundMask | eventMask;
-      pmEventListeners.put(listener, newMask);
-    }
-  }
-
-  public synchronized void removeListener(PmEventListener listener) {
-    pmEventListeners.remove(listener);
-  }
-
-  public synchronized void removeListener(int eventMask, PmEventListener listener) {
-    Integer foundMask = pmEventListeners.get(listener);
-
-    if (foundMask != null) {
-      int negEventMask = (eventMask ^ PmEvent.ALL);
-      int newMask = foundMask.intValue() & negEventMask;
-      if (newMask == 0) {
-        pmEventListeners.remove(listener);
-      }
-      else {
-        pmEventListeners.put(listener, newMask);
-      }
-    }
-  }
-
-  /**
-   * @param event the event to handle.
-   * @param preProcess if set to <code>true</code>, only the pre process part will be done for each listener.<br>
-   *                   if set to <code>false</code>, only the handle part will be done for each listener.<br>
-   */
-  @SuppressWarnings("unchecked")
-  /* package */ void fireEvent(final PmEvent event, boolean preProcess) {
-    boolean hasListeners = !pmEventListeners.isEmpty();
-
-    if (log.isTraceEnabled())
-      log.trace("fireChange[" + event + "] for event source   : " + PmEventApi.getThreadEventSource() +
-          (hasListeners ? "\n\teventListeners: " + pmEventListeners : ""));
-
-    if (hasListeners) {
-      boolean isPropagationEvent = event.isPropagationEvent();
-      // copy the listener list to prevent problems with listener
-      // set changes within the notification processing loop.
-      for (Map.Entry<PmEventListener, Integer> e : pmEventListeners.entrySet().toArray(new Map.Entry[pmEventListeners.size()])) {
-        // could be null because of WeakReferences.
-        if(e == null || e.getValue() == null) {
-          continue;
-        }
-        int listenerMask = e.getValue().intValue();
-        boolean isPropagationListener = ((listenerMask & PmEvent.IS_EVENT_PROPAGATION) != 0);
-        // Propagation events have to be passed only to listeners that observe that special flag.
-        // Standard events will be passed to listeners that don't have set this flag.
-        boolean listenerMaskMatch = (listenerMask & event.getChangeMask()) != 0;
-        if (listenerMaskMatch &&
-            (isPropagationEvent == isPropagationListener)) {
-          if (preProcess) {
-            // XXX olaf: prevent this permanent base class check to optimize runtime.
-            if (e.getKey() instanceof PmEventListener.WithPreprocessCallback) {
-              ((PmEventListener.WithPreprocessCallback)e.getKey()).preProcess(event);
-            }
-          } else {
-            e.getKey().handleEvent(event);
-          }
-        }
-      }
-    }
-  }
-
-  boolean isEmpty() {
-    return pmEventListeners.isEmpty();
-  }
-
-} // end of PmEventTable
-
 /**
  * Core internal utility for common internal tasks.
  *
@@ -64,6 +64,7 @@ import org.pm4j.core.pm.api.PmEventApi;
 import org.pm4j.core.pm.api.PmExpressionApi;
 import org.pm4j.core.pm.api.PmValidationApi;
 import org.pm4j.core.pm.impl.cache.CacheStrategyBase;
+import org.pm4j.core.pm.impl.cache.CacheStrategyBoundedConversation;
 import org.pm4j.core.pm.impl.cache.CacheStrategyRequest;
 import org.pm4j.core.pm.impl.pageable.PmBeanCollection;
 import org.pm4j.core.pm.impl.pathresolver.PathResolver;
@@ -125,7 +126,8 @@ public class PmTableImpl
       MapUtil.makeFixHashMap(
         CacheMode.OFF,      CacheStrategyNoCache.INSTANCE,
         CacheMode.ON,       new CacheStrategyImMemCollectionReference("CACHE_TABLE_COLLECTION_LOCALLY"),
-        CacheMode.REQUEST,  new CacheStrategyRequest("CACHE_TABLE_COLLECTION_IN_REQUEST", "tc")
+        CacheMode.REQUEST,  new CacheStrategyRequest("CACHE_TABLE_COLLECTION_IN_REQUEST", "tc"),
+        CacheMode.CONVERSATION, new CacheStrategyBoundedConversation("CACHE_TABLE_COLLECTION_IN_CONVERSATION", "tc")
       );
 
   /** An optionally used cache for in-memory backing collections. */
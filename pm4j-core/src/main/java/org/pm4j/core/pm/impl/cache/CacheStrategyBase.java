@@ -1,11 +1,28 @@
 package org.pm4j.core.pm.impl.cache;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.pm4j.common.cache.CacheMetrics;
 import org.pm4j.common.cache.CacheStrategy;
 import org.pm4j.core.pm.PmObject;
+import org.pm4j.core.pm.api.PmCacheApi;
 
 //TODO oboede: remove the PM dependency.
 public abstract class CacheStrategyBase<PM extends PmObject> implements CacheStrategy {
 
+  /** Limits the number of remembered cache misses per thread. */
+  private static final int MAX_PENDING_INITS = 32;
+
+  /**
+   * The start times of the value computations that follow a cache miss. Per thread.<br>
+   * Computations may be nested because a computation may read other cached values.<br>
+   * The PMs are weakly referenced because a computation may fail and never report its
+   * initialization. Pooled threads would otherwise keep these PMs alive.
+   */
+  private static final ThreadLocal<List<PendingInit>> PENDING_INITS = new ThreadLocal<List<PendingInit>>();
+
   private String cacheName;
 
   public CacheStrategyBase(String cacheName) {
@@ -29,17 +46,18 @@ public abstract class CacheStrategyBase<PM extends PmObject> implements CacheStr
     PM pm = (PM)ctxt;
     Object v = readRawValue(pm);
     if (v == null) {
+      countMiss(pm);
       return NO_CACHE_VALUE;
     } else {
-      logPmCacheHit(pm);
+      countHit(pm);
       return (v != NULL_VALUE_OBJECT) ? v : null;
     }
   }
 
   @Override @SuppressWarnings("unchecked")
-  public Object setAndReturnCachedValue(Object ctxt, Object v) {
+  public <T> T setAndReturnCachedValue(Object ctxt, T v) {
     PM pm = (PM)ctxt;
-    logPmCacheInit(pm);
+    countInit(pm);
     writeRawValue(pm, (v != null)
         ? v
         : NULL_VALUE_OBJECT);
@@ -51,12 +69,71 @@ public abstract class CacheStrategyBase<PM extends PmObject> implements CacheStr
     return true;
   }
 
-  protected void logPmCacheHit(PmObject pm) {
-    CacheLog.INSTANCE.logPmCacheHit(pm, cacheName);
+  /**
+   * @return the name of the cache strategy.
+   */
+  public String getCacheName() {
+    return cacheName;
+  }
+
+  /**
+   * @param pm the PM to get the cache metrics for.
+   * @return the usage counters of this cache for the definition of the given PM.
+   */
+  protected CacheMetrics getCacheMetrics(PmObject pm) {
+    return PmCacheApi.getCacheMetrics(pm, cacheName);
   }
 
-  protected void logPmCacheInit(PmObject pm) {
-    CacheLog.INSTANCE.logPmCacheInit(pm, cacheName);
+  protected void countHit(PmObject pm) {
+    getCacheMetrics(pm).countHit();
+  }
+
+  protected void countMiss(PmObject pm) {
+    getCacheMetrics(pm).countMiss();
+
+    List<PendingInit> pendingInits = PENDING_INITS.get();
+    if (pendingInits == null) {
+      pendingInits = new ArrayList<PendingInit>();
+      PENDING_INITS.set(pendingInits);
+    } else if (pendingInits.size() >= MAX_PENDING_INITS) {
+      pendingInits.remove(0);
+    }
+    pendingInits.add(new PendingInit(this, pm, System.nanoTime()));
+  }
+
+  /**
+   * Counts the value initialization. If it follows a cache miss, the time since the miss
+   * gets reported as recompute time.
+   */
+  protected void countInit(PmObject pm) {
+    long recomputeNanos = 0;
+    List<PendingInit> pendingInits = PENDING_INITS.get();
+    for (int i = (pendingInits != null) ? pendingInits.size() - 1 : -1; i >= 0; --i) {
+      PendingInit p = pendingInits.get(i);
+      if (p.strategy == this && p.pmRef.get() == pm) {
+        recomputeNanos = System.nanoTime() - p.startNanos;
+        // Nested computations that were not finished (e.g. because of an exception) get forgotten.
+        pendingInits.subList(i, pendingInits.size()).clear();
+        break;
+      }
+    }
+    // Releases the list of the thread if there is no pending computation.
+    if (pendingInits != null && pendingInits.isEmpty()) {
+      PENDING_INITS.remove();
+    }
+    getCacheMetrics(pm).countInit(recomputeNanos);
+  }
+
+  private static final class PendingInit {
+    final CacheStrategyBase<?> strategy;
+    final WeakReference<PmObject> pmRef;
+    final long startNanos;
+
+    PendingInit(CacheStrategyBase<?> strategy, PmObject pm, long startNanos) {
+      this.strategy = strategy;
+      this.pmRef = new WeakReference<PmObject>(pm);
+      this.startNanos = startNanos;
+    }
   }
 
 }
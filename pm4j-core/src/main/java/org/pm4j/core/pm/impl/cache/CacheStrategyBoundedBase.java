@@ -0,0 +1,86 @@
+package org.pm4j.core.pm.impl.cache;
+
+import org.apache.commons.lang.StringUtils;
+import org.pm4j.common.cache.BoundedCache;
+import org.pm4j.core.pm.PmObject;
+import org.pm4j.core.pm.annotation.PmCacheCfg;
+
+/**
+ * Base class for cache strategies that store their values in a {@link BoundedCache}.
+ * <p>
+ * The strategy instances registered for a {@link PmCacheCfg.CacheMode} are templates.
+ * The {@link PmCacheCfg} that activates the strategy provides the cache name, size and time to live
+ * using {@link #makeCfgSpecificStrategy(PmCacheCfg)}.
+ *
+ * @author olaf boede
+ */
+public abstract class CacheStrategyBoundedBase extends CacheStrategyBase<PmObject> {
+
+  protected final String cacheVarKeyPfx;
+  protected final String boundedCacheName;
+  protected final int maxSize;
+  protected final long timeToLiveMillis;
+
+  /**
+   * @param cacheName
+   *          the name of the cache strategy. Is also used as default name for the bounded cache.
+   * @param cacheVarKeyPfx
+   *          identifies the cached PM aspect.
+   * @param boundedCacheName
+   *          the name of the {@link BoundedCache} to use. If <code>null</code> the cache name will be used.
+   * @param maxSize
+   *          the maximum number of cache entries.
+   * @param timeToLiveMillis
+   *          the maximum age of the cache entries. A value less or equal to zero means no time limit.
+   */
+  public CacheStrategyBoundedBase(String cacheName, String cacheVarKeyPfx, String boundedCacheName, int maxSize, long timeToLiveMillis) {
+    super(cacheName);
+    this.cacheVarKeyPfx = cacheVarKeyPfx;
+    this.boundedCacheName = StringUtils.isNotBlank(boundedCacheName) ? boundedCacheName : cacheName;
+    this.maxSize = maxSize;
+    this.timeToLiveMillis = timeToLiveMillis;
+  }
+
+  /**
+   * Creates a strategy instance that uses the cache name and limits defined by the given annotation.
+   *
+   * @param cfg the cache configuration that activates this strategy.
+   * @return the configured strategy.
+   */
+  public abstract CacheStrategyBoundedBase makeCfgSpecificStrategy(PmCacheCfg cfg);
+
+  /**
+   * @param pm the PM to get the cache for.
+   * @return the cache that stores the values for the given PM.
+   */
+  public abstract BoundedCache getCache(PmObject pm);
+
+  /**
+   * @param pm the PM to get the cache key for.
+   * @return the key that identifies the value of the given PM within its {@link BoundedCache}.
+   */
+  protected abstract Object getCacheKey(PmObject pm);
+
+  @Override
+  protected Object readRawValue(PmObject pm) {
+    return getCache(pm).get(getCacheKey(pm));
+  }
+
+  @Override
+  protected void writeRawValue(PmObject pm, Object value) {
+    getCache(pm).put(getCacheKey(pm), value);
+  }
+
+  @Override
+  protected void clearImpl(PmObject pm) {
+    getCache(pm).remove(getCacheKey(pm));
+  }
+
+  /**
+   * @return a new cache instance having the name and limits of this strategy.
+   */
+  protected BoundedCache makeCache() {
+    return new BoundedCache(boundedCacheName, maxSize, timeToLiveMillis);
+  }
+
+}
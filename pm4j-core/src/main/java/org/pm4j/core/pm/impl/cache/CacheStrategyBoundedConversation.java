@@ -0,0 +1,56 @@
+package org.pm4j.core.pm.impl.cache;
+
+import org.pm4j.common.cache.BoundedCache;
+import org.pm4j.core.pm.PmConversation;
+import org.pm4j.core.pm.PmObject;
+import org.pm4j.core.pm.annotation.PmCacheCfg;
+
+/**
+ * Caches the values within a size limited {@link BoundedCache} that is stored as named object
+ * of the {@link PmConversation}.
+ * <p>
+ * Each PM instance has its own cache entry.
+ *
+ * @author olaf boede
+ */
+public class CacheStrategyBoundedConversation extends CacheStrategyBoundedBase {
+
+  private final String namedObjectKey;
+
+  public CacheStrategyBoundedConversation(String cacheName, String cacheVarKeyPfx) {
+    this(cacheName, cacheVarKeyPfx, null, BoundedCache.DEFAULT_MAX_SIZE, 0);
+  }
+
+  public CacheStrategyBoundedConversation(String cacheName, String cacheVarKeyPfx, String boundedCacheName, int maxSize, long timeToLiveMillis) {
+    super(cacheName, cacheVarKeyPfx, boundedCacheName, maxSize, timeToLiveMillis);
+    this.namedObjectKey = "pm.bc." + cacheVarKeyPfx + "_" + this.boundedCacheName;
+  }
+
+  @Override
+  public CacheStrategyBoundedBase makeCfgSpecificStrategy(PmCacheCfg cfg) {
+    return new CacheStrategyBoundedConversation(getCacheName(), cacheVarKeyPfx, cfg.name(), cfg.maxSize(), cfg.timeToLiveSeconds() * 1000L);
+  }
+
+  /**
+   * Provides the conversation specific cache. The cache gets created on first access.
+   * <p>
+   * All strategies with the same cache name share the cache of a conversation.
+   * The first strategy defines the size limit and the time to live.
+   */
+  @Override
+  public BoundedCache getCache(PmObject pm) {
+    PmConversation conversation = pm.getPmConversation();
+    BoundedCache cache = (BoundedCache) conversation.getPmNamedObject(namedObjectKey);
+    if (cache == null) {
+      cache = makeCache();
+      conversation.setPmNamedObject(namedObjectKey, cache);
+    }
+    return cache;
+  }
+
+  @Override
+  protected Object getCacheKey(PmObject pm) {
+    return pm;
+  }
+
+}
@@ -3,12 +3,26 @@ package org.pm4j.core.pm.impl.cache;
 import org.pm4j.core.pm.PmObject;
 import org.pm4j.core.pm.impl.PmConversationImpl;
 import org.pm4j.core.pm.impl.PmObjectBase;
-import org.pm4j.core.pm.impl.PmUtil;
+import org.pm4j.core.pm.impl.connector.PmToViewTechnologyConnector;
 
+/**
+ * Caches the values for the life time of a request.
+ * <p>
+ * All values are stored within a single {@link RequestCache} that is attached to the request
+ * using the {@link PmToViewTechnologyConnector}.
+ * <p>
+ * If the view technology does not support request attributes, nothing gets cached.
+ */
 public class CacheStrategyRequest extends CacheStrategyBase<PmObjectBase> {
 
   private final String cacheVarKeyPfx;
 
+  /**
+   * @param cacheName
+   *          the name of the cache strategy.
+   * @param cacheVarKeyPfx
+   *          identifies the cached PM aspect. Is used for debugging purposes.
+   */
   public CacheStrategyRequest(String cacheName, String cacheVarKeyPfx) {
     super(cacheName);
     this.cacheVarKeyPfx = "pm.rc." + cacheVarKeyPfx + "_";
@@ -16,37 +30,47 @@ public class CacheStrategyRequest extends CacheStrategyBase<PmObjectBase> {
 
   @Override
   protected Object readRawValue(PmObjectBase pm) {
-    return pmConversationImplOf(pm).getPmToViewTechnologyConnector()
-              .readRequestAttribute(getCacheIdentity(pm));
+    RequestCache cache = getRequestCache(pm, false);
+    return (cache != null)
+        ? cache.get(this, pm)
+        : null;
   }
 
   @Override
   protected void writeRawValue(PmObjectBase pm, Object value) {
-    pmConversationImplOf(pm).getPmToViewTechnologyConnector().setRequestAttribute(
-        getCacheIdentity(pm), value);
+    getRequestCache(pm, true).put(this, pm, value);
   }
 
   @Override
   protected void clearImpl(PmObjectBase pm) {
-    pmConversationImplOf(pm).getPmToViewTechnologyConnector().setRequestAttribute(
-        getCacheIdentity(pm), null);
+    RequestCache cache = getRequestCache(pm, false);
+    if (cache != null) {
+      cache.put(this, pm, null);
+    }
   }
 
-  private PmConversationImpl pmConversationImplOf(PmObject pm) {
-    return (PmConversationImpl)pm.getPmConversation();
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(" + cacheVarKeyPfx + ")";
   }
 
   /**
-   * Provides an identity key for cached items of the given PM.
+   * Provides the cache attached to the current request.
    *
    * @param pm
-   *          The PM to get the key for.
-   * @param forCache
-   *          The special cache of the PM to get the key for.
-   * @return A unique key
+   *          the PM used to get the view technology connector.
+   * @param create
+   *          <code>true</code> if a new cache should be attached if the request has none.
+   * @return the found or created cache. May be <code>null</code> if nothing was found and
+   *         <code>create</code> is <code>false</code>.
    */
-  private String getCacheIdentity(PmObject pm) {
-    return cacheVarKeyPfx + PmUtil.getAbsoluteName(pm)
-        + Integer.toHexString(System.identityHashCode(pm));
+  private RequestCache getRequestCache(PmObject pm, boolean create) {
+    PmToViewTechnologyConnector connector = ((PmConversationImpl)pm.getPmConversation()).getPmToViewTechnologyConnector();
+    RequestCache cache = (RequestCache) connector.readRequestAttribute(RequestCache.REQUEST_ATTR_NAME);
+    if (cache == null && create) {
+      cache = new RequestCache();
+      connector.setRequestAttribute(RequestCache.REQUEST_ATTR_NAME, cache);
+    }
+    return cache;
   }
 }
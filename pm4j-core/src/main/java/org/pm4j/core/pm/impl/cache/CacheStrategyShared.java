@@ -0,0 +1,118 @@
+package org.pm4j.core.pm.impl.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.pm4j.common.cache.BoundedCache;
+import org.pm4j.core.pm.PmObject;
+import org.pm4j.core.pm.annotation.PmCacheCfg;
+
+/**
+ * Caches the values within a {@link BoundedCache} that is shared by all conversations.
+ * <p>
+ * All instances of a PM definition share a single cache entry per locale. It should only be used
+ * for values that do not depend on the state of the PM instance or on the user. A typical
+ * use case is an option set that is based on reference data.
+ *
+ * @author olaf boede
+ */
+public class CacheStrategyShared extends CacheStrategyBoundedBase {
+
+  /** The application wide set of shared caches. */
+  private static final ConcurrentMap<String, BoundedCache> SHARED_CACHES = new ConcurrentHashMap<String, BoundedCache>();
+
+  public CacheStrategyShared(String cacheName, String cacheVarKeyPfx) {
+    this(cacheName, cacheVarKeyPfx, null, BoundedCache.DEFAULT_MAX_SIZE, 0);
+  }
+
+  public CacheStrategyShared(String cacheName, String cacheVarKeyPfx, String boundedCacheName, int maxSize, long timeToLiveMillis) {
+    super(cacheName, cacheVarKeyPfx, boundedCacheName, maxSize, timeToLiveMillis);
+  }
+
+  @Override
+  public CacheStrategyBoundedBase makeCfgSpecificStrategy(PmCacheCfg cfg) {
+    return new CacheStrategyShared(getCacheName(), cacheVarKeyPfx, cfg.name(), cfg.maxSize(), cfg.timeToLiveSeconds() * 1000L);
+  }
+
+  /**
+   * Provides the shared cache. The cache gets created on first access.
+   * <p>
+   * All strategies with the same cache name use the same cache.
+   * The first strategy defines the size limit and the time to live.
+   */
+  @Override
+  public BoundedCache getCache(PmObject pm) {
+    BoundedCache cache = SHARED_CACHES.get(boundedCacheName);
+    if (cache == null) {
+      BoundedCache newCache = makeCache();
+      cache = SHARED_CACHES.putIfAbsent(boundedCacheName, newCache);
+      if (cache == null) {
+        cache = newCache;
+      }
+    }
+    return cache;
+  }
+
+  /**
+   * The configured strategy instance represents the PM definition. The locale is part of the
+   * key because the cached values are usually localized.
+   */
+  @Override
+  protected Object getCacheKey(PmObject pm) {
+    return new SharedKey(this, pm.getPmConversation().getPmLocale());
+  }
+
+  /**
+   * @param name the cache name.
+   * @return the shared cache with the given name or <code>null</code> if there is no such cache.
+   */
+  public static BoundedCache getSharedCache(String name) {
+    return SHARED_CACHES.get(name);
+  }
+
+  /**
+   * @return all shared caches. Useful for cache statistic reports.
+   */
+  public static Collection<BoundedCache> getSharedCaches() {
+    return new ArrayList<BoundedCache>(SHARED_CACHES.values());
+  }
+
+  /**
+   * Removes the entries of all shared caches. Should be called if the cached reference data
+   * gets changed.
+   */
+  public static void clearSharedCaches() {
+    for (BoundedCache c : SHARED_CACHES.values()) {
+      c.clear();
+    }
+  }
+
+  static final class SharedKey {
+    private final Object owner;
+    private final Locale locale;
+
+    SharedKey(Object owner, Locale locale) {
+      this.owner = owner;
+      this.locale = locale;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof SharedKey)) {
+        return false;
+      }
+      SharedKey other = (SharedKey) obj;
+      return (owner == other.owner) && ObjectUtils.equals(locale, other.locale);
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(owner) * 31 + ObjectUtils.hashCode(locale);
+    }
+  }
+
+}
@@ -0,0 +1,56 @@
+package org.pm4j.core.pm.impl.cache;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.pm4j.core.pm.PmObject;
+
+/**
+ * The values cached by {@link CacheStrategyRequest}s for a single request.
+ * <p>
+ * A single instance gets attached to the request. The values are found by
+ * strategy and PM instance identity. This way a cache access does not need to build
+ * a string key.
+ * <p>
+ * A request is handled by a single thread. The class is not thread safe.
+ *
+ * @author olaf boede
+ */
+public class RequestCache {
+
+  /** The name of the request attribute that holds the cache. */
+  public static final String REQUEST_ATTR_NAME = "pm.requestCache";
+
+  private final Map<Object, Map<PmObject, Object>> strategyToValueMap = new IdentityHashMap<Object, Map<PmObject, Object>>();
+
+  /**
+   * @param strategy the strategy that handles the value.
+   * @param pm the PM the value belongs to.
+   * @return the cached value or <code>null</code>.
+   */
+  public Object get(Object strategy, PmObject pm) {
+    Map<PmObject, Object> pmToValueMap = strategyToValueMap.get(strategy);
+    return (pmToValueMap != null)
+        ? pmToValueMap.get(pm)
+        : null;
+  }
+
+  /**
+   * @param strategy the strategy that handles the value.
+   * @param pm the PM the value belongs to.
+   * @param value the value to cache. <code>null</code> removes the cached value.
+   */
+  public void put(Object strategy, PmObject pm, Object value) {
+    Map<PmObject, Object> pmToValueMap = strategyToValueMap.get(strategy);
+    if (value != null) {
+      if (pmToValueMap == null) {
+        pmToValueMap = new IdentityHashMap<PmObject, Object>();
+        strategyToValueMap.put(strategy, pmToValueMap);
+      }
+      pmToValueMap.put(pm, value);
+    } else if (pmToValueMap != null) {
+      pmToValueMap.remove(pm);
+    }
+  }
+
+}
@@ -130,7 +130,14 @@ public class ChangedChildStateRegistry {
   private class PmChangeListener implements PmEventListener {
     @Override
     public void handleEvent(PmEvent event) {
-      PmDataInput itemPm = findChildItemToObserve(event.pm);
+      // An event batch reports the changes of several items with a single event.
+      for (PmObject changedPm : event.getChangedPms()) {
+        onChange(changedPm);
+      }
+    }
+
+    private void onChange(PmObject changedPm) {
+      PmDataInput itemPm = findChildItemToObserve(changedPm);
 
       if (itemPm != null) {
         CHANGE registeredRowChange = changedItemPms.get(itemPm);
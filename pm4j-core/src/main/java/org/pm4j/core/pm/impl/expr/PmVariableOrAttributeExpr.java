@@ -9,7 +9,7 @@ import org.pm4j.common.expr.OptionalExpression;
 import org.pm4j.common.expr.OptionalExpressionBase;
 import org.pm4j.common.expr.parser.ParseCtxt;
 import org.pm4j.common.util.reflection.BeanAttrAccessor;
-import org.pm4j.common.util.reflection.BeanAttrAccessorImpl;
+import org.pm4j.common.util.reflection.BeanAttrUtil;
 import org.pm4j.common.util.reflection.ReflectionException;
 
 /**
@@ -22,7 +22,11 @@ import org.pm4j.common.util.reflection.ReflectionException;
  */
 public class PmVariableOrAttributeExpr extends OptionalExpressionBase<ExprExecCtxt> {
 
-  private Expression concreteExpr;
+  /**
+   * The attribute expression for the class of the last handled object.<br>
+   * Volatile because path expressions may be shared by several threads.
+   */
+  private volatile AttributeBinding attributeBinding;
 
   public PmVariableOrAttributeExpr(ParseCtxt ctxt, NameWithModifier nameWithModifier) {
     super(ctxt, nameWithModifier);
@@ -30,7 +34,11 @@ public class PmVariableOrAttributeExpr extends OptionalExpressionBase<ExprExecCt
 
   @Override
   protected Object execImpl(ExprExecCtxt ctxt) {
-    ensureResolver(ctxt);
+    Expression concreteExpr = getConcreteExpr(ctxt);
+    if (concreteExpr == null) {
+      // not resolvable optional expression.
+      return null;
+    }
     try {
       return concreteExpr.exec(ctxt);
     }
@@ -42,30 +50,37 @@ public class PmVariableOrAttributeExpr extends OptionalExpressionBase<ExprExecCt
 
   @Override
   protected void execAssignImpl(ExprExecCtxt ctxt, Object value) {
-    ensureResolver(ctxt);
+    Expression concreteExpr = getConcreteExpr(ctxt);
     if (concreteExpr != null) {
       concreteExpr.execAssign(ctxt, value);
     }
   }
 
-  private void ensureResolver(ExprExecCtxt ctxt) {
-    // TODO: enhance performance by checking if the current expression matches...
-    BeanAttrAccessor accessor = null;
+  private Expression getConcreteExpr(ExprExecCtxt ctxt) {
     Class<?> classOfCurrentValue = ctxt.getCurrentValue().getClass();
+    // The attribute accessor gets resolved once for each handled class.
+    AttributeBinding binding = attributeBinding;
+    if (binding != null && binding.beanClass == classOfCurrentValue) {
+      return binding.expr;
+    }
+
     try {
       String name = nameWithModifier.getName();
-      accessor = new BeanAttrAccessorImpl(classOfCurrentValue, name);
-      concreteExpr = new AttributeExpr(getSyntaxVersion(), nameWithModifier, accessor);
+      BeanAttrAccessor accessor = BeanAttrUtil.getAccessor(classOfCurrentValue, name);
+      AttributeExpr expr = new AttributeExpr(getSyntaxVersion(), nameWithModifier, accessor);
+      attributeBinding = new AttributeBinding(classOfCurrentValue, expr);
+      return expr;
     }
     catch (ReflectionException e) {
       if (ctxt instanceof PmExprExecCtxt) {
-        concreteExpr = new PmVariableExpr(getSyntaxVersion(), nameWithModifier);
+        return new PmVariableExpr(getSyntaxVersion(), nameWithModifier);
       }
       else {
         if (! nameWithModifier.isOptional()) {
           throw new ExprExecExeption(ctxt, "Unable to resolve '" + nameWithModifier + "' in class '" +
                                             classOfCurrentValue + "'.", e);
         }
+        return null;
       }
     }
   }
@@ -90,4 +105,15 @@ public class PmVariableOrAttributeExpr extends OptionalExpressionBase<ExprExecCt
     }
   }
 
+  /** An attribute expression together with the class it was resolved for. */
+  private static final class AttributeBinding {
+    final Class<?> beanClass;
+    final Expression expr;
+
+    AttributeBinding(Class<?> beanClass, Expression expr) {
+      this.beanClass = beanClass;
+      this.expr = expr;
+    }
+  }
+
 }
@@ -1,5 +1,6 @@
 package org.pm4j.core.pm.impl.options;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -7,7 +8,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
+import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 import org.pm4j.common.expr.Expression.SyntaxVersion;
 import org.pm4j.common.util.collection.IterableUtil;
@@ -44,7 +48,10 @@ public abstract class OptionSetDefBase<T_ATTR extends PmAttrBase<?,?>> implement
   protected final NullOption nullOption;
   protected final String nullOptionTitleResKey;
   protected final PathComparatorFactory sortComparatorFactory;
+  protected final boolean shareOptions;
 
+  /** The options that are shared by all attribute instances. Is only used if {@link #shareOptions} is set. */
+  private volatile SharedOptions sharedOptions;
 
   public OptionSetDefBase(PmAttr<?> pmAttr, PmOptionCfg cfg, Method getOptionValuesMethod) {
     SyntaxVersion syntaxVersion = PmExpressionApi.getSyntaxVersion(pmAttr);
@@ -74,12 +81,77 @@ public abstract class OptionSetDefBase<T_ATTR extends PmAttrBase<?,?>> implement
     this.sortComparatorFactory = PmOptionCfg.NOT_SPECIFIED.equals(cfg.sortBy())
                 ? null
                 : PathComparatorFactory.parse(cfg.sortBy(), syntaxVersion);
+    this.shareOptions = cfg.shareOptions();
   }
 
   @Override
   public PmOptionSet makeOptions(T_ATTR forAttr) {
-    List<PmOption> list;
+    Object o = getOptionValuesObject(forAttr);
 
+    if (o instanceof PmOptionQueryService) {
+      return makeLazyOptions(forAttr, (PmOptionQueryService<?, ?>) o);
+    }
+
+    if (shareOptions) {
+      return makeSharedOptions(forAttr, o);
+    }
+
+    List<PmOption> list = makeValueOptions(forAttr, o);
+    // the null option will be added after sorting to prevent
+    // sort problems with the null-option.
+    PmOption nullOpt = makeNullOption(forAttr, list);
+    if (nullOpt != null) {
+      List<PmOption> l = new ArrayList<PmOption>(list.size()+1);
+      l.add(nullOpt);
+      l.addAll(list);
+      list = l;
+    }
+
+    return new PmOptionSetImpl.WithIdMap(list);
+  }
+
+  /**
+   * Provides an option set that reads the options on demand from the given service.
+   * <p>
+   * The options are provided in the order defined by the service. A
+   * {@link PmOptionCfg#sortBy()} definition is not applied.
+   *
+   * @param forAttr the attribute to generate the options for.
+   * @param service the service that provides the option values.
+   * @return the option set.
+   */
+  @SuppressWarnings("unchecked")
+  protected PmOptionSet makeLazyOptions(final T_ATTR forAttr, PmOptionQueryService<?, ?> service) {
+    PmOption nullOpt = shouldMakeNullOption(forAttr)
+        ? makeNullOption(forAttr)
+        : null;
+    return new PmOptionSetLazy<Object>((PmOptionQueryService<Object, ?>) service, nullOpt, PmOptionSetLazy.DEFAULT_PAGE_SIZE) {
+      @Override
+      protected PmOption makeOption(Object item) {
+        return OptionSetDefBase.this.makeOption(forAttr, item);
+      }
+    };
+  }
+
+  /**
+   * Provides an option set that uses the options generated for the same values
+   * instance and locale. Only the <code>null</code> option gets generated for each call.
+   */
+  private PmOptionSet makeSharedOptions(T_ATTR forAttr, Object values) {
+    Locale locale = forAttr.getPmConversation().getPmLocale();
+    SharedOptions s = sharedOptions;
+    if (s == null || !s.isFor(values, locale)) {
+      s = new SharedOptions(values, locale, makeValueOptions(forAttr, values));
+      sharedOptions = s;
+    }
+
+    return new PmOptionSetImpl.WithSharedIdMap(makeNullOption(forAttr, s.options), s.options, s.idToOptionMap);
+  }
+
+  /**
+   * Provides the object to generate the options from.
+   */
+  private Object getOptionValuesObject(T_ATTR forAttr) {
     Object o = null;
 
     if (getOptionValuesMethod != null) {
@@ -94,30 +166,35 @@ public abstract class OptionSetDefBase<T_ATTR extends PmAttrBase<?,?>> implement
       o = valuesPath != null
         ? valuesPath.getValue(PmUtil.getPmParentOfType(forAttr, PmElement.class))
         : getOptionValues(forAttr);
+    }
+
+    return o;
   }
 
+  /**
+   * Generates the sorted options for the given values. Without <code>null</code> option.
+   */
+  private List<PmOption> makeValueOptions(T_ATTR forAttr, Object o) {
     if (o == null) {
-      list = Collections.emptyList();
+      return Collections.emptyList();
     }
     else if (o instanceof Collection<?>) {
-      list = makeOptions(forAttr, (Collection<?>)o);
+      return makeOptions(forAttr, (Collection<?>)o);
     }
     else if (o instanceof Object[]) {
-      list = makeOptions(forAttr, Arrays.asList((Object[]) o));
+      return makeOptions(forAttr, Arrays.asList((Object[]) o));
     }
     else if (o instanceof Iterable<?>) {
-      list = makeOptions(forAttr, IterableUtil.shallowCopy((Iterable<?>)o));
+      return makeOptions(forAttr, IterableUtil.shallowCopy((Iterable<?>)o));
     }
     else if (o instanceof Iterator<?>) {
-      list = makeOptions(forAttr, IterableUtil.shallowCopy((Iterator<?>)o));
+      return makeOptions(forAttr, IterableUtil.shallowCopy((Iterator<?>)o));
     }
     else {
       throw new PmRuntimeException(forAttr,
           "The options path does not reference a collection, array, iterable or iterator. Found type: " +
           o.getClass());
     }
-
-    return new PmOptionSetImpl.WithIdMap(list);
   }
 
   @Override
@@ -150,21 +227,28 @@ public abstract class OptionSetDefBase<T_ATTR extends PmAttrBase<?,?>> implement
         Collections.sort(list, sortComparatorFactory.getComparator(forAttr));
       }
 
-      // the null option will be added after sorting to prevent
-      // sort problems with the null-option.
-      if (shouldMakeNullOption(forAttr)) {
-        String title = getNullOptionTitle(forAttr);
-
-        List<PmOption> l = new ArrayList<PmOption>(list.size()+1);
-        l.add(new PmOptionImpl(null, StringUtils.defaultString(title)));
-        l.addAll(list);
-        list = l;
-      }
-
       return list;
     }
   }
 
+  /**
+   * Provides the <code>null</code> option to show in front of the given value
+   * options. An empty value option list gets no <code>null</code> option.
+   *
+   * @param forAttr the attribute to generate the option for.
+   * @param valueOptions the value options of the attribute.
+   * @return the <code>null</code> option or <code>null</code> if the attribute should not get one.
+   */
+  public PmOption makeNullOption(T_ATTR forAttr, List<PmOption> valueOptions) {
+    return (!valueOptions.isEmpty() && shouldMakeNullOption(forAttr))
+        ? makeNullOption(forAttr)
+        : null;
+  }
+
+  private PmOption makeNullOption(T_ATTR forAttr) {
+    return new PmOptionImpl(null, StringUtils.defaultString(getNullOptionTitle(forAttr)));
+  }
+
   protected boolean shouldMakeNullOption(PmAttrBase<?,?> forAttr) {
     NullOption nopt = (nullOption == NullOption.DEFAULT)
                       ? forAttr.getNullOptionDefault()
@@ -190,5 +274,37 @@ public abstract class OptionSetDefBase<T_ATTR extends PmAttrBase<?,?>> implement
                   : ExpressionPathResolver.parse(pathString, syntaxVersion);
   }
 
+  /**
+   * An immutable set of options generated for a values instance.
+   * <p>
+   * The values instance is referenced weakly. The option definition is held by
+   * the static meta data and should not keep a values collection alive that is
+   * no longer provided by the application.
+   */
+  private static final class SharedOptions {
+    /** Is <code>null</code> if the options were generated for <code>null</code> values. */
+    final WeakReference<Object> valuesRef;
+    final Locale locale;
+    final List<PmOption> options;
+    final Map<String, PmOption> idToOptionMap;
+
+    SharedOptions(Object values, Locale locale, List<PmOption> options) {
+      this.valuesRef = (values != null) ? new WeakReference<Object>(values) : null;
+      this.locale = locale;
+      this.options = Collections.unmodifiableList(options);
+      this.idToOptionMap = PmOptionSetImpl.WithIdMap.makeIdToOptionMap(options);
+    }
+
+    /**
+     * @return <code>true</code> if the options were generated for the given values instance and locale.
+     */
+    boolean isFor(Object values, Locale locale) {
+      boolean sameValues = (valuesRef != null)
+          ? (values != null && valuesRef.get() == values)
+          : (values == null);
+      return sameValues && ObjectUtils.equals(this.locale, locale);
+    }
+  }
+
 
 }
@@ -0,0 +1,36 @@
+package org.pm4j.core.pm.impl.options;
+
+import org.pm4j.common.pageable.querybased.pagequery.PageQueryService;
+import org.pm4j.core.pm.annotation.PmOptionCfg;
+
+/**
+ * A service that provides the option values of an attribute page by page.
+ * <p>
+ * If the option values expression of an attribute (see {@link PmOptionCfg#values()})
+ * provides a {@link PmOptionQueryService}, the attribute gets a {@link PmOptionSetLazy}.
+ * It reads only the options that get displayed and resolves the option of the
+ * current attribute value by its id.<br>
+ * Example: <code>@PmOptionCfg(values="#customerOptionService", id="id", title="name")</code>
+ * <p>
+ * The options are provided in the order defined by the service. A
+ * {@link PmOptionCfg#sortBy()} definition is not applied.
+ * <p>
+ * The option id provided by {@link PmOptionCfg#id()} should be the string
+ * representation of the item id provided by {@link #getIdForItem(Object)}.
+ *
+ * @param <T_ITEM> the option value item type.
+ * @param <T_ID> the item id type.
+ *
+ * @author olaf boede
+ */
+public interface PmOptionQueryService<T_ITEM, T_ID> extends PageQueryService<T_ITEM, T_ID> {
+
+  /**
+   * Converts an option id string to the corresponding item id.
+   *
+   * @param idString the option id string. Is never empty.
+   * @return the corresponding item id.
+   */
+  T_ID getIdForIdString(String idString);
+
+}
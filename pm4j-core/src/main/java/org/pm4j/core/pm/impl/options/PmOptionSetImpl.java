@@ -1,6 +1,7 @@
 package org.pm4j.core.pm.impl.options;
 
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -211,11 +212,7 @@ public class PmOptionSetImpl implements PmOptionSet {
     public PmOption findOptionForIdString(String id) {
       Map<String, PmOption> map = this.idToOptionMap;
       if (map == null) {
-        List<PmOption> olist = getOptions();
-        map = new HashMap<String, PmOption>(olist.size());
-        for (PmOption o : olist) {
-          map.put(o.getIdAsString(), o);
-        }
+        map = makeIdToOptionMap(getOptions());
         this.idToOptionMap = map;
       }
       return map.get(id);
@@ -226,5 +223,81 @@ public class PmOptionSetImpl implements PmOptionSet {
       super.addOption(pmOption);
       idToOptionMap = null;
     }
+
+    /**
+     * @param options the options to map.
+     * @return a map that provides the options for their id string.
+     */
+    public static Map<String, PmOption> makeIdToOptionMap(List<PmOption> options) {
+      Map<String, PmOption> map = new HashMap<String, PmOption>(options.size());
+      for (PmOption o : options) {
+        map.put(o.getIdAsString(), o);
+      }
+      return map;
+    }
+  }
+
+  /**
+   * A read only option set that uses an option list and an id map that may be
+   * shared with other option set instances.
+   * <p>
+   * Only the (optional) <code>null</code> option is specific to this instance.
+   */
+  public static class WithSharedIdMap extends PmOptionSetImpl {
+
+    private final PmOption nullOption;
+    private final Map<String, PmOption> sharedIdToOptionMap;
+
+    /**
+     * @param nullOption
+     *          the option that represents the <code>null</code> value. May be
+     *          <code>null</code> if the set should not contain such an option.
+     * @param sharedOptions
+     *          the shared read only list of options.
+     * @param sharedIdToOptionMap
+     *          the shared read only map that provides the options for their id
+     *          string. See {@link WithIdMap#makeIdToOptionMap(List)}.
+     */
+    public WithSharedIdMap(PmOption nullOption, List<PmOption> sharedOptions, Map<String, PmOption> sharedIdToOptionMap) {
+      super(nullOption != null
+          ? new ListWithFirstItem(nullOption, sharedOptions)
+          : sharedOptions);
+      this.nullOption = nullOption;
+      this.sharedIdToOptionMap = sharedIdToOptionMap;
+    }
+
+    @Override
+    public PmOption findOptionForIdString(String id) {
+      if (nullOption != null && StringUtils.equals(ObjectUtils.toString(nullOption.getId()), id)) {
+        return nullOption;
+      }
+      return sharedIdToOptionMap.get(id);
+    }
+  }
+
+  /**
+   * A read only list view that provides an additional first item in front of a
+   * given list.
+   */
+  private static class ListWithFirstItem extends AbstractList<PmOption> {
+    private final PmOption firstItem;
+    private final List<PmOption> list;
+
+    public ListWithFirstItem(PmOption firstItem, List<PmOption> list) {
+      this.firstItem = firstItem;
+      this.list = list;
+    }
+
+    @Override
+    public PmOption get(int index) {
+      return (index == 0)
+          ? firstItem
+          : list.get(index-1);
+    }
+
+    @Override
+    public int size() {
+      return list.size() + 1;
+    }
   }
 }
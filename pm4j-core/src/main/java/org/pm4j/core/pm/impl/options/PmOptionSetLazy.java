@@ -0,0 +1,251 @@
+package org.pm4j.core.pm.impl.options;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.apache.commons.lang.StringUtils;
+import org.pm4j.common.query.QueryParams;
+import org.pm4j.common.util.collection.PagedCollectionCacheBase;
+import org.pm4j.core.exception.PmRuntimeException;
+import org.pm4j.core.pm.PmOption;
+import org.pm4j.core.pm.PmOptionSet;
+
+/**
+ * An option set that reads its options page by page from a {@link PmOptionQueryService}.
+ * <p>
+ * The options get only generated for the pages that get accessed (e.g. the
+ * visible part of a combo box list). The option for a single id gets resolved
+ * by a {@link PmOptionQueryService#getItemForId(Object)} call.
+ * <p>
+ * The options may be searched and sorted using the {@link #getQueryParams()}.
+ *
+ * @param <T_ITEM> the option value item type.
+ *
+ * @author olaf boede
+ */
+public abstract class PmOptionSetLazy<T_ITEM> implements PmOptionSet {
+
+  /** The default number of options to read with a single service call. */
+  public static final int DEFAULT_PAGE_SIZE = 50;
+
+  private final PmOptionQueryService<T_ITEM, Object> service;
+  private final QueryParams queryParams = new QueryParams();
+  private final PmOption nullOption;
+  private final OptionPageCache optionCache;
+  private final List<PmOption> options = new OptionList();
+  /** The option found by the last id based lookup. */
+  private PmOption lastFoundOption;
+
+  /**
+   * @param service the service that provides the option items.
+   * @param nullOption the option that represents the <code>null</code> value.
+   *          <code>null</code> if the set should not contain such an option.
+   *          Like in the other option sets, it is only provided if there is at least one value option.
+   * @param pageSize the number of options to read with a single service call.
+   */
+  @SuppressWarnings("unchecked")
+  public PmOptionSetLazy(PmOptionQueryService<T_ITEM, ?> service, PmOption nullOption, int pageSize) {
+    assert service != null;
+    this.service = (PmOptionQueryService<T_ITEM, Object>) service;
+    this.nullOption = nullOption;
+    this.optionCache = new OptionPageCache(pageSize);
+
+    PropertyChangeListener clearCacheListener = new PropertyChangeListener() {
+      @Override
+      public void propertyChange(PropertyChangeEvent evt) {
+        optionCache.clear();
+      }
+    };
+    queryParams.addPropertyChangeListener(QueryParams.PROP_EFFECTIVE_FILTER, clearCacheListener);
+    queryParams.addPropertyChangeListener(QueryParams.PROP_EFFECTIVE_SORT_ORDER, clearCacheListener);
+  }
+
+  /**
+   * Generates the option for an item provided by the service.
+   *
+   * @param item the item to generate the option for.
+   * @return the option.
+   */
+  protected abstract PmOption makeOption(T_ITEM item);
+
+  /**
+   * Provides the query parameters used to read the options.
+   * <p>
+   * A filter expression may be used to search the options.<br>
+   * The <code>null</code> option is provided if the query provides at least one value option.
+   *
+   * @return the query parameters.
+   */
+  public QueryParams getQueryParams() {
+    return queryParams;
+  }
+
+  @Override
+  public boolean isMultiselection() {
+    return false;
+  }
+
+  /**
+   * Provides a list that reads the options on access.
+   */
+  @Override
+  public List<PmOption> getOptions() {
+    return options;
+  }
+
+  @Override
+  public Integer getSize() {
+    return options.size();
+  }
+
+  @Override
+  public PmOption getFirstOption() {
+    return options.isEmpty() ? null : options.get(0);
+  }
+
+  @Override
+  public Object getFirstOptionValue() {
+    PmOption o = getFirstOption();
+    return o != null ? o.getValue() : null;
+  }
+
+  @Override
+  public PmOption getLastOption() {
+    return options.isEmpty() ? null : options.get(options.size()-1);
+  }
+
+  @Override
+  public Object getLastOptionValue() {
+    PmOption o = getLastOption();
+    return o != null ? o.getValue() : null;
+  }
+
+  @Override
+  public PmOption findOptionForId(Object id) {
+    return findOptionForIdString(ObjectUtils.toString(id, NULL_OPTION_ID));
+  }
+
+  @Override
+  public PmOption getOptionForId(Object id) {
+    return getOptionForIdString(ObjectUtils.toString(id, NULL_OPTION_ID));
+  }
+
+  /**
+   * Resolves the option by a service call. Does not read any option page.
+   */
+  @Override
+  public PmOption findOptionForIdString(String idString) {
+    if (StringUtils.isEmpty(idString)) {
+      return isNullOptionProvided() ? nullOption : null;
+    }
+
+    PmOption o = lastFoundOption;
+    if (o != null && StringUtils.equals(o.getIdAsString(), idString)) {
+      return o;
+    }
+
+    T_ITEM item = service.getItemForId(service.getIdForIdString(idString));
+    if (item == null) {
+      return null;
+    }
+
+    o = makeOption(item);
+    lastFoundOption = o;
+    return o;
+  }
+
+  @Override
+  public PmOption getOptionForIdString(String idString) {
+    PmOption o = findOptionForIdString(idString);
+    if (o == null) {
+      throw new PmRuntimeException("No option found for id '" + idString + "'.");
+    }
+    return o;
+  }
+
+  /**
+   * Reads all option pages till the option is found.
+   */
+  @Override
+  public PmOption findOptionForTitle(String title) {
+    for (PmOption o : options) {
+      if (StringUtils.equals(o.getPmTitle(), title)) {
+        return o;
+      }
+    }
+    // not found:
+    return null;
+  }
+
+  @Override
+  public PmOption getOptionForTitle(String title) {
+    PmOption o = findOptionForTitle(title);
+    if (o == null) {
+      throw new PmRuntimeException("No option found for title '" + title + "'.");
+    }
+    return o;
+  }
+
+  /**
+   * The <code>null</code> option is only provided if there are value options.
+   * The same rule is applied for the not lazy option sets.
+   */
+  private boolean isNullOptionProvided() {
+    return (nullOption != null) && (optionCache.getCollectionSize() > 0);
+  }
+
+  /**
+   * A read only list that provides the <code>null</code> option and the
+   * options of the service items.
+   */
+  private class OptionList extends AbstractList<PmOption> {
+    @Override
+    public PmOption get(int index) {
+      if (isNullOptionProvided()) {
+        if (index == 0) {
+          return nullOption;
+        }
+        --index;
+      }
+      if (index < 0 || index >= optionCache.getCollectionSize()) {
+        throw new IndexOutOfBoundsException("Index: " + index);
+      }
+      return optionCache.getAt(index);
+    }
+
+    @Override
+    public int size() {
+      return (int) optionCache.getCollectionSize() + (isNullOptionProvided() ? 1 : 0);
+    }
+  }
+
+  /**
+   * Holds the options of the last read service item pages.
+   */
+  private class OptionPageCache extends PagedCollectionCacheBase<PmOption> {
+
+    public OptionPageCache(int pageSize) {
+      super(pageSize, 2);
+    }
+
+    @Override
+    protected List<PmOption> getPageItems(long pageStartPos, int pageSize) {
+      List<T_ITEM> items = service.getItems(queryParams, pageStartPos, pageSize);
+      List<PmOption> pageOptions = new ArrayList<PmOption>(items.size());
+      for (T_ITEM i : items) {
+        pageOptions.add(makeOption(i));
+      }
+      return pageOptions;
+    }
+
+    @Override
+    protected long getTotalSize() {
+      return service.getItemCount(queryParams);
+    }
+  }
+
+}
@@ -11,6 +11,7 @@ import java.util.List;
 import org.pm4j.common.modifications.ModificationHandler;
 import org.pm4j.common.modifications.Modifications;
 import org.pm4j.common.pageable.PageableCollection;
+import org.pm4j.common.pageable.inmem.InMemCollectionBase;
 import org.pm4j.common.pageable.inmem.InMemCollectionImpl;
 import org.pm4j.common.query.QueryOptions;
 import org.pm4j.common.query.QueryParams;
@@ -299,8 +300,36 @@ public class PmBeanCollection<T_PM extends PmBean<T_BEAN>, T_BEAN> extends Prope
     /** Listens for changed state changes in the subtree and updates the changedRows accordingly. */
     private final PmChangeListener itemHierarchyChangeListener = new PmChangeListener();
 
+    /** Is set if each item value change needs to be reported to the bean collection. */
+    private volatile boolean observeEachValueChange;
+
     public PmBeanCollectionModificationHandler() {
       PmEventApi.addHierarchyListener(pmCtxt, PmEvent.VALUE_CHANGED_STATE_CHANGE, itemHierarchyChangeListener);
+
+      // The changed state changes only on the first value change of an item.
+      // But the query indexes of the bean collection need to be informed about each item value change.
+      if (beanCollection instanceof InMemCollectionBase) {
+        final InMemCollectionBase<T_BEAN> inMemCollection = (InMemCollectionBase<T_BEAN>) beanCollection;
+        if (inMemCollection.hasQueryIndex()) {
+          observeEachValueChange(true);
+        }
+        inMemCollection.addPropertyChangeListener(InMemCollectionBase.PROP_HAS_QUERY_INDEX, new PropertyChangeListener() {
+          @Override
+          public void propertyChange(PropertyChangeEvent evt) {
+            observeEachValueChange(inMemCollection.hasQueryIndex());
+          }
+        });
+      }
+    }
+
+    /** Switches the observation of each item value change on or off. Changed state changes are always observed. */
+    private void observeEachValueChange(boolean observe) {
+      observeEachValueChange = observe;
+      if (observe) {
+        PmEventApi.addHierarchyListener(pmCtxt, PmEvent.VALUE_CHANGE, itemHierarchyChangeListener);
+      } else {
+        PmEventApi.removePmEventListener(pmCtxt, PmEvent.VALUE_CHANGE, itemHierarchyChangeListener);
+      }
     }
 
     @Override
@@ -402,14 +431,23 @@ public class PmBeanCollection<T_PM extends PmBean<T_BEAN>, T_BEAN> extends Prope
       }
     };
 
-    /** Listens for changed state changes in the subtree and updates the registered changes accordingly. */
+    /** Listens for value and changed state changes in the subtree and updates the registered changes accordingly. */
     private class PmChangeListener implements PmEventListener {
       @SuppressWarnings("unchecked")
       @Override
       public void handleEvent(PmEvent event) {
-        PmDataInput itemPm = findChildItemToObserve(event.pm);
-        if (itemPm != null) {
-          modificationHandler.registerUpdatedItem((T_PM) itemPm, itemPm.isPmValueChanged());
+        // A hierarchy listener gets all propagated events, independent of its registered event mask.
+        // Plain value changes are only needed if each item value change gets observed.
+        if (!observeEachValueChange && !event.hasEventMaskBits(PmEvent.VALUE_CHANGED_STATE_CHANGE)) {
+          return;
+        }
+
+        // An event batch reports the changes of several items with a single event.
+        for (PmObject changedPm : event.getChangedPms()) {
+          PmDataInput itemPm = findChildItemToObserve(changedPm);
+          if (itemPm != null) {
+            modificationHandler.registerUpdatedItem((T_PM) itemPm, itemPm.isPmValueChanged());
+          }
         }
       }
 
@@ -13,12 +13,33 @@ import org.pm4j.core.pm.impl.expr.PathExpressionChain;
  */
 public class ExpressionPathResolver extends PathResolverBase {
 
+  private static final PathResolverCache CACHE = new PathResolverCache("pm.pathResolver.expression") {
+    @Override
+    protected PathResolver parse(String exprString, SyntaxVersion syntaxVersion) {
+      return new ExpressionPathResolver(syntaxVersion, exprString);
+    }
+  };
+
   private final Expression expression;
 
+  /**
+   * Provides the resolver for the given expression string.<br>
+   * Parsed expressions are cached. Each expression string gets parsed only once.
+   *
+   * @param exprString The string to parse.
+   * @param syntaxVersion The expression syntax version to use.
+   */
   public static PathResolver parse(String exprString, SyntaxVersion syntaxVersion) {
     return StringUtils.isEmpty(exprString)
         ? PassThroughPathResolver.INSTANCE
-        : new ExpressionPathResolver(syntaxVersion, exprString);
+        : CACHE.getResolver(exprString, syntaxVersion);
+  }
+
+  /**
+   * @return The cache used for parsed expression strings.
+   */
+  public static PathResolverCache getCache() {
+    return CACHE;
   }
 
   public static PathResolver parse(String exprString) {
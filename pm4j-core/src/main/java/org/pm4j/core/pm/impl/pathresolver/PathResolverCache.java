@@ -0,0 +1,131 @@
+package org.pm4j.core.pm.impl.pathresolver;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pm4j.common.cache.CacheMetrics;
+import org.pm4j.common.cache.CacheMetricsRegistry;
+import org.pm4j.common.expr.Expression.SyntaxVersion;
+
+/**
+ * A thread safe cache for parsed {@link PathResolver}s.
+ * <p>
+ * The resolvers are identified by their expression string and syntax version.
+ * An application usually uses only a small set of distinct expressions.
+ * To prevent unlimited memory consumption for generated expression strings,
+ * the cache gets cleared if its maximum size is reached.
+ * <p>
+ * The hit rate gets reported by the {@link CacheMetrics} registered in
+ * {@link CacheMetricsRegistry#INSTANCE}.
+ * <p>
+ * The cached resolvers are shared. Their <code>nullAllowed</code> property should not be modified.
+ *
+ * @author olaf boede
+ */
+public abstract class PathResolverCache {
+
+  private static final Log LOG = LogFactory.getLog(PathResolverCache.class);
+
+  /** The default maximum number of cached resolvers. */
+  public static final int DEFAULT_MAX_SIZE = 2000;
+
+  private final ConcurrentMap<Key, PathResolver> keyToResolverMap = new ConcurrentHashMap<Key, PathResolver>();
+  private final CacheMetrics metrics;
+  private volatile int maxSize = DEFAULT_MAX_SIZE;
+
+  /**
+   * @param name the cache name used for the metrics report.
+   */
+  public PathResolverCache(String name) {
+    this.metrics = CacheMetricsRegistry.INSTANCE.getMetrics(name);
+  }
+
+  /**
+   * Provides the resolver for the given expression.<br>
+   * Parses the expression only if it is not yet cached.
+   *
+   * @param exprString the expression to parse.
+   * @param syntaxVersion the expression syntax version to use.
+   * @return the resolver. Never <code>null</code>.
+   */
+  public PathResolver getResolver(String exprString, SyntaxVersion syntaxVersion) {
+    Key key = new Key(exprString, syntaxVersion);
+    PathResolver resolver = keyToResolverMap.get(key);
+    if (resolver != null) {
+      metrics.countHit();
+      return resolver;
+    }
+
+    metrics.countMiss();
+    long startNanos = System.nanoTime();
+    resolver = parse(exprString, syntaxVersion);
+    metrics.countInit(System.nanoTime() - startNanos);
+
+    if (keyToResolverMap.size() >= maxSize) {
+      LOG.info("Path resolver cache '" + metrics.getName() + "' reached its maximum size " + maxSize + ". It gets cleared.");
+      keyToResolverMap.clear();
+    }
+    PathResolver concurrentlyParsedResolver = keyToResolverMap.putIfAbsent(key, resolver);
+    return (concurrentlyParsedResolver != null) ? concurrentlyParsedResolver : resolver;
+  }
+
+  /**
+   * Parses the given expression.
+   *
+   * @param exprString the expression to parse.
+   * @param syntaxVersion the expression syntax version to use.
+   * @return the resolver. Never <code>null</code>.
+   */
+  protected abstract PathResolver parse(String exprString, SyntaxVersion syntaxVersion);
+
+  /** Removes all cached resolvers. */
+  public void clear() {
+    keyToResolverMap.clear();
+  }
+
+  /** @return the current number of cached resolvers. */
+  public int size() {
+    return keyToResolverMap.size();
+  }
+
+  /** @param maxSize the maximum number of cached resolvers. */
+  public void setMaxSize(int maxSize) {
+    assert maxSize > 0;
+    this.maxSize = maxSize;
+  }
+
+  /** @return the hit and miss counters. */
+  public CacheMetrics getMetrics() {
+    return metrics;
+  }
+
+  /** Cache key: expression string and syntax version. */
+  static final class Key {
+    private final String exprString;
+    private final SyntaxVersion syntaxVersion;
+    private final int hashCode;
+
+    Key(String exprString, SyntaxVersion syntaxVersion) {
+      this.exprString = exprString;
+      this.syntaxVersion = syntaxVersion;
+      this.hashCode = exprString.hashCode() * 31 + (syntaxVersion != null ? syntaxVersion.hashCode() : 0);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return exprString.equals(other.exprString) && syntaxVersion == other.syntaxVersion;
+    }
+  }
+
+}
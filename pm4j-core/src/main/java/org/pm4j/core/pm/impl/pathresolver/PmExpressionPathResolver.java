@@ -19,16 +19,33 @@ import org.pm4j.core.pm.impl.expr.PmExprExecCtxt;
  */
 public class PmExpressionPathResolver extends PathResolverBase {
 
-  private Expression expression;
+  private static final PathResolverCache CACHE = new PathResolverCache("pm.pathResolver.pmExpression") {
+    @Override
+    protected PathResolver parse(String exprString, SyntaxVersion syntaxVersion) {
+      return new PmExpressionPathResolver(PathExpressionChain.parse(exprString, syntaxVersion), syntaxVersion);
+    }
+  };
+
+  private final Expression expression;
 
   /**
+   * Provides the resolver for the given expression string.<br>
+   * Parsed expressions are cached. Each expression string gets parsed only once.
+   *
    * @param exprString The string to parse.
    * @param syntaxVersion The expression syntax version to use.
    */
   public static PathResolver parse(String exprString, SyntaxVersion syntaxVersion) {
     return StringUtils.isEmpty(exprString)
             ? PassThroughPathResolver.INSTANCE
-            : new PmExpressionPathResolver(PathExpressionChain.parse(exprString, syntaxVersion), syntaxVersion);
+            : CACHE.getResolver(exprString, syntaxVersion);
+  }
+
+  /**
+   * @return The cache used for parsed expression strings.
+   */
+  public static PathResolverCache getCache() {
+    return CACHE;
   }
 
   /**
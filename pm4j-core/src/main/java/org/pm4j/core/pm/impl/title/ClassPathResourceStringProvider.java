@@ -16,6 +16,19 @@ public class ClassPathResourceStringProvider implements ResourceStringProvider {
 
   @Override
   public String findResourceString(Locale locale, List<Class<?>> resLoadCtxtClasses, String key) {
+    return findResourceEntry(locale, resLoadCtxtClasses, key).getValue();
+  }
+
+  /**
+   * Provides the cache entry for a resource string.<br>
+   * The entry also provides the parsed message format of the string.
+   *
+   * @param locale The locale to find a value for.
+   * @param resLoadCtxtClasses The classes that define the resource scope.
+   * @param key The resource key.
+   * @return The cache entry. Never <code>null</code>. Its value is <code>null</code> if there is no resource string.
+   */
+  public ResStringCache.Entry findResourceEntry(Locale locale, List<Class<?>> resLoadCtxtClasses, String key) {
     Object scopeObj = getScopeObj(resLoadCtxtClasses);
     ResStringCache.Entry cacheEntry = cache.find(scopeObj, key, locale);
 
@@ -24,7 +37,7 @@ public class ClassPathResourceStringProvider implements ResourceStringProvider {
       cacheEntry = cache.put(scopeObj, key, locale, foundString);
     }
 
-    return cacheEntry.getValue();
+    return cacheEntry;
   }
 
   protected String findResourceStringInPackagePath(Locale locale, List<Class<?>> resLoadCtxtClasses, String key) {
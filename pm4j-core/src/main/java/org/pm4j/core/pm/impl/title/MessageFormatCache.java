@@ -0,0 +1,159 @@
+package org.pm4j.core.pm.impl.title;
+
+import java.text.MessageFormat;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.pm4j.common.cache.CacheMetrics;
+import org.pm4j.common.cache.CacheMetricsRegistry;
+
+/**
+ * A thread safe cache for parsed {@link MessageFormat} patterns.
+ * <p>
+ * The formats are identified by their pattern string and locale.
+ * An application usually uses only a limited set of resource string patterns.
+ * To prevent unlimited memory consumption for generated patterns, the oldest
+ * formats get removed if its maximum size is reached.
+ * <p>
+ * The hit rate gets reported by the {@link CacheMetrics} registered in
+ * {@link CacheMetricsRegistry#INSTANCE}.
+ *
+ * @author olaf boede
+ */
+public class MessageFormatCache {
+
+  /** The cache used by the PM localization. */
+  public static final MessageFormatCache INSTANCE = new MessageFormatCache("pm.localize.messageFormat");
+
+  /** The default maximum number of cached formats. */
+  public static final int DEFAULT_MAX_SIZE = 2000;
+
+  private final ConcurrentMap<Key, CompiledMessageFormat> keyToFormatMap = new ConcurrentHashMap<Key, CompiledMessageFormat>();
+  /** The cached keys in insertion order. Used to remove the oldest formats first. */
+  private final Queue<Key> keyQueue = new ConcurrentLinkedQueue<Key>();
+  private final CacheMetrics metrics;
+  private volatile int maxSize = DEFAULT_MAX_SIZE;
+
+  /**
+   * @param name the cache name used for the metrics report.
+   */
+  public MessageFormatCache(String name) {
+    this.metrics = CacheMetricsRegistry.INSTANCE.getMetrics(name);
+  }
+
+  /**
+   * Provides the parsed format for the given pattern.<br>
+   * Parses the pattern only if it is not yet cached.
+   *
+   * @param pattern the message pattern as documented in {@link MessageFormat}.
+   * @param locale the locale used for formatting.
+   * @return the parsed format. Never <code>null</code>.
+   * @throws IllegalArgumentException if the pattern is invalid.
+   */
+  public CompiledMessageFormat get(String pattern, Locale locale) {
+    Key key = new Key(pattern, locale);
+    CompiledMessageFormat format = keyToFormatMap.get(key);
+    if (format != null) {
+      metrics.countHit();
+      return format;
+    }
+
+    metrics.countMiss();
+    long startNanos = System.nanoTime();
+    format = new CompiledMessageFormat(new MessageFormat(pattern, locale));
+    metrics.countInit(System.nanoTime() - startNanos);
+
+    CompiledMessageFormat concurrentlyParsedFormat = keyToFormatMap.putIfAbsent(key, format);
+    if (concurrentlyParsedFormat != null) {
+      return concurrentlyParsedFormat;
+    }
+
+    keyQueue.add(key);
+    while (keyToFormatMap.size() > maxSize) {
+      Key oldestKey = keyQueue.poll();
+      if (oldestKey == null) {
+        break;
+      }
+      keyToFormatMap.remove(oldestKey);
+    }
+    return format;
+  }
+
+  /** Removes all cached formats. */
+  public void clear() {
+    keyToFormatMap.clear();
+    keyQueue.clear();
+  }
+
+  /** @return the current number of cached formats. */
+  public int size() {
+    return keyToFormatMap.size();
+  }
+
+  /** @param maxSize the maximum number of cached formats. */
+  public void setMaxSize(int maxSize) {
+    assert maxSize > 0;
+    this.maxSize = maxSize;
+  }
+
+  /** @return the hit and miss counters. */
+  public CacheMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * A parsed message pattern that may be shared by several threads.
+   * <p>
+   * A {@link MessageFormat} and its sub formats are not thread safe. Each format
+   * operation uses a clone of the parsed format. Cloning is much cheaper than
+   * parsing and does not block concurrent threads.
+   */
+  public static final class CompiledMessageFormat {
+    private final MessageFormat messageFormat;
+
+    CompiledMessageFormat(MessageFormat messageFormat) {
+      this.messageFormat = messageFormat;
+    }
+
+    /**
+     * @param args the placeholder arguments.
+     * @return the formatted string.
+     */
+    public String format(Object... args) {
+      MessageFormat mf = (MessageFormat) messageFormat.clone();
+      return mf.format(args, new StringBuffer(), null).toString();
+    }
+  }
+
+  /** Cache key: pattern and locale. */
+  static final class Key {
+    private final String pattern;
+    private final Locale locale;
+    private final int hashCode;
+
+    Key(String pattern, Locale locale) {
+      this.pattern = pattern;
+      this.locale = locale;
+      this.hashCode = pattern.hashCode() * 31 + ObjectUtils.hashCode(locale);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return pattern.equals(other.pattern) && ObjectUtils.equals(locale, other.locale);
+    }
+  }
+
+}
@@ -4,6 +4,8 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.pm4j.core.pm.impl.title.MessageFormatCache.CompiledMessageFormat;
+
 /**
  * A cache for string resource values.
  * <p>
@@ -24,17 +26,43 @@ public class ResStringCache {
 
   /**
    * A structure that holds the cached value.
+   * <p>
+   * It also holds the parsed message format of the value. This way resource
+   * lookup and formatting share the same cache entry.
    */
   public static class Entry {
     private String value;
+    private Locale locale;
+    private volatile CompiledMessageFormat messageFormat;
 
     public Entry(String value) {
+      this(value, null);
+    }
+
+    public Entry(String value, Locale locale) {
       this.value = value;
+      this.locale = locale;
     }
 
     public String getValue() {
       return this.value;
     }
+
+    /**
+     * Provides the value, parsed as {@link java.text.MessageFormat} pattern.<br>
+     * The pattern gets parsed on first request.
+     *
+     * @return The parsed format. <code>null</code> if the entry has no value.
+     * @throws IllegalArgumentException if the value is not a valid message pattern.
+     */
+    public CompiledMessageFormat getMessageFormat() {
+      CompiledMessageFormat mf = messageFormat;
+      if (mf == null && value != null) {
+        mf = MessageFormatCache.INSTANCE.get(value, locale);
+        messageFormat = mf;
+      }
+      return mf;
+    }
   }
 
   /**
@@ -65,7 +93,7 @@ public class ResStringCache {
    */
   public Entry put(String key, Locale locale, String value) {
     Entry newEntry = (value != null)
-                            ? new Entry(value)
+                            ? new Entry(value, locale)
                             : EMPTY_ENTRY;
     Map<String, Entry> keyToValueMap = getKeyToValueMap(locale);
     keyToValueMap.put(key, newEntry);
@@ -1,8 +1,14 @@
 package org.pm4j.navi.impl;
 
+import java.lang.ref.WeakReference;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
@@ -17,6 +23,13 @@ import org.pm4j.navi.NaviManager;
  * Responsible for managing a set of client sessions (e.g. browser tab sessions).
  * <p>
  * It knows about the set of active sessions.
+ * <p>
+ * The sessions are handled concurrently. Navigation requests for the same
+ * session are serialized by the session instance.
+ * <p>
+ * Unused sessions and histories get removed periodically. By default that
+ * check is done within the navigation requests. An optional scheduler allows to
+ * do that in background (see {@link #setExpiryScheduler(ScheduledExecutorService)}).
  *
  * @author olaf boede
  */
@@ -38,19 +51,28 @@ public class NaviManagerImpl implements NaviManager {
   /**
    * The set of conversation sessions.
    */
-  private Map<String, NaviSessionImpl> idToSessionMap = new LinkedHashMap<String, NaviSessionImpl>();
+  private final ConcurrentMap<String, NaviSessionImpl> idToSessionMap = new ConcurrentHashMap<String, NaviSessionImpl>();
 
   /**
    * The unique id that will be used when the next navigation will be created.<br>
    * Is initially randomized to minimize the likelihood of matches with stored browser links.
    */
-  private int nextSessionId;
+  private final AtomicInteger nextSessionId;
 
   /**
    * The last time [ms] this manager checked for histories and sessions that are
    * out of date.
    */
-  private long lastUnusedCheckTime;
+  private final AtomicLong lastUnusedCheckTime = new AtomicLong();
+
+  /**
+   * The background task that removes unused items. Is <code>null</code> if there is no scheduler.<br>
+   * Gets modified within synchronized methods. Is read without lock on each navigation.
+   */
+  private volatile ScheduledFuture<?> expiryTask;
+
+  private final AtomicLong evictedSessionCount = new AtomicLong();
+  private final AtomicLong evictedHistoryCount = new AtomicLong();
 
   /**
    * Constructor for application use.
@@ -61,7 +83,38 @@ public class NaviManagerImpl implements NaviManager {
     assert naviCfg != null;
 
     this.naviCfg = naviCfg;
-    this.nextSessionId = naviCfg.getSessionIdGenStrategy().getFirstId();
+    this.nextSessionId = new AtomicInteger(naviCfg.getSessionIdGenStrategy().getFirstId());
+  }
+
+  /**
+   * Defines a scheduler that removes unused sessions and histories in background.
+   * <p>
+   * The check gets executed in the interval defined by
+   * {@link NaviHistoryCfg#getUnusedLinkLiveTimeMs()}. The navigation requests
+   * will no longer perform that check.
+   * <p>
+   * The scheduled task references this manager weakly. It stops if this manager
+   * gets garbage collected or {@link #stopExpiry()} gets called.
+   *
+   * @param scheduler the scheduler to use. <code>null</code> switches back to the request based check.
+   */
+  public synchronized void setExpiryScheduler(ScheduledExecutorService scheduler) {
+    stopExpiry();
+    if (scheduler != null) {
+      long intervalMs = naviCfg.getUnusedLinkLiveTimeMs();
+      expiryTask = scheduler.scheduleWithFixedDelay(new ExpiryTask(this), intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Stops the background task that removes unused items.<br>
+   * Should be called when this manager is no longer used (e.g. when the http session gets invalidated).
+   */
+  public synchronized void stopExpiry() {
+    if (expiryTask != null) {
+      expiryTask.cancel(false);
+      expiryTask = null;
+    }
   }
 
   /**
@@ -71,12 +124,17 @@ public class NaviManagerImpl implements NaviManager {
     String id;
 
     do {
-      id = NaviUtil.intToId(nextSessionId);
-
-      // Big values may exist in case of time based start session ID's
-      this.nextSessionId = (nextSessionId == Integer.MAX_VALUE)
-                            ? 0
-                            : nextSessionId + 1;
+      int idNum;
+      int nextIdNum;
+      do {
+        idNum = nextSessionId.get();
+        // Big values may exist in case of time based start session ID's
+        nextIdNum = (idNum == Integer.MAX_VALUE)
+                      ? 0
+                      : idNum + 1;
+      } while (!nextSessionId.compareAndSet(idNum, nextIdNum));
+
+      id = NaviUtil.intToId(idNum);
 
     // Make sure that the ID is really not in use:
     } while (idToSessionMap.containsKey(id));
@@ -100,63 +158,87 @@ public class NaviManagerImpl implements NaviManager {
       versionId = sarr[1];
     }
 
-    synchronized(this) {
-      NaviSessionImpl session = idToSessionMap.get(sessionId);
+    NaviSessionImpl session;
+    NaviSessionImpl forkedSession;
+    while (true) {
+      session = getOrCreateSession(sessionId, versionId, link);
+      synchronized (session) {
+        // The session may have been removed by a concurrent unused item check.
+        if (session.isRemoved()) {
+          continue;
+        }
 
-      if (session == null) {
-        if (sessionId != null) {
-          session = new NaviSessionImpl(this, sessionId, versionId, link);
+        forkedSession = session.onNavigateTo((NaviLinkImpl)link, versionId, naviMode);
+        break;
+      }
+    }
 
-          if (LOG.isInfoEnabled())
-            LOG.info("Received request for a dead navigation session. VersionString: '" +
-                NaviUtil.makeVersionString(sessionId, versionId) +
-                "'. A new navigation session with the same ID will be generated " +
-                "to be able to handle request from the 'dead' page somehow.");
-        }
-        else {
-          session = new NaviSessionImpl(this);
+    if (forkedSession != null) {
+      idToSessionMap.put(forkedSession.getSessionId(), forkedSession);
+      session = forkedSession;
 
-          if (LOG.isDebugEnabled())
-            LOG.debug("New navigation session with ID=" + session.getSessionId() +
-                " started on navigation to '" + link + "'.");
-        }
+      // XXX olaf: Sollte das Log nicht in der SessionImpl gemacht werden (bei der Fork Herstellung)
+      if (LOG.isDebugEnabled())
+        LOG.debug("Created a navigation session fork: " + forkedSession +
+                  " for " + naviCfg.getVersionParamName() + "=" + versionString + "" +
+                  " caused by link: " + link +
+                  "\nTrace: " + getTraceString());
 
-        idToSessionMap.put(session.getSessionId(), session);
+      if (LOG.isTraceEnabled()) LOG.trace(getTraceString());
+    }
+
+    if (expiryTask == null) {
+      removeUnusedIfCheckIsDue();
+    }
 
-        if (LOG.isTraceEnabled()) LOG.trace(getTraceString());
+    if (LOG.isDebugEnabled()) {
+      if (! ( ObjectUtils.equals(sessionId, session.getSessionId()) &&
+              ObjectUtils.equals(versionId, session.getVersion()) )
+         ) {
+        LOG.debug("Changed to history: " + session.getNaviHistory());
+      }
+      else if (LOG.isTraceEnabled()) {
+        LOG.trace("Navigation history not changed: " + session.getNaviHistory());
       }
+    }
 
-      NaviSessionImpl forkedSession = session.onNavigateTo((NaviLinkImpl)link, versionId, naviMode);
+    return session.getNaviHistory();
+  }
 
-      if (forkedSession != null) {
-        idToSessionMap.put(forkedSession.getSessionId(), forkedSession);
-        session = forkedSession;
+  /**
+   * Provides the session for the given id. Creates and registers a new one if there
+   * is no session for this id.
+   */
+  private NaviSessionImpl getOrCreateSession(String sessionId, String versionId, NaviLink link) {
+    NaviSessionImpl session = (sessionId != null) ? idToSessionMap.get(sessionId) : null;
+
+    if (session == null) {
+      if (sessionId != null) {
+        session = new NaviSessionImpl(this, sessionId, versionId, link);
+
+        if (LOG.isInfoEnabled())
+          LOG.info("Received request for a dead navigation session. VersionString: '" +
+              NaviUtil.makeVersionString(sessionId, versionId) +
+              "'. A new navigation session with the same ID will be generated " +
+              "to be able to handle request from the 'dead' page somehow.");
+      }
+      else {
+        session = new NaviSessionImpl(this);
 
-        // XXX olaf: Sollte das Log nicht in der SessionImpl gemacht werden (bei der Fork Herstellung)
         if (LOG.isDebugEnabled())
-          LOG.debug("Created a navigation session fork: " + forkedSession +
-                    " for " + naviCfg.getVersionParamName() + "=" + versionString + "" +
-                    " caused by link: " + link +
-                    "\nTrace: " + getTraceString());
-
-        if (LOG.isTraceEnabled()) LOG.trace(getTraceString());
+          LOG.debug("New navigation session with ID=" + session.getSessionId() +
+              " started on navigation to '" + link + "'.");
       }
 
-      removeUnused();
-
-      if (LOG.isDebugEnabled()) {
-        if (! ( ObjectUtils.equals(sessionId, session.getSessionId()) &&
-                ObjectUtils.equals(versionId, session.getVersion()) )
-           ) {
-          LOG.debug("Changed to history: " + session.getNaviHistory());
-        }
-        else if (LOG.isTraceEnabled()) {
-          LOG.trace("Navigation history not changed: " + session.getNaviHistory());
-        }
+      NaviSessionImpl concurrentlyCreatedSession = idToSessionMap.putIfAbsent(session.getSessionId(), session);
+      if (concurrentlyCreatedSession != null) {
+        session = concurrentlyCreatedSession;
       }
 
-      return session.getNaviHistory();
+      if (LOG.isTraceEnabled()) LOG.trace(getTraceString());
     }
+
+    return session;
   }
 
   @Override
@@ -176,7 +258,7 @@ public class NaviManagerImpl implements NaviManager {
 
   @Override
   public NaviHistory getCurrentHistoryOfSession(String sessionId) {
-    NaviSessionImpl session = idToSessionMap.get(sessionId);
+    NaviSessionImpl session = findNaviSession(sessionId);
     return session != null
             ? session.getNaviHistory()
             : null;
@@ -184,7 +266,7 @@ public class NaviManagerImpl implements NaviManager {
 
   @Override
   public NaviHistory findHistory(String sessionId, String versionId) {
-    NaviSessionImpl session = idToSessionMap.get(sessionId);
+    NaviSessionImpl session = findNaviSession(sessionId);
     return session != null
             ? session.findHistoryVersion(versionId)
             : null;
@@ -197,7 +279,7 @@ public class NaviManagerImpl implements NaviManager {
    *         the given ID.
    */
   /* package */ NaviSessionImpl findNaviSession(String sessionId) {
-    return idToSessionMap.get(sessionId);
+    return (sessionId != null) ? idToSessionMap.get(sessionId) : null;
   }
 
   /**
@@ -216,22 +298,71 @@ public class NaviManagerImpl implements NaviManager {
   }
 
   /**
-   * Gets called on each {@link #onNavigateTo(NaviLink, String, String)}. Checks for unused
-   * items only in an interval of {@link NaviHistoryCfg#getUnusedLinkLiveTimeMs()}.
+   * @return The number of registered navigation sessions.
+   */
+  public int getSessionCount() {
+    return idToSessionMap.size();
+  }
+
+  /**
+   * @return The number of navigation history versions of all registered sessions.
+   */
+  public int getHistoryVersionCount() {
+    int count = 0;
+    for (NaviSessionImpl s : idToSessionMap.values()) {
+      count += s.getHistoryVersionCount();
+    }
+    return count;
+  }
+
+  /**
+   * @return The number of sessions that were removed because they were not used.
    */
-  private void removeUnused() {
+  public long getEvictedSessionCount() {
+    return evictedSessionCount.get();
+  }
+
+  /**
+   * @return The number of moved-out histories that were removed because they were not used.
+   */
+  public long getEvictedHistoryCount() {
+    return evictedHistoryCount.get();
+  }
+
+  /**
+   * Gets called on each {@link #onNavigateTo(NaviLink, String, String)} if there is no
+   * background expiry scheduler. Checks for unused items only in an interval of
+   * {@link NaviHistoryCfg#getUnusedLinkLiveTimeMs()}.
+   */
+  private void removeUnusedIfCheckIsDue() {
     long now = System.currentTimeMillis();
-    long timeSinceLastUnusedCheck = now - naviCfg.getUnusedLinkLiveTimeMs();
-    if (lastUnusedCheckTime < timeSinceLastUnusedCheck) {
+    long lastCheckTime = lastUnusedCheckTime.get();
+    if ((lastCheckTime < now - naviCfg.getUnusedLinkLiveTimeMs()) &&
+        // Only a single thread performs the check.
+        lastUnusedCheckTime.compareAndSet(lastCheckTime, now)) {
       if (LOG.isTraceEnabled()) {
-        LOG.trace("Checking for unused histories. Previous check was " + (now - lastUnusedCheckTime) + "ms ago.");
+        LOG.trace("Checking for unused histories. Previous check was " + (now - lastCheckTime) + "ms ago.");
       }
+      removeUnused(now);
+    }
+  }
 
-      lastUnusedCheckTime = now;
-      for (Iterator<NaviSessionImpl> i = idToSessionMap.values().iterator(); i.hasNext(); ) {
-        NaviSessionImpl s = i.next();
-        if (! s.removeUnusedAndCheckIfActive(timeSinceLastUnusedCheck)) {
+  /**
+   * Removes the histories and sessions that are not used within the last
+   * {@link NaviHistoryCfg#getUnusedLinkLiveTimeMs()}.
+   *
+   * @param now the current time.
+   */
+  /* package */ void removeUnused(long now) {
+    long minLastVisitTime = now - naviCfg.getUnusedLinkLiveTimeMs();
+    for (Iterator<NaviSessionImpl> i = idToSessionMap.values().iterator(); i.hasNext(); ) {
+      NaviSessionImpl s = i.next();
+      synchronized (s) {
+        evictedHistoryCount.addAndGet(s.removeUnused(minLastVisitTime));
+        if (! s.isActive(minLastVisitTime)) {
+          s.setRemoved();
           i.remove();
+          evictedSessionCount.incrementAndGet();
           if (LOG.isDebugEnabled()) {
             LOG.debug("Removed unused navigation session: " + s);
           }
@@ -240,5 +371,32 @@ public class NaviManagerImpl implements NaviManager {
     }
   }
 
+  /**
+   * Periodically removes unused items.<br>
+   * References the manager weakly to allow its garbage collection.
+   */
+  private static class ExpiryTask implements Runnable {
+    private final WeakReference<NaviManagerImpl> managerRef;
+
+    public ExpiryTask(NaviManagerImpl manager) {
+      this.managerRef = new WeakReference<NaviManagerImpl>(manager);
+    }
+
+    @Override
+    public void run() {
+      NaviManagerImpl manager = managerRef.get();
+      if (manager == null) {
+        // Stops the periodic execution.
+        throw new IllegalStateException("Navigation manager was garbage collected.");
+      }
+      try {
+        manager.removeUnused(System.currentTimeMillis());
+      } catch (RuntimeException e) {
+        // An exception would stop the periodic execution.
+        LOG.error("Unable to remove unused navigation sessions.", e);
+      }
+    }
+  }
+
 }
 
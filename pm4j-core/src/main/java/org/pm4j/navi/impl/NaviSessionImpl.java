@@ -21,6 +21,8 @@ import org.pm4j.navi.NaviManager.NaviMode;
  * Implementation of the navigation session (also known as browser tab sessions).
  * <p>
  * It knows about its active navigation history versions.
+ * <p>
+ * The navigation related operations are synchronized on the session instance.
  *
  * @author olaf boede
  */
@@ -49,10 +51,13 @@ class NaviSessionImpl {
   /**
    * The currently active (latest) history version.
    */
-  private NaviHistoryImpl currentHistory;
+  private volatile NaviHistoryImpl currentHistory;
 
   /** The current version ID. */
-  private String currentVersion = "-1";
+  private volatile String currentVersion = "-1";
+
+  /** Gets set when the session gets removed from its manager. */
+  private volatile boolean removed;
 
   /**
    * Properties that are stored within the scope of this navigation session.
@@ -175,7 +180,7 @@ class NaviSessionImpl {
    *         fork was created.<br>
    *         <code>null</code> when the navigation did not cause a session fork.
    */
-  public NaviSessionImpl onNavigateTo(NaviLinkImpl link, String versionId, NaviMode naviMode) {
+  public synchronized NaviSessionImpl onNavigateTo(NaviLinkImpl link, String versionId, NaviMode naviMode) {
     assert link != null;
     // assert versionId != null; - TODO: deactivated because of a test configuration.
 
@@ -320,28 +325,39 @@ class NaviSessionImpl {
   }
 
   /**
-   * Checks if any move-out history is unused since the given time stamp.<br>
-   * Removes the unused items.
+   * Removes the move-out histories that are unused since the given time stamp.
    *
    * @param minLastVisitTime
    *          The accepted lastVisitTime for the oldest history.
-   * @return <code>true</code> if at least one history item was used since the
-   *         given time. <code>false</code> if all last-usage-times of all
-   *         history items are older than the given time.
+   * @return The number of removed histories.
    */
-  public boolean removeUnusedAndCheckIfActive(long minLastVisitTime) {
+  public synchronized int removeUnused(long minLastVisitTime) {
     boolean traceEnabled = LOG.isTraceEnabled();
+    int removedCount = 0;
 
     for (Iterator<NaviHistoryImpl> i = loopVersionToHistoryMap.values().iterator(); i.hasNext(); ) {
       NaviHistoryImpl h = i.next();
       if (h.getLastVisitTime() < minLastVisitTime) {
         i.remove();
+        ++removedCount;
         if (traceEnabled) {
           LOG.trace("Unused history removed: " + h);
         }
       }
     }
+    return removedCount;
+  }
 
+  /**
+   * Checks if any history is used since the given time stamp.
+   *
+   * @param minLastVisitTime
+   *          The accepted lastVisitTime for the oldest history.
+   * @return <code>true</code> if at least one history item was used since the
+   *         given time. <code>false</code> if all last-usage-times of all
+   *         history items are older than the given time.
+   */
+  public synchronized boolean isActive(long minLastVisitTime) {
     boolean isActive = currentHistory.getLastVisitTime() >= minLastVisitTime;
 
     if (!isActive) {
@@ -366,7 +382,7 @@ class NaviSessionImpl {
    * @return The found history or <code>null</code> if there is no matching
    *         instance.
    */
-  public NaviHistoryImpl findHistoryVersion(String version) {
+  public synchronized NaviHistoryImpl findHistoryVersion(String version) {
     NaviHistoryImpl history = versionToHistoryMap.get(version);
     if (history == null) {
       history = loopVersionToHistoryMap.get(version);
@@ -412,7 +428,7 @@ class NaviSessionImpl {
   /**
    * @return A report about the state of the session.
    */
-  public String getTraceString() {
+  public synchronized String getTraceString() {
     StringBuilder sb = new StringBuilder(1000);
     sb.append("NaviSession ").append(getSessionId())
       .append("\n current version: ").append(currentVersion)
@@ -430,6 +446,27 @@ class NaviSessionImpl {
     return sb.toString();
   }
 
+  /**
+   * @return The number of active and moved-out history versions.
+   */
+  public synchronized int getHistoryVersionCount() {
+    return versionToHistoryMap.size() + loopVersionToHistoryMap.size();
+  }
+
+  /**
+   * @return <code>true</code> if the session was removed from its manager.
+   */
+  public boolean isRemoved() {
+    return removed;
+  }
+
+  /**
+   * Marks the session as removed from its manager.
+   */
+  /* package */ void setRemoved() {
+    this.removed = true;
+  }
+
   @Override
   public String toString() {
     return NaviUtil.makeVersionString(sessionId, currentVersion);
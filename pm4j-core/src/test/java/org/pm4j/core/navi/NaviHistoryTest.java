@@ -1,6 +1,8 @@
 package org.pm4j.core.navi;
 
 import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import junit.framework.TestCase;
 
@@ -163,6 +165,37 @@ public class NaviHistoryTest extends TestCase {
     check(m.onNavigateTo(LINK_3, "0.1"), "0.1", LINK_3);
   }
 
+  public void testRemoveOldHistoriesInBackground() throws InterruptedException {
+    int removeIntervalMs = 100;
+    naviCfg.setUnusedLinkLiveTimeMs(removeIntervalMs);
+    NaviManagerImpl m = new NaviManagerImpl(naviCfg);
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    m.setExpiryScheduler(scheduler);
+
+    try {
+      check(m.onNavigateTo(LINK_1, null ), "0.0", LINK_1);
+      check(m.onNavigateTo(LINK_2, "0.0"), "0.1", LINK_1, LINK_2);
+      check(m.onNavigateTo(LINK_1, "0.1"), "0.2", LINK_1);
+      check(m.onNavigateTo(LINK_2, "0.1"), "1.0", LINK_1, LINK_2);
+
+      assertEquals(2, m.getSessionCount());
+      assertEquals(4, m.getHistoryVersionCount());
+
+      // -- Wait until the background task removed all unused items --
+      for (int i = 0; i < 50 && m.getSessionCount() > 0; ++i) {
+        Thread.sleep(removeIntervalMs);
+      }
+
+      assertEquals(0, m.getSessionCount());
+      assertEquals(2, m.getEvictedSessionCount());
+      assertEquals(2, m.getEvictedHistoryCount());
+    }
+    finally {
+      m.stopExpiry();
+      scheduler.shutdown();
+    }
+  }
+
   public void testPopupNavigation() {
     NaviManager m = new NaviManagerImpl(naviCfg);
 
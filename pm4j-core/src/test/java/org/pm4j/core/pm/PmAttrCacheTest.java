@@ -1,17 +1,33 @@
 package org.pm4j.core.pm;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Test;
+import org.pm4j.common.cache.BoundedCache;
+import org.pm4j.common.cache.CacheMetrics;
+import org.pm4j.common.cache.CacheMetricsRegistry;
 import org.pm4j.core.pm.annotation.PmAttrCfg;
 import org.pm4j.core.pm.annotation.PmBeanCfg;
 import org.pm4j.core.pm.annotation.PmCacheCfg;
 import org.pm4j.core.pm.annotation.PmCacheCfg.CacheMode;
+import org.pm4j.core.pm.annotation.PmOptionCfg;
+import org.pm4j.core.pm.annotation.PmOptionCfg.NullOption;
 import org.pm4j.core.pm.api.PmCacheApi;
 import org.pm4j.core.pm.impl.PmAttrStringImpl;
 import org.pm4j.core.pm.impl.PmBeanImpl;
 import org.pm4j.core.pm.impl.PmConversationImpl;
 import org.pm4j.core.pm.impl.PmElementBase;
+import org.pm4j.core.pm.impl.cache.CacheStrategyBoundedConversation;
+import org.pm4j.core.pm.impl.cache.CacheStrategyShared;
+import org.pm4j.core.pm.impl.connector.PmToNoViewTechnologyConnector;
 
 public class PmAttrCacheTest {
 
@@ -90,6 +106,136 @@ public class PmAttrCacheTest {
     assertEquals(p.s, pPm.sClassCacheSwitchedOff.getValue());
   }
 
+  @Test
+  public void testRequestCache() {
+    final Map<String, Object> requestAttributes = new HashMap<String, Object>();
+    PmConversationImpl conversation = new PmConversationImpl();
+    conversation.setPmToViewTechnologyConnector(new PmToNoViewTechnologyConnector() {
+      @Override
+      public Object readRequestAttribute(String attrName) {
+        return requestAttributes.get(attrName);
+      }
+      @Override
+      public void setRequestAttribute(String attrName, Object value) {
+        requestAttributes.put(attrName, value);
+      }
+    });
+    MyPojo p = new MyPojo();
+    MyPojoPmWithBoundedCaches pPm = new MyPojoPmWithBoundedCaches(conversation, p);
+
+    p.s = "abc";
+    assertEquals("abc", pPm.sInRequestCache.getValue());
+    p.s = "123";
+    assertEquals("abc", pPm.sInRequestCache.getValue());
+    assertEquals("All values are stored in a single request attribute.", 1, requestAttributes.size());
+
+    // simulates the next request
+    requestAttributes.clear();
+    assertEquals("123", pPm.sInRequestCache.getValue());
+
+    p.s = "xyz";
+    PmCacheApi.clearPmCache(pPm.sInRequestCache);
+    assertEquals("xyz", pPm.sInRequestCache.getValue());
+  }
+
+  @Test
+  public void testCacheMetrics() {
+    MyPojo p = new MyPojo();
+    MyPojoPm pPm = new MyPojoPm(new PmConversationImpl(), p);
+    p.s = "abc";
+
+    CacheMetrics m = PmCacheApi.getCacheMetrics(pPm.sCached, "CACHE_VALUE_LOCAL");
+    long hits = m.getHitCount();
+    long misses = m.getMissCount();
+    long inits = m.getInitCount();
+
+    pPm.sCached.getValue();
+    pPm.sCached.getValue();
+    pPm.sCached.getValue();
+
+    assertEquals(hits + 2, m.getHitCount());
+    assertEquals(misses + 1, m.getMissCount());
+    assertEquals(inits + 1, m.getInitCount());
+    assertSame("The metrics are registered in the application wide registry.",
+        m, CacheMetricsRegistry.INSTANCE.getMetrics(m.getName()));
+  }
+
+  @Test
+  public void testConversationCacheWithSizeLimit() {
+    PmConversationImpl conversation = new PmConversationImpl();
+    MyPojo p1 = new MyPojo();
+    MyPojo p2 = new MyPojo();
+    MyPojoPmWithBoundedCaches pm1 = new MyPojoPmWithBoundedCaches(conversation, p1);
+    MyPojoPmWithBoundedCaches pm2 = new MyPojoPmWithBoundedCaches(conversation, p2);
+
+    p1.s = "abc";
+    p2.s = "def";
+    assertEquals("abc", pm1.sInConversationCache.getValue());
+    p1.s = "123";
+    assertEquals("abc", pm1.sInConversationCache.getValue());
+
+    // The cache has a size of one. The value of pm1 gets evicted.
+    assertEquals("def", pm2.sInConversationCache.getValue());
+    assertEquals("123", pm1.sInConversationCache.getValue());
+
+    // A strategy for the same cache aspect and name provides the same conversation cache.
+    BoundedCache cache = new CacheStrategyBoundedConversation("test", "v", "smallCache", 1, 0).getCache(pm1);
+    assertEquals("smallCache", cache.getName());
+    assertEquals(2, cache.getEvictionCount());
+  }
+
+  @Test
+  public void testSharedOptionSetCache() {
+    CacheStrategyShared.clearSharedCaches();
+    MyPojoPmWithBoundedCaches pm1 = makePmWithSharedOptions(true);
+    MyPojoPmWithBoundedCaches pm2 = makePmWithSharedOptions(false);
+    CacheMetrics m = PmCacheApi.getCacheMetrics(pm1.sWithSharedOptions, "CACHE_OPTIONS_SHARED");
+    long hits = m.getHitCount();
+
+    PmOptionSet os1 = pm1.sWithSharedOptions.getOptionSet();
+    PmOptionSet os2 = pm2.sWithSharedOptions.getOptionSet();
+    assertEquals(hits + 1, m.getHitCount());
+    assertSame("All conversations share the value options.", os1.getOptions().get(0), os2.getOptions().get(1));
+
+    CacheStrategyShared.clearSharedCaches();
+    assertNotSame(os2.getOptions().get(1), pm2.sWithSharedOptions.getOptionSet().getOptions().get(1));
+  }
+
+  @Test
+  public void testSharedOptionSetCacheProvidesTheNullOptionForEachAttribute() {
+    CacheStrategyShared.clearSharedCaches();
+    MyPojoPmWithBoundedCaches requiredPm = makePmWithSharedOptions(true);
+    MyPojoPmWithBoundedCaches optionalPm = makePmWithSharedOptions(false);
+
+    assertEquals("The required attribute has no null option.", "[a, b]", getOptionTitles(requiredPm.sWithSharedOptions.getOptionSet()));
+    assertEquals("The optional attribute has a null option.", "[, a, b]", getOptionTitles(optionalPm.sWithSharedOptions.getOptionSet()));
+
+    // The same result if the optional attribute fills the cache.
+    CacheStrategyShared.clearSharedCaches();
+    assertEquals("[, a, b]", getOptionTitles(optionalPm.sWithSharedOptions.getOptionSet()));
+    assertEquals("[a, b]", getOptionTitles(requiredPm.sWithSharedOptions.getOptionSet()));
+  }
+
+  private static final List<String> REFERENCE_DATA = Arrays.asList("a", "b");
+
+  private MyPojoPmWithBoundedCaches makePmWithSharedOptions(boolean required) {
+    PmConversationImpl conversation = new PmConversationImpl();
+    conversation.setPmNamedObject("referenceData", REFERENCE_DATA);
+    MyPojo p = new MyPojo();
+    p.s = "a";
+    MyPojoPmWithBoundedCaches pm = new MyPojoPmWithBoundedCaches(conversation, p);
+    pm.sharedOptionsRequired = required;
+    return pm;
+  }
+
+  private String getOptionTitles(PmOptionSet os) {
+    List<String> titles = new ArrayList<String>();
+    for (PmOption o : os.getOptions()) {
+      titles.add(o.getPmTitle());
+    }
+    return titles.toString();
+  }
+
   // -- Domain model --
 
   public static class MyPojo {
@@ -162,6 +308,34 @@ public class PmAttrCacheTest {
     }
   }
 
+  @PmBeanCfg(beanClass=MyPojo.class)
+  public static class MyPojoPmWithBoundedCaches extends PmBeanImpl<MyPojo> {
+    @PmCacheCfg(value=CacheMode.CONVERSATION, name="smallCache", maxSize=1)
+    @PmAttrCfg(valuePath="pmBean.s")
+    public final PmAttrString sInConversationCache = new PmAttrStringImpl(this);
+
+    @PmCacheCfg(value=CacheMode.REQUEST)
+    @PmAttrCfg(valuePath="pmBean.s")
+    public final PmAttrString sInRequestCache = new PmAttrStringImpl(this);
+
+    /** Only the attributes that are not required get a null option. */
+    @PmCacheCfg(options=CacheMode.SHARED, name="referenceData")
+    @PmOptionCfg(values="#referenceData", nullOption=NullOption.FOR_OPTIONAL_ATTR)
+    @PmAttrCfg(valuePath="pmBean.s")
+    public final PmAttrString sWithSharedOptions = new PmAttrStringImpl(this) {
+      @Override
+      protected boolean isRequiredImpl() {
+        return sharedOptionsRequired;
+      }
+    };
+
+    boolean sharedOptionsRequired;
+
+    public MyPojoPmWithBoundedCaches(PmObject pmParent, MyPojo myPojo) {
+      super(pmParent, myPojo);
+    }
+  }
+
   @PmCacheCfg(value=CacheMode.ON, cascade=true)
   public static class MyPojoPmWithParentDefinedValueCacheModeCascaded extends MyPojoPm {
     public MyPojoPmWithParentDefinedValueCacheModeCascaded(PmObject pmParent, MyPojo myPojo) {
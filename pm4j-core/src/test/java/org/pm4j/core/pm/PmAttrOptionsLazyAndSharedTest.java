@@ -0,0 +1,192 @@
+package org.pm4j.core.pm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.pm4j.common.query.CompOpStartsWith;
+import org.pm4j.common.query.QueryAttr;
+import org.pm4j.common.query.QueryExprCompare;
+import org.pm4j.common.query.QueryParams;
+import org.pm4j.common.query.inmem.InMemQueryEvaluator;
+import org.pm4j.core.pm.annotation.PmOptionCfg;
+import org.pm4j.core.pm.impl.PmAttrImpl;
+import org.pm4j.core.pm.impl.PmConversationImpl;
+import org.pm4j.core.pm.impl.options.PmOptionQueryService;
+import org.pm4j.core.pm.impl.options.PmOptionSetLazy;
+
+public class PmAttrOptionsLazyAndSharedTest extends TestCase {
+
+  public static class TestPm extends PmConversationImpl {
+
+    /** Gets a lazy option set because the values expression provides a {@link PmOptionQueryService}. */
+    @PmOptionCfg(values="#myItemQueryService", id="id", title="name")
+    public final PmAttr<Item> attributeWithLazyOptions = new PmAttrImpl<Item>(this);
+
+    /** Gets a lazy option set for a service without items. */
+    @PmOptionCfg(values="#myEmptyItemQueryService", id="id", title="name")
+    public final PmAttr<Item> attributeWithEmptyLazyOptions = new PmAttrImpl<Item>(this);
+
+    /** Shares the options with all other instances of this attribute. */
+    @PmOptionCfg(values="#myItemList", id="id", title="name", sortBy="title desc", shareOptions=true)
+    public final PmAttr<Item> attributeWithSharedOptions = new PmAttrImpl<Item>(this);
+  }
+
+  private MyItemQueryService myItemQueryService = new MyItemQueryService(120);
+  private MyItemQueryService myEmptyItemQueryService = new MyItemQueryService(0);
+  private List<Item> myItemList = Arrays.asList(new Item(1, "a"), new Item(2, "b"));
+  private TestPm testPm = makeTestPm();
+
+  // -- Tests --
+
+  public void testLazyOptionsGetReadOnlyForTheAccessedPage() {
+    PmOptionSet os = testPm.attributeWithLazyOptions.getOptionSet();
+    assertTrue(os instanceof PmOptionSetLazy);
+    assertEquals("No option page is read for the option set creation.", 0, myItemQueryService.numOfItemsCalls);
+
+    assertEquals("The null option and the service items.", 121, os.getOptions().size());
+    assertEquals("", os.getOptions().get(0).getPmTitle());
+    assertEquals("item1", os.getOptions().get(1).getPmTitle());
+    assertEquals("item120", os.getOptions().get(120).getPmTitle());
+    assertEquals(2, myItemQueryService.numOfItemsCalls);
+  }
+
+  public void testLazyOptionsResolveTheValueOptionById() {
+    testPm.attributeWithLazyOptions.setValueAsString("77");
+    assertEquals("77:item77", testPm.attributeWithLazyOptions.getValue().toString());
+    assertEquals("item77", testPm.attributeWithLazyOptions.getValueLocalized());
+    assertEquals("The value option is resolved without reading an option page.", 0, myItemQueryService.numOfItemsCalls);
+  }
+
+  public void testSearchLazyOptions() {
+    PmOptionSetLazy<?> os = (PmOptionSetLazy<?>) testPm.attributeWithLazyOptions.getOptionSet();
+    assertEquals(121, os.getSize().intValue());
+
+    os.getQueryParams().setFilterExpression(new QueryExprCompare(MyItemQueryService.ATTR_NAME, CompOpStartsWith.class, "item11"));
+    assertEquals("[, item11, item110, item111, item112, item113, item114, item115, item116, item117, item118, item119]",
+        getOptionTitles(os).toString());
+  }
+
+  public void testLazyOptionsProvideTheNullOptionOnlyWithValueOptions() {
+    PmOptionSet os = testPm.attributeWithEmptyLazyOptions.getOptionSet();
+    assertEquals("No null option without value options.", 0, os.getOptions().size());
+    assertNull(os.findOptionForIdString(""));
+  }
+
+  public void testSharedOptions() {
+    TestPm otherTestPm = makeTestPm();
+    PmOptionSet os1 = testPm.attributeWithSharedOptions.getOptionSet();
+    PmOptionSet os2 = otherTestPm.attributeWithSharedOptions.getOptionSet();
+
+    assertEquals("[, b, a]", getOptionTitles(os1).toString());
+    assertEquals("[, b, a]", getOptionTitles(os2).toString());
+    assertSame(os1.getOptions().get(1), os2.getOptions().get(1));
+    assertSame(os1.getOptionForId("2"), os2.getOptionForId("2"));
+
+    testPm.attributeWithSharedOptions.setValueAsString("2");
+    assertEquals("2:b", testPm.attributeWithSharedOptions.getValue().toString());
+  }
+
+  public void testSharedOptionsGetRegeneratedForAnotherValuesInstance() {
+    PmOptionSet os1 = testPm.attributeWithSharedOptions.getOptionSet();
+
+    myItemList = new ArrayList<Item>(myItemList);
+    myItemList.add(new Item(3, "c"));
+    TestPm otherTestPm = makeTestPm();
+    PmOptionSet os2 = otherTestPm.attributeWithSharedOptions.getOptionSet();
+
+    assertEquals("[, b, a]", getOptionTitles(os1).toString());
+    assertEquals("[, c, b, a]", getOptionTitles(os2).toString());
+  }
+
+  public void testSharedOptionsDoNotReflectChangesWithinTheSameValuesInstance() {
+    myItemList = new ArrayList<Item>(myItemList);
+    PmOptionSet os1 = makeTestPm().attributeWithSharedOptions.getOptionSet();
+
+    myItemList.add(new Item(3, "c"));
+    PmOptionSet os2 = makeTestPm().attributeWithSharedOptions.getOptionSet();
+
+    assertEquals("The options are shared by values instance identity.", "[, b, a]", getOptionTitles(os2).toString());
+    assertSame(os1.getOptions().get(1), os2.getOptions().get(1));
+  }
+
+  // -- Helper --
+
+  private TestPm makeTestPm() {
+    TestPm pm = new TestPm();
+    pm.setPmNamedObject("myItemQueryService", myItemQueryService);
+    pm.setPmNamedObject("myEmptyItemQueryService", myEmptyItemQueryService);
+    pm.setPmNamedObject("myItemList", myItemList);
+    return pm;
+  }
+
+  private List<String> getOptionTitles(PmOptionSet os) {
+    List<String> titles = new ArrayList<String>();
+    for (PmOption o : os.getOptions()) {
+      titles.add(o.getPmTitle());
+    }
+    return titles;
+  }
+
+  // -- Domain structure --
+
+  public static class Item {
+    public int id;
+    public String name;
+    public Item(int id, String name) {
+      this.id = id;
+      this.name = name;
+    }
+    public int getId() { return id; }
+    public String getName() { return name; }
+    @Override
+    public String toString() {
+      return id+":"+name;
+    }
+  }
+
+  public static class MyItemQueryService implements PmOptionQueryService<Item, Integer> {
+    static final QueryAttr ATTR_NAME = new QueryAttr("name", String.class);
+
+    private final List<Item> items = new ArrayList<Item>();
+    private final InMemQueryEvaluator<Item> evaluator = new InMemQueryEvaluator<Item>();
+    int numOfItemsCalls;
+
+    public MyItemQueryService(int numOfItems) {
+      for (int i=1; i<=numOfItems; ++i) {
+        items.add(new Item(i, "item" + i));
+      }
+    }
+
+    @Override
+    public List<Item> getItems(QueryParams query, long startIdx, int pageSize) {
+      ++numOfItemsCalls;
+      List<Item> matches = evaluator.evaluateSubSet(items, query.getFilterExpression());
+      int endIdx = (int) Math.min(matches.size(), startIdx + pageSize);
+      return new ArrayList<Item>(matches.subList((int)startIdx, endIdx));
+    }
+
+    @Override
+    public long getItemCount(QueryParams query) {
+      return evaluator.evaluateSubSet(items, query.getFilterExpression()).size();
+    }
+
+    @Override
+    public Integer getIdForItem(Item item) {
+      return item.id;
+    }
+
+    @Override
+    public Item getItemForId(Integer id) {
+      return (id > 0 && id <= items.size()) ? items.get(id-1) : null;
+    }
+
+    @Override
+    public Integer getIdForIdString(String idString) {
+      return Integer.valueOf(idString);
+    }
+  }
+
+}
@@ -14,6 +14,10 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.pm4j.common.pageable.PageableCollectionUtil;
+import org.pm4j.common.pageable.inmem.InMemCollectionBase;
+import org.pm4j.common.query.CompOpContains;
+import org.pm4j.common.query.QueryAttr;
+import org.pm4j.common.query.QueryExprCompare;
 import org.pm4j.common.query.QueryOptions;
 import org.pm4j.common.query.filter.FilterDefinition;
 import org.pm4j.common.query.inmem.InMemSortOrder;
@@ -148,6 +152,68 @@ public class PmTable2Test {
     assertEquals("new a", myTablePm.getRowPms().get(0).description.getValue());
   }
 
+  @Test
+  public void testResetOfChangedRowsRemovesTheRowsFromTheUpdatedItems() {
+    setValue(myTablePm.getRowPms().get(0).name, "a2");
+    setValue(myTablePm.getRowPms().get(1).name, "b2");
+    assertEquals(2, myTablePm.getPmPageableCollection().getModifications().getUpdatedItems().size());
+
+    // Resets the rows within a single event batch.
+    PmEventApi.beginEventBatch();
+    try {
+      for (RowPm r : myTablePm.getRowPms()) {
+        r.setPmValueChanged(false);
+      }
+    } finally {
+      PmEventApi.flushEventBatch();
+    }
+    assertEquals(0, myTablePm.getPmPageableCollection().getModifications().getUpdatedItems().size());
+  }
+
+  @Test
+  public void testTrigramIndexFilterAfterRepeatedRowEdits() {
+    QueryAttr attrName = new QueryAttr("name", String.class);
+    ((InMemCollectionBase<RowBean>) myTablePm.getPmPageableBeanCollection()).addTrigramIndex(attrName);
+    RowPm rowPm = myTablePm.getRowPms().get(0);
+
+    // The first filter creates the index.
+    myTablePm.getPmQueryParams().setFilterExpression(new QueryExprCompare(attrName, CompOpContains.class, "xyz"));
+    assertEquals("[]", myTablePm.getRowPms().toString());
+    myTablePm.getPmQueryParams().setFilterExpression(new QueryExprCompare(attrName, CompOpContains.class, "abc"));
+    assertEquals("[]", myTablePm.getRowPms().toString());
+
+    // Only the first edit changes the changed state of the row.
+    setValue(rowPm.name, "foo");
+    setValue(rowPm.name, "foobar");
+    setValue(rowPm.name, "bazqux");
+
+    myTablePm.getPmQueryParams().setFilterExpression(new QueryExprCompare(attrName, CompOpContains.class, "baz"));
+    assertEquals("[bazqux]", myTablePm.getRowPms().toString());
+  }
+
+  @Test
+  public void testColumnStoreFilterAfterRepeatedRowEdits() {
+    QueryAttr attrName = new QueryAttr("name", String.class);
+    ((InMemCollectionBase<RowBean>) myTablePm.getPmPageableBeanCollection()).setUseColumnStore(true);
+    RowPm rowPm = myTablePm.getRowPms().get(0);
+
+    // Creates the column store.
+    myTablePm.getPmQueryParams().setFilterExpression(new QueryExprCompare(attrName, CompOpContains.class, "xyz"));
+    assertEquals("[]", myTablePm.getRowPms().toString());
+    myTablePm.getPmQueryParams().setFilterExpression(new QueryExprCompare(attrName, CompOpContains.class, "abc"));
+    assertEquals("[]", myTablePm.getRowPms().toString());
+
+    // Only the first edit changes the changed state of the row.
+    setValue(rowPm.name, "foo");
+    myTablePm.getPmQueryParams().setFilterExpression(new QueryExprCompare(attrName, CompOpContains.class, "foo"));
+    assertEquals("The column store was re-created after the first edit.", "[foo]", myTablePm.getRowPms().toString());
+    setValue(rowPm.name, "foobar");
+    setValue(rowPm.name, "bazqux");
+
+    myTablePm.getPmQueryParams().setFilterExpression(new QueryExprCompare(attrName, CompOpContains.class, "baz"));
+    assertEquals("[bazqux]", myTablePm.getRowPms().toString());
+  }
+
   @Test
   public void testSortByName() {
     assertEquals("[a, b]", myTablePm.getRowPms().toString());
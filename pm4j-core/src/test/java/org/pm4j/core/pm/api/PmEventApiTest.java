@@ -5,6 +5,7 @@ import static org.junit.Assert.assertEquals;
 import static org.pm4j.core.pm.PmEvent.VALUE_CHANGE;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Test;
@@ -12,8 +13,10 @@ import org.pm4j.core.pm.PmAttrString;
 import org.pm4j.core.pm.PmEvent;
 import org.pm4j.core.pm.PmEventListener;
 import org.pm4j.core.pm.PmEventListener.PostProcessor;
+import org.pm4j.core.pm.PmObject;
 import org.pm4j.core.pm.impl.PmAttrStringImpl;
 import org.pm4j.core.pm.impl.PmConversationImpl;
+import org.pm4j.core.pm.impl.PmElementImpl;
 import org.pm4j.core.pm.impl.BroadcastPmEventProcessor;
 
 public class PmEventApiTest {
@@ -130,11 +133,137 @@ public class PmEventApiTest {
     assertEquals("This is my payload.", receivedPostProcessingPayload[0]);
   }
 
+  @Test
+  public void testListenerRegistrationChangeWhileFiringEvent() {
+    final TestListener addedListener = new TestListener();
+    PmEventApi.addPmEventListener(myPm.s, VALUE_CHANGE, new PmEventListener() {
+      @Override
+      public void handleEvent(PmEvent event) {
+        PmEventApi.removePmEventListener(myPm.s, this);
+        PmEventApi.addPmEventListener(myPm.s, VALUE_CHANGE, addedListener);
+      }
+    });
+    PmEventApi.addPmEventListener(myPm.s, VALUE_CHANGE, attrListener);
+
+    PmEventApi.firePmEvent(myPm.s, VALUE_CHANGE);
+    assertEquals("A running event dispatch is not affected by a registration change.", 1, attrListener.receivedEvents.size());
+    assertEquals(0, addedListener.receivedEvents.size());
+
+    PmEventApi.firePmEvent(myPm.s, VALUE_CHANGE);
+    assertEquals(2, attrListener.receivedEvents.size());
+    assertEquals(1, addedListener.receivedEvents.size());
+  }
+
+  @Test
+  public void testPartialListenerRemoval() {
+    PmEventApi.addPmEventListener(myPm.s, VALUE_CHANGE | PmEvent.TITLE_CHANGE, attrListener);
+    PmEventApi.removePmEventListener(myPm.s, VALUE_CHANGE, attrListener);
+
+    PmEventApi.firePmEvent(myPm.s, VALUE_CHANGE);
+    assertEquals(0, attrListener.receivedEvents.size());
+
+    PmEventApi.firePmEvent(myPm.s, PmEvent.TITLE_CHANGE);
+    assertEquals(1, attrListener.receivedEvents.size());
+  }
+
+  @Test
+  public void testEventBatch() {
+    PmEventApi.addWeakPmEventListener(myPm.s, VALUE_CHANGE | PmEvent.TITLE_CHANGE, attrListener);
+    TestListener elemHierarchyListener = new TestListener();
+    PmEventApi.addWeakHierarchyListener(myPm, VALUE_CHANGE | PmEvent.TITLE_CHANGE, elemHierarchyListener);
+
+    PmEventApi.beginEventBatch();
+    try {
+      PmEventApi.firePmEvent(myPm.s, VALUE_CHANGE);
+      PmEventApi.beginEventBatch();
+      try {
+        PmEventApi.firePmEvent(myPm.s, PmEvent.TITLE_CHANGE);
+        PmEventApi.firePmEvent(myPm.t, VALUE_CHANGE);
+      } finally {
+        PmEventApi.flushEventBatch();
+      }
+      assertEquals("Events get delivered when the outermost batch gets flushed.", 0, attrListener.receivedEvents.size());
+    } finally {
+      PmEventApi.flushEventBatch();
+    }
+
+    assertEquals("The events for a PM get merged.", 1, attrListener.receivedEvents.size());
+    assertEquals(VALUE_CHANGE | PmEvent.TITLE_CHANGE, attrListener.receivedEvents.get(0).getChangeMask());
+    assertEquals("A single propagation event for the parent.", 1, elemHierarchyListener.receivedEvents.size());
+    PmEvent propagationEvent = elemHierarchyListener.receivedEvents.get(0);
+    assertEquals("The changes of more than one child are reported for the parent.", myPm, propagationEvent.getPm());
+    assertEquals(Arrays.asList(myPm.s, myPm.t), propagationEvent.getChangedPms());
+    assertEquals(VALUE_CHANGE | PmEvent.TITLE_CHANGE | PmEvent.IS_EVENT_PROPAGATION, propagationEvent.getChangeMask());
+
+    PmEventApi.firePmEvent(myPm.s, VALUE_CHANGE);
+    assertEquals("Events get fired immediately after the batch.", 2, attrListener.receivedEvents.size());
+  }
+
+  @Test
+  public void testEventBatchPropagatesASingleEventToEachParent() {
+    MyPmWithRows pm = new MyPmWithRows();
+    TestListener conversationListener = new TestListener();
+    TestListener rowsListener = new TestListener();
+    PmEventApi.addHierarchyListener(pm, VALUE_CHANGE, conversationListener);
+    PmEventApi.addHierarchyListener(pm.rows, VALUE_CHANGE, rowsListener);
+
+    PmEventApi.beginEventBatch();
+    try {
+      for (MyRowPm r : pm.rows.rowList) {
+        PmEventApi.firePmEvent(r.s, VALUE_CHANGE);
+      }
+    } finally {
+      PmEventApi.flushEventBatch();
+    }
+
+    assertEquals(1, conversationListener.receivedEvents.size());
+    assertEquals(3, conversationListener.receivedEvents.get(0).getChangedPms().size());
+    assertEquals(1, rowsListener.receivedEvents.size());
+    assertEquals(pm.rows, rowsListener.receivedEvents.get(0).getPm());
+    assertEquals(3, rowsListener.receivedEvents.get(0).getChangedPms().size());
+
+    // A single change is reported for the changed PM.
+    PmEventApi.beginEventBatch();
+    try {
+      PmEventApi.firePmEvent(pm.rows.rowList.get(1).s, VALUE_CHANGE);
+    } finally {
+      PmEventApi.flushEventBatch();
+    }
+    assertEquals(2, rowsListener.receivedEvents.size());
+    assertEquals(pm.rows.rowList.get(1).s, rowsListener.receivedEvents.get(1).getPm());
+  }
+
+  @Test(expected=IllegalStateException.class)
+  public void testFlushWithoutBatch() {
+    PmEventApi.flushEventBatch();
+  }
+
   static class MyPm extends PmConversationImpl {
     public final PmAttrString s = new PmAttrStringImpl(this);
+    public final PmAttrString t = new PmAttrStringImpl(this);
 
   }
 
+  static class MyPmWithRows extends PmConversationImpl {
+    public final MyRowsPm rows = new MyRowsPm(this);
+  }
+
+  static class MyRowsPm extends PmElementImpl {
+    final List<MyRowPm> rowList = Arrays.asList(new MyRowPm(this), new MyRowPm(this), new MyRowPm(this));
+
+    public MyRowsPm(PmObject pmParent) {
+      super(pmParent);
+    }
+  }
+
+  static class MyRowPm extends PmElementImpl {
+    public final PmAttrString s = new PmAttrStringImpl(this);
+
+    public MyRowPm(PmObject pmParent) {
+      super(pmParent);
+    }
+  }
+
   void addListenersFor(int eventMask) {
     PmEventApi.addWeakPmEventListener(myPm, eventMask, elementListener);
     PmEventApi.addWeakPmEventListener(myPm.s, eventMask, attrListener);
@@ -9,6 +9,7 @@ import org.junit.Test;
 import org.pm4j.core.pm.PmAttrDouble;
 import org.pm4j.core.pm.impl.PmAttrDoubleImpl;
 import org.pm4j.core.pm.impl.PmConversationImpl;
+import org.pm4j.core.pm.impl.PmLocalizeApiHandler;
 
 public class PmLocalizeApiTest {
 
@@ -43,6 +44,17 @@ public class PmLocalizeApiTest {
         "Item 2 of 20", PmLocalizeApi.localize(pmCtxt, "pmLocalizeApiTest.localizeWithParameterSet", 2, 20));
   }
 
+  @Test
+  public void testOverriddenMessageFormatIsUsed() {
+    PmLocalizeApiHandler handler = new PmLocalizeApiHandler() {
+      @Override
+      protected String messageFormat(Locale locale, String placeHolderString, Object... placeHolderArgs) {
+        return "formatted: " + super.messageFormat(locale, placeHolderString, placeHolderArgs);
+      }
+    };
+    assertEquals("formatted: Item 2 of 20", handler.findLocalization(pmCtxt, "pmLocalizeApiTest.localizeWithParameterSet", 2, 20));
+  }
+
   @Test
   public void testFindLocalization() {
     assertEquals("Find an existing the English resource string.",
@@ -2,6 +2,7 @@ package org.pm4j.core.pm.api;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.Arrays;
 import java.util.Locale;
 
 import org.junit.Assert;
@@ -13,6 +14,7 @@ import org.pm4j.core.pm.PmMessage.Severity;
 import org.pm4j.core.pm.annotation.PmAttrCfg;
 import org.pm4j.core.pm.impl.PmAttrStringImpl;
 import org.pm4j.core.pm.impl.PmConversationImpl;
+import org.pm4j.core.pm.impl.PmElementImpl;
 
 public class PmMessageUtilTest {
 
@@ -61,6 +63,30 @@ public class PmMessageUtilTest {
     Assert.assertEquals("The attribute Attr 2 is really required ;-)", PmMessageUtil.getPmMessages(testPm.attrWithIndividualRequiredMessage).get(0).getTitle());
   }
 
+  @Test
+  public void testSubTreeMessages() {
+    PmElementImpl elem = new PmElementImpl(testPm);
+    PmAttrString elemAttr = new PmAttrStringImpl(elem);
+
+    assertEquals(0, PmMessageUtil.getSubTreeMessages(testPm, Severity.INFO).size());
+
+    PmMessage convMsg = PmMessageUtil.makeMsg(testPm, Severity.INFO, "infoMsgKey");
+    PmMessage attrMsg = PmMessageUtil.makeMsg(elemAttr, Severity.ERROR, "errorMsgKey");
+    PmMessage otherAttrMsg = PmMessageUtil.makeMsg(testPm.attrWithDefaultRequiredMessage, Severity.WARN, "warnMsgKey");
+
+    assertEquals(Arrays.asList(convMsg, attrMsg, otherAttrMsg), PmMessageUtil.getSubTreeMessages(testPm, Severity.INFO));
+    assertEquals(Arrays.asList(attrMsg, otherAttrMsg), PmMessageUtil.getSubTreeMessages(testPm, Severity.WARN));
+    assertEquals(Arrays.asList(attrMsg), PmMessageUtil.getSubTreeMessages(elem, Severity.INFO));
+    assertEquals(Arrays.asList(attrMsg), PmMessageUtil.getPmErrors(elemAttr));
+    assertEquals(0, PmMessageUtil.getPmMessages(elem).size());
+    assertEquals(true, testPm.getHasPmErrors());
+
+    testPm.clearPmMessage(attrMsg);
+    assertEquals(0, PmMessageUtil.getSubTreeMessages(elem, Severity.INFO).size());
+    assertEquals(0, PmMessageUtil.getPmErrors(elemAttr).size());
+    assertEquals(false, testPm.getHasPmErrors());
+    assertEquals(Arrays.asList(convMsg, otherAttrMsg), testPm.getPmMessages());
+  }
 
   /** A PM used within this test. */
   public static class TestPm extends PmConversationImpl {
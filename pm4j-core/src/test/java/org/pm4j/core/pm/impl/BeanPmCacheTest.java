@@ -3,6 +3,13 @@ package org.pm4j.core.pm.impl;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import junit.framework.Assert;
 
@@ -148,8 +155,103 @@ public class BeanPmCacheTest {
 //    Assert.assertTrue("MyBeanPm should have been finalized.", MyBeanPm.finalizeWasCalled);
   }
 
+  @Test
+  public void testConcurrentGetPmForBeanProvidesASinglePmPerBean() throws Exception {
+    final RowConversation conversation = new RowConversation();
+    final List<Row> beans = new ArrayList<Row>();
+    for (int i = 0; i < 200; ++i) {
+      beans.add(new Row());
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<List<RowPm>>> futures = new ArrayList<Future<List<RowPm>>>();
+      for (int t = 0; t < 4; ++t) {
+        futures.add(executor.submit(new Callable<List<RowPm>>() {
+          @Override
+          public List<RowPm> call() {
+            List<RowPm> pms = new ArrayList<RowPm>();
+            for (Row b : beans) {
+              pms.add(PmFactoryApi.<Row, RowPm>getPmForBean(conversation, b));
+            }
+            return pms;
+          }
+        }));
+      }
+
+      List<RowPm> firstResult = futures.get(0).get();
+      for (Future<List<RowPm>> f : futures) {
+        List<RowPm> pms = f.get();
+        for (int i = 0; i < beans.size(); ++i) {
+          Assert.assertSame(beans.get(i), pms.get(i).getPmBean());
+          Assert.assertSame(firstResult.get(i), pms.get(i));
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testLookupOfExistingPmDoesNotLockTheConversation() throws Exception {
+    final RowConversation conversation = new RowConversation();
+    final Row bean = new Row();
+    RowPm beanPm = PmFactoryApi.getPmForBean(conversation, bean);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      // The lookup is done by another thread while this thread holds the conversation lock.
+      synchronized (conversation) {
+        Future<RowPm> lookup = executor.submit(new Callable<RowPm>() {
+          @Override
+          public RowPm call() throws Exception {
+            return PmFactoryApi.getPmForBean(conversation, bean);
+          }
+        });
+        try {
+          Assert.assertSame(beanPm, lookup.get(1, TimeUnit.SECONDS));
+        } catch (TimeoutException e) {
+          Assert.fail("The lookup of an existing PM is blocked by the conversation lock.");
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 
+  @Test
+  public void testLookupDoesNotProvideAPmThatIsStillUnderConstruction() throws Exception {
+    final SlowInitRowConversation conversation = new SlowInitRowConversation();
+    final Row bean = new Row();
+    Callable<SlowInitRowPm> getPm = new Callable<SlowInitRowPm>() {
+      @Override
+      public SlowInitRowPm call() throws Exception {
+        return PmFactoryApi.getPmForBean(conversation, bean);
+      }
+    };
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<SlowInitRowPm> creation = executor.submit(getPm);
+      Assert.assertTrue(conversation.initStarted.await(1, TimeUnit.SECONDS));
+
+      // The PM is already registered in the bean cache but not yet initialized.
+      Future<SlowInitRowPm> lookup = executor.submit(getPm);
+      try {
+        lookup.get(100, TimeUnit.MILLISECONDS);
+        Assert.fail("The lookup provided a PM that is still under construction.");
+      } catch (TimeoutException e) {
+        // expected: the lookup waits for the creation.
+      }
 
+      conversation.initRelease.countDown();
+      SlowInitRowPm pm = lookup.get(1, TimeUnit.SECONDS);
+      Assert.assertSame(creation.get(1, TimeUnit.SECONDS), pm);
+      Assert.assertTrue(pm.initDone);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 
   public static class MyBean {
     public String s;
@@ -186,4 +288,42 @@ public class BeanPmCacheTest {
     };
   }
 
+  // Used by the concurrency tests. Don't have finalizers that influence the memory leak tests.
+  public static class Row {
+    public String s;
+  }
+
+  @PmBeanCfg(beanClass=Row.class)
+  public static class RowPm extends PmBeanBase<Row> {
+    public final PmAttrString s = new PmAttrStringImpl(this);
+  }
+
+  @PmFactoryCfg(beanPmClasses=RowPm.class)
+  public static class RowConversation extends PmConversationImpl {
+  }
+
+  /** Signals its initialization start and waits till the conversation releases it. */
+  @PmBeanCfg(beanClass=Row.class)
+  public static class SlowInitRowPm extends PmBeanBase<Row> {
+    boolean initDone;
+
+    @Override
+    protected void onPmInit() {
+      SlowInitRowConversation conversation = (SlowInitRowConversation) getPmConversation();
+      conversation.initStarted.countDown();
+      try {
+        conversation.initRelease.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      initDone = true;
+    }
+  }
+
+  @PmFactoryCfg(beanPmClasses=SlowInitRowPm.class)
+  public static class SlowInitRowConversation extends PmConversationImpl {
+    final CountDownLatch initStarted = new CountDownLatch(1);
+    final CountDownLatch initRelease = new CountDownLatch(1);
+  }
+
 }
@@ -1,10 +1,21 @@
 package org.pm4j.core.pm.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.pm4j.core.pm.PmObject;
+import org.pm4j.core.pm.impl.PmObjectBase.MetaData;
 import org.pm4j.core.pm.impl.PmObjectBase.PmInitState;
 
 /**
@@ -34,6 +45,58 @@ public class PmInitTest {
   }
 
 
+  @Test
+  public void testPreInitializeMetaData() {
+    PmConversationImpl conversation = new PmConversationImpl();
+    String key = PmUtil.getAbsoluteName(conversation) + PmObjectBase.MetaData.NAME_PATH_DELIMITER + MyPreInitElement.class.getName();
+    assertNull(PmMetaDataRegistry.INSTANCE.find(key));
+
+    List<Class<? extends PmObject>> classes = new ArrayList<Class<? extends PmObject>>();
+    classes.add(MyPreInitElement.class);
+    Map<Class<?>, Long> classToMillisMap = PmInitApi.initPmMetaData(conversation, null, classes);
+    assertEquals(1, classToMillisMap.size());
+    assertNotNull(classToMillisMap.get(MyPreInitElement.class));
+
+    MetaData md = PmMetaDataRegistry.INSTANCE.find(key);
+    assertNotNull("Meta data was initialized ahead of the first PM usage.", md);
+    assertSame(md, new MyPreInitElement(conversation).getPmMetaData());
+  }
+
+  @Test
+  public void testParallelMetaDataInitialization() {
+    PmConversationImpl conversation = new PmConversationImpl();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      @SuppressWarnings("unchecked")
+      List<Class<? extends PmObject>> classes = Arrays.<Class<? extends PmObject>>asList(MyElement.class, MyPreInitElement2.class, MyPreInitElement3.class);
+      Map<Class<?>, Long> classToMillisMap = PmInitApi.initPmMetaData(conversation, executor, classes);
+      assertEquals(classes, new ArrayList<Class<?>>(classToMillisMap.keySet()));
+
+      MyPreInitElement3 e = new MyPreInitElement3(conversation);
+      assertEquals("s", e.s.getPmName());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  public static class MyPreInitElement extends MyElement {
+    public MyPreInitElement(PmObject pmParent) {
+      super(pmParent);
+    }
+  }
+
+  public static class MyPreInitElement2 extends MyElement {
+    public MyPreInitElement2(PmObject pmParent) {
+      super(pmParent);
+    }
+  }
+
+  public static class MyPreInitElement3 extends MyElement {
+    public MyPreInitElement3(PmObject pmParent) {
+      super(pmParent);
+    }
+  }
+
   public static class MyElement extends PmElementImpl {
     public final PmAttrStringImpl s = new PmAttrStringImpl(this);
 
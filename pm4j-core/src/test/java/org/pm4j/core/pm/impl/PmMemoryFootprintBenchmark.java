@@ -0,0 +1,125 @@
+package org.pm4j.core.pm.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.pm4j.core.pm.PmAttrInteger;
+import org.pm4j.core.pm.PmAttrString;
+import org.pm4j.core.pm.PmObject;
+import org.pm4j.core.pm.annotation.PmBeanCfg;
+
+/**
+ * A simple heap footprint benchmark for row PMs.
+ * <p>
+ * Creates a number of row PMs, touches their attributes and reports the
+ * average number of heap bytes used per row PM (including its attribute PMs).
+ * <p>
+ * Not a unit test. Run it as a Java application, preferably with a fixed heap size
+ * (e.g. <code>-Xms512m -Xmx512m</code>) to get stable results.
+ *
+ * @author olaf boede
+ */
+public class PmMemoryFootprintBenchmark {
+
+  private static final int DEFAULT_ROW_COUNT = 20000;
+
+  public static void main(String[] args) {
+    int rowCount = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_ROW_COUNT;
+    PmConversationImpl conversation = new PmConversationImpl();
+
+    // warm up: initializes the meta data and the loaded classes.
+    makeRows(conversation, 100);
+
+    long usedBefore = usedHeap();
+    List<RowPm> rows = makeRows(conversation, rowCount);
+    long usedAfter = usedHeap();
+
+    // a row bean has no reference to its PM. The row beans are created by the benchmark too.
+    long rowBeanBytes = measureRowBeanBytes(rowCount);
+    long bytesPerRow = (usedAfter - usedBefore - rowBeanBytes) / rowCount;
+
+    System.out.println("Rows: " + rows.size());
+    System.out.println("Bytes per row PM: " + bytesPerRow);
+  }
+
+  private static List<RowPm> makeRows(PmObject parentPm, int count) {
+    List<RowPm> rows = new ArrayList<RowPm>(count);
+    for (int i = 0; i < count; ++i) {
+      RowPm pm = new RowPm(parentPm);
+      pm.setPmBean(new Row(i));
+      pm.name.getValueAsString();
+      pm.description.getValueAsString();
+      pm.category.getValueAsString();
+      pm.amount.getValueAsString();
+      pm.quantity.getValueAsString();
+      pm.name.isPmVisible();
+      pm.amount.isPmEnabled();
+      rows.add(pm);
+    }
+    return rows;
+  }
+
+  private static long measureRowBeanBytes(int count) {
+    long usedBefore = usedHeap();
+    List<Row> beans = new ArrayList<Row>(count);
+    for (int i = 0; i < count; ++i) {
+      beans.add(new Row(i));
+    }
+    long usedAfter = usedHeap();
+    return (beans.size() > 0) ? usedAfter - usedBefore : 0;
+  }
+
+  private static long usedHeap() {
+    Runtime rt = Runtime.getRuntime();
+    for (int i = 0; i < 5; ++i) {
+      System.gc();
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    return rt.totalMemory() - rt.freeMemory();
+  }
+
+  public static class Row {
+    private String name;
+    private String description;
+    private String category;
+    private Integer amount;
+    private Integer quantity;
+
+    public Row(int i) {
+      this.name = "row " + i;
+      this.description = "description " + i;
+      this.category = "c" + (i % 10);
+      this.amount = i;
+      this.quantity = i % 100;
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+    public Integer getAmount() { return amount; }
+    public void setAmount(Integer amount) { this.amount = amount; }
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+  }
+
+  @PmBeanCfg(beanClass = Row.class)
+  public static class RowPm extends PmBeanImpl<Row> {
+    public final PmAttrString name = new PmAttrStringImpl(this);
+    public final PmAttrString description = new PmAttrStringImpl(this);
+    public final PmAttrString category = new PmAttrStringImpl(this);
+    public final PmAttrInteger amount = new PmAttrIntegerImpl(this);
+    public final PmAttrInteger quantity = new PmAttrIntegerImpl(this);
+
+    public RowPm(PmObject parentPm) {
+      super(parentPm);
+    }
+  }
+
+}
@@ -0,0 +1,58 @@
+package org.pm4j.core.pm.impl.pathresolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.pm4j.common.expr.Expression.SyntaxVersion;
+
+public class PathResolverCacheTest {
+
+  private int parseCallCount;
+  private PathResolverCache cache = new PathResolverCache(PathResolverCacheTest.class.getName()) {
+    @Override
+    protected PathResolver parse(String exprString, SyntaxVersion syntaxVersion) {
+      ++parseCallCount;
+      return new ExpressionPathResolver(syntaxVersion, exprString);
+    }
+  };
+
+  @Test
+  public void testExpressionGetsParsedOnlyOnce() {
+    cache.getMetrics().reset();
+
+    PathResolver r = cache.getResolver("a.b", SyntaxVersion.VERSION_2);
+    assertSame(r, cache.getResolver("a.b", SyntaxVersion.VERSION_2));
+    assertNotSame("The syntax version is part of the key.", r, cache.getResolver("a.b", SyntaxVersion.VERSION_1));
+
+    assertEquals(2, parseCallCount);
+    assertEquals(1, cache.getMetrics().getHitCount());
+    assertEquals(2, cache.getMetrics().getMissCount());
+  }
+
+  @Test
+  public void testCacheGetsClearedWhenMaxSizeIsReached() {
+    cache.setMaxSize(2);
+    cache.getResolver("a", SyntaxVersion.VERSION_2);
+    cache.getResolver("b", SyntaxVersion.VERSION_2);
+    assertEquals(2, cache.size());
+
+    cache.getResolver("c", SyntaxVersion.VERSION_2);
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testSharedResolverForDifferentBeanClasses() {
+    PathResolver r = ExpressionPathResolver.parse("name");
+    assertSame(r, ExpressionPathResolver.parse("name"));
+
+    assertEquals("head", r.getValue(new Pojo("head")));
+    assertEquals("other", r.getValue(new OtherPojo()));
+    assertEquals("head", r.getValue(new Pojo("head")));
+  }
+
+  public static class OtherPojo {
+    public String getName() { return "other"; }
+  }
+}
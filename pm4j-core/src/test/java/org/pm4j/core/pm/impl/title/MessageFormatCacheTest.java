@@ -0,0 +1,58 @@
+package org.pm4j.core.pm.impl.title;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Locale;
+
+import org.junit.Test;
+import org.pm4j.core.pm.impl.title.MessageFormatCache.CompiledMessageFormat;
+
+public class MessageFormatCacheTest {
+
+  private MessageFormatCache cache = new MessageFormatCache(MessageFormatCacheTest.class.getName());
+
+  @Test
+  public void testPatternGetsParsedOnlyOnce() {
+    cache.getMetrics().reset();
+
+    CompiledMessageFormat f = cache.get("Hello {0}", Locale.ENGLISH);
+    assertSame(f, cache.get("Hello {0}", Locale.ENGLISH));
+    assertNotSame("The locale is part of the key.", f, cache.get("Hello {0}", Locale.GERMAN));
+    assertEquals("Hello world", f.format("world"));
+
+    assertEquals(1, cache.getMetrics().getHitCount());
+    assertEquals(2, cache.getMetrics().getMissCount());
+  }
+
+  @Test
+  public void testLocaleSpecificSubFormat() {
+    assertEquals("1,5", cache.get("{0,number}", Locale.GERMAN).format(1.5));
+    assertEquals("1.5", cache.get("{0,number}", Locale.ENGLISH).format(1.5));
+  }
+
+  @Test
+  public void testOldestFormatGetsRemovedWhenMaxSizeIsReached() {
+    cache.setMaxSize(2);
+    CompiledMessageFormat a = cache.get("a", Locale.ENGLISH);
+    CompiledMessageFormat b = cache.get("b", Locale.ENGLISH);
+    assertEquals(2, cache.size());
+
+    cache.get("c", Locale.ENGLISH);
+    assertEquals(2, cache.size());
+    assertSame(b, cache.get("b", Locale.ENGLISH));
+    assertNotSame(a, cache.get("a", Locale.ENGLISH));
+  }
+
+  @Test
+  public void testResStringCacheEntrySharesTheParsedFormat() {
+    ResStringCache resCache = new ResStringCache();
+    ResStringCache.Entry e = resCache.put("key", Locale.ENGLISH, "{0} items");
+
+    assertSame(e.getMessageFormat(), e.getMessageFormat());
+    assertEquals("3 items", e.getMessageFormat().format(3));
+    assertNull(resCache.put("missing", Locale.ENGLISH, null).getMessageFormat());
+  }
+}
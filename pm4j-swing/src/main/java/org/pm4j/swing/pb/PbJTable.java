@@ -0,0 +1,358 @@
+package org.pm4j.swing.pb;
+
+import java.awt.Container;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.List;
+
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+import org.pm4j.common.pageable.PageableCollection;
+import org.pm4j.common.pageable.PageableCollectionCache;
+import org.pm4j.common.query.QueryParams;
+import org.pm4j.core.pm.PmAttr;
+import org.pm4j.core.pm.PmCommand;
+import org.pm4j.core.pm.PmEvent;
+import org.pm4j.core.pm.PmEventListener;
+import org.pm4j.core.pm.PmObject;
+import org.pm4j.core.pm.PmTable;
+import org.pm4j.core.pm.PmTableCol;
+import org.pm4j.core.pm.api.PmEventApi;
+import org.pm4j.core.pm.impl.PmUtil;
+import org.pm4j.swing.pb.base.PbComponentToPmBase;
+
+/**
+ * Presentation binder for {@link PmTable} PMs.
+ * <p>
+ * The {@link PmTableModel} reads the row PMs page by page from the
+ * {@link PmTable#getPmPageableCollection()}. Only the pages of the rows
+ * requested by the {@link JTable} (the visible ones) get materialized. The
+ * model holds a limited number of pages. The least recently used page gets
+ * released when the user scrolls to other rows.
+ * <p>
+ * Row PM changes get reported as {@link AbstractTableModel#fireTableRowsUpdated(int, int)}
+ * ranges. Sorting and filtering is delegated to the {@link QueryParams} of the
+ * collection.
+ * <p>
+ * The model uses the paging of the table collection to read the rows. The
+ * table should therefore not be combined with a pager.
+ *
+ * @author olaf boede
+ */
+public class PbJTable extends PbComponentToPmBase<JTable, PmTable<?>> {
+
+  /** The default number of rows read with a single collection access. */
+  public static final int DEFAULT_CACHE_PAGE_SIZE = 50;
+  /** The default number of row pages held in memory: the visible page and a margin page before and after. */
+  public static final int DEFAULT_MAX_CACHED_PAGES = 3;
+
+  private int cachePageSize = DEFAULT_CACHE_PAGE_SIZE;
+  private int maxCachedPages = DEFAULT_MAX_CACHED_PAGES;
+
+  /**
+   * @param cachePageSize the number of rows to read with a single collection access.
+   * @param maxCachedPages the maximum number of row pages to hold in memory.
+   */
+  public PbJTable setCacheSize(int cachePageSize, int maxCachedPages) {
+    assert cachePageSize > 0;
+    assert maxCachedPages > 0;
+    this.cachePageSize = cachePageSize;
+    this.maxCachedPages = maxCachedPages;
+    return this;
+  }
+
+  /**
+   * Creates the table within a scroll pane. The scroll pane provides the
+   * table header and the viewport that limits the set of rows to read.
+   */
+  @Override
+  public JTable makeView(Container parent, PmTable<?> pm) {
+    JTable table = new JTable();
+    table.setAutoCreateRowSorter(false);
+    parent.add(new JScrollPane(table));
+    return table;
+  }
+
+  @Override
+  protected PbBinding makeBinding(PmTable<?> pm) {
+    return new Binding();
+  }
+
+  public class Binding extends PbComponentToPmBase<JTable, PmTable<?>>.Binding {
+
+    private PmTableModel model;
+
+    /** Delegates header clicks to the sort command of the column. */
+    private final MouseAdapter headerClickListener = new MouseAdapter() {
+      @Override
+      public void mouseClicked(MouseEvent e) {
+        int viewColIdx = view.getTableHeader().columnAtPoint(e.getPoint());
+        if (viewColIdx >= 0) {
+          PmTableCol colPm = model.getColumnPm(view.convertColumnIndexToModel(viewColIdx));
+          PmCommand cmdSort = colPm.getCmdSort();
+          // The query parameter change triggers the reload.
+          if (cmdSort.isPmEnabled()) {
+            cmdSort.doIt();
+          }
+        }
+      }
+    };
+
+    @Override
+    public void bind() {
+      super.bind();
+      model = new PmTableModel(pm, cachePageSize, maxCachedPages);
+      view.setModel(model);
+      if (view.getTableHeader() != null) {
+        view.getTableHeader().addMouseListener(headerClickListener);
+      }
+    }
+
+    @Override
+    public void unbind() {
+      if (view.getTableHeader() != null) {
+        view.getTableHeader().removeMouseListener(headerClickListener);
+      }
+      model.dispose();
+      super.unbind();
+    }
+
+    /**
+     * Gets called if the table collection gets exchanged.
+     */
+    @Override
+    protected void onPmValueChange(PmEvent event) {
+      model.reload();
+    }
+  }
+
+  /**
+   * A table model that provides the cells of the row PMs of a {@link PmTable}.
+   * <p>
+   * The cell PMs are the row PM children having the name of the column PM.
+   */
+  public static class PmTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    private final PmTable<?> pmTable;
+    private final int cachePageSize;
+    private final int maxCachedPages;
+    private List<PmTableCol> columnPms;
+    private PageableCollectionCache<Object> rowCache;
+
+    /** The range of updated rows that is not yet reported. <code>-1</code> if there is none. */
+    private int pendingFirstRow = -1;
+    private int pendingLastRow = -1;
+
+    /** Collects the row ranges to update for changed row PMs. */
+    private final PmEventListener rowChangeListener = new PmEventListener() {
+      @Override
+      public void handleEvent(PmEvent event) {
+        onRowPmChange(event);
+      }
+    };
+
+    /** Reloads the rows on collection content and query changes. */
+    private final PropertyChangeListener reloadListener = new PropertyChangeListener() {
+      @Override
+      public void propertyChange(PropertyChangeEvent evt) {
+        reload();
+      }
+    };
+
+    /**
+     * @param pmTable the table PM to present.
+     * @param cachePageSize the number of rows to read with a single collection access.
+     * @param maxCachedPages the maximum number of row pages to hold in memory.
+     */
+    public PmTableModel(PmTable<?> pmTable, int cachePageSize, int maxCachedPages) {
+      assert pmTable != null;
+      this.pmTable = pmTable;
+      this.cachePageSize = cachePageSize;
+      this.maxCachedPages = maxCachedPages;
+      this.columnPms = pmTable.getColumnPms();
+      PmEventApi.addWeakHierarchyListener(pmTable, PmEvent.ALL_CHANGE_EVENTS, rowChangeListener);
+      initRowCache();
+    }
+
+    /**
+     * Releases all row PMs and the listener registrations.
+     */
+    public void dispose() {
+      PmEventApi.removePmEventListener(pmTable, rowChangeListener);
+      setRowCache(null);
+    }
+
+    /**
+     * Clears the row cache. The table requests its visible rows again.
+     */
+    public void reload() {
+      initRowCache();
+      pendingFirstRow = pendingLastRow = -1;
+      List<PmTableCol> newColumnPms = pmTable.getColumnPms();
+      if (newColumnPms.equals(columnPms)) {
+        fireTableDataChanged();
+      } else {
+        columnPms = newColumnPms;
+        fireTableStructureChanged();
+      }
+    }
+
+    public PmTableCol getColumnPm(int columnIndex) {
+      return columnPms.get(columnIndex);
+    }
+
+    /**
+     * Provides the row PM for the given row index.
+     *
+     * @param rowIndex the index of the row.
+     * @return the row PM. <code>null</code> if the index is out of range.
+     */
+    public PmObject getRowPm(int rowIndex) {
+      return (rowCache != null && rowIndex < rowCache.getCollectionSize())
+          ? (PmObject) rowCache.getAt(rowIndex)
+          : null;
+    }
+
+    @Override
+    public int getRowCount() {
+      return rowCache != null
+          ? (int) rowCache.getCollectionSize()
+          : 0;
+    }
+
+    @Override
+    public int getColumnCount() {
+      return columnPms.size();
+    }
+
+    @Override
+    public String getColumnName(int columnIndex) {
+      return getColumnPm(columnIndex).getPmTitle();
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+      PmObject cellPm = getCellPm(rowIndex, columnIndex);
+      return (cellPm instanceof PmAttr<?>)
+          ? ((PmAttr<?>)cellPm).getValueAsString()
+          : null;
+    }
+
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex) {
+      PmObject cellPm = getCellPm(rowIndex, columnIndex);
+      return (cellPm instanceof PmAttr<?>) &&
+             cellPm.isPmEnabled() &&
+             !cellPm.isPmReadonly();
+    }
+
+    @Override
+    public void setValueAt(Object aValue, int rowIndex, int columnIndex) {
+      PmObject cellPm = getCellPm(rowIndex, columnIndex);
+      if (cellPm instanceof PmAttr<?>) {
+        ((PmAttr<?>)cellPm).setValueAsString(aValue != null ? aValue.toString() : null);
+      }
+    }
+
+    /**
+     * Adds the row of the row PM that is (or contains) the event source to
+     * the range of rows to update.
+     * <p>
+     * Row PMs that are not within the cache are not displayed. They will be
+     * read again when the table requests them.
+     */
+    protected void onRowPmChange(PmEvent event) {
+      if (rowCache == null) {
+        return;
+      }
+
+      // An event batch reports the changes of several rows with a single event.
+      for (PmObject changedPm : event.getChangedPms()) {
+        onRowPmChange(changedPm);
+      }
+    }
+
+    private void onRowPmChange(PmObject changedPm) {
+      PmObject rowPm = changedPm;
+      while (rowPm != null && rowPm.getPmParent() != pmTable) {
+        rowPm = rowPm.getPmParent();
+      }
+
+      if (rowPm == null || rowPm instanceof PmTableCol) {
+        return;
+      }
+
+      int pos = (int) rowCache.findCachedPos(rowPm);
+      if (pos >= 0) {
+        boolean firePending = (pendingFirstRow == -1);
+        pendingFirstRow = firePending ? pos : Math.min(pendingFirstRow, pos);
+        pendingLastRow = firePending ? pos : Math.max(pendingLastRow, pos);
+        // A single update for all changes of the current UI action.
+        if (firePending) {
+          SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+              firePendingRowUpdates();
+            }
+          });
+        }
+      }
+    }
+
+    private void firePendingRowUpdates() {
+      if (pendingFirstRow != -1) {
+        int first = pendingFirstRow;
+        int last = Math.min(pendingLastRow, getRowCount() - 1);
+        pendingFirstRow = pendingLastRow = -1;
+        if (first <= last) {
+          fireTableRowsUpdated(first, last);
+        }
+      }
+    }
+
+    private PmObject getCellPm(int rowIndex, int columnIndex) {
+      PmObject rowPm = getRowPm(rowIndex);
+      return rowPm != null
+          ? PmUtil.findChildPm(rowPm, getColumnPm(columnIndex).getPmName())
+          : null;
+    }
+
+    private void initRowCache() {
+      @SuppressWarnings("unchecked")
+      PageableCollection<Object> pc = (PageableCollection<Object>) pmTable.getPmPageableCollection();
+      if (rowCache == null || rowCache.getPageableCollection() != pc) {
+        setRowCache(new PageableCollectionCache<Object>(pc, cachePageSize, maxCachedPages));
+      } else {
+        rowCache.clear();
+      }
+    }
+
+    private void setRowCache(PageableCollectionCache<Object> newCache) {
+      if (rowCache != null) {
+        PageableCollection<Object> pc = rowCache.getPageableCollection();
+        pc.removePropertyChangeListener(PageableCollection.EVENT_ITEM_ADD, reloadListener);
+        pc.removePropertyChangeListener(PageableCollection.EVENT_REMOVE_SELECTION, reloadListener);
+        pc.getQueryParams().removePropertyChangeListener(QueryParams.PROP_EFFECTIVE_FILTER, reloadListener);
+        pc.getQueryParams().removePropertyChangeListener(QueryParams.PROP_EFFECTIVE_SORT_ORDER, reloadListener);
+      }
+
+      rowCache = newCache;
+
+      if (rowCache != null) {
+        PageableCollection<Object> pc = rowCache.getPageableCollection();
+        pc.addPropertyChangeListener(PageableCollection.EVENT_ITEM_ADD, reloadListener);
+        pc.addPropertyChangeListener(PageableCollection.EVENT_REMOVE_SELECTION, reloadListener);
+        pc.getQueryParams().addPropertyChangeListener(QueryParams.PROP_EFFECTIVE_FILTER, reloadListener);
+        pc.getQueryParams().addPropertyChangeListener(QueryParams.PROP_EFFECTIVE_SORT_ORDER, reloadListener);
+      }
+    }
+  }
+
+}
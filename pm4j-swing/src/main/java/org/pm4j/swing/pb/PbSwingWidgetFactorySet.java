@@ -5,6 +5,7 @@ import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JList;
+import javax.swing.JTable;
 import javax.swing.JTextField;
 import javax.swing.JTree;
 
@@ -22,6 +23,7 @@ public class PbSwingWidgetFactorySet implements PbWidgetFactorySet {
   public PbFactory<JList>       pbListForOptions = new PbJListForOptions();
 //  public PbFactory<JSpinner>    pbSpinner = new PbSpinner();
 //  public PbFactory<StyledText> pbStyledText = new PbStyledText();
+  public PbFactory<JTable>      pbTable = new PbJTable();
   public PbFactory<JTextField>  pbText = new PbJTextField();
 //  public PbFactory<Text>       pbTextArea = new PbText(SWT.MULTI | SWT.BORDER | SWT.H_SCROLL | SWT.V_SCROLL);
   public PbFactory<JTree>       pbTree= new PbJTree();
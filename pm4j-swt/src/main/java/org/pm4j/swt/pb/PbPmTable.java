@@ -0,0 +1,390 @@
+package org.pm4j.swt.pb;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.List;
+
+import org.eclipse.jface.resource.ImageRegistry;
+import org.eclipse.jface.viewers.ILabelProviderListener;
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.ITableLabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.pm4j.common.pageable.PageableCollection;
+import org.pm4j.common.pageable.PageableCollectionCache;
+import org.pm4j.common.query.QueryParams;
+import org.pm4j.core.pm.PmAttr;
+import org.pm4j.core.pm.PmAttrEnum;
+import org.pm4j.core.pm.PmCommand;
+import org.pm4j.core.pm.PmEvent;
+import org.pm4j.core.pm.PmEventListener;
+import org.pm4j.core.pm.PmObject;
+import org.pm4j.core.pm.PmSortOrder;
+import org.pm4j.core.pm.PmTable;
+import org.pm4j.core.pm.PmTableCol;
+import org.pm4j.core.pm.api.PmEventApi;
+import org.pm4j.core.pm.impl.PmUtil;
+import org.pm4j.core.util.table.ColSizeSpec;
+import org.pm4j.swt.pb.base.PbViewerToPmBase;
+import org.pm4j.swt.util.ColResizeListener;
+
+/**
+ * Presentation binder for {@link PmTable} PMs that uses a virtual SWT table.
+ * <p>
+ * The table presents all rows of the {@link PmTable#getPmPageableCollection()}.
+ * SWT asks only for the visible rows. These get read page by page from the
+ * collection and are held in a {@link PageableCollectionCache}.
+ * <p>
+ * A change of a row PM (or one of its cells) updates only the affected table
+ * row. Filter, sort order and collection content changes reset the cache.
+ * <p>
+ * The binder uses the paging of the table collection to read the rows. The
+ * table should therefore not be combined with a pager.
+ *
+ * @author olaf boede
+ */
+public class PbPmTable extends PbViewerToPmBase<TableViewer, Table, PmTable<?>> {
+
+  /** The default number of rows read with a single collection access. */
+  public static final int DEFAULT_CACHE_PAGE_SIZE = 100;
+  /** The default number of row pages held in memory. */
+  public static final int DEFAULT_MAX_CACHED_PAGES = 5;
+
+  private boolean headerVisble = true;
+  private int swtStyle;
+  private int cachePageSize = DEFAULT_CACHE_PAGE_SIZE;
+  private int maxCachedPages = DEFAULT_MAX_CACHED_PAGES;
+
+  public PbPmTable() {
+    this(SWT.SINGLE | SWT.FULL_SELECTION);
+  }
+
+  /**
+   * @param swtStyle The SWT table style. {@link SWT#VIRTUAL} gets always added.
+   */
+  public PbPmTable(int swtStyle) {
+    this.swtStyle = swtStyle | SWT.VIRTUAL;
+  }
+
+  /**
+   * @param cachePageSize the number of rows to read with a single collection access.
+   * @param maxCachedPages the maximum number of row pages to hold in memory.
+   */
+  public PbPmTable setCacheSize(int cachePageSize, int maxCachedPages) {
+    assert cachePageSize > 0;
+    assert maxCachedPages > 0;
+    this.cachePageSize = cachePageSize;
+    this.maxCachedPages = maxCachedPages;
+    return this;
+  }
+
+  /**
+   * Creates a table viewer. It may have a longer live cycle than the {@link Binding}.
+   */
+  @Override
+  protected TableViewer makeViewerImpl(Composite parentCtxt, PmTable<?> pmTable) {
+    TableViewer viewer = new TableViewer(parentCtxt, swtStyle);
+
+    viewer.setUseHashlookup(true);
+    viewer.setLabelProvider(new LabelProvider());
+    viewer.getTable().setHeaderVisible(headerVisble);
+
+    return viewer;
+  }
+
+  @Override
+  protected PbBinding makeBinding(PmTable<?> pm) {
+    return new Binding();
+  }
+
+  /**
+   * Handles PM events as well as the SWT modification and focus event.
+   */
+  public class Binding extends PbViewerToPmBase<TableViewer, Table, PmTable<?>>.Binding {
+
+    /** Holds the row PMs that were requested by the virtual table. */
+    private PageableCollectionCache<Object> rowCache;
+
+    /** Updates the table rows of changed row PMs. */
+    private final PmEventListener rowChangeListener = new PmEventListener() {
+      @Override
+      public void handleEvent(PmEvent event) {
+        onRowPmChange(event);
+      }
+    };
+
+    /** Reloads the table on collection content and query changes. */
+    private final PropertyChangeListener reloadListener = new PropertyChangeListener() {
+      @Override
+      public void propertyChange(PropertyChangeEvent evt) {
+        reload();
+      }
+    };
+
+    @Override
+    public void bind() {
+      super.bind();
+      Table table = viewer.getTable();
+
+      // Setup the columns.
+      table.removeAll();
+      List<PmTableCol> columns = getPmTable().getColumnPms();
+      ColSizeSpec colSpecArr[] = new ColSizeSpec[columns.size()];
+      for (int i=0; i<colSpecArr.length; ++i) {
+        PmTableCol colPm = columns.get(i);
+        makeAndBindTableColumn(viewer, colPm).setData("pm", colPm);
+        colSpecArr[i] = colPm.getPmColSize();
+      }
+
+      // Add column size control.
+      // XXX olaf: the table content is not visible without that listener (see PbTable).
+      table.addControlListener(new ColResizeListener(table, colSpecArr));
+
+      viewer.setContentProvider(new LazyContentProvider());
+      PmEventApi.addWeakHierarchyListener(pm, PmEvent.ALL_CHANGE_EVENTS, rowChangeListener);
+
+      viewer.setInput(pm);
+      reload();
+    }
+
+    @Override
+    public void unbind() {
+      PmEventApi.removePmEventListener(pm, rowChangeListener);
+      setRowCache(null);
+      super.unbind();
+    }
+
+    /**
+     * Gets called if the table collection gets exchanged.
+     */
+    @Override
+    protected void onPmValueChange(PmEvent event) {
+      reload();
+    }
+
+    /**
+     * Clears the row cache and lets the virtual table request its visible rows again.
+     */
+    public void reload() {
+      @SuppressWarnings("unchecked")
+      PageableCollection<Object> pc = (PageableCollection<Object>) getPmTable().getPmPageableCollection();
+      if (rowCache == null || rowCache.getPageableCollection() != pc) {
+        setRowCache(new PageableCollectionCache<Object>(pc, cachePageSize, maxCachedPages));
+      } else {
+        rowCache.clear();
+      }
+
+      applySortIndicator();
+      viewer.setItemCount((int) rowCache.getCollectionSize());
+      // Clears the virtual table items. SWT requests only the visible ones again.
+      viewer.refresh();
+    }
+
+    /**
+     * Provides the row PM for the given table row index.
+     *
+     * @param rowIdx the index of the table row.
+     * @return the row PM. <code>null</code> if the index is out of range.
+     */
+    public Object getRowPm(int rowIdx) {
+      return (rowCache != null && rowIdx < rowCache.getCollectionSize())
+          ? rowCache.getAt(rowIdx)
+          : null;
+    }
+
+    /**
+     * Updates the table row of the row PM that is (or contains) the event source.
+     * <p>
+     * Row PMs that are not within the cache are not displayed. They will be
+     * read again when the table requests them.
+     */
+    protected void onRowPmChange(PmEvent event) {
+      if (rowCache == null) {
+        return;
+      }
+
+      // An event batch reports the changes of several rows with a single event.
+      for (PmObject changedPm : event.getChangedPms()) {
+        onRowPmChange(changedPm);
+      }
+    }
+
+    private void onRowPmChange(PmObject changedPm) {
+      PmObject rowPm = changedPm;
+      while (rowPm != null && rowPm.getPmParent() != pm) {
+        rowPm = rowPm.getPmParent();
+      }
+
+      if (rowPm != null && !(rowPm instanceof PmTableCol)) {
+        long pos = rowCache.findCachedPos(rowPm);
+        if (pos >= 0) {
+          viewer.replace(rowPm, (int) pos);
+        }
+      }
+    }
+
+    /**
+     * Generates a table column and binds it to the sort command of the column PM.
+     *
+     * @param tableViewer The table viewer to add the column to.
+     * @param col The PM of the column to add.
+     * @return The added STW table column.
+     */
+    protected TableColumn makeAndBindTableColumn(TableViewer tableViewer, PmTableCol col) {
+      TableColumn column = new TableColumn(tableViewer.getTable(), SWT.LEFT);
+      column.setText(col.getPmTitle());
+      column.setToolTipText(col.getPmTooltip());
+
+      column.addListener(SWT.Selection, new Listener() {
+        @Override
+        public void handleEvent(Event event) {
+          PmTableCol colPm = (PmTableCol) event.widget.getData("pm");
+          PmCommand cmdSort = colPm.getCmdSort();
+          // The query parameter change triggers the reload.
+          if (cmdSort.isPmEnabled()) {
+            cmdSort.doIt();
+          }
+        }
+      });
+
+      return column;
+    }
+
+    /**
+     * Shows the sort order of the (first) sorted column.
+     */
+    protected void applySortIndicator() {
+      Table table = viewer.getTable();
+      for (TableColumn c : table.getColumns()) {
+        PmAttrEnum<PmSortOrder> sortOrderAttr = ((PmTableCol) c.getData("pm")).getSortOrderAttr();
+        PmSortOrder sortOrder = sortOrderAttr.getValue();
+        if (sortOrder != null && sortOrder != PmSortOrder.NEUTRAL) {
+          table.setSortColumn(c);
+          table.setSortDirection(sortOrder == PmSortOrder.ASC ? SWT.UP : SWT.DOWN);
+          return;
+        }
+      }
+      table.setSortDirection(SWT.NONE);
+    }
+
+    private PmTable<?> getPmTable() {
+      return (PmTable<?>) pm;
+    }
+
+    private void setRowCache(PageableCollectionCache<Object> newCache) {
+      if (rowCache != null) {
+        PageableCollection<Object> pc = rowCache.getPageableCollection();
+        pc.removePropertyChangeListener(PageableCollection.EVENT_ITEM_ADD, reloadListener);
+        pc.removePropertyChangeListener(PageableCollection.EVENT_REMOVE_SELECTION, reloadListener);
+        pc.getQueryParams().removePropertyChangeListener(QueryParams.PROP_EFFECTIVE_FILTER, reloadListener);
+        pc.getQueryParams().removePropertyChangeListener(QueryParams.PROP_EFFECTIVE_SORT_ORDER, reloadListener);
+      }
+
+      rowCache = newCache;
+
+      if (rowCache != null) {
+        PageableCollection<Object> pc = rowCache.getPageableCollection();
+        pc.addPropertyChangeListener(PageableCollection.EVENT_ITEM_ADD, reloadListener);
+        pc.addPropertyChangeListener(PageableCollection.EVENT_REMOVE_SELECTION, reloadListener);
+        pc.getQueryParams().addPropertyChangeListener(QueryParams.PROP_EFFECTIVE_FILTER, reloadListener);
+        pc.getQueryParams().addPropertyChangeListener(QueryParams.PROP_EFFECTIVE_SORT_ORDER, reloadListener);
+      }
+    }
+
+    /**
+     * Provides the row PMs requested by the virtual table.
+     */
+    class LazyContentProvider implements ILazyContentProvider {
+
+      @Override
+      public void updateElement(int index) {
+        Object rowPm = getRowPm(index);
+        if (rowPm != null) {
+          viewer.replace(rowPm, index);
+        }
+      }
+
+      @Override
+      public void dispose() {
+      }
+
+      @Override
+      public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+      }
+    }
+  }
+
+  /**
+   * Provides the table cell values and icons for the row PMs.
+   * <p>
+   * The cell PMs are the row PM children having the name of the column PM.
+   */
+  public class LabelProvider implements ITableLabelProvider {
+
+    private ImageRegistry imageRegistry;
+
+    public LabelProvider() {
+    }
+
+    public String getColumnText(Object rowObj, int column_index) {
+      PmObject pm = getCellPm(rowObj, column_index);
+      return (pm instanceof PmAttr<?>)
+          ? ((PmAttr<?>)pm).getValueAsString()
+          : null;
+    }
+
+    public void addListener(ILabelProviderListener ilabelproviderlistener) {
+    }
+
+    public void dispose() {
+    }
+
+    public boolean isLabelProperty(Object obj, String s) {
+      return false;
+    }
+
+    public void removeListener(ILabelProviderListener ilabelproviderlistener) {
+    }
+
+    public Image getColumnImage(Object element, int colIdx) {
+      if (imageRegistry == null)
+        return null;
+
+      PmObject cellPm = getCellPm(element, colIdx);
+      String iconPath = cellPm != null
+          ? cellPm.getPmIconPath()
+          : null;
+
+      return iconPath != null
+          ? imageRegistry.get(iconPath)
+          : null;
+    }
+
+    public ImageRegistry getImageRegistry() {
+      return imageRegistry;
+    }
+
+    public void setImageRegistry(ImageRegistry imageRegistry) {
+      this.imageRegistry = imageRegistry;
+    }
+
+    private PmObject getCellPm(Object rowPm, int colIdx) {
+      if (!(rowPm instanceof PmObject)) {
+        return null;
+      }
+      PmObject row = (PmObject) rowPm;
+      PmTable<?> table = (PmTable<?>) row.getPmParent();
+      PmTableCol colPm = table.getColumnPms().get(colIdx);
+      return PmUtil.findChildPm(row, colPm.getPmName());
+    }
+
+  }
+
+}